@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.UUID;
+
+import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
+import org.ndexbio.common.persistence.orientdb.CXNetworkLoader;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.exceptions.ObjectNotFoundException;
+import org.ndexbio.model.object.NewUser;
+import org.ndexbio.task.Configuration;
+
+/**
+ * Opens the database the benchmarks run against and loads networks into it. The server configuration is read
+ * the same way as in the database tests (the ndexConfigurationPath environment variable), but the database URL 
+ * can be overridden, so the benchmarks normally run on a throw-away memory: or plocal: database. The Solr 
+ * server in the configuration has to be reachable, because CX ingest and neighborhood queries use it.
+ *
+ */
+public class BenchmarkDatabase {
+
+	public static final String benchmarkUser = "ndexbenchmark";
+
+	// only one NdexDatabase can be open in a JVM, so it is shared by all the benchmarks of a fork.
+	private static NdexDatabase db = null;
+
+	private BenchmarkDatabase() {}
+
+	/**
+	 * @param dbURL the OrientDB URL, e.g. memory:ndexbench or plocal:/tmp/ndexbench. The URL in the 
+	 * configuration is used when it is null or empty.
+	 */
+	public static synchronized NdexDatabase open(String dbURL) throws NdexException {
+		if ( db != null)
+			return db;
+
+		Configuration configuration = Configuration.getInstance();
+		String url = dbURL == null || dbURL.isEmpty() ? configuration.getDBURL() : dbURL;
+		
+		// memory and new plocal databases are created with the default OrientDB admin account.
+		boolean localDB = url.startsWith("memory:") || url.startsWith("plocal:");
+		db = NdexDatabase.createNdexDatabase(configuration.getHostURI(), url,
+				localDB ? "admin" : configuration.getDBUser(),
+				localDB ? "admin" : configuration.getDBPasswd(), 4);
+		
+		createBenchmarkUser();
+		return db;
+	}
+
+	public static synchronized void close() {
+		if ( db != null) {
+			NdexDatabase.close();
+			db = null;
+		}
+	}
+
+	private static void createBenchmarkUser() throws NdexException {
+		try (UserDocDAO dao = new UserDocDAO(db.getAConnection())) {
+			try {
+				dao.getUserByAccountName(benchmarkUser);
+			} catch (ObjectNotFoundException e) {
+				NewUser newUser = new NewUser();
+				newUser.setAccountName(benchmarkUser);
+				newUser.setPassword(benchmarkUser);
+				newUser.setEmailAddress(benchmarkUser + "@localhost");
+				newUser.setFirstName("NDEx");
+				newUser.setLastName("Benchmark");
+				dao.createNewUser(newUser, null);
+				dao.commit();
+			}
+		}
+	}
+
+	/**
+	 * Load a CX network into the database as the benchmark user.
+	 * @return the UUID of the new network.
+	 */
+	public static UUID loadCX(byte[] cx) throws Exception {
+		try (CXNetworkLoader loader = new CXNetworkLoader(new ByteArrayInputStream(cx), benchmarkUser)) {
+			return loader.persistCXNetwork();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.ndexbio.common.cx.SyntheticCXNetworkGenerator;
+import org.ndexbio.common.models.dao.orientdb.CXNetworkExporter;
+import org.ndexbio.common.query.NetworkFilterQueryExecutorFactory;
+import org.ndexbio.model.network.query.EdgeByEdgePropertyFilter;
+import org.ndexbio.model.network.query.EdgeByNodePropertyFilter;
+import org.ndexbio.model.network.query.EdgeCollectionQuery;
+import org.ndexbio.model.network.query.PropertySpecification;
+import org.ndexbio.model.network.query.SpecMatchMode;
+import org.ndexbio.model.object.CXSimplePathQuery;
+import org.ndexbio.model.object.network.Network;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Queries on a stored network: the edge filter queries run by NetworkFilterQueryExecutor and the 
+ * neighborhood query, which is a subnetwork export (exportSubnetworkInCX) around the nodes matching a 
+ * search string. Whether the filter queries use the in-memory filter index depends on the server 
+ * configuration.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NetworkQueryBenchmark {
+
+	@Param({"memory:ndexbench"})
+	public String dbURL;
+
+	@Param({"100000"})
+	public int edges;
+
+	@Param({"1", "2"})
+	public int searchDepth;
+
+	private String networkId;
+	private EdgeCollectionQuery nodeQuery;
+	private EdgeCollectionQuery predicateQuery;
+	private CXSimplePathQuery neighborhoodQuery;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		BenchmarkDatabase.open(dbURL);
+		networkId = BenchmarkDatabase.loadCX(SyntheticNetworks.generateCX(edges)).toString();
+
+		// the first nodes of a generated network are its hubs, so they are the expensive ones to query.
+		EdgeByNodePropertyFilter nodeFilter = new EdgeByNodePropertyFilter();
+		nodeFilter.setMode(SpecMatchMode.Either);
+		nodeFilter.setPropertySpecifications(propertySpecifications("ndex:nodeName", 
+				SyntheticCXNetworkGenerator.getNodeName(1), SyntheticCXNetworkGenerator.getNodeName(2)));
+		nodeQuery = new EdgeCollectionQuery();
+		nodeQuery.setQueryName("nodes");
+		nodeQuery.setEdgeLimit(edges);
+		nodeQuery.setNodeFilter(nodeFilter);
+
+		EdgeByEdgePropertyFilter edgeFilter = new EdgeByEdgePropertyFilter();
+		edgeFilter.setPropertySpecifications(
+				propertySpecifications("ndex:predicate", "interaction1"));
+		predicateQuery = new EdgeCollectionQuery();
+		predicateQuery.setQueryName("predicate");
+		predicateQuery.setEdgeLimit(edges);
+		predicateQuery.setEdgeFilter(edgeFilter);
+
+		neighborhoodQuery = new CXSimplePathQuery();
+		neighborhoodQuery.setSearchString(SyntheticCXNetworkGenerator.getNodeName(1) + " " + 
+				SyntheticCXNetworkGenerator.getNodeName(2));
+		neighborhoodQuery.setSearchDepth(searchDepth);
+		neighborhoodQuery.setEdgeLimit(edges);
+		neighborhoodQuery.setAspects(new HashSet<>(Arrays.asList(NodesElement.ASPECT_NAME, EdgesElement.ASPECT_NAME)));
+	}
+
+	private static List<PropertySpecification> propertySpecifications(String name, String... values) {
+		List<PropertySpecification> specs = new ArrayList<>(values.length);
+		for ( String value : values) {
+			PropertySpecification spec = new PropertySpecification();
+			spec.setName(name);
+			spec.setValue(value);
+			specs.add(spec);
+		}
+		return specs;
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkDatabase.close();
+	}
+
+	@Benchmark
+	public Network filterByNodeName() throws Exception {
+		return NetworkFilterQueryExecutorFactory.createODBExecutor(networkId, nodeQuery).evaluate();
+	}
+
+	@Benchmark
+	public Network filterByPredicate() throws Exception {
+		return NetworkFilterQueryExecutorFactory.createODBExecutor(networkId, predicateQuery).evaluate();
+	}
+
+	@Benchmark
+	public void neighborhoodQuery() throws Exception {
+		try (CXNetworkExporter exporter = new CXNetworkExporter(networkId)) {
+			exporter.exportSubnetworkInCX(ByteStreams.nullOutputStream(), neighborhoodQuery, false);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.ndexbio.task.parsingengines.FileToCXConverter;
+import org.ndexbio.task.parsingengines.ParallelSifTokenizer;
+import org.ndexbio.task.parsingengines.SifCXConverter;
+import org.ndexbio.task.parsingengines.SifLineReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reading and tokenizing SIF files, and converting them to CX. None of these touch the database, so they
+ * measure the parsing alone. The plain BufferedReader/String.split loop is the way SIF files used to be read
+ * and is kept as the baseline for SifLineReader and ParallelSifTokenizer.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SifParsingBenchmark {
+
+	@Param({"10000", "200000"})
+	public int edges;
+
+	@Param({"4"})
+	public int threads;
+
+	private File sifFile;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		sifFile = SyntheticNetworks.writeSif(edges);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		sifFile.delete();
+	}
+
+	@Benchmark
+	public void bufferedReaderSplit(Blackhole bh) throws Exception {
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(new FileInputStream(sifFile), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				bh.consume(line.split("\t"));
+			}
+		}
+	}
+
+	@Benchmark
+	public void sifLineReader(Blackhole bh) throws Exception {
+		try (SifLineReader reader = new SifLineReader(sifFile)) {
+			String[] tokens;
+			while ((tokens = reader.readTokens(true)) != null) {
+				bh.consume(tokens);
+			}
+		}
+	}
+
+	@Benchmark
+	public void parallelSifTokenizer(final Blackhole bh) throws Exception {
+		// lines are handed back in file order on the calling thread.
+		new ParallelSifTokenizer(sifFile, true, threads).run(new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(ParallelSifTokenizer.Term[] terms, String line) {
+				bh.consume(terms);
+			}
+		});
+	}
+
+	@Benchmark
+	public void sifToCX() throws Exception {
+		new FileToCXConverter(new SifCXConverter(sifFile, "benchmark")).convert(ByteStreams.nullOutputStream());
+	}
+}
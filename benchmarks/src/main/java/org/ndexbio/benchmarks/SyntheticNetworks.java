@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.ndexbio.common.cx.SyntheticCXNetworkGenerator;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.parsingengines.FileToCXConverter;
+
+/**
+ * Writes the input files of the benchmarks. The SIF, XGMML and XBEL networks are generated from a fixed seed 
+ * by preferential attachment, so they have the skewed degree distribution of real interaction networks and 
+ * every run of a benchmark sees exactly the same input. CX input comes from SyntheticCXNetworkGenerator.
+ *
+ */
+public class SyntheticNetworks {
+
+	private static final long seed = 20160101L;
+
+	static final String[] predicates = {"interacts-with", "controls-state-change-of", "controls-expression-of", 
+			"in-complex-with", "controls-transport-of"};
+
+	private SyntheticNetworks() {}
+
+	/**
+	 * @return the node name used for node i, so benchmarks can build queries that match.
+	 */
+	public static String nodeName(int i) {
+		return "GENE" + i;
+	}
+
+	/**
+	 * Generate the edges of a network as (source, predicate, target) index triples. Each new node links to 
+	 * 2 existing nodes picked with a probability proportional to their degree.
+	 */
+	static int[][] generateEdges(int edgeCount) {
+		Random random = new Random(seed);
+		int[][] edges = new int[edgeCount][];
+		// every edge end point, so a uniform pick from it is a degree proportional pick of a node.
+		int[] endPoints = new int[edgeCount * 2];
+		int endPointCount = 0;
+		int nodeCount = 2;
+		
+		edges[0] = new int[] {0, 0, 1};
+		endPoints[endPointCount++] = 0;
+		endPoints[endPointCount++] = 1;
+		for ( int i = 1; i < edgeCount; i++) {
+			// a new node on every other edge, so there are about half as many nodes as edges.
+			int source = i % 2 == 1 ? nodeCount++ : endPoints[random.nextInt(endPointCount)];
+			int target = endPoints[random.nextInt(endPointCount)];
+			if ( target == source)
+				target = (target + 1) % nodeCount;
+			edges[i] = new int[] {source, random.nextInt(predicates.length), target};
+			endPoints[endPointCount++] = source;
+			endPoints[endPointCount++] = target;
+		}
+		return edges;
+	}
+
+	public static File writeSif(int edgeCount) throws IOException {
+		File f = File.createTempFile("ndexbench-" + edgeCount + "-", ".sif");
+		f.deleteOnExit();
+		try (Writer w = newWriter(f)) {
+			for ( int[] e : generateEdges(edgeCount)) {
+				w.write(nodeName(e[0]));
+				w.write('\t');
+				w.write(predicates[e[1]]);
+				w.write('\t');
+				w.write(nodeName(e[2]));
+				w.write('\n');
+			}
+		}
+		return f;
+	}
+
+	public static File writeXgmml(int edgeCount) throws IOException {
+		File f = File.createTempFile("ndexbench-" + edgeCount + "-", ".xgmml");
+		f.deleteOnExit();
+		int[][] edges = generateEdges(edgeCount);
+		int nodeCount = 0;
+		for ( int[] e : edges)
+			nodeCount = Math.max(nodeCount, Math.max(e[0], e[2]) + 1);
+
+		try (Writer w = newWriter(f)) {
+			w.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+			w.write("<graph label=\"benchmark\" directed=\"1\" xmlns=\"http://www.cs.rpi.edu/XGMML\" " +
+					"xmlns:xlink=\"http://www.w3.org/1999/xlink\">\n");
+			w.write("  <att name=\"name\" value=\"benchmark\" type=\"string\"/>\n");
+			for ( int i = 0; i < nodeCount; i++) {
+				w.write("  <node id=\"" + i + "\" label=\"" + nodeName(i) + "\">\n");
+				w.write("    <att name=\"name\" value=\"" + nodeName(i) + "\" type=\"string\"/>\n");
+				w.write("    <att name=\"degree\" value=\"" + (i % 17) + "\" type=\"integer\"/>\n");
+				w.write("    <graphics type=\"ELLIPSE\" h=\"35.0\" w=\"35.0\" x=\"" + (i % 100) * 50 + 
+						"\" y=\"" + (i / 100) * 50 + "\" fill=\"#ccccff\"/>\n");
+				w.write("  </node>\n");
+			}
+			for ( int i = 0; i < edges.length; i++) {
+				int[] e = edges[i];
+				String label = nodeName(e[0]) + " (" + predicates[e[1]] + ") " + nodeName(e[2]);
+				w.write("  <edge id=\"e" + i + "\" label=\"" + label + "\" source=\"" + e[0] + 
+						"\" target=\"" + e[2] + "\">\n");
+				w.write("    <att name=\"interaction\" value=\"" + predicates[e[1]] + "\" type=\"string\"/>\n");
+				w.write("    <att name=\"weight\" value=\"" + (i % 10) / 10.0 + "\" type=\"real\"/>\n");
+				w.write("  </edge>\n");
+			}
+			w.write("</graph>\n");
+		}
+		return f;
+	}
+
+	public static File writeXbel(int edgeCount) throws IOException {
+		File f = File.createTempFile("ndexbench-" + edgeCount + "-", ".xbel");
+		f.deleteOnExit();
+		String[] relationships = {"increases", "decreases", "directlyIncreases", "directlyDecreases", "association"};
+		
+		try (Writer w = newWriter(f)) {
+			w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+			w.write("<bel:document xmlns:bel=\"http://belframework.org/schema/1.0/xbel\">\n");
+			w.write("  <bel:header>\n    <bel:name>benchmark</bel:name>\n" + 
+					"    <bel:description>Synthetic network for benchmarks</bel:description>\n" + 
+					"    <bel:version>1.0</bel:version>\n  </bel:header>\n");
+			w.write("  <bel:namespaceGroup>\n    <bel:namespace bel:prefix=\"HGNC\" bel:resourceLocation=" + 
+					"\"http://resource.belframework.org/belframework/1.0/namespace/hgnc-approved-symbols.belns\"/>\n" + 
+					"  </bel:namespaceGroup>\n");
+			w.write("  <bel:statementGroup>\n    <bel:name>benchmark statements</bel:name>\n");
+			for ( int[] e : generateEdges(edgeCount)) {
+				w.write("    <bel:statement bel:relationship=\"" + relationships[e[1]] + "\">\n");
+				w.write("      <bel:subject>" + xbelTerm(e[0]) + "</bel:subject>\n");
+				w.write("      <bel:object>" + xbelTerm(e[2]) + "</bel:object>\n");
+				w.write("    </bel:statement>\n");
+			}
+			w.write("  </bel:statementGroup>\n</bel:document>\n");
+		}
+		return f;
+	}
+
+	private static String xbelTerm(int node) {
+		return "<bel:term bel:function=\"proteinAbundance\"><bel:parameter bel:ns=\"HGNC\">" + nodeName(node) + 
+				"</bel:parameter></bel:term>";
+	}
+
+	/**
+	 * @return a network in CX from SyntheticCXNetworkGenerator, with about half as many nodes as edges and
+	 * a few attributes, citations and supports on them.
+	 */
+	public static byte[] generateCX(int edgeCount) throws IOException, NdexException {
+		SyntheticCXNetworkGenerator generator = new SyntheticCXNetworkGenerator();
+		generator.setSeed(seed);
+		generator.setNodeCount(Math.max(2, edgeCount / 2));
+		generator.setEdgeCount(edgeCount);
+		generator.setCitationCount(Math.max(1, edgeCount / 100));
+		generator.setEdgeCitationDensity(0.5);
+		generator.setSupportCount(Math.max(1, edgeCount / 50));
+		generator.setEdgeSupportDensity(0.2);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new FileToCXConverter(generator).convert(out);
+		return out.toByteArray();
+	}
+
+	private static Writer newWriter(File f) throws IOException {
+		return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.task.parsingengines.XbelParser;
+import org.ndexbio.task.parsingengines.XgmmlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Uploading XGMML and XBEL files. These parsers still write straight to the database through 
+ * NdexPersistenceService, so each invocation creates a network and is measured one upload at a time.
+ * A real file can be used instead of the generated one with -p xgmmlFile=... or -p xbelFile=... .
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XmlParsingBenchmark {
+
+	@Param({"memory:ndexbench"})
+	public String dbURL;
+
+	@Param({"10000"})
+	public int edges;
+
+	@Param({""})
+	public String xgmmlFile;
+
+	@Param({""})
+	public String xbelFile;
+
+	private NdexDatabase db;
+	private File xgmml;
+	private File xbel;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		db = BenchmarkDatabase.open(dbURL);
+		xgmml = xgmmlFile.isEmpty() ? SyntheticNetworks.writeXgmml(edges) : new File(xgmmlFile);
+		xbel = xbelFile.isEmpty() ? SyntheticNetworks.writeXbel(edges) : new File(xbelFile);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		BenchmarkDatabase.close();
+		if ( xgmmlFile.isEmpty())
+			xgmml.delete();
+		if ( xbelFile.isEmpty())
+			xbel.delete();
+	}
+
+	@Benchmark
+	public void parseXgmml() throws Exception {
+		new XgmmlParser(xgmml.getAbsolutePath(), BenchmarkDatabase.benchmarkUser, db, "benchmark", 
+				xgmml.getName()).parseFile();
+	}
+
+	@Benchmark
+	public void parseXbel() throws Exception {
+		new XbelParser(xbel.getAbsolutePath(), BenchmarkDatabase.benchmarkUser, db, xbel.getName()).parseFile();
+	}
+}
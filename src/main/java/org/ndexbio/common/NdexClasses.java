@@ -121,6 +121,10 @@ public interface NdexClasses {
     public static final String Element_SID = "sid";
     
     public static final String Index_network_name_desc = "idx_network-name-desc";
+    // composite index (isComplete, isDeleted, visibility, modificationTime) for network listing.
+    public static final String Index_network_listing = "idx-network-listing";
+    // composite index (status, isDeleted) for task status queries and purging.
+    public static final String Index_task_status = "idx-task-status";
     
     // propertiedObject
  //   public static final String E_ndexProperties        = "ndexProps";
@@ -50,8 +50,10 @@ import org.ndexbio.model.cx.NodeSupportLinksElement;
 import org.ndexbio.model.cx.Provenance;
 import org.ndexbio.model.cx.ReifiedEdgeElement;
 import org.ndexbio.model.cx.SupportElement;
+import org.ndexbio.common.models.dao.orientdb.NetworkACLCache;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.orientdb.NdexSchemaManager;
+import org.ndexbio.task.Configuration;
 
 import com.orientechnologies.orient.core.db.ODatabaseRecordThreadLocal;
 import com.orientechnologies.orient.core.db.OPartitionedDatabasePool;
@@ -75,6 +77,9 @@ public class NdexDatabase {
 
 	private static final String seqField= "f1";
 	
+	// set to true to load the permissions of all accounts into the NetworkACLCache when the server starts.
+	private static final String rebuildACLCacheProp = "Rebuild-ACL-Cache-On-Startup";
+	
 	private int batchCounter;
 	
 	private long internalCounterBase;
@@ -128,6 +133,19 @@ public class NdexDatabase {
 		
 		URIPrefix = HostURI;
 		
+		if ( rebuildACLCacheOnStartup())
+			NetworkACLCache.INSTANCE.rebuild(ndexDatabase);
+		
+	}
+	
+	private static boolean rebuildACLCacheOnStartup() {
+		try {
+			String v = Configuration.getInstance().getProperty(rebuildACLCacheProp);
+			return v != null && Boolean.parseBoolean(v.trim());
+		} catch (NdexException e) {
+			logger.warning("Failed to read " + rebuildACLCacheProp + " from configuration, ACL cache is loaded on demand. " + e.getMessage());
+			return false;
+		}
 	}
 	
 	public static synchronized long getCommitId () {
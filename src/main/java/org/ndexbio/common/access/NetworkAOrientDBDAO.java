@@ -31,6 +31,8 @@
 package org.ndexbio.common.access;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Logger;
@@ -42,7 +44,6 @@ import org.ndexbio.common.models.dao.orientdb.Helper;
 import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
 import org.ndexbio.common.solr.SingleNetworkSolrIdxManager;
 import org.ndexbio.model.exceptions.NdexException;
-import org.ndexbio.model.object.network.Edge;
 import org.ndexbio.model.object.network.Network;
 import org.ndexbio.model.object.network.NetworkSourceFormat;
 import org.ndexbio.model.object.network.Node;
@@ -169,6 +170,7 @@ public class NetworkAOrientDBDAO extends NdexAOrientDBDAO  {
 	
 	private static Set<ORID> getNeighborHood(Set<ORID> nodeRIDs,NetworkDocDAO dao, Network resultNetwork, int edgeLimit ,boolean upstream, Set<ORID> traversedEdges) throws NdexException {
 		Set<ORID> newNodes = new TreeSet<>();
+		List<ODocument> newEdgeDocs = new ArrayList<>();
 		for ( ORID nodeRID: nodeRIDs) {
 			ODocument nodeDoc = new ODocument(nodeRID);
 			for ( ODocument edgeDoc :
@@ -177,8 +179,7 @@ public class NetworkAOrientDBDAO extends NdexAOrientDBDAO  {
 				    		 : Helper.getDocumentLinks( nodeDoc, "out_", NdexClasses.Edge_E_subject) )) {
 				if( !traversedEdges.contains(edgeDoc.getIdentity())) { //new edge found
 					traversedEdges.add(edgeDoc.getIdentity());
-					Edge e = dao.getEdgeFromDocument(edgeDoc, resultNetwork);
-					resultNetwork.getEdges().put(e.getId(), e);
+					newEdgeDocs.add(edgeDoc);
 					ODocument newNodeDoc = (ODocument)(upstream ? 
 							         edgeDoc.field("in_" + NdexClasses.Edge_E_subject) : 
 							         edgeDoc.field("out_"+ NdexClasses.Edge_E_object) );
@@ -192,6 +193,7 @@ public class NetworkAOrientDBDAO extends NdexAOrientDBDAO  {
 				}
 			}
 		}
+		dao.addEdgesToNetwork(newEdgeDocs, resultNetwork);
 		return newNodes;
 	}
 
@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.cx;
+
+import java.io.IOException;
+
+import org.cxio.core.interfaces.AspectElement;
+import org.cxio.metadata.MetaDataCollection;
+import org.ndexbio.model.exceptions.NdexException;
+
+/**
+ * Converts a network in some other format to a stream of CX aspect elements. The elements are pushed to
+ * an ElementSink as the source is read, so a converter can feed CXNetworkLoader (or a CX writer) without 
+ * the network ever being held in memory.
+ */
+public interface CXNetworkConverter {
+
+	/**
+	 * Receives the aspect elements produced by a converter, in the order they are produced.
+	 */
+	interface ElementSink {
+		void write(AspectElement element) throws NdexException, IOException;
+	}
+
+	/**
+	 * Read the source and write all the aspect elements of the network to the sink.
+	 */
+	void convert(ElementSink sink) throws NdexException, IOException;
+
+	/**
+	 * @return the metadata of the converted network, with the id counters and element counts of the 
+	 *   aspects written. Only available after convert() has returned.
+	 */
+	MetaDataCollection getMetaData();
+
+}
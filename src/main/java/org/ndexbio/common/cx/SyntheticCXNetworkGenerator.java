@@ -0,0 +1,413 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.cx;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.cxio.aspects.datamodels.ATTRIBUTE_DATA_TYPE;
+import org.cxio.aspects.datamodels.EdgeAttributesElement;
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NetworkAttributesElement;
+import org.cxio.aspects.datamodels.NodeAttributesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.cxio.core.interfaces.AspectElement;
+import org.cxio.metadata.MetaDataCollection;
+import org.cxio.metadata.MetaDataElement;
+import org.cxio.misc.OpaqueElement;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.cx.aspect.CXMetaDataManager;
+import org.ndexbio.model.cx.CitationElement;
+import org.ndexbio.model.cx.EdgeCitationLinksElement;
+import org.ndexbio.model.cx.EdgeSupportLinksElement;
+import org.ndexbio.model.cx.SupportElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.parsingengines.FileToCXConverter;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Preconditions;
+
+/**
+ * Generates random networks of a given size and shape as a stream of CX aspect elements, for load and 
+ * benchmark testing. Nothing but a few counters is kept in memory, so networks of any size can be written 
+ * to a file (see main) or loaded with CXNetworkLoader.
+ * <p>
+ * Edge end points are drawn from a power law (the Chung-Lu model): node i is picked with a probability 
+ * proportional to (i+1)^(-1/(exponent-1)), so node degrees follow P(k) ~ k^-exponent and the first nodes 
+ * are the hubs. An exponent of 0 gives a uniform random graph instead. Each aspect is generated in a pass
+ * of its own from the same seed, so the aspects come out as single fragments and the same settings always
+ * produce the same network.
+ */
+public class SyntheticCXNetworkGenerator implements CXNetworkConverter {
+
+	private long nodeCount = 1000;
+	private long edgeCount = 5000;
+	private double degreeExponent = 2.5;
+	private int nodeAttributeCount = 2;
+	private int edgeAttributeCount = 1;
+	private int attributeCardinality = 100;
+	private int citationCount = 0;
+	private double edgeCitationDensity = 0;
+	private int supportCount = 0;
+	private double edgeSupportDensity = 0;
+	private int opaqueAspectCount = 0;
+	private long opaqueElementCount = 100;
+	private long seed = 1;
+
+	private ElementSink sink;
+	// aspect name => number of elements written.
+	private Map<String, Long> elementCounts;
+	private MetaDataCollection metadata;
+
+	public SyntheticCXNetworkGenerator() {
+		metadata = null;
+	}
+
+	public long getNodeCount() { return nodeCount; }
+	public void setNodeCount(long nodeCount) {
+		Preconditions.checkArgument(nodeCount >= 2, "A network needs at least 2 nodes.");
+		this.nodeCount = nodeCount;
+	}
+
+	public long getEdgeCount() { return edgeCount; }
+	public void setEdgeCount(long edgeCount) {
+		Preconditions.checkArgument(edgeCount >= 0, "The edge count can't be negative.");
+		this.edgeCount = edgeCount;
+	}
+
+	/**
+	 * @param degreeExponent the exponent of the power law degree distribution; it has to be greater than 2, 
+	 *   or 0 for a uniform random graph. Real networks are usually between 2 and 3.
+	 */
+	public double getDegreeExponent() { return degreeExponent; }
+	public void setDegreeExponent(double degreeExponent) {
+		Preconditions.checkArgument(degreeExponent == 0 || degreeExponent > 2, 
+				"The degree exponent has to be greater than 2, or 0 for a uniform distribution.");
+		this.degreeExponent = degreeExponent;
+	}
+
+	public int getNodeAttributeCount() { return nodeAttributeCount; }
+	public void setNodeAttributeCount(int nodeAttributeCount) { this.nodeAttributeCount = nodeAttributeCount; }
+
+	public int getEdgeAttributeCount() { return edgeAttributeCount; }
+	public void setEdgeAttributeCount(int edgeAttributeCount) { this.edgeAttributeCount = edgeAttributeCount; }
+
+	/**
+	 * @param attributeCardinality the number of distinct values of each node and edge attribute.
+	 */
+	public int getAttributeCardinality() { return attributeCardinality; }
+	public void setAttributeCardinality(int attributeCardinality) {
+		Preconditions.checkArgument(attributeCardinality > 0, "The attribute cardinality has to be positive.");
+		this.attributeCardinality = attributeCardinality;
+	}
+
+	public int getCitationCount() { return citationCount; }
+	public void setCitationCount(int citationCount) { this.citationCount = citationCount; }
+
+	/**
+	 * @param edgeCitationDensity the fraction of the edges that cite one of the citations.
+	 */
+	public double getEdgeCitationDensity() { return edgeCitationDensity; }
+	public void setEdgeCitationDensity(double edgeCitationDensity) {
+		Preconditions.checkArgument(edgeCitationDensity >= 0 && edgeCitationDensity <= 1, 
+				"The edge citation density has to be between 0 and 1.");
+		this.edgeCitationDensity = edgeCitationDensity;
+	}
+
+	public int getSupportCount() { return supportCount; }
+	public void setSupportCount(int supportCount) { this.supportCount = supportCount; }
+
+	/**
+	 * @param edgeSupportDensity the fraction of the edges that link to one of the supports.
+	 */
+	public double getEdgeSupportDensity() { return edgeSupportDensity; }
+	public void setEdgeSupportDensity(double edgeSupportDensity) {
+		Preconditions.checkArgument(edgeSupportDensity >= 0 && edgeSupportDensity <= 1, 
+				"The edge support density has to be between 0 and 1.");
+		this.edgeSupportDensity = edgeSupportDensity;
+	}
+
+	public int getOpaqueAspectCount() { return opaqueAspectCount; }
+	public void setOpaqueAspectCount(int opaqueAspectCount) { this.opaqueAspectCount = opaqueAspectCount; }
+
+	/**
+	 * @param opaqueElementCount the number of elements in each opaque aspect.
+	 */
+	public long getOpaqueElementCount() { return opaqueElementCount; }
+	public void setOpaqueElementCount(long opaqueElementCount) { this.opaqueElementCount = opaqueElementCount; }
+
+	public long getSeed() { return seed; }
+	public void setSeed(long seed) { this.seed = seed; }
+
+	public static String getNodeName(long nodeId) {
+		return "N" + nodeId;
+	}
+
+	public static String getOpaqueAspectName(int i) {
+		return "syntheticAspect" + i;
+	}
+
+	@Override
+	public void convert(ElementSink elementSink) throws NdexException, IOException {
+		this.sink = elementSink;
+		this.elementCounts = new TreeMap<>();
+		this.metadata = null;
+
+		write(new NetworkAttributesElement(null, NdexClasses.Network_P_name, 
+				"Synthetic network (" + nodeCount + " nodes, " + edgeCount + " edges)"));
+		write(new NetworkAttributesElement(null, NdexClasses.Network_P_desc, 
+				"Generated with seed " + seed + " and degree exponent " + degreeExponent + "."));
+
+		writeNodes();
+		writeNodeAttributes();
+		writeCitations();
+		writeSupports();
+		writeEdges();
+		writeEdgeAttributes();
+		writeEdgeCitations();
+		writeEdgeSupports();
+		writeOpaqueAspects();
+
+		this.metadata = createMetaData();
+	}
+
+	@Override
+	public MetaDataCollection getMetaData() {
+		return metadata;
+	}
+
+	private void write(AspectElement element) throws NdexException, IOException {
+		Long cnt = elementCounts.get(element.getAspectName());
+		elementCounts.put(element.getAspectName(), cnt == null ? 1L : cnt + 1);
+		sink.write(element);
+	}
+
+	// the random numbers of each pass, so a pass doesn't depend on what the others have drawn.
+	private Random passRandom(int pass) {
+		return new Random(seed * 31 + pass);
+	}
+
+	private void writeNodes() throws NdexException, IOException {
+		for ( long id = 1; id <= nodeCount; id++)
+			write(new NodesElement(id, getNodeName(id), null));
+	}
+
+	private void writeNodeAttributes() throws NdexException, IOException {
+		Random random = passRandom(1);
+		for ( long id = 1; id <= nodeCount; id++) {
+			for ( int i = 0; i < nodeAttributeCount; i++)
+				write(new NodeAttributesElement(null, id, "nodeAttribute" + i, 
+						"value" + random.nextInt(attributeCardinality), ATTRIBUTE_DATA_TYPE.STRING));
+		}
+	}
+
+	private void writeCitations() throws NdexException, IOException {
+		for ( long id = 1; id <= citationCount; id++) {
+			CitationElement citation = new CitationElement();
+			citation.setId(id);
+			citation.setTitle("Synthetic citation " + id);
+			citation.setCitationType("pmid");
+			citation.setIdentifier(String.valueOf(10000000 + id));
+			write(citation);
+		}
+	}
+
+	private void writeSupports() throws NdexException, IOException {
+		for ( long id = 1; id <= supportCount; id++) {
+			SupportElement support = new SupportElement();
+			support.setId(id);
+			support.setText("Synthetic evidence text " + id + ".");
+			if ( citationCount > 0)
+				support.setCitationId((id - 1) % citationCount + 1);
+			write(support);
+		}
+	}
+
+	private void writeEdges() throws NdexException, IOException {
+		Random random = passRandom(2);
+		for ( long id = 1; id <= edgeCount; id++) {
+			long source = randomNode(random);
+			long target = randomNode(random);
+			if ( target == source)
+				target = target % nodeCount + 1;
+			write(new EdgesElement(id, source, target, "interaction" + random.nextInt(5)));
+		}
+	}
+
+	/**
+	 * @return the id of a node drawn from the degree distribution.
+	 */
+	long randomNode(Random random) {
+		if ( degreeExponent == 0)
+			return (long) (random.nextDouble() * nodeCount) + 1;
+		
+		// inverse of the CDF of the weight x^-a on [1, nodeCount+1).
+		double a = 1 / (degreeExponent - 1);
+		double b = 1 - a;
+		double x = Math.pow(1 + random.nextDouble() * (Math.pow(nodeCount + 1, b) - 1), 1 / b);
+		return Math.min((long) x, nodeCount);
+	}
+
+	private void writeEdgeAttributes() throws NdexException, IOException {
+		Random random = passRandom(3);
+		for ( long id = 1; id <= edgeCount; id++) {
+			for ( int i = 0; i < edgeAttributeCount; i++)
+				write(new EdgeAttributesElement(null, id, "edgeAttribute" + i, 
+						"value" + random.nextInt(attributeCardinality), ATTRIBUTE_DATA_TYPE.STRING));
+		}
+	}
+
+	private void writeEdgeCitations() throws NdexException, IOException {
+		if ( citationCount == 0 || edgeCitationDensity == 0)
+			return;
+		Random random = passRandom(4);
+		for ( long id = 1; id <= edgeCount; id++) {
+			if ( random.nextDouble() < edgeCitationDensity)
+				write(new EdgeCitationLinksElement(id, 
+						Collections.singletonList(Long.valueOf(random.nextInt(citationCount) + 1))));
+		}
+	}
+
+	private void writeEdgeSupports() throws NdexException, IOException {
+		if ( supportCount == 0 || edgeSupportDensity == 0)
+			return;
+		Random random = passRandom(5);
+		for ( long id = 1; id <= edgeCount; id++) {
+			if ( random.nextDouble() < edgeSupportDensity)
+				write(new EdgeSupportLinksElement(id, 
+						Collections.singletonList(Long.valueOf(random.nextInt(supportCount) + 1))));
+		}
+	}
+
+	private void writeOpaqueAspects() throws NdexException, IOException {
+		Random random = passRandom(6);
+		for ( int i = 0; i < opaqueAspectCount; i++) {
+			String aspectName = getOpaqueAspectName(i);
+			for ( long j = 0; j < opaqueElementCount; j++) {
+				ObjectNode data = JsonNodeFactory.instance.objectNode();
+				data.put("node", randomNode(random));
+				data.put("x", random.nextDouble() * 1000);
+				data.put("y", random.nextDouble() * 1000);
+				write(new OpaqueElement(aspectName, data));
+			}
+		}
+	}
+
+	private MetaDataCollection createMetaData() throws NdexException {
+		CXMetaDataManager manager = CXMetaDataManager.getInstance();
+		MetaDataCollection md = new MetaDataCollection();
+		for ( Map.Entry<String, Long> e : elementCounts.entrySet()) {
+			MetaDataElement element;
+			if ( manager.isNdexSupportedAspect(e.getKey())) {
+				element = manager.createCXMataDataTemplateForAspects(Collections.singleton(e.getKey()))
+						.getMetaDataElement(e.getKey());
+			} else {
+				element = new MetaDataElement();
+				element.setName(e.getKey());
+				element.setVersion("1.0");
+				element.setConsistencyGroup(1L);
+			}
+			element.setElementCount(e.getValue());
+			md.add(element);
+		}
+		md.setIdCounter(NodesElement.ASPECT_NAME, nodeCount);
+		if ( edgeCount > 0)
+			md.setIdCounter(EdgesElement.ASPECT_NAME, edgeCount);
+		if ( citationCount > 0)
+			md.setIdCounter(CitationElement.ASPECT_NAME, (long) citationCount);
+		if ( supportCount > 0)
+			md.setIdCounter(SupportElement.ASPECT_NAME, (long) supportCount);
+		return md;
+	}
+
+	/**
+	 * Write a synthetic network to a CX file, or to stdout. The settings are given as name=value pairs 
+	 * named after the setters, e.g. nodeCount=1000000 edgeCount=5000000 citationCount=1000.
+	 */
+	public static void main(String[] args) throws IOException, NdexException {
+		SyntheticCXNetworkGenerator generator = new SyntheticCXNetworkGenerator();
+		String output = null;
+		try {
+			for ( String arg : args) {
+				int i = arg.indexOf('=');
+				if ( i < 0) {
+					output = arg;
+					continue;
+				}
+				generator.setOption(arg.substring(0, i), arg.substring(i + 1));
+			}
+		} catch (IllegalArgumentException e) {
+			System.out.println("Error: " + e.getMessage() + "\n\n" + 
+					"Usage: SyntheticCXNetworkGenerator [<name>=<value> ...] [<output file>]\n\n" + 
+					"Settings: nodeCount, edgeCount, degreeExponent, nodeAttributeCount, edgeAttributeCount,\n" + 
+					"attributeCardinality, citationCount, edgeCitationDensity, supportCount, edgeSupportDensity,\n" + 
+					"opaqueAspectCount, opaqueElementCount and seed.\n" + 
+					"The CX network is written to stdout if no output file is given or it is \"-\".");
+			System.exit(1);
+		}
+
+		FileToCXConverter worker = new FileToCXConverter(generator);
+		boolean toStdout = output == null || output.equals("-");
+		try (OutputStream out = new BufferedOutputStream(
+				toStdout ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(output), 1 << 16)) {
+			worker.convert(out);
+		} finally {
+			worker.printStatistics(System.err);
+		}
+	}
+
+	private void setOption(String name, String value) {
+		switch (name) {
+		case "nodeCount": setNodeCount(Long.parseLong(value)); break;
+		case "edgeCount": setEdgeCount(Long.parseLong(value)); break;
+		case "degreeExponent": setDegreeExponent(Double.parseDouble(value)); break;
+		case "nodeAttributeCount": setNodeAttributeCount(Integer.parseInt(value)); break;
+		case "edgeAttributeCount": setEdgeAttributeCount(Integer.parseInt(value)); break;
+		case "attributeCardinality": setAttributeCardinality(Integer.parseInt(value)); break;
+		case "citationCount": setCitationCount(Integer.parseInt(value)); break;
+		case "edgeCitationDensity": setEdgeCitationDensity(Double.parseDouble(value)); break;
+		case "supportCount": setSupportCount(Integer.parseInt(value)); break;
+		case "edgeSupportDensity": setEdgeSupportDensity(Double.parseDouble(value)); break;
+		case "opaqueAspectCount": setOpaqueAspectCount(Integer.parseInt(value)); break;
+		case "opaqueElementCount": setOpaqueElementCount(Long.parseLong(value)); break;
+		case "seed": setSeed(Long.parseLong(value)); break;
+		default: throw new IllegalArgumentException("Unknown setting " + name + ".");
+		}
+	}
+}
@@ -37,6 +37,7 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 
+import org.ndexbio.common.models.dao.orientdb.NetworkElementStream;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.network.BaseTerm;
 import org.ndexbio.model.object.network.Edge;
@@ -52,6 +53,10 @@ public class SIFNetworkExporter {
 	
 	private Network network;
 	
+	// when set, edges are streamed from the db and referenced elements are looked up on demand instead of 
+	// being taken from network.
+	private NetworkElementStream stream;
+	
 	private Set<String> uniqueNodeNames;
 	private Map<Long, String> nodeNameMap;
  	
@@ -62,21 +67,35 @@ public class SIFNetworkExporter {
 		uniqueNodeNames = new TreeSet<>();
 	}
 
+	public SIFNetworkExporter (NetworkElementStream stream) {
+		this((Network)null);
+		this.stream = stream;
+	}
+
 	public void exportNetwork(Writer writer) throws NdexException, IOException {
-			for ( Edge edge: network.getEdges().values()) {
-				writer.write(getNodeSIFId(edge.getSubjectId()).replace('\t', ' ').replace('\n', ' '));
-				writer.write("\t");
-				writer.write(getBaseTermName(edge.getPredicateId(),true));
-				writer.write("\t");
-				writer.write(getNodeSIFId(edge.getObjectId()));
-				writer.write("\n");
-			}
-			writer.flush();
+		if ( stream != null) {
+			NetworkElementStream.ElementIterator<Edge> edges = stream.edges();
+			while ( edges.hasNext()) 
+				writeEdge(writer, edges.next());
+		} else {
+			for ( Edge edge: network.getEdges().values()) 
+				writeEdge(writer, edge);
+		}
+		writer.flush();
+	}
+
+	private void writeEdge(Writer writer, Edge edge) throws NdexException, IOException {
+		writer.write(getNodeSIFId(edge.getSubjectId()).replace('\t', ' ').replace('\n', ' '));
+		writer.write("\t");
+		writer.write(getBaseTermName(edge.getPredicateId(),true));
+		writer.write("\t");
+		writer.write(getNodeSIFId(edge.getObjectId()));
+		writer.write("\n");
 	}
 
 
 	private String getNodeSIFId(long nodeId) throws NdexException {
-	    Node node = network.getNodes().get(nodeId);
+	    Node node = stream != null ? stream.getNode(nodeId) : network.getNodes().get(nodeId);
 	    Long termId = node.getRepresents();
 	    if ( termId != null ) {
 	    	return getSIFIdFromTerm(termId);
@@ -114,6 +133,15 @@ public class SIFNetworkExporter {
 	
 	
 	private String getSIFIdFromTerm(Long termId) throws NdexException {
+		if ( stream != null) {
+			Term t = stream.getTerm(termId);
+			if ( t instanceof BaseTerm)
+				return getBaseTermName(t.getId(), true);
+			if ( t instanceof FunctionTerm)
+				return generateFunctionTermSIFId((FunctionTerm)t);
+			return generateReifiedEdgeSIFId((ReifiedEdgeTerm)t);
+		}
+		
     	Term termObj = network.getBaseTerms().get(termId);
     	if ( termObj !=null) {  // is base term.
     		return  getBaseTermName(termObj.getId() , true) ;
@@ -150,7 +178,7 @@ public class SIFNetworkExporter {
 	private String generateReifiedEdgeSIFId(ReifiedEdgeTerm reTerm) throws NdexException {
 		StringBuffer sb = new StringBuffer("EDGE:");
 		
-		Edge e = network.getEdges().get(reTerm.getEdgeId());
+		Edge e = stream != null ? stream.getEdge(reTerm.getEdgeId()) : network.getEdges().get(reTerm.getEdgeId());
 		sb.append("<");
 		sb.append(getNodeSIFId(e.getSubjectId()));
 		sb.append("><");
@@ -162,10 +190,11 @@ public class SIFNetworkExporter {
 		return sb.toString();
 	}
 	
-	private  String getBaseTermName(long bTermId, boolean includeNameSpace) {
-		BaseTerm bterm = network.getBaseTerms().get(bTermId);
+	private  String getBaseTermName(long bTermId, boolean includeNameSpace) throws NdexException {
+		BaseTerm bterm = stream != null ? stream.getBaseTerm(bTermId) : network.getBaseTerms().get(bTermId);
 		if ( includeNameSpace && bterm.getNamespaceId()  > 0) {
-			Namespace ns = network.getNamespaces().get(bterm.getNamespaceId());
+			Namespace ns = stream != null ? stream.getNamespace(bterm.getNamespaceId()) : 
+				network.getNamespaces().get(bterm.getNamespaceId());
 			if (ns.getPrefix()!=null)
 				return ns.getPrefix() + ":" + bterm.getName().replace('\t', ' ').replace('\n', ' ');
 			return ns.getUri() + ":" + bterm.getName().replace('\t', ' ').replace('\n', ' ');
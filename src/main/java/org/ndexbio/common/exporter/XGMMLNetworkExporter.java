@@ -30,48 +30,40 @@
  */
 package org.ndexbio.common.exporter;
 
-import java.io.ByteArrayInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 
 import org.ndexbio.common.NdexClasses;
-import org.ndexbio.common.access.NdexAOrientDBConnectionPool;
-import org.ndexbio.common.models.dao.orientdb.NetworkDAO;
+import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
+import org.ndexbio.common.models.dao.orientdb.NetworkElementStream;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
 import org.ndexbio.model.object.PropertiedObject;
-import org.ndexbio.model.object.SimplePropertyValuePair;
 import org.ndexbio.model.object.network.BaseTerm;
 import org.ndexbio.model.object.network.Edge;
 import org.ndexbio.model.object.network.Namespace;
-import org.ndexbio.model.object.network.Network;
+import org.ndexbio.model.object.network.NetworkSummary;
 import org.ndexbio.model.object.network.Node;
 import org.ndexbio.xgmml.parser.handler.HandleGraph;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.xml.sax.SAXException;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 
+/**
+ * Writes a network as XGMML. Nodes and edges are read from the database through a NetworkElementStream and 
+ * written out with an XMLStreamWriter as they are read, so neither the network nor an XML document of it is 
+ * held in memory.
+ */
 public class XGMMLNetworkExporter {
 
-	private NetworkDAO dao;
+	private NetworkDocDAO dao;
 	
 	static final private String networkTag = "graph";
-	static final private String defaultNS = "http://www.cs.rpi.edu/XGMML";
-	static final private String xmlns = "http://www.w3.org/2000/xmlns/";
 	static final private String attTag = "att";
 	static final private String nodeTag = "node";
 	static final private String edgeTag = "edge";
@@ -84,212 +76,186 @@ public class XGMMLNetworkExporter {
 	static final private String docVersionAttr = "documentVersion";
 	static final private String NA = "N/A";
 	
-	private DocumentBuilder docBuilder;
-	public XGMMLNetworkExporter (ODatabaseDocumentTx db) throws ParserConfigurationException {
-		dao = new NetworkDAO (db);
-		
-		DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-		docBuilder = docFactory.newDocumentBuilder();
+	private XMLStreamWriter writer;
+	private NetworkElementStream stream;
+	
+	public XGMMLNetworkExporter (ODatabaseDocumentTx db) {
+		dao = new NetworkDocDAO (db);
 	}
 
-	public void exportNetwork(UUID networkId, OutputStream output) throws NdexException, 
-		TransformerException, ClassCastException {
-		Network network = dao.getNetworkById(networkId);
-		
-		Document doc = buildXMLDocument(network);
-		
-	/*	
-
-		DOMImplementationRegistry registry = DOMImplementationRegistry.newInstance();
-
-		DOMImplementationLS impl =   (DOMImplementationLS)registry.getDOMImplementation("LS");
-
-
-		LSSerializer writer = impl.createLSSerializer();
-		LSOutput output1 = impl.createLSOutput();
-		output1.setByteStream(output );
-		writer.write(doc, output1);
-		*/
+	public void exportNetwork(UUID networkId, OutputStream output) throws NdexException, XMLStreamException {
+		stream = new NetworkElementStream(dao, networkId);
+		writer = XMLOutputFactory.newInstance().createXMLStreamWriter(output, "UTF-8");
 		
-		// write the content into a output stream
-		TransformerFactory transformerFactory = TransformerFactory.newInstance();
-		Transformer transformer = transformerFactory.newTransformer();
-		transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-		DOMSource source = new DOMSource(doc);
-		StreamResult result = new StreamResult(output);
-		transformer.transform(source, result); 
+		try {
+			writer.writeStartDocument("UTF-8", "1.0");
+			writeNetwork(stream.getNetworkSummary());
+			writer.writeEndDocument();
+			writer.flush();
+		} finally {
+			writer.close();
+			writer = null;
+			stream = null;
+		}
 	}
 	
-	private Document buildXMLDocument(Network network) {
+	/**
+	 * Declare the namespaces of the network on the current element. rdf and dc are always declared; a namespace 
+	 * stored with the network replaces the default declaration of its prefix, so each prefix is declared once.
+	 * The default namespace is stored under the prefix xmlns.
+	 */
+	static void writeNamespaces(XMLStreamWriter writer, NetworkElementStream.ElementIterator<Namespace> namespaces) 
+			throws XMLStreamException, NdexException {
+		Map<String, String> declarations = new LinkedHashMap<>();
+		declarations.put("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+		declarations.put("dc", "http://purl.org/dc/elements/1.1/");
+		while ( namespaces.hasNext()) {
+			Namespace ns = namespaces.next();
+			if ( ns.getPrefix() != null && ns.getUri() != null)
+				declarations.put(ns.getPrefix(), ns.getUri());
+		}
+		
+		for ( Map.Entry<String, String> e : declarations.entrySet()) {
+			if ( e.getKey().equals("xmlns"))
+				writer.writeDefaultNamespace(e.getValue());
+			else
+				writer.writeNamespace(e.getKey(), e.getValue());
+		}
+	}
+
+	private void writeNetwork(NetworkSummary network) throws XMLStreamException, NdexException {
 
 		// a flags for the RDF block. We assume there was no RDF block if dc:date is missing in the network attribute.
 		boolean hasDate=false;
 		
-		// root elements
-		Document doc = docBuilder.newDocument();	
-		
-		Element networkElement = doc.createElement(networkTag);
-		doc.appendChild(networkElement);
+		writer.writeStartElement(networkTag);
 		
 		// set label
-		networkElement.setAttribute(HandleGraph.label, network.getName());
+		writeAttribute(HandleGraph.label, network.getName());
 		
-		//namespaces
-		networkElement.setAttributeNS(xmlns, "xmlns:rdf" ,"http://www.w3.org/1999/02/22-rdf-syntax-ns#");		
-		networkElement.setAttributeNS(xmlns, "xmlns:dc" ,"http://purl.org/dc/elements/1.1/");		
-        
-		// add the rest. The might overwrite the defaults.
-		for ( Namespace ns : network.getNamespaces().values()) {
-			if ( ns.getPrefix().equals("xmlns")) {
-				if ( ns.getUri().equals(defaultNS)) {
-				}
-				networkElement.setAttributeNS(xmlns, ns.getPrefix(), ns.getUri());
-			} else {
-				networkElement.setAttributeNS(xmlns, "xmlns:"+ ns.getPrefix(), ns.getUri());		
-			}
-		} 
+		for ( NdexPropertyValuePair p : network.getProperties() ) {
+			if ( isExported(p) && p.getPredicateString().equals("directed"))
+				writeAttribute(p.getPredicateString(), p.getValue());
+		}
 		
+		writeNamespaces(writer, stream.namespaces());
 		
-		Element rdfElement = addBuiltInAttributesInGraph(doc, networkElement, network.getURI()); 
+		writeBuiltInAttributesInGraph(network.getURI()); 
 		
-		//network properties
+		//network properties with a prefix go in the RDF block.
 		for ( NdexPropertyValuePair p : network.getProperties() ) {
-			
-		  if ( !p.getPredicateString().equals(NdexClasses.Network_P_source_format) && 
-			   !p.getPredicateString().matches( "(.+:)?" + docVersionAttr + "$") ) {	
-			if ( ! p.getPredicateString().contains(":") ) {
-				if( p.getPredicateString().equals("directed"))
-					networkElement.setAttribute(p.getPredicateString(),p.getValue());
-				else  {
-					Element networkAttr = doc.createElement(attTag);
-					networkElement.appendChild(networkAttr);
-					networkAttr.setAttribute(nameAttr, p.getPredicateString());
-					networkAttr.setAttribute(valueAttr, p.getValue());
-					networkAttr.setAttribute(typeAttr, p.getDataType().toLowerCase());
-				}
-			} else {
-				Element metaData = doc.createElement(p.getPredicateString());
-				rdfElement.appendChild(metaData);
-				metaData.setTextContent(p.getValue());
+			if ( isExported(p) && p.getPredicateString().contains(":") ) {
+				writeTextElement(p.getPredicateString(), p.getValue());
 				if (p.getPredicateString().toLowerCase().equals("dc:date"))
 					hasDate=true;
 			}
-		  }
 		}
 
 		if ( !hasDate) {
-			Element dcType = doc.createElement("dc:type");
-			rdfElement.appendChild(dcType);
-			dcType.setTextContent(NA);
-
-			Element dcDate = doc.createElement("dc:date");
-			rdfElement.appendChild(dcDate);
-			dcDate.setTextContent("");
-			
-			Element dcID = doc.createElement("dc:identifier");
-			rdfElement.appendChild(dcID);
-			dcID.setTextContent(NA);
-			
-			Element dcsrc = doc.createElement("dc:source");
-			rdfElement.appendChild(dcsrc);
-			dcsrc.setTextContent("http://www.cytoscape.org/");
-			
-			Element dcfmt = doc.createElement("dc:format");
-			rdfElement.appendChild(dcfmt);
-			dcfmt.setTextContent("Cytoscape-XGMML");
+			writeTextElement("dc:type", NA);
+			writeTextElement("dc:date", "");
+			writeTextElement("dc:identifier", NA);
+			writeTextElement("dc:source", "http://www.cytoscape.org/");
+			writeTextElement("dc:format", "Cytoscape-XGMML");
 		}
 		
+		writeTextElement("dc:title", network.getName());
+		
+		// set dc:description to N/A so that it is consistent with Cytoscape.
+		writeTextElement("dc:description", 
+				(network.getDescription() == null || network.getDescription().length() ==0) ? 
+				NA : network.getDescription()	);
+
+		// close rdf:Description, rdf:RDF and the networkMetadata att.
+		endElement(3);
+		endElement(2);
+		endElement(1);
+		
+		//the other network properties
+		for ( NdexPropertyValuePair p : network.getProperties() ) {
+			if ( isExported(p) && !p.getPredicateString().contains(":") && !p.getPredicateString().equals("directed")) {
+				startElement(attTag, 1);
+				writeAttribute(nameAttr, p.getPredicateString());
+				writeAttribute(valueAttr, p.getValue());
+				writeAttribute(typeAttr, p.getDataType().toLowerCase());
+				writer.writeEndElement();
+			}
+		}
 
 		//set name attribute for the network
-		Element networkAttr = doc.createElement(attTag);
-		networkElement.appendChild(networkAttr);
-		networkAttr.setAttribute(nameAttr, nameAttr);
-		networkAttr.setAttribute(valueAttr, network.getName());
-		networkAttr.setAttribute(typeAttr, "string");
-
+		startElement(attTag, 1);
+		writeAttribute(nameAttr, nameAttr);
+		writeAttribute(valueAttr, network.getName());
+		writeAttribute(typeAttr, "string");
+		writer.writeEndElement();
 		
 		//set description attribute for the network
 		if ( network.getDescription() != null && !network.getDescription().equals(NA)) {
-			Element descElt = doc.createElement(attTag);
-			networkElement.appendChild(descElt);
-			descElt.setAttribute(nameAttr, descAttr);
-			descElt.setAttribute(valueAttr, network.getDescription());
-			descElt.setAttribute(typeAttr, "string");
+			startElement(attTag, 1);
+			writeAttribute(nameAttr, descAttr);
+			writeAttribute(valueAttr, network.getDescription());
+			writeAttribute(typeAttr, "string");
+			writer.writeEndElement();
 	    }
 		
-		Element title = doc.createElement("dc:title");
-		rdfElement.appendChild(title);
-		title.setTextContent(network.getName());
-		
-		// set dc:description to N/A so that it is consistent with Cytoscape.
-		Element desc = doc.createElement("dc:description");
-		rdfElement.appendChild(desc);
-		desc.setTextContent(
-				(network.getDescription() == null || network.getDescription().length() ==0) ? 
-				NA : network.getDescription()	);
-		
-		//network presentation property
-/*		for ( SimplePropertyValuePair p : network.getPresentationProperties()) {
-			if ( isXGMMLGraph ) {
-				org.w3c.dom.Node e = getElementFromString(doc,p.getValue());
-				networkElement.appendChild(e);
-			} else { 
-				//TODO: for non XGMML graphs, just treat them as properties.
-			}	
-		} */
-		
 		//Nodes
-		for (Node node : network.getNodes().values()) {
-			Element nodeEle = doc.createElement(nodeTag);
-			networkElement.appendChild(nodeEle);
-			nodeEle.setAttribute("id", String.valueOf(node.getId()));
-			nodeEle.setAttribute("name", "base"); //don't know the schema, this is the file
-			if ( node.getName() != null ) 
-				nodeEle.setAttribute("name", node.getName());
+		NetworkElementStream.ElementIterator<Node> nodes = stream.nodes();
+		while ( nodes.hasNext()) {
+			Node node = nodes.next();
+			startElement(nodeTag, 1);
+			writeAttribute("id", String.valueOf(node.getId()));
+			writeAttribute("name", node.getName() != null ? node.getName() : "base"); //don't know the schema, this is the file
 			
-			addPropertiesToElement(node, nodeEle, doc);
+			writeProperties(node);
+			endElement(1);
 		}
 
-		for (Edge edge : network.getEdges().values()) {
-			Element edgeEle = doc.createElement(edgeTag);
-			networkElement.appendChild(edgeEle);
-			edgeEle.setAttribute("source", String.valueOf(edge.getSubjectId()));
-			edgeEle.setAttribute("target", String.valueOf(edge.getObjectId()));
+		NetworkElementStream.ElementIterator<Edge> edges = stream.edges();
+		while ( edges.hasNext()) {
+			Edge edge = edges.next();
+			startElement(edgeTag, 1);
+			writeAttribute("source", String.valueOf(edge.getSubjectId()));
+			writeAttribute("target", String.valueOf(edge.getObjectId()));
 			
-			String pp = getBaseTermStr(network, edge.getPredicateId());
+			String pp = getBaseTermStr(edge.getPredicateId());
 			
-			String srcName = network.getNodes().get(edge.getSubjectId()).getName();
+			String srcName = stream.getNode(edge.getSubjectId()).getName();
 			if ( srcName == null)
-				srcName = String.valueOf(edge.getObjectId());
-			String targetName = network.getNodes().get(edge.getObjectId()).getName();
+				srcName = String.valueOf(edge.getSubjectId());
+			String targetName = stream.getNode(edge.getObjectId()).getName();
 			if ( targetName == null)
 				targetName = String.valueOf(edge.getObjectId());
 			
 			String ss = srcName + " (" + pp+ ") " + targetName;
-			edgeEle.setAttribute("id", ss);
-			edgeEle.setAttribute("label", ss);
-			Element ppElt = doc.createElement(attTag);
-			edgeEle.appendChild(ppElt);
-			ppElt.setAttribute("label", "interaction");
-			ppElt.setAttribute("name", "interaction");
-			ppElt.setAttribute("value", pp);
-			ppElt.setAttribute("type", "string");
-/*			edgeEle.setAttribute("id", String.valueOf(node.getId()));
-			if ( node.getName() != null ) 
-				nodeEle.setAttribute("name", node.getName());
-*/			
-			addPropertiesToElement(edge, edgeEle, doc);
+			writeAttribute("id", ss);
+			writeAttribute("label", ss);
+			
+			startElement(attTag, 2);
+			writeAttribute("label", "interaction");
+			writeAttribute("name", "interaction");
+			writeAttribute("value", pp);
+			writeAttribute("type", "string");
+			writer.writeEndElement();
+			
+			writeProperties(edge);
+			endElement(1);
 		} 
 
- 
-		return doc;
-		
+		endElement(0);
 	}
 
-	private static String getBaseTermStr(Network n, long termId) {
-		BaseTerm bt = n.getBaseTerms().get(termId);
+	/**
+	 * @return false for the network properties that are not exported: the source format and the document version.
+	 */
+	private static boolean isExported(NdexPropertyValuePair p) {
+		return !p.getPredicateString().equals(NdexClasses.Network_P_source_format) && 
+			   !p.getPredicateString().matches( "(.+:)?" + docVersionAttr + "$");
+	}
+
+	private String getBaseTermStr(long termId) throws NdexException {
+		BaseTerm bt = stream.getBaseTerm(termId);
 		if (bt.getNamespaceId() >0 ) {
-			Namespace ns = n.getNamespaces().get(bt.getNamespaceId());
+			Namespace ns = stream.getNamespace(bt.getNamespaceId());
 			if ( ns.getPrefix()!= null)
 				return ns.getPrefix() + ":" + bt.getName();
 			return ns.getUri() + bt.getName();
@@ -298,89 +264,82 @@ public class XGMMLNetworkExporter {
 		
 	}
 	
-	private static void addPropertiesToElement(PropertiedObject obj, Element parent, Document doc) {
+	private void writeProperties(PropertiedObject obj) throws XMLStreamException {
 		for ( NdexPropertyValuePair p : obj.getProperties() ) {
 		  if ( ! p.getPredicateString().equals(labelAttr)) {
-			Element metaData = doc.createElement(attTag);
-			parent.appendChild(metaData);
-			metaData.setAttribute("label", p.getPredicateString());
-			metaData.setAttribute("name", p.getPredicateString()); 
+			startElement(attTag, 2);
+			writeAttribute("label", p.getPredicateString());
+			writeAttribute("name", p.getPredicateString()); 
 			String dataType = p.getDataType();
 		    if ( dataType !=null && dataType.equals("double"))
 		    	dataType = "real";
-		    metaData.setAttribute("type", dataType);
+		    writeAttribute("type", dataType);
 	        if ( p.getDataType() !=null && !p.getDataType().equals("list")) { 
-				metaData.setAttribute("value", p.getValue());
+				writeAttribute("value", p.getValue());
 	        } else {
 	        	
 	        	String[] tokens = p.getValue().split(",(?=([^\']*\'[^\']*\')*[^\']*$)");
                 for ( String v : tokens) {
-                	Element valElement = doc.createElement(attTag);
-                	metaData.appendChild(valElement);
-                	valElement.setAttribute("value", v.substring(1, v.length()-1));
-                	valElement.setAttribute("type", "string");
+                	startElement(attTag, 3);
+                	writeAttribute("value", v.substring(1, v.length()-1));
+                	writeAttribute("type", "string");
+                	writer.writeEndElement();
                 }
+                newLine(2);
 	        }
+	        writer.writeEndElement();
 		  }
 		}
 
-/*		Ignore graphics properties for now.
-		for ( SimplePropertyValuePair p : obj.getPresentationProperties() ) {
-		  if ( p.getName().equals("graphics") ) {
-			  org.w3c.dom.Node n = getElementFromString(doc, p.getValue());
-			  parent.appendChild(n);
-		  } else {
-			
-		  }	  
-		}  */
+		//	Graphics properties are not exported for now.
 	}
 	
 	/**
-	 * Add built-in elements for Graph node. 
-	 * @param graph
-	 * @return The "RDF" element which network metadata can be inserted under.
+	 * Write the built-in elements of the graph and start the networkMetadata att, leaving the "RDF" 
+	 * description element open so the network metadata can be written in it.
 	 */
-	private static Element addBuiltInAttributesInGraph(Document doc, Element networkElement, String networkURI) {
+	private void writeBuiltInAttributesInGraph(String networkURI) throws XMLStreamException {
 
-		Element docVersion = doc.createElement(attTag);
-		networkElement.appendChild(docVersion);
-		docVersion.setAttribute(docVersionAttr, documentVersion);
+		startElement(attTag, 1);
+		writeAttribute(docVersionAttr, documentVersion);
+		writer.writeEndElement();
 		
-		Element metadata = doc.createElement(attTag);
-		networkElement.appendChild(metadata);
-		metadata.setAttribute("name", "networkMetadata");
+		startElement(attTag, 1);
+		writeAttribute("name", "networkMetadata");
 
-		Element rdf = doc.createElement("rdf:RDF");
-		metadata.appendChild(rdf);
+		startElement("rdf:RDF", 2);
 		
-		Element rdfDesc = doc.createElement("rdf:Description");
-		rdf.appendChild(rdfDesc);
-		rdfDesc.setAttribute("rdf:about", networkURI);
-		return rdfDesc;
+		startElement("rdf:Description", 3);
+		writeAttribute("rdf:about", networkURI);
 	}
 	
-/*	
-	private org.w3c.dom.Node getElementFromString(Document doc, String xmlString) throws SAXException, IOException {
-		Element e= this.docBuilder.parse(new ByteArrayInputStream(xmlString.getBytes())).getDocumentElement();
-		org.w3c.dom.Node e2 = doc.importNode(e, true);
-		
-		return e2;
+	// the DOM builder used to set null values as empty strings.
+	private void writeAttribute(String name, String value) throws XMLStreamException {
+		writer.writeAttribute(name, value == null ? "" : value);
+	}
+	
+	private void writeTextElement(String name, String text) throws XMLStreamException {
+		startElement(name, 4);
+		if ( text != null)
+			writer.writeCharacters(text);
+		writer.writeEndElement();
 	}
-*/	
-/*	
-	public static  void main (String[] args) throws NdexException, ParserConfigurationException, TransformerException, ClassCastException, SAXException, IOException {
-		ODatabaseDocumentTx db = NdexAOrientDBConnectionPool.getInstance().acquire();
-		
-		XGMMLNetworkExporter exporter = new XGMMLNetworkExporter(db);
-		
-		FileOutputStream fo = new FileOutputStream("C:/tmp/galout.xgmml");
-		exporter.exportNetwork(UUID.fromString("07e0a47f-3d78-11e4-8be6-001f3bca188f"),
-				fo);
-		fo.close();
-	//	exporter.exportNetwork(UUID.fromString("1449182e-39f6-11e4-b298-90b11c72aefa"), System.out);
-		
-		db.close();
 
+	// the elements are indented by their depth, to keep the output as readable as the transformer made it.
+	private void startElement(String name, int depth) throws XMLStreamException {
+		newLine(depth);
+		writer.writeStartElement(name);
+	}
+	
+	private void endElement(int depth) throws XMLStreamException {
+		newLine(depth);
+		writer.writeEndElement();
+	}
+	
+	private void newLine(int depth) throws XMLStreamException {
+		writer.writeCharacters("\n");
+		for ( int i = 0; i < depth; i++)
+			writer.writeCharacters("  ");
 	}
-*/	
+	
 }
@@ -0,0 +1,315 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * In memory search index on the names of users and groups, used by the user and group searches.
+ * 
+ * The lower case account name, first and last name of users and account name and group name of groups are broken 
+ * into 3-grams. A search string of 3 or more characters is answered by intersecting the posting lists of its 3-grams 
+ * and checking the remaining candidates, so the result is the same as a case insensitive LIKE '%term%' on the 
+ * name fields without scanning the account classes. Shorter search strings are checked against the name fields 
+ * held in memory.
+ * 
+ * The index is loaded from the db on first use and kept current by the DAOs that create, update and delete 
+ * accounts once their transactions commit. Accounts of a DAO that is closed without an explicit commit are 
+ * reloaded from the db on the next search. The deleted flag is checked again on the loaded records before a page
+ * is cut, so an entry that is out of date never shifts the page.
+ */
+public class AccountSearchIndex {
+
+	private static final Logger logger = Logger.getLogger(AccountSearchIndex.class.getName());
+
+	static final int gramSize = 3;
+
+	private static final AccountSearchIndex instance = new AccountSearchIndex();
+
+	private static class Entry {
+		final String className;
+		final long cTime;
+		final String[] names;
+
+		Entry(String className, long cTime, String[] names) {
+			this.className = className;
+			this.cTime = cTime;
+			this.names = names;
+		}
+
+		boolean matches(String searchStr) {
+			for ( String n : names) {
+				if ( n.contains(searchStr))
+					return true;
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Loads the record of an account.
+	 */
+	interface AccountLoader {
+		ODocument load(ORID rid);
+	}
+
+	private final Map<ORID, Entry> entries;
+	private final Map<String, Set<ORID>> grams;
+	// accounts to reload from the db before the next search.
+	private final Set<ORID> stale;
+	private boolean loaded;
+
+	AccountSearchIndex() {
+		entries = new HashMap<>();
+		grams = new HashMap<>();
+		stale = new HashSet<>();
+		loaded = false;
+	}
+
+	public static AccountSearchIndex getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Find the accounts of the given class whose names contain searchStr. 
+	 * @param db connection used to load the index on first use, and the records of the matching accounts.
+	 * @param className NdexClasses.User or NdexClasses.Group
+	 * @param searchStr lower case search string. An empty string matches all accounts.
+	 * @param restrictTo if not null, only accounts in this set are returned.
+	 * @param skip number of matching accounts to skip.
+	 * @param top max number of accounts to return.
+	 * @return records of the matching accounts that are not deleted, newest account first.
+	 */
+	public List<ODocument> search(final ODatabaseDocumentTx db, String className, String searchStr, 
+			Set<ORID> restrictTo, int skip, int top) {
+		AccountLoader loader = new AccountLoader() {
+			@Override
+			public ODocument load(ORID rid) {
+				return db.load(rid);
+			}
+		};
+		List<ORID> matches;
+		synchronized (this) {
+			if ( !loaded) 
+				load(db);
+			else if ( !stale.isEmpty())
+				refreshStale(loader);
+			matches = find(className, searchStr, restrictTo, 0, Integer.MAX_VALUE);
+		}
+		return loadPage(matches, loader, skip, top);
+	}
+
+	/**
+	 * Load the records of the matches in order, leaving out the deleted ones before counting skip and top.
+	 */
+	List<ODocument> loadPage(List<ORID> matches, AccountLoader loader, int skip, int top) {
+		List<ODocument> result = new ArrayList<>(Math.max(0, Math.min(top, matches.size())));
+		int live = 0;
+		for ( ORID rid : matches) {
+			if ( result.size() >= top)
+				break;
+			ODocument doc = loader.load(rid);
+			Boolean isDeleted = doc == null ? null : (Boolean)doc.field(NdexClasses.ExternalObj_isDeleted);
+			if ( doc == null || (isDeleted != null && isDeleted.booleanValue())) {
+				refreshLater(rid);
+				continue;
+			}
+			if ( live++ >= skip)
+				result.add(doc);
+		}
+		return result;
+	}
+
+	/**
+	 * Reload the account from the db before the next search.
+	 */
+	public synchronized void refreshLater(ORID rid) {
+		if ( loaded && rid != null && rid.isPersistent())
+			stale.add(rid);
+	}
+
+	private void refreshStale(AccountLoader loader) {
+		for ( ORID rid : stale) {
+			ODocument doc = loader.load(rid);
+			if ( doc == null)
+				remove(rid);
+			else
+				update(doc);
+		}
+		stale.clear();
+	}
+
+	/**
+	 * Add, update or remove the account in the index, depending on its current state.
+	 */
+	public synchronized void update(ODocument accountDoc) {
+		if ( !loaded) return;   // will be picked up when the index is loaded.
+
+		Boolean isDeleted = accountDoc.field(NdexClasses.ExternalObj_isDeleted);
+		if ( isDeleted != null && isDeleted.booleanValue()) 
+			remove(accountDoc.getIdentity());
+		else
+			put(accountDoc);
+	}
+
+	/**
+	 * Drop the index. It will be reloaded on the next search.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		grams.clear();
+		stale.clear();
+		loaded = false;
+	}
+
+	private void load(ODatabaseDocumentTx db) {
+		long t0 = System.currentTimeMillis();
+		for ( String className : new String[] {NdexClasses.User, NdexClasses.Group}) {
+			for ( ODocument doc : db.browseClass(className)) {
+				Boolean isDeleted = doc.field(NdexClasses.ExternalObj_isDeleted);
+				if ( isDeleted == null || !isDeleted.booleanValue())
+					put(doc);
+			}
+		}
+		loaded = true;
+		logger.info("Account search index loaded with " + entries.size() + " accounts in " 
+				+ (System.currentTimeMillis() - t0) + " ms.");
+	}
+
+	private void put(ODocument doc) {
+		String className = doc.getClassName();
+		Date cTime = doc.field(NdexClasses.ExternalObj_cTime);
+		String[] names;
+		if ( NdexClasses.Group.equals(className)) 
+			names = new String[] { (String)doc.field(NdexClasses.account_P_accountName), 
+					(String)doc.field(NdexClasses.GRP_P_NAME) };
+		else
+			names = new String[] { (String)doc.field(NdexClasses.account_P_accountName),
+					(String)doc.field("firstName"), (String)doc.field("lastName") };
+		put(doc.getIdentity(), className, cTime == null ? 0 : cTime.getTime(), names);
+	}
+
+	void put(ORID rid, String className, long cTime, String... names) {
+		remove(rid);
+		List<String> lowerNames = new ArrayList<>(names.length);
+		for ( String n : names) {
+			if ( n != null)
+				lowerNames.add(n.toLowerCase());
+		}
+		Entry e = new Entry(className, cTime, lowerNames.toArray(new String[lowerNames.size()]));
+		entries.put(rid, e);
+		for ( String g : getGrams(e.names)) {
+			Set<ORID> posting = grams.get(g);
+			if ( posting == null) {
+				posting = new HashSet<>();
+				grams.put(g, posting);
+			}
+			posting.add(rid);
+		}
+	}
+
+	void remove(ORID rid) {
+		Entry e = entries.remove(rid);
+		if ( e == null) return;
+		for ( String g : getGrams(e.names)) {
+			Set<ORID> posting = grams.get(g);
+			if ( posting != null) {
+				posting.remove(rid);
+				if ( posting.isEmpty())
+					grams.remove(g);
+			}
+		}
+	}
+
+	List<ORID> find(String className, String searchStr, Set<ORID> restrictTo, int skip, int top) {
+		Collection<ORID> candidates = restrictTo != null ? restrictTo : entries.keySet();
+
+		if ( searchStr.length() >= gramSize) {
+			// start from the shortest posting list of the search string's grams.
+			Set<ORID> shortest = null;
+			for ( String g : getGrams(searchStr)) {
+				Set<ORID> posting = grams.get(g);
+				if ( posting == null)
+					return new ArrayList<>();
+				if ( shortest == null || posting.size() < shortest.size())
+					shortest = posting;
+			}
+			if ( shortest.size() < candidates.size())
+				candidates = shortest;
+		}
+
+		List<ORID> matches = new ArrayList<>();
+		for ( ORID rid : candidates) {
+			Entry e = entries.get(rid);
+			if ( e != null && e.className.equals(className) && 
+					(restrictTo == null || restrictTo.contains(rid)) && e.matches(searchStr))
+				matches.add(rid);
+		}
+
+		Collections.sort(matches, new Comparator<ORID>() {
+			@Override
+			public int compare(ORID o1, ORID o2) {
+				int c = Long.compare(entries.get(o2).cTime, entries.get(o1).cTime);
+				return c != 0 ? c : o1.compareTo(o2);
+			}
+		});
+
+		int start = Math.max(0, skip);
+		if ( start >= matches.size())
+			return new ArrayList<>();
+		return new ArrayList<>(matches.subList(start, Math.min(matches.size(), start + top)));
+	}
+
+	static Set<String> getGrams(String... strs) {
+		Set<String> result = new HashSet<>();
+		for ( String s : strs) {
+			for ( int i = 0; i + gramSize <= s.length(); i++)
+				result.add(s.substring(i, i + gramSize));
+		}
+		return result;
+	}
+}
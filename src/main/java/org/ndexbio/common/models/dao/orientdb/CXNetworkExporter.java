@@ -63,6 +63,7 @@ import org.ndexbio.common.access.NetworkAOrientDBDAO;
 import org.ndexbio.common.cx.aspect.CXMetaDataManager;
 import org.ndexbio.common.cx.aspect.GeneralAspectFragmentWriter;
 import org.ndexbio.common.solr.SingleNetworkSolrIdxManager;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.cx.BELNamespaceElement;
 import org.ndexbio.model.cx.CXSimpleAttribute;
 import org.ndexbio.model.cx.CitationElement;
@@ -155,10 +156,12 @@ public class CXNetworkExporter extends SingleNetworkDAO {
            
         
         for ( ODocument doc : getNetworkElements(NdexClasses.Network_E_Nodes)) {
+        	CancellationToken.checkpoint(1);
         	writeNodeInCX(doc, cxwtr,/* repIdSet,*/ citationIdMap, supportIdMap); 
         }        
         
         for ( ODocument doc : getNetworkElements(NdexClasses.Network_E_Edges)) {
+        	CancellationToken.checkpoint(1);
         	writeEdgeInCX(doc,cxwtr, citationIdMap, supportIdMap);
         }
         
@@ -878,7 +881,7 @@ public class CXNetworkExporter extends SingleNetworkDAO {
     }
 
 
-	private static CxWriter getNdexCXWriter(OutputStream out, boolean use_default_pretty_printer) throws IOException {
+	public static CxWriter getNdexCXWriter(OutputStream out, boolean use_default_pretty_printer) throws IOException {
         CxWriter cxwtr = CxWriter.createInstance(out, use_default_pretty_printer);
         
         GeneralAspectFragmentWriter cfw = new GeneralAspectFragmentWriter(CitationElement.ASPECT_NAME);
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.ndexbio.common.NdexClasses;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Resolves the elements referenced by a window of edges and nodes in a few batched reads.
+ * 
+ * The ids of the referenced base terms, function terms, reified edge terms, citations, supports and namespaces are 
+ * collected first, then each element type is looked up with a single multi-key query on its id index and the 
+ * records are loaded in rid order. Elements referenced by the loaded records (e.g. the namespace of a base term or 
+ * the citation of a support) are resolved in the following rounds. 
+ * 
+ * A resolver only lives for the duration of one call. It is not thread safe.
+ */
+class ElementBatchResolver {
+
+	// element class -> id index. Node and edge documents are reached through links, so they are not listed.
+	private static final String[][] idIndexes = {
+		{ NdexClasses.BaseTerm, NdexClasses.Index_bterm_id },
+		{ NdexClasses.FunctionTerm, NdexClasses.Index_function_id },
+		{ NdexClasses.ReifiedEdgeTerm, NdexClasses.Index_reifiededge_id },
+		{ NdexClasses.Citation, NdexClasses.Index_citation_id },
+		{ NdexClasses.Support, NdexClasses.Index_support_id },
+		{ NdexClasses.Namespace, NdexClasses.Index_ns_id }
+	};
+
+	private final ODatabaseDocumentTx db;
+	
+	private final Map<String, Set<Long>> pending;
+	private final Map<String, Map<Long, ODocument>> resolved;
+
+	ElementBatchResolver(ODatabaseDocumentTx db) {
+		this.db = db;
+		pending = new HashMap<>();
+		resolved = new HashMap<>();
+	}
+
+	void addEdge(ODocument edgeDoc) {
+		add(NdexClasses.BaseTerm, (Long)edgeDoc.field(NdexClasses.Edge_P_predicateId));
+		addAll(NdexClasses.Citation, edgeDoc.<Collection<Long>>field(NdexClasses.Citation));
+		addAll(NdexClasses.Support, edgeDoc.<Collection<Long>>field(NdexClasses.Support));
+		
+		ODocument subject = edgeDoc.field("in_" + NdexClasses.Edge_E_subject);
+		if ( subject != null) addNode(subject);
+		ODocument object = edgeDoc.field("out_" + NdexClasses.Edge_E_object);
+		if ( object != null) addNode(object);
+	}
+
+	void addNode(ODocument nodeDoc) {
+		Long representsId = nodeDoc.field(NdexClasses.Node_P_represents);
+		if ( representsId != null) {
+			String termType = nodeDoc.field(NdexClasses.Node_P_representTermType);
+			if ( termType != null)
+				add(termType, representsId);
+		}
+		addAll(NdexClasses.BaseTerm, nodeDoc.<Collection<Long>>field(NdexClasses.Node_P_alias));
+		addAll(NdexClasses.BaseTerm, nodeDoc.<Collection<Long>>field(NdexClasses.Node_P_relatedTo));
+		addAll(NdexClasses.Citation, nodeDoc.<Collection<Long>>field(NdexClasses.Citation));
+		addAll(NdexClasses.Support, nodeDoc.<Collection<Long>>field(NdexClasses.Support));
+	}
+
+	/**
+	 * Look up all collected ids. Ids collected from the loaded records are looked up in later rounds until 
+	 * nothing new is found.
+	 */
+	void resolve() {
+		while ( !pending.isEmpty()) {
+			Map<String, Set<Long>> round = new HashMap<>(pending);
+			pending.clear();
+			for ( String[] classIndex : idIndexes) {
+				Set<Long> ids = round.get(classIndex[0]);
+				if ( ids != null && !ids.isEmpty())
+					fetch(classIndex[0], classIndex[1], ids);
+			}
+		}
+	}
+
+	/**
+	 * @return the document of the given element, or null if it was not resolved by this resolver.
+	 */
+	ODocument get(String className, long id) {
+		Map<Long, ODocument> docs = resolved.get(className);
+		return docs == null ? null : docs.get(id);
+	}
+
+	private void fetch(String className, String indexName, Set<Long> ids) {
+		OIndex<?> idx = db.getMetadata().getIndexManager().getIndex(indexName);
+		if ( idx == null) return;   // fall back to single lookups in the dao.
+
+		List<OIdentifiable> rids = new ArrayList<>(ids.size());
+		OIndexCursor cursor = idx.iterateEntries(ids, true);
+		Map.Entry<Object, OIdentifiable> entry;
+		while ( (entry = cursor.nextEntry()) != null) 
+			rids.add(entry.getValue());
+
+		// load in storage order so records in the same cluster are read sequentially.
+		Collections.sort(rids);
+
+		Map<Long, ODocument> docs = getResolved(className);
+		for ( OIdentifiable r : rids) {
+			ODocument doc = r.getRecord();
+			if ( doc == null) continue;
+			docs.put((Long)doc.field(NdexClasses.Element_ID), doc);
+			addDependents(className, doc);
+		}
+	}
+
+	private void addDependents(String className, ODocument doc) {
+		switch (className) {
+		case NdexClasses.BaseTerm: 
+			Long nsId = doc.field(NdexClasses.BTerm_NS_ID);
+			if ( nsId != null && nsId.longValue() > 0)
+				add(NdexClasses.Namespace, nsId);
+			break;
+		case NdexClasses.FunctionTerm:
+			add(NdexClasses.BaseTerm, (Long)doc.field(NdexClasses.BaseTerm));
+			break;
+		case NdexClasses.Support:
+			add(NdexClasses.Citation, (Long)doc.field(NdexClasses.Citation));
+			break;
+		default:
+			break;
+		}
+	}
+
+	private Map<Long, ODocument> getResolved(String className) {
+		Map<Long, ODocument> docs = resolved.get(className);
+		if ( docs == null) {
+			docs = new HashMap<>();
+			resolved.put(className, docs);
+		}
+		return docs;
+	}
+
+	private void add(String className, Long id) {
+		if ( id == null) return;
+		Map<Long, ODocument> docs = resolved.get(className);
+		if ( docs != null && docs.containsKey(id)) return;
+		Set<Long> ids = pending.get(className);
+		if ( ids == null) {
+			ids = new TreeSet<>();
+			pending.put(className, ids);
+		}
+		ids.add(id);
+	}
+
+	private void addAll(String className, Collection<Long> ids) {
+		if ( ids == null) return;
+		for ( Long id : ids)
+			add(className, id);
+	}
+}
@@ -57,6 +57,7 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 public class GroupDAO extends GroupDocDAO {
 	
 	private OrientGraph graph;
+	private PendingCacheUpdates pendingCacheUpdates = new PendingCacheUpdates();
 	private static final Logger logger = Logger.getLogger(GroupDAO.class.getName());
 
 	/**************************************************************************
@@ -129,6 +130,7 @@ public class GroupDAO extends GroupDocDAO {
 			    			NdexClasses.ExternalObj_isDeleted, false);
 			
 				group = group.save();
+				updateAccountIndexOnCommit(group);
 				
 				OrientVertex vGroup = graph.getVertex(group);
 
@@ -142,6 +144,7 @@ public class GroupDAO extends GroupDocDAO {
 		   				vAdmin.reload();
 		   			}
 		   		}
+		   		pendingCacheUpdates.invalidate(admin.getIdentity());
 
 		   		logger.info("A new group with accountName "
 							+ newGroup.getAccountName() 
@@ -228,6 +231,7 @@ public class GroupDAO extends GroupDocDAO {
 	   						NdexClasses.ExternalObj_mTime, new Date(),
 	   						NdexClasses.account_P_accountName, null,
 	   						NdexClasses.account_P_oldAcctName, acctName).save();
+	   				updateAccountIndexOnCommit(group);
 	  				break;
 	   			} catch(ONeedRetryException	e)	{
 	   				logger.warning("Retry update " + e.getMessage());
@@ -332,6 +336,7 @@ public class GroupDAO extends GroupDocDAO {
 						vMember.getRecord().reload();
 		   			}
 		   		}
+		   		pendingCacheUpdates.addGroup(vMember.getIdentity(), vGroup.getIdentity());
 
 				logger.info("Added membership edge between group "
 				+ (String) group.field("accountName")
@@ -408,6 +413,7 @@ public class GroupDAO extends GroupDocDAO {
 					if( ( (OrientVertex) e.getVertex(Direction.OUT) ).getIdentity().equals( vMember.getIdentity() ) ) 
 						graph.removeEdge(e);
 				}
+				pendingCacheUpdates.removeGroup(vMember.getIdentity(), vGroup.getIdentity());
 				logger.info("removed member if it was a member");
 				
 			} else {
@@ -433,11 +439,23 @@ public class GroupDAO extends GroupDocDAO {
 	@Override
 	public void commit() {
 		this.graph.commit();
+		accountUpdatesCommitted();
+		pendingCacheUpdates.committed();
 	}
 	
+	@Override
+	public void rollback() {
+		this.graph.rollback();
+		accountUpdatesRolledBack();
+		pendingCacheUpdates.rolledBack();
+	}
+
 	@Override
 	public void close() {
 		this.graph.shutdown();
+		accountUpdatesClosed();
+		if ( !pendingCacheUpdates.isEmpty())
+			pendingCacheUpdates.closed();
 	}
 	
 	
@@ -499,6 +517,7 @@ public class GroupDAO extends GroupDocDAO {
 					NdexClasses.ExternalObj_mTime, new Date());
 
 			group = group.save();
+			updateAccountIndexOnCommit(group);
 			logger.info("Updated group profile with UUID " + groupId);
 			
 			return getGroupFromDocument(group);
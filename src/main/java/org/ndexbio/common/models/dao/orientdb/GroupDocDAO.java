@@ -31,7 +31,9 @@
 package org.ndexbio.common.models.dao.orientdb;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Logger;
 
@@ -50,6 +52,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.tinkerpop.blueprints.Direction;
 
@@ -135,9 +138,7 @@ public class GroupDocDAO extends OrientdbDAO {
 		
 		Preconditions.checkArgument(null != simpleQuery, "Search parameters are required");
 
-		String traversePermission;
-		OSQLSynchQuery<ODocument> query;
-		Iterable<ODocument> groups;
+		String[] traversePermissions;
 		final List<Group> foundgroups = new ArrayList<>();
 		final int startIndex = skipBlocks * blockSize;
 		
@@ -145,62 +146,31 @@ public class GroupDocDAO extends OrientdbDAO {
 			simpleQuery.setSearchString("");
 		
 		if( simpleQuery.getPermission() == null ) 
-			traversePermission = "out_groupadmin, out_member";
+			traversePermissions = new String[] {NdexClasses.GRP_E_admin, NdexClasses.GRP_E_member};
 		else 
-			traversePermission = "out_"+simpleQuery.getPermission().name().toLowerCase();
+			traversePermissions = new String[] {simpleQuery.getPermission().name().toLowerCase()};
 		
 		simpleQuery.setSearchString(simpleQuery.getSearchString().toLowerCase().trim());
 		
 		try {
+			// groups of the user are taken from the links of the user record and handed to the index as a filter.
+			Set<ORID> userGroups = null;
 			if(!Strings.isNullOrEmpty(simpleQuery.getAccountName())) {
 				ODocument nUser = this.getRecordByAccountName(simpleQuery.getAccountName(), NdexClasses.User);
 				
 				if(nUser == null) 
 					throw new NdexException("Invalid accountName to filter by");
 				
-				String traverseRID = nUser.getIdentity().toString();
-				query = new OSQLSynchQuery<>("SELECT FROM"
-						+ " (TRAVERSE "+traversePermission+" FROM"
-			  				+ " " + traverseRID
-			  				+ " WHILE $depth <=1)"
-			  			+ " WHERE @class = '"+ NdexClasses.Group +"'"
-			  			+ " AND ( " + NdexClasses.ExternalObj_isDeleted + " = false)" 
-			  			+ " AND (accountName.toLowerCase() LIKE '%"+ Helper.escapeOrientDBSQL(simpleQuery.getSearchString()) +"%'"
-						+ " OR " + NdexClasses.GRP_P_NAME + ".toLowerCase() LIKE '%"+ Helper.escapeOrientDBSQL(simpleQuery.getSearchString()) +"%')"
-						+ " ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC " 
-						+ " SKIP " + startIndex
-						+ " LIMIT " + blockSize );
-				
-				groups = this.db.command(query).execute();
-				
-				for ( ODocument group : groups) {
-						foundgroups.add(GroupDAO.getGroupFromDocument(group));
-				}
-				return foundgroups;
-			
+				userGroups = new HashSet<>();
+				for ( String permission : traversePermissions)
+					userGroups.addAll(Helper.getLinkedRids(nUser, "out_", permission));
 			} 
 			
-			query = new OSQLSynchQuery<>("SELECT FROM"
-						+ " " + NdexClasses.Group
-						+ " WHERE "
-			  			+ " ( " + NdexClasses.ExternalObj_isDeleted + " = false )" 
-						+ " AND (accountName.toLowerCase() LIKE '%"+ Helper.escapeOrientDBSQL(simpleQuery.getSearchString()) +"%'"
-						+ " OR " + NdexClasses.GRP_P_NAME +".toLowerCase() LIKE '%"+ Helper.escapeOrientDBSQL(simpleQuery.getSearchString()) +"%')"
-						+ " ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC " 
-						+ " SKIP " + startIndex
-						+ " LIMIT " + blockSize );
-				
-			groups = this.db.command(query).execute();
-				
-//			if( !groups.iterator().hasNext() && simpleQuery.getSearchString().equals("") ) 
-//					groups = this.db.browseClass(NdexClasses.Group).setLimit(blockSize);
-				
-				for (final ODocument group : groups) {
-					foundgroups.add(GroupDAO.getGroupFromDocument(group));
-			}
+			for ( ODocument group : AccountSearchIndex.getInstance().search(db, NdexClasses.Group, 
+					simpleQuery.getSearchString(), userGroups, startIndex, blockSize)) 
+				foundgroups.add(GroupDAO.getGroupFromDocument(group));
 			return foundgroups;
 			
-			
 		} catch (Exception e) {
 			logger.severe("Unable to query the database");
 			throw new NdexException("Failed to search for groups.\n" + e.getMessage());
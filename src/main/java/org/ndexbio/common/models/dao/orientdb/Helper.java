@@ -34,8 +34,10 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -51,6 +53,10 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OIndex;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
@@ -154,29 +160,11 @@ public class Helper {
 
     public static boolean checkPermissionOnNetworkByAccountName(ODatabaseDocumentTx db, String networkUUID, 
 			String accountName, Permissions expectedPermission) {
-    	String query = "select $path from (traverse out_admin,out_member,out_groupadmin,out_write,out_read from (select * from " + NdexClasses.Account + 
-    			" where accountName='"+ accountName + "') while $depth < 3 ) where UUID = '"+ networkUUID + "'";
-
-    	logger.debug("Checking permissiong, query string is: " + query);
-    	
-    	final List<ODocument> result = db.query(new OSQLSynchQuery<ODocument>(query));
-
-    	for ( ODocument d : result ) { 
-    		String s = d.field("$path");
-    		
-        	logger.debug("Got query result $path: " + s);
-        	
-    		Pattern pattern = Pattern.compile("(out_admin|out_write|out_read)");
-    		Matcher matcher = pattern.matcher(s);
-    		if (matcher.find())
-    		{
-    			Permissions p = Permissions.valueOf(matcher.group(1).substring(4).toUpperCase());
-    			if ( permissionSatisfied( expectedPermission, p))
-    				return true;
-    		}  
-    	}
-
-    	return false;
+    	OIndex<?> accountNameIdx = db.getMetadata().getIndexManager().getIndex(NdexClasses.Index_accountName);
+    	OIdentifiable account = (OIdentifiable) accountNameIdx.get(accountName);
+    	if ( account == null) 
+    		return false;
+    	return NetworkACLCache.INSTANCE.hasPermission(account.getIdentity(), networkUUID, expectedPermission);
     }
     
     public static VisibilityType getNetworkVisibility(ODatabaseDocumentTx db, String networkUUID) {
@@ -442,6 +430,24 @@ public class Helper {
     	return ((Iterable<ODocument>)f);
     	     
     }
+
+    /**
+     * Same as getDocumentLinks, but only returns the rids of the linked records without loading them.
+     */
+    public static Set<ORID> getLinkedRids(ODocument doc, String direction, String elementEdgeString) {
+    	Set<ORID> result = new HashSet<>();
+    	Object f = doc.field(direction + elementEdgeString);
+    	if ( f == null) return result;
+    	if ( f instanceof OIdentifiable) {
+    		result.add(((OIdentifiable)f).getIdentity());
+    	} else {
+    		if ( f instanceof ORidBag)
+    			((ORidBag)f).setAutoConvertToRecord(false);
+    		for ( Object o : (Iterable<?>)f)
+    			result.add(((OIdentifiable)o).getIdentity());
+    	}
+    	return result;
+    }
     
     
 	public static void createUserIfnotExist(UserDocDAO dao, String accountName, String email, String password) throws NdexException {
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.model.object.Permissions;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Materialized network permissions of accounts. For each account it keeps bitmaps of the networks the account
+ * can read, write and administer through a direct permission edge, and the set of groups the account belongs to. 
+ * Networks are numbered densely by UUID so that the bitmaps stay compact.
+ * 
+ * The permission of a user on a network is the union of the user's own bitmaps and the bitmaps of its groups, 
+ * which replaces the traversal of the admin/write/read/member/groupadmin edges on every check. 
+ * 
+ * Accounts are loaded from the database on first use. The DAOs that add or remove permission and membership edges 
+ * update the loaded entries; changes that are not tracked individually invalidate the entries instead. rebuild() 
+ * reloads every account, and is run at startup when Rebuild-ACL-Cache-On-Startup is set in the configuration.
+ */
+public enum NetworkACLCache {
+	
+	INSTANCE;
+
+	private static final Logger logger = Logger.getLogger(NetworkACLCache.class.getName());
+
+	private final ConcurrentMap<String, Integer> networkIds = new ConcurrentHashMap<>();
+	private final ConcurrentMap<ORID, AccountACL> accounts = new ConcurrentHashMap<>();
+
+	private NetworkACLCache() {}
+
+	/**
+	 * Check if an account has at least the given permission on a network, directly or through its groups.
+	 * Has to be called on a thread that has an active database connection.
+	 */
+	public boolean hasPermission(ORID accountRID, String networkUUID, Permissions permission) {
+		if ( accountRID == null || networkUUID == null)
+			return false;
+		
+		// load the account before looking up the network, loading assigns the ids of its networks.
+		AccountACL acl = getAccountACL(accountRID);
+		Integer networkId = networkIds.get(networkUUID);
+		if ( networkId != null && acl.allows(networkId.intValue(), permission))
+			return true;
+		// groups can't administer networks.
+		if ( permission == Permissions.ADMIN)
+			return false;
+		for ( ORID groupRID : acl.getGroups()) {
+			AccountACL groupACL = getAccountACL(groupRID);
+			networkId = networkIds.get(networkUUID);
+			if ( networkId != null && groupACL.allows(networkId.intValue(), permission))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Record a permission edge that has been added from an account to a network. It replaces the previous permission.
+	 */
+	public void setPermission(ORID accountRID, String networkUUID, Permissions permission) {
+		AccountACL acl = accounts.get(accountRID);
+		if ( acl != null)
+			acl.set(getNetworkId(networkUUID), permission);
+	}
+
+	public void removePermission(ORID accountRID, String networkUUID) {
+		AccountACL acl = accounts.get(accountRID);
+		if ( acl != null)
+			acl.set(getNetworkId(networkUUID), null);
+	}
+
+	public void addGroup(ORID accountRID, ORID groupRID) {
+		AccountACL acl = accounts.get(accountRID);
+		if ( acl != null)
+			acl.addGroup(groupRID);
+	}
+
+	public void removeGroup(ORID accountRID, ORID groupRID) {
+		AccountACL acl = accounts.get(accountRID);
+		if ( acl != null)
+			acl.removeGroup(groupRID);
+	}
+
+	public void invalidateAccount(ORID accountRID) {
+		accounts.remove(accountRID);
+	}
+
+	/**
+	 * Start tracking an account that has no permissions, without loading it from the database. Used by tests.
+	 */
+	void trackNewAccount(ORID accountRID) {
+		accounts.putIfAbsent(accountRID, new AccountACL());
+	}
+
+	boolean isLoaded(ORID accountRID) {
+		return accounts.containsKey(accountRID);
+	}
+
+	/**
+	 * Reload the permissions of all accounts from the database. NdexDatabase calls it at startup when 
+	 * Rebuild-ACL-Cache-On-Startup is true in the configuration.
+	 */
+	public void rebuild(ODatabaseDocumentTx db) {
+		long t0 = System.currentTimeMillis();
+		accounts.clear();
+		int count = 0;
+		for ( ODocument accountDoc : db.browseClass(NdexClasses.Account)) {
+			accounts.put(accountDoc.getIdentity(), loadAccountACL(accountDoc));
+			count ++;
+		}
+		logger.info("Network ACL cache rebuilt for " + count + " accounts and " + networkIds.size() + " networks in " +
+				(System.currentTimeMillis() - t0) + " ms.");
+	}
+
+	private AccountACL getAccountACL(ORID accountRID) {
+		AccountACL acl = accounts.get(accountRID);
+		if ( acl != null)
+			return acl;
+		ODocument accountDoc = accountRID.getRecord();
+		acl = accountDoc == null ? new AccountACL() : loadAccountACL(accountDoc);
+		// don't overwrite an entry that has been loaded and updated meanwhile.
+		AccountACL old = accounts.putIfAbsent(accountRID, acl);
+		return old == null ? acl : old;
+	}
+
+	private AccountACL loadAccountACL(ODocument accountDoc) {
+		AccountACL acl = new AccountACL();
+		// lower permissions first, so that the highest one wins when an account has more than one edge to a network.
+		for ( ODocument networkDoc : Helper.getDocumentLinks(accountDoc, "out_", NdexClasses.account_E_canRead)) 
+			addNetwork(acl, networkDoc, Permissions.READ);
+		for ( ODocument networkDoc : Helper.getDocumentLinks(accountDoc, "out_", NdexClasses.account_E_canEdit)) 
+			addNetwork(acl, networkDoc, Permissions.WRITE);
+		for ( ODocument networkDoc : Helper.getDocumentLinks(accountDoc, "out_", NdexClasses.E_admin)) 
+			addNetwork(acl, networkDoc, Permissions.ADMIN);
+
+		addGroups(acl, accountDoc.field("out_" + NdexClasses.GRP_E_member));
+		addGroups(acl, accountDoc.field("out_" + NdexClasses.GRP_E_admin));
+		return acl;
+	}
+
+	private void addNetwork(AccountACL acl, ODocument networkDoc, Permissions permission) {
+		if ( !NdexClasses.Network.equals(networkDoc.getClassName()))
+			return;
+		String uuid = networkDoc.field(NdexClasses.Network_P_UUID);
+		if ( uuid != null)
+			acl.set(getNetworkId(uuid), permission);
+	}
+
+	private static void addGroups(AccountACL acl, Object links) {
+		if ( links == null)
+			return;
+		if ( links instanceof OIdentifiable && !(links instanceof ORidBag)) {
+			acl.addGroup(((OIdentifiable)links).getIdentity());
+			return;
+		}
+		if ( links instanceof ORidBag)
+			((ORidBag)links).setAutoConvertToRecord(false);
+		for ( Object o : (Iterable<?>)links)
+			acl.addGroup(((OIdentifiable)o).getIdentity());
+	}
+
+	private int getNetworkId(String networkUUID) {
+		Integer id = networkIds.get(networkUUID);
+		if ( id != null)
+			return id.intValue();
+		synchronized (networkIds) {
+			id = networkIds.get(networkUUID);
+			if ( id == null) {
+				id = Integer.valueOf(networkIds.size());
+				networkIds.put(networkUUID, id);
+			}
+			return id.intValue();
+		}
+	}
+
+	/**
+	 * Permissions of one account. readable contains the writable networks, and writable the administered ones, 
+	 * so a check is a single bit test.
+	 */
+	private static class AccountACL {
+		private final BitSet readable = new BitSet();
+		private final BitSet writable = new BitSet();
+		private final BitSet administered = new BitSet();
+		private final Set<ORID> groups = new HashSet<>();
+
+		synchronized boolean allows(int networkId, Permissions permission) {
+			switch (permission) {
+			case ADMIN:
+				return administered.get(networkId);
+			case WRITE:
+				return writable.get(networkId);
+			default:
+				return readable.get(networkId);
+			}
+		}
+
+		synchronized void set(int networkId, Permissions permission) {
+			readable.clear(networkId);
+			writable.clear(networkId);
+			administered.clear(networkId);
+			if ( permission == null)
+				return;
+			readable.set(networkId);
+			if ( permission == Permissions.WRITE || permission == Permissions.ADMIN)
+				writable.set(networkId);
+			if ( permission == Permissions.ADMIN)
+				administered.set(networkId);
+		}
+
+		synchronized Set<ORID> getGroups() {
+			return new HashSet<>(groups);
+		}
+
+		synchronized void addGroup(ORID groupRID) {
+			groups.add(groupRID);
+		}
+
+		synchronized void removeGroup(ORID groupRID) {
+			groups.remove(groupRID);
+		}
+	}
+}
@@ -88,6 +88,8 @@ import com.orientechnologies.orient.core.id.ORID;
 public class NetworkDAO extends NetworkDocDAO {
 		
 	private OrientGraph graph;	
+	// permission cache updates of the current transaction, applied on commit.
+	private PendingCacheUpdates pendingCacheUpdates = new PendingCacheUpdates();
 	
 	private static final int CLEANUP_BATCH_SIZE = 50000;
 	
@@ -443,6 +445,7 @@ public class NetworkDAO extends NetworkDocDAO {
 			//	taskV.getRecord().removeField("out_"+ NdexClasses.Task_E_owner);
 			}
 		}
+		pendingCacheUpdates.setPermission(accountdoc.getIdentity(), networkdoc, networkUUID, permission);
 
 		//update solr index
 		NetworkGlobalIndexManager networkIdx = new NetworkGlobalIndexManager();
@@ -493,6 +496,7 @@ public class NetworkDAO extends NetworkDocDAO {
     		}
           	break;
         }
+        pendingCacheUpdates.removePermission(accountdoc.getIdentity(), networkdoc.getIdentity(), networkUUID);
 
 		//update solr index
 		NetworkGlobalIndexManager networkIdx = new NetworkGlobalIndexManager();
@@ -506,17 +510,20 @@ public class NetworkDAO extends NetworkDocDAO {
 	
 	public void rollback() {
 		graph.rollback();		
+		pendingCacheUpdates.rolledBack();
 	}
 
 	@Override
 	public void commit() {
 		graph.commit();
-		
+		pendingCacheUpdates.committed();
 	}
 	
 	@Override
 	public void close() {
 		graph.shutdown();
+		if ( !pendingCacheUpdates.isEmpty())
+			pendingCacheUpdates.closed();
 	}
     
 	
@@ -52,6 +52,7 @@ import org.ndexbio.common.access.NdexDatabase;
 //import org.ndexbio.common.models.dao.orientdb.NetworkSearchDAO.NetworkResultComparator;
 import org.ndexbio.common.solr.NetworkGlobalIndexManager;
 import org.ndexbio.common.solr.SingleNetworkSolrIdxManager;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.exceptions.ObjectNotFoundException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
@@ -87,6 +88,12 @@ public class NetworkDocDAO extends OrientdbDAO {
 
 	private static Logger logger = Logger.getLogger(NetworkDocDAO.class.getName());
 	
+	// number of edges whose referenced elements are resolved together in addEdgesToNetwork.
+	private static final int edgeBatchSize = 500;
+	
+	// set while addEdgesToNetwork is converting a window of edges.
+	private ElementBatchResolver batchResolver;
+	
 	
 	public NetworkDocDAO (ODatabaseDocumentTx db) {
 	    super(db);
@@ -167,6 +174,31 @@ public class NetworkDocDAO extends OrientdbDAO {
    }
 
 
+	/**
+	 * Convert a list of edge documents and add the edges to network, together with all the elements they reference.
+	 * The referenced elements are resolved in batches of edges instead of one lookup per element.
+	 * @param edgeDocs
+	 * @param network
+	 * @throws NdexException
+	 */
+	public void addEdgesToNetwork(List<ODocument> edgeDocs, Network network) throws NdexException {
+		for ( int start = 0; start < edgeDocs.size(); start += edgeBatchSize) {
+			List<ODocument> window = edgeDocs.subList(start, Math.min(edgeDocs.size(), start + edgeBatchSize));
+			batchResolver = new ElementBatchResolver(db);
+			try {
+				for ( ODocument doc : window) 
+					batchResolver.addEdge(doc);
+				batchResolver.resolve();
+				for ( ODocument doc : window) {
+					Edge e = getEdgeFromDocument(doc, network);
+					network.getEdges().put(e.getId(), e);
+				}
+			} finally {
+				batchResolver = null;
+			}
+		}
+	}
+
 	public  Edge getEdgeFromDocument(ODocument doc, Network network) throws NdexException {
 		Edge e = new Edge();
 		e.setId((long)doc.field(NdexClasses.Element_ID));
@@ -522,7 +554,7 @@ public class NetworkDocDAO extends OrientdbDAO {
      * @throws NdexException
      */
 
-	private BaseTerm getBaseTerm(ODocument o, Network network) throws NdexException {
+	BaseTerm getBaseTerm(ODocument o, Network network) throws NdexException {
 		BaseTerm t = new BaseTerm();
 		t.setId((long)o.field(NdexClasses.Element_ID));
 		String name = o.field(NdexClasses.BTerm_P_name);
@@ -622,6 +654,10 @@ public class NetworkDocDAO extends OrientdbDAO {
 	
 	
 	public ODocument getDocumentByElementId(String NdexClassName, long elementID) {
+		if ( batchResolver != null) {
+			ODocument doc = batchResolver.get(NdexClassName, elementID);
+			if ( doc != null) return doc;
+		}
 		return Helper.getDocumentByElementId(db, elementID, NdexClassName);
 	}
 
@@ -638,7 +674,7 @@ public class NetworkDocDAO extends OrientdbDAO {
 		return localName;
 	}
 */
-    private  Namespace getNamespace(ODocument ns)  {
+    Namespace getNamespace(ODocument ns)  {
         Namespace rns = new Namespace();
         rns.setId((long)ns.field("id"));
         rns.setPrefix((String)ns.field(NdexClasses.ns_P_prefix));
@@ -697,11 +733,13 @@ public class NetworkDocDAO extends OrientdbDAO {
         }
         
         for ( ODocument doc : Helper.getNetworkElements(nDoc,NdexClasses.Network_E_Nodes)) {
+        		CancellationToken.checkpoint(1);
         		Node node = getNode(doc,network);
         		network.getNodes().put(node.getId(), node);
         }
         
         for ( ODocument doc: Helper.getNetworkElements(nDoc, NdexClasses.Network_E_Edges)) {
+              	   CancellationToken.checkpoint(1);
               	   Edge e = getEdgeFromDocument(doc,network);
               	   network.getEdges().put(e.getId(), e);
         }
@@ -728,32 +766,56 @@ public class NetworkDocDAO extends OrientdbDAO {
 		
 	    if (nDoc == null) return null;
 
+	    NetworkEdgeCursorRegistry.EdgeCursor cursor = NetworkEdgeCursorRegistry.INSTANCE.getCursor(nDoc);
 	    
-	    int startPosition = skipBlocks * blockSize;
-	    int counter = 0;
-	    int endPosition = skipBlocks * blockSize + blockSize;
+	    return getEdgeBlock(nDoc, cursor, skipBlocks * blockSize, blockSize); 
+	}
+	
+	/**
+	 * Cursor based version of getNetwork(UUID, int, int). Each call continues where the previous page ended, so
+	 *    paging through a whole network is linear in the number of edges. 
+	 * @param networkID
+	 * @param continuationToken token returned with the previous page, or null for the first page.
+	 * @param blockSize
+	 * @return the page, or null if the network doesn't exist. 
+	 * @throws NdexException if the token is invalid or the network has been modified after the token was issued.
+	 */
+	public NetworkEdgePage getNetworkPage (UUID networkID, String continuationToken, int blockSize) throws NdexException {
+		ODocument nDoc = getNetworkDocByUUID(networkID);
+		
+	    if (nDoc == null) return null;
 
+	    String networkIdStr = networkID.toString();
+	    NetworkEdgeCursorRegistry.EdgeCursor cursor = NetworkEdgeCursorRegistry.INSTANCE.getCursor(nDoc);
+	    int startPosition = continuationToken == null ? 0 : 
+	    	NetworkEdgeCursorRegistry.getPosition(continuationToken, networkIdStr, cursor);
+	    
+	    Network network = getEdgeBlock(nDoc, cursor, startPosition, blockSize);
+	    int endPosition = startPosition + blockSize;
+	    String nextToken = endPosition < cursor.size() ? 
+	    		NetworkEdgeCursorRegistry.createToken(networkIdStr, cursor, endPosition) : null;
+	    return new NetworkEdgePage(network, nextToken);
+	}
+	
+	private Network getEdgeBlock(ODocument nDoc, NetworkEdgeCursorRegistry.EdgeCursor cursor, int startPosition, 
+			int blockSize) throws NdexException {
 	    Network network = new Network(blockSize);  //result holder
 
         setNetworkSummary(nDoc, network);
 
-        
-        for ( ODocument doc : Helper.getNetworkElements(nDoc, NdexClasses.Network_E_Edges) ){ 
-            	if ( counter >= endPosition) break;
-
-            	
-            	if ( counter >= startPosition )  {
-              	   Edge e = getEdgeFromDocument(doc,network);
-              	   network.getEdges().put(e.getId(), e);
-            	               
-                }
-                counter ++;
+        int endPosition = Math.min(cursor.size(), startPosition + blockSize);
+        List<ODocument> edgeDocs = new ArrayList<>(Math.max(0, endPosition - startPosition));
+        for ( int i = Math.max(0, startPosition); i < endPosition; i++) {
+        	ODocument doc = cursor.getRid(i).getRecord();
+        	if ( doc != null) 
+        		edgeDocs.add(doc);
         }
+        addEdgesToNetwork(edgeDocs, network);
         
         network.setEdgeCount(network.getEdges().size());
         network.setNodeCount(network.getNodes().size());
         
-		 return network; 
+		return network; 
 	}
 	
 
@@ -813,7 +875,7 @@ public class NetworkDocDAO extends OrientdbDAO {
     
 
     
-	private static Citation getCitationFromDoc(ODocument doc) {
+	static Citation getCitationFromDoc(ODocument doc) {
 		Citation result = new Citation();
 		result.setId((long)doc.field(NdexClasses.Element_ID));
 		result.setTitle((String)doc.field(NdexClasses.Citation_P_title));
@@ -834,7 +896,7 @@ public class NetworkDocDAO extends OrientdbDAO {
 	}
 
 
-    private Support getSupportFromDoc(ODocument doc, Network network) throws NdexException {
+    Support getSupportFromDoc(ODocument doc, Network network) throws NdexException {
     	Support s = new Support();
     	s.setText((String)doc.field(NdexClasses.Support_P_text));
     	s.setId((long)doc.field(NdexClasses.Element_ID));
@@ -858,7 +920,7 @@ public class NetworkDocDAO extends OrientdbDAO {
 
     
     //TODO: need to make sure the recursion doesn't form a loop.
-    private FunctionTerm getFunctionTermfromDoc(ODocument doc,Network network) throws NdexException {
+    FunctionTerm getFunctionTermfromDoc(ODocument doc,Network network) throws NdexException {
     	FunctionTerm term = new FunctionTerm();
     	
     	term.setId((long)doc.field(NdexClasses.Element_ID));
@@ -905,7 +967,7 @@ public class NetworkDocDAO extends OrientdbDAO {
     }
 
 
-    private ReifiedEdgeTerm getReifiedEdgeTermFromDoc(ODocument doc, Network network) throws NdexException {
+    ReifiedEdgeTerm getReifiedEdgeTermFromDoc(ODocument doc, Network network) throws NdexException {
     	ReifiedEdgeTerm term = new ReifiedEdgeTerm();
     	term.setId((long)doc.field(NdexClasses.Element_ID));
     	ODocument e = doc.field("out_" +NdexClasses.ReifiedEdge_E_edge );
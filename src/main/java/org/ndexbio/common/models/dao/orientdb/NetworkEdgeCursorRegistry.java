@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Server side cursors for paging through the edges of a network. 
+ * 
+ * The edge rid bag of a network can only be iterated from the beginning, so paging by skipping edges costs 
+ * O(offset) per page. A cursor holds the rids of all edges of a network in rid bag order in two compact arrays, 
+ * so that any page can be read directly by position. Cursors are shared by all readers of a network, expire when 
+ * they haven't been used for a while, and are dropped when the network is modified.
+ * 
+ * Continuation tokens are opaque strings of the form &lt;network UUID&gt;:&lt;modification time&gt;:&lt;position&gt;.
+ * 
+ * Configuration properties:
+ *   Edge-Cursor-Expire-Minutes  idle time before a cursor is dropped. Default 10.
+ *   Edge-Cursor-Max-Edges       total number of edge rids held by all cursors. Default 20000000.
+ */
+public enum NetworkEdgeCursorRegistry {
+	
+	INSTANCE;
+
+	private static final Logger logger = Logger.getLogger(NetworkEdgeCursorRegistry.class.getName());
+
+	private static final String expireProp = "Edge-Cursor-Expire-Minutes";
+	private static final String maxEdgesProp = "Edge-Cursor-Max-Edges";
+
+	private Cache<String, EdgeCursor> cursors;
+
+	private NetworkEdgeCursorRegistry() {
+		long expireMinutes = 10;
+		long maxEdges = 20000000;
+		try {
+			Configuration config = Configuration.getInstance();
+			String v = config.getProperty(expireProp);
+			if ( v != null) expireMinutes = Long.parseLong(v.trim());
+			v = config.getProperty(maxEdgesProp);
+			if ( v != null) maxEdges = Long.parseLong(v.trim());
+		} catch (NdexException | NumberFormatException e) {
+			// the static logger can't be used in an enum constructor.
+			Logger.getLogger(NetworkEdgeCursorRegistry.class.getName()).warning(
+					"Failed to read edge cursor settings from configuration, using defaults. " + e.getMessage());
+		}
+		cursors = newCache(expireMinutes, maxEdges);
+	}
+
+	static Cache<String, EdgeCursor> newCache(long expireMinutes, long maxEdges) {
+		// a single segment, otherwise Guava splits the weight budget between the segments and 
+		// evicts cursors larger than one segment's share right after they are created.
+		return CacheBuilder.newBuilder()
+				.concurrencyLevel(1)
+				.expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+				.maximumWeight(maxEdges)
+				.weigher(new Weigher<String, EdgeCursor>() {
+					@Override
+					public int weigh(String key, EdgeCursor value) {
+						return Math.max(1, value.size);
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * The edges of a network in rid bag order.
+	 */
+	public static class EdgeCursor {
+		private final Date modificationTime;
+		private final short[] clusterIds;
+		private final long[] clusterPositions;
+		private final int size;
+
+		EdgeCursor(Date modificationTime, short[] clusterIds, long[] clusterPositions, int size) {
+			this.modificationTime = modificationTime;
+			this.clusterIds = clusterIds;
+			this.clusterPositions = clusterPositions;
+			this.size = size;
+		}
+
+		public int size() {
+			return size;
+		}
+
+		public ORID getRid(int position) {
+			return new ORecordId(clusterIds[position], clusterPositions[position]);
+		}
+
+		public Date getModificationTime() {
+			return modificationTime;
+		}
+	}
+
+	/**
+	 * Get the edge cursor of a network, creating it if there is none or the network has been modified since it was created.
+	 */
+	public EdgeCursor getCursor(final ODocument networkDoc) throws NdexException {
+		String networkId = networkDoc.field(NdexClasses.Network_P_UUID);
+		Date mTime = networkDoc.field(NdexClasses.ExternalObj_mTime);
+
+		EdgeCursor cursor = cursors.getIfPresent(networkId);
+		if ( cursor != null && !sameTime(cursor.modificationTime, mTime))
+			cursors.invalidate(networkId);
+		try {
+			return cursors.get(networkId, new Callable<EdgeCursor>() {
+				@Override
+				public EdgeCursor call() {
+					return createCursor(networkDoc);
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new NdexException("Failed to create edge cursor for network " + networkId + ": " + e.getCause().getMessage());
+		}
+	}
+
+	public void invalidate(String networkId) {
+		cursors.invalidate(networkId);
+	}
+
+	public static String createToken(String networkId, EdgeCursor cursor, int position) {
+		long mTime = cursor.modificationTime == null ? 0 : cursor.modificationTime.getTime();
+		return networkId + ":" + mTime + ":" + position;
+	}
+
+	/**
+	 * @return the position encoded in the token. 
+	 * @throws NdexException if the token is malformed, belongs to another network, or the network has been 
+	 *   modified after the token was issued.
+	 */
+	public static int getPosition(String token, String networkId, EdgeCursor cursor) throws NdexException {
+		String[] parts = token.split(":");
+		if ( parts.length != 3 || !parts[0].equals(networkId))
+			throw new NdexException("Invalid continuation token " + token + " for network " + networkId + ".");
+		try {
+			long mTime = Long.parseLong(parts[1]);
+			int position = Integer.parseInt(parts[2]);
+			long currentMTime = cursor.modificationTime == null ? 0 : cursor.modificationTime.getTime();
+			if ( mTime != currentMTime)
+				throw new NdexException("Network " + networkId + " has been modified since the continuation token was issued.");
+			if ( position < 0)
+				throw new NdexException("Invalid continuation token " + token + ".");
+			return position;
+		} catch (NumberFormatException e) {
+			throw new NdexException("Invalid continuation token " + token + ".");
+		}
+	}
+
+	private static EdgeCursor createCursor(ODocument networkDoc) {
+		long t0 = System.currentTimeMillis();
+		Integer edgeCount = networkDoc.field(NdexClasses.Network_P_edgeCount);
+		int capacity = edgeCount == null || edgeCount.intValue() <= 0 ? 1024 : edgeCount.intValue();
+		short[] clusterIds = new short[capacity];
+		long[] positions = new long[capacity];
+		int size = 0;
+
+		Object f = networkDoc.field("out_" + NdexClasses.Network_E_Edges);
+		Iterable<?> links;
+		if ( f == null) 
+			links = Arrays.asList();
+		else if ( f instanceof OIdentifiable && !(f instanceof ORidBag)) 
+			links = Arrays.asList(f);
+		else {
+			if ( f instanceof ORidBag)
+				((ORidBag)f).setAutoConvertToRecord(false);
+			links = (Iterable<?>)f;
+		}
+
+		for ( Object o : links) {
+			ORID rid = ((OIdentifiable)o).getIdentity();
+			if ( size == clusterIds.length) {
+				clusterIds = Arrays.copyOf(clusterIds, size * 2);
+				positions = Arrays.copyOf(positions, size * 2);
+			}
+			clusterIds[size] = (short)rid.getClusterId();
+			positions[size] = rid.getClusterPosition();
+			size++;
+		}
+
+		logger.info("Edge cursor of network " + networkDoc.field(NdexClasses.Network_P_UUID) + " created with " + size + 
+				" edges in " + (System.currentTimeMillis() - t0) + " ms.");
+		return new EdgeCursor((Date)networkDoc.field(NdexClasses.ExternalObj_mTime), clusterIds, positions, size);
+	}
+
+	private static boolean sameTime(Date d1, Date d2) {
+		if ( d1 == null) return d2 == null;
+		return d2 != null && d1.getTime() == d2.getTime();
+	}
+}
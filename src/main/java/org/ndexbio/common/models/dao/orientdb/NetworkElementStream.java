@@ -0,0 +1,329 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.exceptions.ObjectNotFoundException;
+import org.ndexbio.model.object.network.BaseTerm;
+import org.ndexbio.model.object.network.Citation;
+import org.ndexbio.model.object.network.Edge;
+import org.ndexbio.model.object.network.FunctionTerm;
+import org.ndexbio.model.object.network.Namespace;
+import org.ndexbio.model.object.network.NetworkSummary;
+import org.ndexbio.model.object.network.Node;
+import org.ndexbio.model.object.network.ReifiedEdgeTerm;
+import org.ndexbio.model.object.network.Support;
+import org.ndexbio.model.object.network.Term;
+import org.ndexbio.task.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Streams the elements of a network out of the database one at a time, as an alternative to 
+ * NetworkDocDAO.getNetworkById() for callers that only need to look at each element once.
+ * 
+ * Each aspect has its own iterator. Elements are converted from their documents when they are pulled and 
+ * referenced elements are not loaded along with them, so memory use doesn't grow with the size of the network.
+ * Aspects should be read in the order of the Aspect enum, which lists every aspect after the aspects it refers to.
+ * 
+ * Elements that are referenced by id (e.g. the predicate of an edge or the namespace of a base term) can be 
+ * looked up with the get* functions. Looked up elements are kept in a small LRU cache, sized by the 
+ * configuration property Element-Stream-Lookup-Cache-Size (default 10000).
+ * 
+ * A stream uses the database connection of the NetworkDocDAO it was created from and is only valid while 
+ * that DAO is open.
+ */
+public class NetworkElementStream {
+
+	private static final Logger logger = Logger.getLogger(NetworkElementStream.class.getName());
+
+	private static final String lookupCacheSizeProp = "Element-Stream-Lookup-Cache-Size";
+	private static final long defaultLookupCacheSize = 10000;
+
+	/**
+	 * Aspects in dependency order.
+	 */
+	public enum Aspect {
+		NAMESPACES(NdexClasses.Network_E_Namespace),
+		BASE_TERMS(NdexClasses.Network_E_BaseTerms),
+		CITATIONS(NdexClasses.Network_E_Citations),
+		FUNCTION_TERMS(NdexClasses.Network_E_FunctionTerms),
+		SUPPORTS(NdexClasses.Network_E_Supports),
+		REIFIED_EDGE_TERMS(NdexClasses.Network_E_ReifiedEdgeTerms),
+		NODES(NdexClasses.Network_E_Nodes),
+		EDGES(NdexClasses.Network_E_Edges);
+
+		private final String edgeName;
+
+		private Aspect(String edgeName) {
+			this.edgeName = edgeName;
+		}
+
+		public String getEdgeName() { return edgeName; }
+	}
+
+	/**
+	 * A pull iterator over the elements of one aspect. next() converts one document at a time and 
+	 * can throw NdexException, which is why this is not a java.util.Iterator.
+	 */
+	public interface ElementIterator<T> {
+		boolean hasNext();
+		T next() throws NdexException;
+	}
+
+	private final NetworkDocDAO dao;
+	private final ODocument networkDoc;
+
+	// lookup caches for elements that are referenced by id.
+	private final Cache<Long, Object> lookupCache;
+
+	public NetworkElementStream(NetworkDocDAO dao, UUID networkId) throws ObjectNotFoundException {
+		this(dao, dao.getNetworkDocByUUID(networkId));
+	}
+
+	public NetworkElementStream(NetworkDocDAO dao, ODocument networkDoc) {
+		this.dao = dao;
+		this.networkDoc = networkDoc;
+		this.lookupCache = CacheBuilder.newBuilder()
+				.maximumSize(getLookupCacheSize())
+				.build();
+	}
+
+	public NetworkSummary getNetworkSummary() {
+		return NetworkDocDAO.getNetworkSummary(networkDoc);
+	}
+
+	public ElementIterator<Namespace> namespaces() {
+		return new DocumentIterator<Namespace>(Aspect.NAMESPACES) {
+			@Override
+			protected Namespace convert(ODocument doc) {
+				return dao.getNamespace(doc);
+			}
+		};
+	}
+
+	public ElementIterator<BaseTerm> baseTerms() {
+		return new DocumentIterator<BaseTerm>(Aspect.BASE_TERMS) {
+			@Override
+			protected BaseTerm convert(ODocument doc) throws NdexException {
+				return dao.getBaseTerm(doc, null);
+			}
+		};
+	}
+
+	public ElementIterator<Citation> citations() {
+		return new DocumentIterator<Citation>(Aspect.CITATIONS) {
+			@Override
+			protected Citation convert(ODocument doc) {
+				return NetworkDocDAO.getCitationFromDoc(doc);
+			}
+		};
+	}
+
+	public ElementIterator<FunctionTerm> functionTerms() {
+		return new DocumentIterator<FunctionTerm>(Aspect.FUNCTION_TERMS) {
+			@Override
+			protected FunctionTerm convert(ODocument doc) throws NdexException {
+				return dao.getFunctionTermfromDoc(doc, null);
+			}
+		};
+	}
+
+	public ElementIterator<Support> supports() {
+		return new DocumentIterator<Support>(Aspect.SUPPORTS) {
+			@Override
+			protected Support convert(ODocument doc) throws NdexException {
+				return dao.getSupportFromDoc(doc, null);
+			}
+		};
+	}
+
+	public ElementIterator<ReifiedEdgeTerm> reifiedEdgeTerms() {
+		return new DocumentIterator<ReifiedEdgeTerm>(Aspect.REIFIED_EDGE_TERMS) {
+			@Override
+			protected ReifiedEdgeTerm convert(ODocument doc) throws NdexException {
+				return dao.getReifiedEdgeTermFromDoc(doc, null);
+			}
+		};
+	}
+
+	public ElementIterator<Node> nodes() {
+		return new DocumentIterator<Node>(Aspect.NODES) {
+			@Override
+			protected Node convert(ODocument doc) throws NdexException {
+				return dao.getNode(doc, null);
+			}
+		};
+	}
+
+	public ElementIterator<Edge> edges() {
+		return new DocumentIterator<Edge>(Aspect.EDGES) {
+			@Override
+			protected Edge convert(ODocument doc) throws NdexException {
+				return dao.getEdgeFromDocument(doc, null);
+			}
+		};
+	}
+
+	public Namespace getNamespace(long id) throws NdexException {
+		Namespace ns = lookup(Namespace.class, id);
+		if ( ns == null) {
+			ns = dao.getNamespace(getElementDoc(NdexClasses.Namespace, id));
+			lookupCache.put(id, ns);
+		}
+		return ns;
+	}
+
+	public BaseTerm getBaseTerm(long id) throws NdexException {
+		BaseTerm t = lookup(BaseTerm.class, id);
+		if ( t == null) {
+			t = dao.getBaseTerm(getElementDoc(NdexClasses.BaseTerm, id), null);
+			lookupCache.put(id, t);
+		}
+		return t;
+	}
+
+	public Citation getCitation(long id) throws NdexException {
+		Citation c = lookup(Citation.class, id);
+		if ( c == null) {
+			c = NetworkDocDAO.getCitationFromDoc(getElementDoc(NdexClasses.Citation, id));
+			lookupCache.put(id, c);
+		}
+		return c;
+	}
+
+	public Support getSupport(long id) throws NdexException {
+		Support s = lookup(Support.class, id);
+		if ( s == null) {
+			s = dao.getSupportFromDoc(getElementDoc(NdexClasses.Support, id), null);
+			lookupCache.put(id, s);
+		}
+		return s;
+	}
+
+	public Node getNode(long id) throws NdexException {
+		Node n = lookup(Node.class, id);
+		if ( n == null) {
+			n = dao.getNode(getElementDoc(NdexClasses.Node, id), null);
+			lookupCache.put(id, n);
+		}
+		return n;
+	}
+
+	public Edge getEdge(long id) throws NdexException {
+		Edge e = lookup(Edge.class, id);
+		if ( e == null) {
+			e = dao.getEdgeFromDocument(getElementDoc(NdexClasses.Edge, id), null);
+			lookupCache.put(id, e);
+		}
+		return e;
+	}
+
+	/**
+	 * Resolve the term a node represents or a function term takes as a parameter. The result is a BaseTerm, 
+	 * FunctionTerm or ReifiedEdgeTerm.
+	 */
+	public Term getTerm(long id) throws NdexException {
+		Term t = lookup(Term.class, id);
+		if ( t != null) return t;
+
+		ODocument doc = dao.getDocumentByElementId(NdexClasses.BaseTerm, id);
+		if ( doc != null) {
+			t = dao.getBaseTerm(doc, null);
+		} else if ( (doc = dao.getDocumentByElementId(NdexClasses.FunctionTerm, id)) != null) {
+			t = dao.getFunctionTermfromDoc(doc, null);
+		} else if ( (doc = dao.getDocumentByElementId(NdexClasses.ReifiedEdgeTerm, id)) != null) {
+			t = dao.getReifiedEdgeTermFromDoc(doc, null);
+		} else
+			throw new ObjectNotFoundException("Term", id);
+
+		lookupCache.put(id, t);
+		return t;
+	}
+
+	private <T> T lookup(Class<T> cls, long id) {
+		Object o = lookupCache.getIfPresent(id);
+		if ( o != null && cls.isInstance(o))
+			return cls.cast(o);
+		return null;
+	}
+
+	private ODocument getElementDoc(String className, long id) throws ObjectNotFoundException {
+		ODocument doc = dao.getDocumentByElementId(className, id);
+		if ( doc == null)
+			throw new ObjectNotFoundException(className, id);
+		return doc;
+	}
+
+	private static long getLookupCacheSize() {
+		try {
+			String v = Configuration.getInstance().getProperty(lookupCacheSizeProp);
+			if ( v != null)
+				return Long.parseLong(v.trim());
+		} catch (NdexException | NumberFormatException e) {
+			logger.warning("Failed to read " + lookupCacheSizeProp + " from configuration, using default. " + e.getMessage());
+		}
+		return defaultLookupCacheSize;
+	}
+
+	private abstract class DocumentIterator<T> implements ElementIterator<T> {
+
+		private final Iterator<ODocument> docs;
+
+		DocumentIterator(Aspect aspect) {
+			docs = Helper.getNetworkElements(networkDoc, aspect.getEdgeName()).iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return docs.hasNext();
+		}
+
+		@Override
+		public T next() throws NdexException {
+			if ( !docs.hasNext())
+				throw new NoSuchElementException();
+			CancellationToken.checkpoint(1);
+			return convert(docs.next());
+		}
+
+		protected abstract T convert(ODocument doc) throws NdexException;
+	}
+}
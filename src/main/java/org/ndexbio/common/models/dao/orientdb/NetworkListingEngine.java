@@ -0,0 +1,224 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.VisibilityType;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OCompositeKey;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.index.OIndexCursor;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Lists complete, non-deleted networks, newest modification first, from the composite index
+ * (isComplete, isDeleted, visibility, modificationTime). 
+ * 
+ * One descending index cursor is opened for each requested visibility and the cursors are merged on modification
+ * time with a heap that holds one entry per cursor. Network documents are only loaded and checked by the filter 
+ * (usually a permission check) as the merge reaches them, and the listing stops as soon as the requested page is 
+ * filled, so the cost of a page depends on the page position and size, not on the number of networks on the server.
+ *
+ */
+public class NetworkListingEngine {
+
+	private static final Logger logger = Logger.getLogger(NetworkListingEngine.class.getName());
+
+	/**
+	 * Decides if a candidate network goes into the result. Only called for networks reached by the merge.
+	 */
+	public interface NetworkDocFilter {
+		boolean accept(ODocument networkDoc) throws NdexException;
+	}
+
+	private ODatabaseDocumentTx db;
+
+	public NetworkListingEngine(ODatabaseDocumentTx db) {
+		this.db = db;
+	}
+
+	/**
+	 * @param visibilities visibility types of the networks to consider.
+	 * @param filter checked on every candidate in modification time order, can be null.
+	 * @param skip number of accepted networks to skip.
+	 * @param top maximum number of networks to return.
+	 * @return network documents, newest first.
+	 * @throws NdexException 
+	 */
+	public List<ODocument> listNetworks(List<VisibilityType> visibilities, NetworkDocFilter filter, int skip, int top) 
+			throws NdexException {
+		List<ODocument> result = new ArrayList<>(Math.min(top, 1000));
+		if ( top <= 0) return result;
+
+		OIndex<?> idx = db.getMetadata().getIndexManager().getIndex(NdexClasses.Index_network_listing);
+		if ( idx == null) {
+			logger.warning("Index " + NdexClasses.Index_network_listing + " not found, scanning the network class.");
+			return listNetworksByScan(visibilities, filter, skip, top);
+		}
+
+		PriorityQueue<CursorHead> heads = new PriorityQueue<>(Math.max(1, visibilities.size()), newestFirst);
+		for ( VisibilityType v : visibilities) {
+			OCompositeKey key = new OCompositeKey(Boolean.TRUE, Boolean.FALSE, v.toString());
+			OIndexCursor cursor = idx.iterateEntriesBetween(key, true, key, true, false);
+			CursorHead h = new CursorHead(cursor);
+			if ( h.advance())
+				heads.add(h);
+		}
+
+		int accepted = 0;
+		while ( !heads.isEmpty() && result.size() < top) {
+			CursorHead h = heads.poll();
+			ODocument doc = h.current.getRecord();
+			if ( doc != null && (filter == null || filter.accept(doc))) {
+				if ( accepted >= skip)
+					result.add(doc);
+				accepted ++;
+			}
+			if ( h.advance())
+				heads.add(h);
+		}
+		return result;
+	}
+
+	/**
+	 * Fallback for databases without the listing index. Keeps a bounded heap of the newest skip+top networks.
+	 */
+	private List<ODocument> listNetworksByScan(List<VisibilityType> visibilities, NetworkDocFilter filter, int skip, int top) 
+			throws NdexException {
+		NewestNetworks newest = new NewestNetworks(skip, top);
+		for ( ODocument doc : db.browseClass(NdexClasses.Network)) {
+			Boolean isComplete = doc.field(NdexClasses.Network_P_isComplete);
+			Boolean isDeleted = doc.field(NdexClasses.ExternalObj_isDeleted);
+			String visibility = doc.field(NdexClasses.Network_P_visibility);
+			if ( isComplete == null || !isComplete.booleanValue() || (isDeleted != null && isDeleted.booleanValue()) ||
+					visibility == null || !visibilities.contains(VisibilityType.valueOf(visibility)))
+				continue;
+			// only run the filter on networks that would make it into the heap.
+			if ( newest.wouldKeep(doc) && (filter == null || filter.accept(doc)))
+				newest.add(doc);
+		}
+		return newest.getPage();
+	}
+
+	/**
+	 * Keeps the newest skip+top of the networks added to it, in a heap with the oldest kept network on top.
+	 */
+	static class NewestNetworks {
+		private final int skip;
+		private final int capacity;
+		private final PriorityQueue<ODocument> heap;
+
+		NewestNetworks(int skip, int top) {
+			this.skip = skip;
+			this.capacity = (int)Math.min(Integer.MAX_VALUE - 1, (long)skip + top);
+			this.heap = new PriorityQueue<>(Math.min(capacity, 1000) + 1, oldestFirstDoc);
+		}
+
+		boolean wouldKeep(ODocument doc) {
+			return heap.size() < capacity || oldestFirstDoc.compare(doc, heap.peek()) > 0;
+		}
+
+		void add(ODocument doc) {
+			heap.add(doc);
+			if ( heap.size() > capacity)
+				heap.poll();
+		}
+
+		int size() {
+			return heap.size();
+		}
+
+		/**
+		 * @return the kept networks after the first skip, newest first.
+		 */
+		List<ODocument> getPage() {
+			List<ODocument> oldestFirst = new ArrayList<>(heap.size());
+			while ( !heap.isEmpty())
+				oldestFirst.add(heap.poll());
+			List<ODocument> result = new ArrayList<>(Math.max(0, oldestFirst.size() - skip));
+			for ( int i = oldestFirst.size() - 1 - skip; i >= 0; i--)
+				result.add(oldestFirst.get(i));
+			return result;
+		}
+	}
+
+	private static long getTime(Date d) {
+		return d == null ? 0 : d.getTime();
+	}
+
+	private static final Comparator<CursorHead> newestFirst = new Comparator<CursorHead>() {
+		@Override
+		public int compare(CursorHead o1, CursorHead o2) {
+			return Long.compare(o2.mTime, o1.mTime);
+		}
+	};
+
+	private static final Comparator<ODocument> oldestFirstDoc = new Comparator<ODocument>() {
+		@Override
+		public int compare(ODocument o1, ODocument o2) {
+			return Long.compare(getTime((Date)o1.field(NdexClasses.ExternalObj_mTime)), 
+					getTime((Date)o2.field(NdexClasses.ExternalObj_mTime)));
+		}
+	};
+
+	private static class CursorHead {
+		private final OIndexCursor cursor;
+		OIdentifiable current;
+		long mTime;
+
+		CursorHead(OIndexCursor cursor) {
+			this.cursor = cursor;
+		}
+
+		boolean advance() {
+			Map.Entry<Object, OIdentifiable> e = cursor.nextEntry();
+			if ( e == null) {
+				current = null;
+				return false;
+			}
+			current = e.getValue();
+			OCompositeKey key = (OCompositeKey) e.getKey();
+			mTime = getTime((Date)key.getKeys().get(3));
+			return true;
+		}
+	}
+}
@@ -0,0 +1,301 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.model.object.Permissions;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Per account index of the networks an account has a direct admin, write or read edge to, ordered by the creation 
+ * time of the networks (newest first). 
+ * 
+ * The network memberships of a user are the user's own entries merged with the entries of the groups the user 
+ * administers, which replaces the traversal and sort of all reachable networks on every page. Pages can be 
+ * requested by offset or, cheaper, by the last network of the previous page (keyset paging).
+ * 
+ * Accounts are loaded on first use. NetworkDAO and the network loaders update loaded entries once they have 
+ * committed the permission edges they add or remove; other changes invalidate the account after their commit. 
+ * Deleted networks are dropped when they are met during a listing.
+ */
+public enum NetworkMembershipIndex {
+
+	INSTANCE;
+
+	private final ConcurrentMap<ORID, AccountMemberships> accounts = new ConcurrentHashMap<>();
+
+	private NetworkMembershipIndex() {}
+
+	/**
+	 * Position of a network in a membership list.
+	 */
+	static class Key implements Comparable<Key> {
+		final long createdTime;
+		final ORID networkRID;
+
+		Key(long createdTime, ORID networkRID) {
+			this.createdTime = createdTime;
+			this.networkRID = networkRID;
+		}
+
+		static Key fromNetworkDoc(ODocument networkDoc) {
+			Date t = networkDoc.field(NdexClasses.ExternalObj_cTime);
+			return new Key(t == null ? 0 : t.getTime(), networkDoc.getIdentity());
+		}
+
+		@Override
+		public int compareTo(Key o) {
+			int c = Long.compare(o.createdTime, createdTime);
+			return c != 0 ? c : networkRID.compareTo(o.networkRID);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Key && compareTo((Key)o) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return networkRID.hashCode();
+		}
+	}
+
+	/**
+	 * List the networks a user has the given permission on, directly or through the groups the user administers.
+	 * @param userDoc
+	 * @param permission ADMIN, WRITE or READ. Only edges of exactly this type are followed.
+	 * @param afterNetworkDoc if not null, the listing starts after this network. 
+	 * @param skip number of networks to skip.
+	 * @param limit max number of networks to return.
+	 * @return network documents, newest first.
+	 */
+	public List<ODocument> listNetworks(ODocument userDoc, Permissions permission, ODocument afterNetworkDoc, 
+			int skip, int limit) {
+		List<AccountMemberships> sources = new ArrayList<>();
+		sources.add(getAccount(userDoc.getIdentity()));
+		for ( ORID groupRID : Helper.getLinkedRids(userDoc, "out_", NdexClasses.GRP_E_admin))
+			sources.add(getAccount(groupRID));
+
+		Key after = afterNetworkDoc == null ? null : Key.fromNetworkDoc(afterNetworkDoc);
+		
+		return merge(sources, permission, after, skip, limit, new NetworkLoader() {
+			@Override
+			public ODocument load(ORID networkRID) {
+				ODocument networkDoc = networkRID.getRecord();
+				return isLiveNetwork(networkDoc) ? networkDoc : null;
+			}
+		});
+	}
+
+	/**
+	 * Loads a network of a listing; returns null if the network is gone or deleted.
+	 */
+	interface NetworkLoader {
+		ODocument load(ORID networkRID);
+	}
+
+	/**
+	 * Merge the sorted lists of all sources. Networks the loader doesn't return are dropped from the sources
+	 * and don't count for skip and limit.
+	 */
+	static List<ODocument> merge(List<AccountMemberships> sources, Permissions permission, Key after, 
+			int skip, int limit, NetworkLoader loader) {
+		PriorityQueue<PeekingIterator<Key>> heap = new PriorityQueue<>(Math.max(1, sources.size()), 
+				new Comparator<PeekingIterator<Key>>() {
+					@Override
+					public int compare(PeekingIterator<Key> o1, PeekingIterator<Key> o2) {
+						return o1.peek().compareTo(o2.peek());
+					}
+				});
+		for ( AccountMemberships source : sources) {
+			PeekingIterator<Key> it = Iterators.peekingIterator(source.tail(permission, after).iterator());
+			if ( it.hasNext())
+				heap.add(it);
+		}
+
+		List<ODocument> result = new ArrayList<>(Math.max(0, limit));
+		int toSkip = Math.max(0, skip);
+		Key last = null;
+		while ( !heap.isEmpty() && result.size() < limit) {
+			PeekingIterator<Key> it = heap.poll();
+			Key key = it.next();
+			if ( it.hasNext())
+				heap.add(it);
+			
+			// the same network can be reached through more than one source.
+			if ( key.equals(last))
+				continue;
+			last = key;
+			
+			ODocument networkDoc = loader.load(key.networkRID);
+			if ( networkDoc == null) {
+				for ( AccountMemberships source : sources)
+					source.remove(key.networkRID);
+				continue;
+			}
+			if ( toSkip > 0) {
+				toSkip--;
+				continue;
+			}
+			result.add(networkDoc);
+		}
+		return result;
+	}
+
+	/**
+	 * Record a permission edge that has been added from an account to a network. It replaces the previous permission.
+	 * Only call this after the edge has been committed.
+	 */
+	public void setPermission(ORID accountRID, ODocument networkDoc, Permissions permission) {
+		AccountMemberships m = accounts.get(accountRID);
+		if ( m != null)
+			m.setIfLoaded(Key.fromNetworkDoc(networkDoc), permission);
+	}
+
+	/**
+	 * Only call this after the removal of the edge has been committed.
+	 */
+	public void removePermission(ORID accountRID, ORID networkRID) {
+		AccountMemberships m = accounts.get(accountRID);
+		if ( m != null)
+			m.removeIfLoaded(networkRID);
+	}
+
+	public void invalidateAccount(ORID accountRID) {
+		accounts.remove(accountRID);
+	}
+
+	public void invalidateAll() {
+		accounts.clear();
+	}
+
+	/**
+	 * The entry is published before it is loaded and loaded under its own lock, so that an update made while 
+	 * it is loading waits for the load and is applied to the loaded entry instead of being lost.
+	 */
+	private AccountMemberships getAccount(ORID accountRID) {
+		AccountMemberships m = accounts.get(accountRID);
+		if ( m == null) {
+			AccountMemberships newEntry = new AccountMemberships();
+			m = accounts.putIfAbsent(accountRID, newEntry);
+			if ( m == null)
+				m = newEntry;
+		}
+		synchronized (m) {
+			if ( !m.loaded) {
+				ODocument accountDoc = accountRID.getRecord();
+				if ( accountDoc != null) {
+					// lower permissions first, so that the highest one wins when an account has more than one edge to a network.
+					for ( Permissions p : new Permissions[] { Permissions.READ, Permissions.WRITE, Permissions.ADMIN}) {
+						for ( ODocument networkDoc : Helper.getDocumentLinks(accountDoc, "out_", p.name().toLowerCase())) {
+							if ( isLiveNetwork(networkDoc))
+								m.set(Key.fromNetworkDoc(networkDoc), p);
+						}
+					}
+				}
+				m.loaded = true;
+			}
+		}
+		return m;
+	}
+
+	private static boolean isLiveNetwork(ODocument doc) {
+		if ( doc == null || !NdexClasses.Network.equals(doc.getClassName()))
+			return false;
+		Boolean isDeleted = doc.field(NdexClasses.ExternalObj_isDeleted);
+		return isDeleted == null || !isDeleted.booleanValue();
+	}
+
+	/**
+	 * The networks of one account, a sorted set per permission. The sets can be iterated while they are updated.
+	 */
+	static class AccountMemberships {
+		private final Map<Permissions, NavigableSet<Key>> networks = new EnumMap<>(Permissions.class);
+		private final ConcurrentMap<ORID, Key> keys = new ConcurrentHashMap<>();
+		private final ConcurrentMap<ORID, Permissions> permissions = new ConcurrentHashMap<>();
+		// guarded by this.
+		boolean loaded;
+
+		AccountMemberships() {
+			for ( Permissions p : new Permissions[] { Permissions.READ, Permissions.WRITE, Permissions.ADMIN})
+				networks.put(p, new ConcurrentSkipListSet<Key>());
+		}
+
+		synchronized void set(Key key, Permissions permission) {
+			remove(key.networkRID);
+			NavigableSet<Key> s = networks.get(permission);
+			if ( s == null) return;
+			s.add(key);
+			keys.put(key.networkRID, key);
+			permissions.put(key.networkRID, permission);
+		}
+
+		synchronized void setIfLoaded(Key key, Permissions permission) {
+			if ( loaded)
+				set(key, permission);
+		}
+
+		synchronized void removeIfLoaded(ORID networkRID) {
+			if ( loaded)
+				remove(networkRID);
+		}
+
+		synchronized void remove(ORID networkRID) {
+			Key key = keys.remove(networkRID);
+			Permissions p = permissions.remove(networkRID);
+			if ( key != null && p != null)
+				networks.get(p).remove(key);
+		}
+
+		Iterable<Key> tail(Permissions permission, Key after) {
+			NavigableSet<Key> s = networks.get(permission);
+			if ( s == null) 
+				return new ArrayList<>();
+			return after == null ? s : s.tailSet(after, false);
+		}
+	}
+}
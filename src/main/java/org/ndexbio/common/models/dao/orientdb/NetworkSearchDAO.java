@@ -360,24 +360,12 @@ public class NetworkSearchDAO extends OrientdbDAO{
 	
 	  public static boolean networkIsReadableByAccount(ODocument networkDoc, 
 				ORID userORID) {
-	
-		  for (OIdentifiable reifiedTRec : new OTraverse()
-					.fields(	"in_" + NdexClasses.account_E_canEdit,
-							"in_" + NdexClasses.account_E_canRead,
-							"in_" + NdexClasses.E_admin,
-							"in_" + NdexClasses.GRP_E_admin, 
-							"in_" + NdexClasses.GRP_E_member)
-					.target(networkDoc)
-					.predicate( new OSQLPredicate("$depth <= 2"))) {
-
-			  if ( reifiedTRec.getIdentity().equals(userORID)) 
-				  return true;
-		  }
-		  return false;
-		  
-	   }
-
-
+		  if ( userORID == null) 
+			  return false;
+		  return NetworkACLCache.INSTANCE.hasPermission(userORID, (String)networkDoc.field(NdexClasses.Network_P_UUID), 
+				  Permissions.READ);
+	  }
+	  
 	  private static boolean networkAdminedByAccount(ODocument networkDoc,ORID userORID, ORID adminUserRID, boolean includeGroups,
 			      Permissions permission, boolean canRead ) throws NdexException {
 	
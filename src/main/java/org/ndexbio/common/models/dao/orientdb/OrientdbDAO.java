@@ -32,6 +32,7 @@ package org.ndexbio.common.models.dao.orientdb;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import java.util.logging.Logger;
 
@@ -55,6 +56,9 @@ public class OrientdbDAO implements AutoCloseable {
 	protected ODatabaseDocumentTx db;
 	private static final Logger logger = Logger.getLogger(OrientdbDAO.class.getName());
 
+	// accounts whose search index entries are updated once the current transaction commits.
+	private final List<ODocument> pendingAccountUpdates = new ArrayList<>();
+
 	public OrientdbDAO(ODatabaseDocumentTx connection) {
 		this.db = connection;
 	}
@@ -150,13 +154,42 @@ public class OrientdbDAO implements AutoCloseable {
 	@Override
 	public void close () {
 		db.close();
+		accountUpdatesClosed();
 	}
 
     public void commit () {
     	db.commit();
+    	accountUpdatesCommitted();
     }
     
     public void rollback() {
     	db.rollback();
+    	accountUpdatesRolledBack();
+    }
+
+    /**
+     * Update the account in the AccountSearchIndex after the current transaction commits.
+     */
+    protected void updateAccountIndexOnCommit(ODocument accountDoc) {
+    	pendingAccountUpdates.add(accountDoc);
+    }
+
+    protected void accountUpdatesCommitted() {
+    	for ( ODocument accountDoc : pendingAccountUpdates)
+    		AccountSearchIndex.getInstance().update(accountDoc);
+    	pendingAccountUpdates.clear();
+    }
+
+    protected void accountUpdatesRolledBack() {
+    	pendingAccountUpdates.clear();
+    }
+
+    /**
+     * Closed without an explicit commit or rollback: the index reloads the accounts from the database on its next search.
+     */
+    protected void accountUpdatesClosed() {
+    	for ( ODocument accountDoc : pendingAccountUpdates)
+    		AccountSearchIndex.getInstance().refreshLater(accountDoc.getIdentity());
+    	pendingAccountUpdates.clear();
     }
 }
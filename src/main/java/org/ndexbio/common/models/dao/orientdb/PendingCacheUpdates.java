@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ndexbio.model.object.Permissions;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Permission cache updates (NetworkACLCache and NetworkMembershipIndex) made by a DAO in its current transaction. They are held back until the transaction
+ * commits, so that a grant that is rolled back, e.g. because the Solr update after it failed, never shows up 
+ * in the cache. When the DAO is closed with updates still pending, it is not known whether the transaction was
+ * committed, so the accounts involved are reloaded from the database on their next use.
+ */
+class PendingCacheUpdates {
+
+	private final List<Runnable> updates = new ArrayList<>();
+	private final Set<ORID> accounts = new HashSet<>();
+
+	void setPermission(final ORID accountRID, final ODocument networkDoc, final String networkUUID, 
+			final Permissions permission) {
+		accounts.add(accountRID);
+		updates.add(new Runnable() {
+			@Override
+			public void run() {
+				NetworkACLCache.INSTANCE.setPermission(accountRID, networkUUID, permission);
+				NetworkMembershipIndex.INSTANCE.setPermission(accountRID, networkDoc, permission);
+			}
+		});
+	}
+
+	void removePermission(final ORID accountRID, final ORID networkRID, final String networkUUID) {
+		accounts.add(accountRID);
+		updates.add(new Runnable() {
+			@Override
+			public void run() {
+				NetworkACLCache.INSTANCE.removePermission(accountRID, networkUUID);
+				NetworkMembershipIndex.INSTANCE.removePermission(accountRID, networkRID);
+			}
+		});
+	}
+
+	void addGroup(final ORID accountRID, final ORID groupRID) {
+		accounts.add(accountRID);
+		updates.add(new Runnable() {
+			@Override
+			public void run() {
+				NetworkACLCache.INSTANCE.addGroup(accountRID, groupRID);
+			}
+		});
+	}
+
+	void removeGroup(final ORID accountRID, final ORID groupRID) {
+		accounts.add(accountRID);
+		updates.add(new Runnable() {
+			@Override
+			public void run() {
+				NetworkACLCache.INSTANCE.removeGroup(accountRID, groupRID);
+			}
+		});
+	}
+
+	/**
+	 * Reload the permissions of the account from the database on its next use.
+	 */
+	void invalidate(final ORID accountRID) {
+		accounts.add(accountRID);
+		updates.add(new Runnable() {
+			@Override
+			public void run() {
+				NetworkACLCache.INSTANCE.invalidateAccount(accountRID);
+				NetworkMembershipIndex.INSTANCE.invalidateAccount(accountRID);
+			}
+		});
+	}
+
+	boolean isEmpty() {
+		return updates.isEmpty();
+	}
+
+	/**
+	 * Apply the updates after a successful commit.
+	 */
+	void committed() {
+		for ( Runnable update : updates)
+			update.run();
+		clear();
+	}
+
+	/**
+	 * Drop the updates of a transaction that has been rolled back.
+	 */
+	void rolledBack() {
+		clear();
+	}
+
+	/**
+	 * Invalidate the accounts of updates whose transaction has neither been committed nor rolled back explicitly.
+	 */
+	void closed() {
+		for ( ORID accountRID : accounts) {
+			NetworkACLCache.INSTANCE.invalidateAccount(accountRID);
+			NetworkMembershipIndex.INSTANCE.invalidateAccount(accountRID);
+		}
+		clear();
+	}
+
+	private void clear() {
+		updates.clear();
+		accounts.clear();
+	}
+}
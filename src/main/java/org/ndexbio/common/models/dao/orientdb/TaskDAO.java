@@ -30,6 +30,8 @@
  */
 package org.ndexbio.common.models.dao.orientdb;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 import java.util.logging.Logger;
 
@@ -38,12 +40,14 @@ import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.util.NdexUUIDFactory;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.exceptions.ObjectNotFoundException;
+import org.ndexbio.model.object.Status;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.task.NdexServerQueue;
 
 import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.tinkerpop.blueprints.impls.orient.OrientBaseGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
@@ -150,6 +154,58 @@ public class TaskDAO extends TaskDocDAO {
     }
     
 
+    /**
+     * Delete tasks with the given status and deleted flag in batches. Each batch is committed separately, so the 
+     * transaction size doesn't grow with the number of tasks purged.
+     * @param status
+     * @param isDeleted
+     * @param olderThan if not null, only tasks that started (or, if they never started, were created) before this 
+     *        time are purged.
+     * @param batchSize
+     * @return number of tasks purged.
+     */
+    public int purgeTasks(Status status, boolean isDeleted, Date olderThan, int batchSize) {
+    	String baseQuery = "select from " + NdexClasses.Task + " where " + NdexClasses.Task_P_status + " = ? and " + 
+    			NdexClasses.ExternalObj_isDeleted + " = ?";
+    	int count;
+    	if ( olderThan == null) {
+    		count = purgeTaskBatches(baseQuery + " limit " + batchSize, batchSize, status.toString(), isDeleted);
+    	} else {
+    		count = purgeTaskBatches(baseQuery + " and " + NdexClasses.Task_P_startTime + " < ? limit " + batchSize, 
+    				batchSize, status.toString(), isDeleted, olderThan);
+    		count += purgeTaskBatches(baseQuery + " and " + NdexClasses.Task_P_startTime + " is null and " + 
+    				NdexClasses.ExternalObj_cTime + " < ? limit " + batchSize, 
+    				batchSize, status.toString(), isDeleted, olderThan);
+    	}
+    	return count;
+    }
+
+    private int purgeTaskBatches(String query, int batchSize, Object... params) {
+    	int count = 0;
+    	while (true) {
+    		List<ODocument> batch = db.command(new OSQLSynchQuery<ODocument>(query)).execute(params);
+    		int removed = 0;
+    		for ( ODocument d : batch) {
+    			OrientVertex v = graph.getVertex(d);
+    			for	(int retry = 0;	retry <	NdexDatabase.maxRetries;	++retry)	{
+    				try	{
+    					v.remove();
+    					removed++;
+    					break;
+    				} catch(ONeedRetryException	e)	{
+    					logger.warning("Write conflict when purging task. Retry (" + retry + "): " + e.getMessage());
+    					v.reload();
+    				}
+    			}
+    		}
+    		graph.commit();
+    		count += removed;
+    		// stop when the query is exhausted, or when a task couldn't be removed so it would be selected again.
+    		if ( batch.size() < batchSize || removed < batch.size())
+    			return count;
+    	}
+    }
+
 	@Override
 	public void close() {
 		this.graph.shutdown();
@@ -60,6 +60,12 @@ import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
 public class TaskDocDAO extends OrientdbDAO {
 
+	// parameterized so that the queries can use the (status, isDeleted) index.
+	private static final String tasksByStatusQuery = "select from " + NdexClasses.Task + 
+			" where " + NdexClasses.Task_P_status + " = ?";
+	private static final String liveTasksByStatusQuery = "select from " + NdexClasses.Task + 
+			" where " + NdexClasses.Task_P_status + " = ? and " + NdexClasses.ExternalObj_isDeleted + " = false";
+
 
 //	private static final Logger logger = Logger.getLogger(TaskDAO.class.getName());
 	
@@ -135,9 +141,7 @@ public class TaskDocDAO extends OrientdbDAO {
 
     
     private List<ODocument>  getTaskDocumentsByStatus(Status aStatus) {
-    	String query = "select from task "
-	            + " where status = '" +aStatus +"'";
-        return  db.query(new OSQLSynchQuery<ODocument>(query));
+        return  db.command(new OSQLSynchQuery<ODocument>(tasksByStatusQuery)).execute(aStatus.toString());
     }
     
     // This is the method called by the Task REST Service
@@ -227,10 +231,13 @@ public class TaskDocDAO extends OrientdbDAO {
    
     public void flagStagedTaskAsErrors() {
     	db.command( new OCommandSQL("update "+ NdexClasses.Task + " set " + 
-    	  NdexClasses.Task_P_status + " = '"+ Status.COMPLETED_WITH_ERRORS + "' where " +
-    	  NdexClasses.Task_P_status + " = '"+ Status.STAGED.toString() + "'")).execute();
+    	  NdexClasses.Task_P_status + " = ? where " + NdexClasses.Task_P_status + " = ?"))
+    	  .execute(Status.COMPLETED_WITH_ERRORS.toString(), Status.STAGED.toString());
     }
 
+    /**
+     * Mark a task as deleted. Callers cancel a task that is still queued or running before deleting it.
+     */
     public int deleteTask (UUID taskID) throws ObjectNotFoundException, NdexException {
         ODocument d = this.getRecordByUUID(taskID, NdexClasses.Task);
        
@@ -258,11 +265,13 @@ public class TaskDocDAO extends OrientdbDAO {
      */
     public Collection<Task> getUnfinishedTasks() { 
     	List<Task> result = new LinkedList<>();
-    	OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(
-  			"SELECT FROM task where ( isDeleted=false) and ( status = 'QUEUED' or status = 'PROCESSING') ");
-    	List<ODocument> records = db.command(query).execute();
-    	for ( ODocument doc : records ) {
-    		result.add(getTaskFromDocument(doc));
+    	// one query per status, an OR on the status can't use the index.
+    	for ( Status status : new Status[] {Status.QUEUED, Status.PROCESSING}) {
+    		List<ODocument> records = db.command(new OSQLSynchQuery<ODocument>(liveTasksByStatusQuery))
+    				.execute(status.toString());
+    		for ( ODocument doc : records ) {
+    			result.add(getTaskFromDocument(doc));
+    		}
     	}
     	return result;
     }
@@ -49,6 +49,7 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 public class UserDAO extends UserDocDAO {
 
 	private OrientGraph graph;
+	private PendingCacheUpdates pendingCacheUpdates = new PendingCacheUpdates();
 	private static final Logger logger = Logger.getLogger(UserDAO.class
 			.getName());
 
@@ -128,6 +129,7 @@ public class UserDAO extends UserDocDAO {
 	        }
 
 	        OrientVertex userV = graph.getVertex(userDoc);
+	        pendingCacheUpdates.invalidate(userDoc.getIdentity());
 
 	        //remove the group and network links
 	        for ( ODocument doc : Helper.getDocumentLinks(userDoc, "out_", NdexClasses.E_admin)) {
@@ -171,6 +173,7 @@ public class UserDAO extends UserDocDAO {
 					NdexClasses.account_P_oldAcctName, accName,
 					NdexClasses.User_P_emailAddress, null,
 					NdexClasses.User_P_oldEmailAddress, email).save();
+			updateAccountIndexOnCommit(userDoc);
 			
 		} catch (Exception e) {
 			logger.severe("Could not delete user from the database");
@@ -183,11 +186,23 @@ public class UserDAO extends UserDocDAO {
 	@Override
 	public void commit() {
 		this.graph.commit();
+		accountUpdatesCommitted();
+		pendingCacheUpdates.committed();
 	}
 	
+	@Override
+	public void rollback() {
+		this.graph.rollback();
+		accountUpdatesRolledBack();
+		pendingCacheUpdates.rolledBack();
+	}
+
 	@Override
 	public void close() {
 		this.graph.shutdown();
+		accountUpdatesClosed();
+		if ( !pendingCacheUpdates.isEmpty())
+			pendingCacheUpdates.closed();
 	}
 	
 
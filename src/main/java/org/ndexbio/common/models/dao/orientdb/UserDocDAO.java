@@ -35,7 +35,9 @@ import java.security.SecureRandom;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Logger;
 import java.util.Date;
@@ -62,6 +64,7 @@ import com.google.common.base.Strings;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OIndex;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import com.tinkerpop.blueprints.Direction;
@@ -191,6 +194,7 @@ public class UserDocDAO extends OrientdbDAO {
 			}
 			
 			user = user.save();
+			updateAccountIndexOnCommit(user);
 
 			logger.info("A new user with accountName "
 					+ newUser.getAccountName() + " has been created");
@@ -229,6 +233,7 @@ public class UserDocDAO extends OrientdbDAO {
 			userDoc.fields(NdexClasses.ExternalObj_isDeleted, false,
 					NdexClasses.account_P_accountName, acc,
 					NdexClasses.ExternalObj_mTime, t2).save();
+			updateAccountIndexOnCommit(userDoc);
 			return acc;
 		}
 		
@@ -312,97 +317,37 @@ public class UserDocDAO extends OrientdbDAO {
 		Preconditions.checkArgument(simpleQuery != null,
 				"Search parameters are required");
 
-		String traversePermission;
-		OSQLSynchQuery<ODocument> query;
-		Iterable<ODocument> users;
+		String[] traversePermissions;
 		final List<User> foundUsers = new ArrayList<>();
 		
-		String searchStr = simpleQuery.getSearchString().toLowerCase();
+		String searchStr = simpleQuery.getSearchString().toLowerCase().trim();
 		
 		if (searchStr.equals("*") )
 			searchStr = "";
 		
 		if (simpleQuery.getPermission() == null)
-			traversePermission = "in_groupadmin, in_member";
+			traversePermissions = new String[] {NdexClasses.GRP_E_admin, NdexClasses.GRP_E_member};
 		else
-			traversePermission = "in_"
-					+ simpleQuery.getPermission().name().toLowerCase();
+			traversePermissions = new String[] {simpleQuery.getPermission().name().toLowerCase()};
 
-		//StringEscapeUtils.escapeJava()
-		searchStr = Helper.escapeOrientDBSQL(searchStr.toLowerCase().trim());
 		final int startIndex = skip * top;
 
 		try {
-
+			// members of the group are taken from the links of the group record and handed to the index as a filter.
+			Set<ORID> members = null;
 			if (!Strings.isNullOrEmpty(simpleQuery.getAccountName())) {
 				ODocument nGroup = this.getRecordByAccountName(simpleQuery.getAccountName(), NdexClasses.Group);
 
 				if (nGroup == null)
 					throw new NdexException("Invalid accountName to filter by");
 
-				String traverseRID = nGroup.getIdentity().toString();
-				query = new OSQLSynchQuery<>("SELECT FROM"
-						+ " (TRAVERSE "
-						+ traversePermission
-						+ " FROM"
-						+ " "
-						+ traverseRID
-						+ " WHILE $depth <=1)"
-						+ " WHERE @class = '"
-						+ NdexClasses.User
-						+ "' and ( " + NdexClasses.ExternalObj_isDeleted + "= false)"
-						+ " AND (accountName.toLowerCase() LIKE '%"
-						+ searchStr
-						+ "%'"
-						+ "  OR lastName.toLowerCase() LIKE '%"
-						+ searchStr
-						+ "%'"
-						+ "  OR firstName.toLowerCase() LIKE '%"
-						+ searchStr
-						+ "%' )"
-						+ " ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC "
-						+ " SKIP "
-						+ startIndex + " LIMIT " + top);
-
-				users = this.db.command(query).execute();
-
-		/*		if (!users.iterator().hasNext()  && simpleQuery.getSearchString().equals("")) {
-
-					query = new OSQLSynchQuery<>("SELECT FROM"
-							+ " (TRAVERSE " + traversePermission + " FROM"
-							+ " " + traverseRID + " WHILE $depth <=1)"
-							+ " WHERE @class = '" + NdexClasses.User + "'"
-							+ " ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC " + " SKIP "
-							+ startIndex + " LIMIT " + top);
-
-					users = this.db.command(query).execute();
-
-				} */
-
-				for (final ODocument user : users) {
-					foundUsers.add(UserDocDAO.getUserFromDocument(user));
-				}
-				return foundUsers;
-
+				members = new HashSet<>();
+				for ( String permission : traversePermissions)
+					members.addAll(Helper.getLinkedRids(nGroup, "in_", permission));
 			} 
 				
-			query = new OSQLSynchQuery<>("SELECT FROM "
-						+ NdexClasses.User + " "
-						+ "WHERE ( "+ NdexClasses.ExternalObj_isDeleted 
-						+ " = false ) and ( accountName.toLowerCase() LIKE '%"
-						+ searchStr + "%'"
-						+ "  OR lastName.toLowerCase() LIKE '%"
-						+ searchStr + "%'"
-						+ "  OR firstName.toLowerCase() LIKE '%"
-						+ searchStr + "%'"
-						+ ")  ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC " + " SKIP "
-						+ startIndex + " LIMIT " + top);
-
-			users = this.db.command(query).execute();
-
-			for (final ODocument user : users) {
-					foundUsers.add(UserDocDAO.getUserFromDocument(user));
-			}
+			for ( ODocument user : AccountSearchIndex.getInstance().search(db, NdexClasses.User, searchStr, members, startIndex, top)) 
+				foundUsers.add(UserDocDAO.getUserFromDocument(user));
 			return foundUsers;
 
 		} catch (Exception e) {
@@ -628,6 +573,7 @@ public class UserDocDAO extends OrientdbDAO {
 						NdexClasses.ExternalObj_mTime, updatedUser.getModificationTime());
 
 			user = user.save();
+			updateAccountIndexOnCommit(user);
 			logger.info("Updated user profile with UUID " + id);
 
 			return getUserFromDocument(user);
@@ -663,6 +609,36 @@ public class UserDocDAO extends OrientdbDAO {
 	public List<Membership> getUserNetworkMemberships(UUID userId,
 			Permissions permission, int skipBlocks, int blockSize)
 			throws ObjectNotFoundException, NdexException {
+		return getUserNetworkMemberships(userId, permission, null, skipBlocks * blockSize, blockSize);
+	}
+
+	/**************************************************************************
+	 * getUserNetworkMemberships with keyset paging
+	 * 
+	 * @param userId
+	 *            UUID for associated user
+	 * @param permission
+	 *            Type of memberships to retrieve, ADMIN, WRITE, or READ
+	 * @param afterNetworkId
+	 *            UUID of the last network on the previous page. null for 
+	 *            the first page.
+	 * @param blockSize
+	 *            Max number of memberships to return
+	 * @throws NdexException
+	 *             Invalid parameters or an error occurred while accessing the
+	 *             database
+	 * @throws ObjectNotFoundException
+	 *             Invalid userId or afterNetworkId
+	 **************************************************************************/
+	public List<Membership> getUserNetworkMemberships(UUID userId,
+			Permissions permission, UUID afterNetworkId, int blockSize)
+			throws ObjectNotFoundException, NdexException {
+		return getUserNetworkMemberships(userId, permission, afterNetworkId, 0, blockSize);
+	}
+
+	private List<Membership> getUserNetworkMemberships(UUID userId,
+			Permissions permission, UUID afterNetworkId, int startIndex, int blockSize)
+			throws ObjectNotFoundException, NdexException {
 
 		Preconditions.checkArgument(!Strings.isNullOrEmpty(userId.toString()),
 				"A user UUID is required");
@@ -672,26 +648,14 @@ public class UserDocDAO extends OrientdbDAO {
 				"Valid permissions required");
 
 		ODocument user = this.getRecordByUUID(userId, NdexClasses.User);
-
-		final int startIndex = skipBlocks * blockSize;
+		ODocument afterNetwork = afterNetworkId == null ? null : 
+			this.getRecordByUUID(afterNetworkId, NdexClasses.Network);
 
 		try {
 			List<Membership> memberships = new ArrayList<>();
 
-			String userRID = user.getIdentity().toString();
-
-			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(
-					"SELECT FROM" + " (TRAVERSE out_"
-							+ Permissions.GROUPADMIN.name().toLowerCase()
-							+ ", out_"
-							+ permission.name().toString().toLowerCase()
-							+ " FROM" + " " + userRID + "  WHILE $depth <=2)"
-							+ " WHERE @class = '" + NdexClasses.Network + "' and ( " + NdexClasses.ExternalObj_isDeleted +" = false) "
-							+ " ORDER BY " + NdexClasses.ExternalObj_cTime + " DESC " + " SKIP "
-							+ startIndex + " LIMIT " + blockSize);
-
-			List<ODocument> records = this.db.command(query).execute();
-			for (ODocument network : records) {
+			for (ODocument network : NetworkMembershipIndex.INSTANCE.listNetworks(user, permission, 
+					afterNetwork, startIndex, blockSize)) {
 
 				Membership membership = new Membership();
 				membership.setMembershipType(MembershipType.NETWORK);
@@ -0,0 +1,134 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.persistence;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.ndexbio.common.models.object.network.RawNamespace;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.SimplePropertyValuePair;
+import org.ndexbio.model.object.network.Namespace;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.ndexbio.model.object.network.NetworkSummary;
+
+/**
+ * The element level operations the XGMML and XBEL parsers build a network with. NdexPersistenceService
+ * implements them by saving the elements in the database; the CX converters implement them by writing 
+ * CX aspect elements, so the same parser code can feed either the legacy loader or the CX loader.
+ * 
+ * All ids are handed out by the builder and are only meaningful to the builder that returned them.
+ * Properties are added through a method per element type, because a builder doesn't necessarily 
+ * keep track of the type of every id it gave out.
+ */
+public interface NetworkElementBuilder {
+
+	void createNewNetwork(String ownerName, String networkTitle, String version);
+
+	/**
+	 * @return the summary of the network being built. Parsers may change its name, description and 
+	 *   properties directly, and call updateNetworkSummary() to save the changes.
+	 */
+	NetworkSummary getCurrentNetwork();
+
+	void updateNetworkSummary();
+
+	void setNetworkTitleAndDescription(String title, String description);
+
+	void setNetworkProperties(Collection<NdexPropertyValuePair> properties, 
+			Collection<SimplePropertyValuePair> presentationProperties);
+
+	void setNetworkSourceFormat(NetworkSourceFormat fmt);
+
+	/**
+	 * Called by parsers at batch boundaries. Builders that don't have transactions can ignore it.
+	 */
+	void commit();
+
+	Namespace getNamespace(RawNamespace rns) throws NdexException;
+
+	Long getBaseTermId(String termString) throws NdexException, ExecutionException;
+
+	Long getBaseTermId(Namespace namespace, String localTerm) throws NdexException, ExecutionException;
+
+	/**
+	 * @param termList ids of the arguments, which are either base terms or function terms.
+	 */
+	Long getFunctionTermId(Long baseTermId, List<Long> termList) throws ExecutionException;
+
+	Long getReifiedEdgeTermIdFromEdgeId(Long edgeId) throws ExecutionException;
+
+	/**
+	 * @param id the node id that was assigned by the source file.
+	 * @param name name of the node if it has to be created; can be null.
+	 */
+	Long findOrCreateNodeIdByExternalId(String id, String name);
+
+	Long getNodeIdByFunctionTermId(Long funcTermId);
+
+	Long getNodeIdByReifiedEdgeTermId(Long reifiedEdgeTermId);
+
+	/**
+	 * Create a node that represents a term, without looking for an existing node of the same term.
+	 * @param representTermType NdexClasses.BaseTerm, NdexClasses.FunctionTerm or NdexClasses.ReifiedEdgeTerm.
+	 */
+	Long createNodeFromTermId(Long termId, String representTermType);
+
+	void setNodeRepresentBaseTerm(long nodeId, long termId) throws ExecutionException;
+
+	void addMetaDataToNode(Long nodeId, Long supportId, Long citationId, Map<String,String> annotations) 
+			throws ExecutionException;
+
+	Long createEdge(Long subjectNodeId, Long objectNodeId, Long predicateId, 
+			 Long supportId, Long citationId, Map<String,String> annotation ) throws NdexException, ExecutionException;
+
+	Long createEdge(Long subjectNodeId, Long objectNodeId, Long predicateId, 
+			 Long supportId, Long citationId, List<NdexPropertyValuePair> properties ) throws NdexException, ExecutionException;
+
+	Long getCitationId(String title, String idType, String identifier, List<String> contributors) 
+			throws NdexException, ExecutionException;
+
+	Long getSupportId(String literal, Long citationId) throws NdexException;
+
+	void addNodeProperty(Long nodeId, String key, String value, String type) throws ExecutionException;
+
+	void addEdgeProperty(Long edgeId, String key, String value, String type) throws ExecutionException;
+
+	void addCitationProperty(Long citationId, String key, String value, String type) throws ExecutionException;
+
+	void addSupportProperty(Long supportId, String key, String value, String type) throws ExecutionException;
+
+	void addNamespaceProperty(Long namespaceId, String key, String value, String type) throws ExecutionException;
+
+}
@@ -70,15 +70,19 @@ import org.cxio.metadata.MetaDataElement;
 import org.cxio.util.CxioUtil;
 import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.cx.CXNetworkConverter;
 import org.ndexbio.common.cx.aspect.GeneralAspectFragmentReader;
 import org.ndexbio.common.models.dao.orientdb.BasicNetworkDAO;
 import org.ndexbio.common.models.dao.orientdb.Helper;
+import org.ndexbio.common.models.dao.orientdb.NetworkACLCache;
+import org.ndexbio.common.models.dao.orientdb.NetworkMembershipIndex;
 import org.ndexbio.common.models.dao.orientdb.SingleNetworkDAO;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
 import org.ndexbio.common.solr.NetworkGlobalIndexManager;
 import org.ndexbio.common.solr.SingleNetworkSolrIdxManager;
 import org.ndexbio.common.util.NdexUUIDFactory;
 import org.ndexbio.common.util.TermUtilities;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.cx.CXSimpleAttribute;
 import org.ndexbio.model.cx.CitationElement;
 import org.ndexbio.model.cx.EdgeCitationLinksElement;
@@ -95,6 +99,7 @@ import org.ndexbio.model.exceptions.DuplicateObjectException;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.exceptions.ObjectNotFoundException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.Permissions;
 import org.ndexbio.model.object.ProvenanceEntity;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.model.object.TaskType;
@@ -109,6 +114,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.tinkerpop.blueprints.impls.orient.OrientGraph;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
@@ -122,6 +128,8 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 	private long counter;
 	
 	private InputStream inputStream;
+	// when set, the network is read from this converter instead of the input stream.
+	private CXNetworkConverter converter;
 	private NdexDatabase ndexdb;
 	private String ownerAcctName;
 	private ODocument networkDoc;
@@ -178,6 +186,15 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 			serverElementLimit = -1;
 		
 	}
+
+	/**
+	 * Create a loader that persists the aspect elements produced by a converter, so networks in other 
+	 * formats go through the same write path and checks as uploaded CX.
+	 */
+	public CXNetworkLoader(CXNetworkConverter converter, String ownerAccountName) throws NdexException {
+		this((InputStream)null, ownerAccountName);
+		this.converter = converter;
+	}
 	
 	private void init () {
 		opaqueCounter = 0;
@@ -255,6 +272,8 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 				}
 			}		
 		graph.commit();
+		NetworkACLCache.INSTANCE.setPermission(ownerDoc.getIdentity(), uuid.toString(), Permissions.ADMIN);
+		NetworkMembershipIndex.INSTANCE.setPermission(ownerDoc.getIdentity(), networkDoc, Permissions.ADMIN);
 		createSolrIndex(networkDoc);
 		return uuid;
 		
@@ -276,70 +295,26 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 		networkVertex = graph.getVertex(networkDoc);
 		
 
-		  CxElementReader cxreader = createCXReader();
-		  
-		  MetaDataCollection metadata = cxreader.getPreMetaData();
-		
-		  for ( AspectElement elmt : cxreader ) {
-			//String aspectName = ;
-			switch ( elmt.getAspectName() ) {
-				case NodesElement.ASPECT_NAME :       //Node
-					createCXNode((NodesElement) elmt);
-					break;
-				case NdexNetworkStatus.ASPECT_NAME:   //ndexStatus
-				//	netStatus = (NdexNetworkStatus) elmt;
-				//	saveNetworkStatus(netStatus);
-					break; 
-				case EdgesElement.ASPECT_NAME:       // Edge
-					EdgesElement ee = (EdgesElement) elmt;
-					createCXEdge(ee);
-					break;
-				case NamespacesElement.ASPECT_NAME:    // namespace
-					createCXContext((NamespacesElement) elmt);
-					break;
-				case NodeAttributesElement.ASPECT_NAME:  // node attributes
-					addNodeAttribute((NodeAttributesElement) elmt );
-					break;
-				case FunctionTermElement.ASPECT_NAME:   // function term
-					createFunctionTerm((FunctionTermElement) elmt);
-					break;
-				case NetworkAttributesElement.ASPECT_NAME: //network attributes
-					createNetworkAttribute(( NetworkAttributesElement) elmt);
-					break;
-				case EdgeAttributesElement.ASPECT_NAME:     // edge attibutes
-					addEdgeAttribute((EdgeAttributesElement) elmt );
-					break;
-				case ReifiedEdgeElement.ASPECT_NAME:   // reified edge
-					createReifiedEdgeTerm((ReifiedEdgeElement) elmt);
-					break;
-				case CitationElement.ASPECT_NAME:     // citation
-					createCitation((CitationElement) elmt);
-					break;
-				case SupportElement.ASPECT_NAME:      //
-					createSupport((SupportElement) elmt);
-					break;
-				case EdgeCitationLinksElement.ASPECT_NAME:
-					createEdgeCitation((EdgeCitationLinksElement) elmt);
-					break;
-				case EdgeSupportLinksElement.ASPECT_NAME:
-					createEdgeSupport((EdgeSupportLinksElement) elmt);
-					break;
-				case NodeSupportLinksElement.ASPECT_NAME:
-					createNodeSupport((NodeSupportLinksElement) elmt);
-					break;
-				case NodeCitationLinksElement.ASPECT_NAME:
-					createNodeCitation((NodeCitationLinksElement) elmt);
-					break;
-				case Provenance.ASPECT_NAME:
-					if ( provenanceHistory !=null)
-						throw new NdexException ("More than one provenanceHistory aspect element found in the CX stream.");
-					provenanceHistory = (Provenance) elmt;
-					break;
-				default:    // opaque aspect
-					addOpaqueAspectElement((OpaqueElement) elmt);
-			}
+		  MetaDataCollection metadata;
+		  MetaDataCollection postmetadata;
+		  if ( converter != null) {
+			  converter.convert(new CXNetworkConverter.ElementSink() {
+				  @Override
+				  public void write(AspectElement element) throws NdexException, IOException {
+					  persistAspectElement(element);
+				  }
+			  });
+			  metadata = null;
+			  postmetadata = converter.getMetaData();
+		  } else {
+			  CxElementReader cxreader = createCXReader();
+			  metadata = cxreader.getPreMetaData();
+			  for ( AspectElement elmt : cxreader ) {
+				  persistAspectElement(elmt);
+			  }
+			  postmetadata = cxreader.getPostMetaData();
+		  }
 
-		}
 		  // check data integrity.
 		  if ( !undefinedNodeId.isEmpty()) {
 			  String errorMessage = undefinedNodeId.size() + "undefined nodes found in CX stream: [";
@@ -359,7 +334,6 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 		  //TODO: check citation and supports
 		  
 		  //save the metadata
-		  MetaDataCollection postmetadata = cxreader.getPostMetaData();
 		  if ( postmetadata !=null) {
 			  if( metadata == null) {
 				  metadata = postmetadata;
@@ -431,6 +405,65 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 		  networkDoc.save();
 	}
 	
+	private void persistAspectElement(AspectElement elmt) throws IOException, NdexException {
+		switch ( elmt.getAspectName() ) {
+			case NodesElement.ASPECT_NAME :       //Node
+				createCXNode((NodesElement) elmt);
+				break;
+			case NdexNetworkStatus.ASPECT_NAME:   //ndexStatus
+			//	netStatus = (NdexNetworkStatus) elmt;
+			//	saveNetworkStatus(netStatus);
+				break; 
+			case EdgesElement.ASPECT_NAME:       // Edge
+				EdgesElement ee = (EdgesElement) elmt;
+				createCXEdge(ee);
+				break;
+			case NamespacesElement.ASPECT_NAME:    // namespace
+				createCXContext((NamespacesElement) elmt);
+				break;
+			case NodeAttributesElement.ASPECT_NAME:  // node attributes
+				addNodeAttribute((NodeAttributesElement) elmt );
+				break;
+			case FunctionTermElement.ASPECT_NAME:   // function term
+				createFunctionTerm((FunctionTermElement) elmt);
+				break;
+			case NetworkAttributesElement.ASPECT_NAME: //network attributes
+				createNetworkAttribute(( NetworkAttributesElement) elmt);
+				break;
+			case EdgeAttributesElement.ASPECT_NAME:     // edge attibutes
+				addEdgeAttribute((EdgeAttributesElement) elmt );
+				break;
+			case ReifiedEdgeElement.ASPECT_NAME:   // reified edge
+				createReifiedEdgeTerm((ReifiedEdgeElement) elmt);
+				break;
+			case CitationElement.ASPECT_NAME:     // citation
+				createCitation((CitationElement) elmt);
+				break;
+			case SupportElement.ASPECT_NAME:      //
+				createSupport((SupportElement) elmt);
+				break;
+			case EdgeCitationLinksElement.ASPECT_NAME:
+				createEdgeCitation((EdgeCitationLinksElement) elmt);
+				break;
+			case EdgeSupportLinksElement.ASPECT_NAME:
+				createEdgeSupport((EdgeSupportLinksElement) elmt);
+				break;
+			case NodeSupportLinksElement.ASPECT_NAME:
+				createNodeSupport((NodeSupportLinksElement) elmt);
+				break;
+			case NodeCitationLinksElement.ASPECT_NAME:
+				createNodeCitation((NodeCitationLinksElement) elmt);
+				break;
+			case Provenance.ASPECT_NAME:
+				if ( provenanceHistory !=null)
+					throw new NdexException ("More than one provenanceHistory aspect element found in the CX stream.");
+				provenanceHistory = (Provenance) elmt;
+				break;
+			default:    // opaque aspect
+				addOpaqueAspectElement((OpaqueElement) elmt);
+		}
+	}
+
 	private void addOpaqueAspectElement(OpaqueElement elmt) throws IOException, NdexException {
 		
 		String aspectName = elmt.getAspectName();
@@ -1061,6 +1094,7 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 	
 	private void tick() throws NdexException {
 		counter ++;
+		CancellationToken.checkpoint(1);
 		if ( serverElementLimit>=0 && counter >serverElementLimit ) 
 			throw new NdexException("Element count in the CX input stream exceeded server limit " + serverElementLimit);
 		if ( counter % 5000 == 0 )  graph.commit();
@@ -1094,6 +1128,7 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 
 		srcNetworkDoc.field(NdexClasses.Network_P_isComplete, false).save();
 		graph.commit();
+		Set<ORID> permissionAccounts;
 		try {
 
 
@@ -1103,7 +1138,7 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 			persistNetworkData();
 			
 			// copy the permission from source to target.
-			copyNetworkPermissions(srcNetworkDoc, networkVertex);
+			permissionAccounts = copyNetworkPermissions(srcNetworkDoc, networkVertex);
 			
 			graph.commit();
 		} catch ( Exception e) {
@@ -1132,6 +1167,11 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 					          NdexClasses.Network_P_isComplete,true)
 			.save();
 		graph.commit();
+		// the accounts only see the new network once it has taken over the UUID.
+		for ( ORID accountRID : permissionAccounts) {
+			NetworkACLCache.INSTANCE.invalidateAccount(accountRID);
+			NetworkMembershipIndex.INSTANCE.invalidateAccount(accountRID);
+		}
 		
 		
 		// remove the old solr Index and add the new one.
@@ -1156,20 +1196,27 @@ public class CXNetworkLoader extends BasicNetworkDAO {
 		 	
 	}
 
-	private void copyNetworkPermissions(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex) {
+	/**
+	 * @return the accounts that got an edge to the target network. Their cache entries have to be invalidated
+	 *   once the new network is committed.
+	 */
+	private Set<ORID> copyNetworkPermissions(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex) {
 		
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.E_admin);
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canEdit);
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canRead);
-
+		Set<ORID> accounts = new HashSet<>();
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.E_admin, accounts);
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canEdit, accounts);
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canRead, accounts);
+		return accounts;
 	}
 	
-	private void copyNetworkPermissionAux(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex, String permissionEdgeType) {
+	private void copyNetworkPermissionAux(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex, String permissionEdgeType,
+			Set<ORID> accounts) {
 		
 		for ( ODocument rec : Helper.getDocumentLinks(srcNetworkDoc, "in_", permissionEdgeType)) {
 			OrientVertex userV = graph.getVertex(rec);
 			targetNetworkVertex.reload();
 			userV.addEdge(permissionEdgeType, targetNetworkVertex);
+			accounts.add(rec.getIdentity());
 		}
 		
 	}
@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.persistence.orientdb;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+/**
+ * A compact lookup table from the canonical form of a raw element (a citation, support, function term
+ * etc.) to the element id it was stored under, used by the loaders to avoid creating duplicates.
+ *
+ * Only a 128 bit hash of the canonical key is kept, in an open addressing table of primitive arrays,
+ * so an entry costs a few dozen bytes no matter how large the element is. Callers that store their
+ * elements pass a Verifier that rebuilds the canonical key of the stored element, and a hit only counts
+ * when that key equals the one looked up. In the unlikely case that two different keys share a hash,
+ * the later key is kept in a small overflow map with its full canonical form.
+ *
+ * This class is not thread safe. Each loading session has its own instances.
+ */
+public class ElementDedupMap {
+
+	/**
+	 * Rebuilds the canonical key of a stored element, to check a hit against the element being looked up.
+	 */
+	public interface Verifier {
+		String getCanonicalKey(Long elementId) throws ExecutionException;
+	}
+
+	private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private static final char separator = '\u0000';
+	private static final char nullMarker = '\u0001';
+
+	private long[] hashHigh;
+	private long[] hashLow;
+	private long[] ids;
+	private int mask;
+	private int size;
+
+	// keys whose hash collided with a different key already in the table.
+	private Map<String, Long> overflow;
+
+	public ElementDedupMap() {
+		this(1024);
+	}
+
+	public ElementDedupMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2)
+			capacity <<= 1;
+		allocate(capacity);
+		size = 0;
+		overflow = null;
+	}
+
+	/**
+	 * Build a canonical key from the given parts. Null parts are distinguished from empty strings.
+	 */
+	public static String canonicalKey(Object... parts) {
+		StringBuilder sb = new StringBuilder();
+		for (Object part : parts) {
+			if (part == null)
+				sb.append(nullMarker);
+			else
+				sb.append(part.toString());
+			sb.append(separator);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Look up a key without verifying the hit. Only used where the ids don't refer to stored elements.
+	 * @return the id stored for the key, or null if the element hasn't been seen in this session.
+	 */
+	public Long get(String key) {
+		long[] h = hash(key);
+		return getUnverified(h[0], h[1]);
+	}
+
+	/**
+	 * @return the id stored for the key, or null if the element hasn't been seen in this session.
+	 */
+	public Long get(String key, Verifier verifier) throws ExecutionException {
+		long[] h = hash(key);
+		return get(h[0], h[1], key, verifier);
+	}
+
+	/**
+	 * Store the id of a new element. If the key is already in the table, the stored id is kept.
+	 */
+	public void put(String key, Long elementId) {
+		long[] h = hash(key);
+		put(h[0], h[1], key, elementId);
+	}
+
+	public int size() {
+		return size + (overflow == null ? 0 : overflow.size());
+	}
+
+	Long get(long h1, long h2, String key, Verifier verifier) throws ExecutionException {
+		Long id = getUnverified(h1, h2);
+		if (id == null)
+			return null;
+		if (verifier == null || key.equals(verifier.getCanonicalKey(id)))
+			return id;
+		return overflow == null ? null : overflow.get(key);
+	}
+
+	private Long getUnverified(long h1, long h2) {
+		int slot = findSlot(h1, h2);
+		return ids[slot] == EMPTY ? null : Long.valueOf(ids[slot]);
+	}
+
+	void put(long h1, long h2, String key, Long elementId) {
+		int slot = findSlot(h1, h2);
+		if (ids[slot] != EMPTY) {
+			if (ids[slot] != elementId.longValue()) {
+				if (overflow == null)
+					overflow = new HashMap<>();
+				if (!overflow.containsKey(key))
+					overflow.put(key, elementId);
+			}
+			return;
+		}
+		hashHigh[slot] = h1;
+		hashLow[slot] = h2;
+		ids[slot] = elementId.longValue();
+		size++;
+		if (size * 2 > ids.length)
+			resize();
+	}
+
+	private int findSlot(long h1, long h2) {
+		int slot = (int) (h1 ^ (h1 >>> 32)) & mask;
+		while (ids[slot] != EMPTY && (hashHigh[slot] != h1 || hashLow[slot] != h2))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private void allocate(int capacity) {
+		hashHigh = new long[capacity];
+		hashLow = new long[capacity];
+		ids = new long[capacity];
+		Arrays.fill(ids, EMPTY);
+		mask = capacity - 1;
+	}
+
+	private void resize() {
+		long[] oldHigh = hashHigh;
+		long[] oldLow = hashLow;
+		long[] oldIds = ids;
+		allocate(oldIds.length * 2);
+		for (int i = 0; i < oldIds.length; i++) {
+			if (oldIds[i] != EMPTY) {
+				int slot = findSlot(oldHigh[i], oldLow[i]);
+				hashHigh[slot] = oldHigh[i];
+				hashLow[slot] = oldLow[i];
+				ids[slot] = oldIds[i];
+			}
+		}
+	}
+
+	private static long[] hash(String key) {
+		ByteBuffer b = ByteBuffer.wrap(hashFunction.hashString(key, Charsets.UTF_8).asBytes());
+		return new long[] { b.getLong(), b.getLong() };
+	}
+}
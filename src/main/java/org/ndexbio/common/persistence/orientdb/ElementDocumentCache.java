@@ -0,0 +1,248 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.persistence.orientdb;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Element id to document cache used by the persistence services while a network is being loaded.
+ *
+ * All loading sessions share one underlying cache which is bounded by the estimated heap size of the
+ * cached documents instead of the number of entries, so a few concurrent uploads of networks with large
+ * nodes and edges can't exhaust the heap together. Each PersistenceService gets its own view of the
+ * cache; entries of different sessions never collide, and they are dropped when the session is released.
+ *
+ * The total budget is taken from the Element-Cache-Heap-MB configuration property. It defaults to
+ * a fifth of the maximum heap size.
+ */
+public class ElementDocumentCache {
+
+	private static final Logger logger = Logger.getLogger(ElementDocumentCache.class.getName());
+
+	private static final String heapBudgetProp = "Element-Cache-Heap-MB";
+
+	private static final long expireMinutes = 240L;
+
+	// rough per object overhead used by the size estimate.
+	private static final int objectOverhead = 16;
+	private static final int referenceSize = 8;
+	private static final int documentOverhead = 160;
+	private static final int fieldOverhead = 48;
+
+	// don't follow embedded structures deeper than this when estimating.
+	private static final int maxEstimateDepth = 4;
+
+	private static final AtomicLong sessionCounter = new AtomicLong(0);
+
+	private static final Cache<Key, ODocument> sharedCache = CacheBuilder.newBuilder()
+			.maximumWeight(getHeapBudget())
+			.weigher(new Weigher<Key, ODocument>() {
+				@Override
+				public int weigh(Key key, ODocument doc) {
+					return (int) Math.min(Integer.MAX_VALUE, 32 + estimateSize(doc));
+				}
+			})
+			.expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+			.recordStats()
+			.build();
+
+	private final long sessionId;
+	private final CacheLoader<Long, ODocument> loader;
+
+	public ElementDocumentCache(CacheLoader<Long, ODocument> loader) {
+		this.sessionId = sessionCounter.incrementAndGet();
+		this.loader = loader;
+	}
+
+	/**
+	 * Returns the document of the given element, loading it through the loader of this session if it
+	 * is not in the cache.
+	 */
+	public ODocument get(final Long elementId) throws ExecutionException {
+		return sharedCache.get(new Key(sessionId, elementId.longValue()), new Callable<ODocument>() {
+			@Override
+			public ODocument call() throws Exception {
+				return loader.load(elementId);
+			}
+		});
+	}
+
+	public ODocument getIfPresent(Long elementId) {
+		return sharedCache.getIfPresent(new Key(sessionId, elementId.longValue()));
+	}
+
+	public void put(Long elementId, ODocument doc) {
+		sharedCache.put(new Key(sessionId, elementId.longValue()), doc);
+	}
+
+	public void invalidate(Long elementId) {
+		sharedCache.invalidate(new Key(sessionId, elementId.longValue()));
+	}
+
+	/**
+	 * Drop all the entries of this session from the shared cache. Called when the persistence service is closed.
+	 */
+	public void release() {
+		Iterator<Key> it = sharedCache.asMap().keySet().iterator();
+		while (it.hasNext()) {
+			if (it.next().sessionId == sessionId)
+				it.remove();
+		}
+	}
+
+	/**
+	 * @return statistics of the shared cache, covering all loading sessions.
+	 */
+	public static CacheStats stats() {
+		return sharedCache.stats();
+	}
+
+	public static long size() {
+		return sharedCache.size();
+	}
+
+	/**
+	 * Estimate the heap footprint of a document from its field names and raw values. Linked records are
+	 * counted as references only; embedded documents and collections are followed.
+	 */
+	static long estimateSize(ODocument doc) {
+		return estimateDocument(doc, 0);
+	}
+
+	private static long estimateDocument(ODocument doc, int depth) {
+		long size = documentOverhead;
+		for (String fieldName : doc.fieldNames()) {
+			size += fieldOverhead + estimateString(fieldName);
+			size += estimateValue(doc.rawField(fieldName), depth + 1);
+		}
+		return size;
+	}
+
+	private static long estimateValue(Object value, int depth) {
+		if (value == null)
+			return 0;
+		if (value instanceof String)
+			return estimateString((String) value);
+		if (value instanceof Number || value instanceof Boolean || value instanceof Character)
+			return objectOverhead + 8;
+		if (value instanceof Date)
+			return objectOverhead + 16;
+		if (value instanceof byte[])
+			return objectOverhead + ((byte[]) value).length;
+		if (value instanceof ORidBag)
+			return objectOverhead + 32 + ((ORidBag) value).size() * (long) (objectOverhead + 16);
+		if (value instanceof ODocument && !((ODocument) value).getIdentity().isPersistent()) {
+			// embedded or not yet saved document.
+			return depth < maxEstimateDepth ? estimateDocument((ODocument) value, depth) : documentOverhead;
+		}
+		if (value instanceof OIdentifiable)
+			return objectOverhead + 16;
+		if (value instanceof Collection) {
+			Collection<?> c = (Collection<?>) value;
+			long size = objectOverhead + 32 + c.size() * (long) referenceSize;
+			if (depth < maxEstimateDepth) {
+				for (Object o : c)
+					size += estimateValue(o, depth + 1);
+			}
+			return size;
+		}
+		if (value instanceof Map) {
+			Map<?, ?> m = (Map<?, ?>) value;
+			long size = objectOverhead + 48 + m.size() * (long) (objectOverhead + 3 * referenceSize);
+			if (depth < maxEstimateDepth) {
+				for (Map.Entry<?, ?> e : m.entrySet())
+					size += estimateValue(e.getKey(), depth + 1) + estimateValue(e.getValue(), depth + 1);
+			}
+			return size;
+		}
+		return objectOverhead + 32;
+	}
+
+	private static long estimateString(String s) {
+		return objectOverhead + 24 + 2L * s.length();
+	}
+
+	private static long getHeapBudget() {
+		long defaultBudget = Runtime.getRuntime().maxMemory() / 5;
+		try {
+			String v = Configuration.getInstance().getProperty(heapBudgetProp);
+			if (v != null)
+				return Long.parseLong(v.trim()) * 1024L * 1024L;
+		} catch (NdexException | NumberFormatException e) {
+			logger.warning("Failed to read " + heapBudgetProp + " from configuration, using default. " + e.getMessage());
+		}
+		return defaultBudget;
+	}
+
+	private static final class Key {
+		final long sessionId;
+		final long elementId;
+
+		Key(long sessionId, long elementId) {
+			this.sessionId = sessionId;
+			this.elementId = elementId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return k.sessionId == sessionId && k.elementId == elementId;
+		}
+
+		@Override
+		public int hashCode() {
+			long h = sessionId * 31 + elementId;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
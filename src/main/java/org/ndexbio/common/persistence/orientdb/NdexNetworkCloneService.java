@@ -51,6 +51,8 @@ import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.Helper;
+import org.ndexbio.common.models.dao.orientdb.NetworkACLCache;
+import org.ndexbio.common.models.dao.orientdb.NetworkMembershipIndex;
 import org.ndexbio.common.models.dao.orientdb.TaskDAO;
 import org.ndexbio.common.models.dao.orientdb.UserDAO;
 import org.ndexbio.common.models.object.network.RawNamespace;
@@ -79,6 +81,7 @@ import org.ndexbio.task.NdexServerQueue;
 
 import com.google.common.base.Preconditions;
 import com.orientechnologies.common.concur.ONeedRetryException;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 
@@ -164,7 +167,7 @@ public class NdexNetworkCloneService extends PersistenceService {
 						+ " is not found in this server");
 			
 			// copy the permission from source to target.
-			copyNetworkPermissions(srcNetworkDoc, networkVertex);
+			Set<ORID> permissionAccounts = copyNetworkPermissions(srcNetworkDoc, networkVertex);
 			
 			this.localConnection.commit();
 			
@@ -186,6 +189,11 @@ public class NdexNetworkCloneService extends PersistenceService {
 					          NdexClasses.Network_P_isComplete,true)
 			.save();
 			localConnection.commit();
+			// the accounts only see the new network once it has taken over the UUID.
+			for ( ORID accountRID : permissionAccounts) {
+				NetworkACLCache.INSTANCE.invalidateAccount(accountRID);
+				NetworkMembershipIndex.INSTANCE.invalidateAccount(accountRID);
+			}
 			
 			// remove the old solr Index and add the new one.
 			String networkUUID = this.srcNetwork.getExternalId().toString();
@@ -216,20 +224,27 @@ public class NdexNetworkCloneService extends PersistenceService {
 	}
 	
 	
-	private void copyNetworkPermissions(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex) {
+	/**
+	 * @return the accounts that got an edge to the target network. Their cache entries have to be invalidated
+	 *   once the new network is committed.
+	 */
+	private Set<ORID> copyNetworkPermissions(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex) {
 		
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.E_admin);
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canEdit);
-		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canRead);
-
+		Set<ORID> accounts = new HashSet<>();
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.E_admin, accounts);
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canEdit, accounts);
+		copyNetworkPermissionAux(srcNetworkDoc, targetNetworkVertex, NdexClasses.account_E_canRead, accounts);
+		return accounts;
 	}
 	
-	private void copyNetworkPermissionAux(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex, String permissionEdgeType) {
+	private void copyNetworkPermissionAux(ODocument srcNetworkDoc, OrientVertex targetNetworkVertex, String permissionEdgeType,
+			Set<ORID> accounts) {
 		
 		for ( ODocument rec : Helper.getDocumentLinks(srcNetworkDoc, "in_", permissionEdgeType)) {
 			OrientVertex userV = graph.getVertex(rec);
 			targetNetworkVertex.reload();
 			userV.addEdge(permissionEdgeType, targetNetworkVertex);
+			accounts.add(rec.getIdentity());
 		}
 		
 	}
@@ -287,8 +302,9 @@ public class NdexNetworkCloneService extends PersistenceService {
      			}
      		}
 			
-			
 			this.localConnection.commit();
+			NetworkACLCache.INSTANCE.invalidateAccount(ownerDoc.getIdentity());
+			NetworkMembershipIndex.INSTANCE.invalidateAccount(ownerDoc.getIdentity());
 	
 			createSolrIndex(networkDoc);
 			return this.network;
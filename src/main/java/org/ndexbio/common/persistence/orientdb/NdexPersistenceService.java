@@ -46,19 +46,20 @@ import java.util.logging.Logger;
 import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.Helper;
+import org.ndexbio.common.models.dao.orientdb.NetworkACLCache;
+import org.ndexbio.common.models.dao.orientdb.NetworkMembershipIndex;
 import org.ndexbio.common.models.dao.orientdb.OrientdbDAO;
-import org.ndexbio.common.models.object.network.RawCitation;
-import org.ndexbio.common.models.object.network.RawEdge;
 import org.ndexbio.common.models.object.network.RawNamespace;
-import org.ndexbio.common.models.object.network.RawSupport;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.common.util.NdexUUIDFactory;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.exceptions.ObjectNotFoundException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.Permissions;
 import org.ndexbio.model.object.SimplePropertyValuePair;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.model.object.TaskType;
-import org.ndexbio.model.object.network.FunctionTerm;
 import org.ndexbio.model.object.network.Namespace;
 import org.ndexbio.model.object.network.NetworkSummary;
 import org.ndexbio.model.object.network.VisibilityType;
@@ -80,7 +81,7 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertex;
  * as values
  */
 
-public class NdexPersistenceService extends PersistenceService {
+public class NdexPersistenceService extends PersistenceService implements NetworkElementBuilder {
 	
 	public static final String URICitationType="URI";
 	public static final String pmidPrefix = "pmid:";
@@ -99,21 +100,17 @@ public class NdexPersistenceService extends PersistenceService {
     private Map<Long,Long> functionTermIdNodeIdMap;
 
 	// maps a node name to Node Id.
-    private Map<String, Long> namedNodeMap;
+    private ElementDedupMap namedNodeMap;
 
-    private Map<RawEdge, Long> edgeMap;
-    
     private String ownerAccount;
     
-    private Map<RawCitation, Long>           rawCitationMap;
-    
+    // the following tables map the canonical form of a raw citation, support and function term
+    // to the element id it was stored under. Only hashes of the keys are held in memory.
+    private ElementDedupMap           rawCitationMap;
     
-    private Map<FunctionTerm, Long> rawFunctionTermFunctionTermIdMap; 
+    private ElementDedupMap rawFunctionTermFunctionTermIdMap; 
     
-    private Map<RawSupport, Long>  rawSupportMap;
-    
-    // key is a "rawFunctionTerm", which has element id as -1. This table
-    // matches the key to a functionTerm that has been stored in the db.
+    private ElementDedupMap  rawSupportMap;
     
     private Map<Long, Long> reifiedEdgeTermIdNodeIdMap;
   //  private LoadingCache<Long, Node> reifiedEdgeTermNodeCache;
@@ -136,14 +133,13 @@ public class NdexPersistenceService extends PersistenceService {
 		this.network = null;
 		this.ownerAccount = null;
 		
-		this.rawCitationMap  = new TreeMap <> ();
+		this.rawCitationMap  = new ElementDedupMap ();
         this.baseTermNodeIdMap = new TreeMap <> ();
-		this.namedNodeMap  = new TreeMap <> ();
+		this.namedNodeMap  = new ElementDedupMap ();
 		this.reifiedEdgeTermIdNodeIdMap = new HashMap<>(100);
 		this.edgeIdReifiedEdgeTermIdMap = new HashMap<>(100);
-		this.rawFunctionTermFunctionTermIdMap = new TreeMap<> ();
-		this.rawSupportMap  = new TreeMap<> ();
-		this.edgeMap = new TreeMap<>();
+		this.rawFunctionTermFunctionTermIdMap = new ElementDedupMap ();
+		this.rawSupportMap  = new ElementDedupMap ();
 		this.functionTermIdNodeIdMap = new HashMap<>(100);
 		// intialize caches.
 		
@@ -162,13 +158,13 @@ public class NdexPersistenceService extends PersistenceService {
 		this.network = networkDAO.getNetworkSummary(networkDoc);
 		
 		
-		this.rawCitationMap  = new TreeMap <> ();
+		this.rawCitationMap  = new ElementDedupMap ();
         this.baseTermNodeIdMap = new TreeMap <> ();
-		this.namedNodeMap  = new TreeMap <> ();
+		this.namedNodeMap  = new ElementDedupMap ();
 		this.reifiedEdgeTermIdNodeIdMap = new HashMap<>(100);
 		this.edgeIdReifiedEdgeTermIdMap = new HashMap<>(100);
-		this.rawFunctionTermFunctionTermIdMap = new TreeMap<> ();
-		this.rawSupportMap  = new TreeMap<> ();
+		this.rawFunctionTermFunctionTermIdMap = new ElementDedupMap ();
+		this.rawSupportMap  = new ElementDedupMap ();
 		this.functionTermIdNodeIdMap = new HashMap<>(100);
 		// intialize caches.
 		
@@ -390,8 +386,8 @@ public class NdexPersistenceService extends PersistenceService {
 	}
 
 	/**
-	 *  Look up in the current context, if an edge with the same subject,predicate and object exists, return that edge,
-	 *  otherwise create a new edge and return the id of the new edge.  
+	 *  Create an edge and return its id. Edges are not deduplicated, because the same subject, predicate and 
+	 *  object can be stated several times with different citations, supports and annotations.  
 	 * @param subjectNodeId
 	 * @param objectNodeId
 	 * @param predicateId
@@ -404,10 +400,6 @@ public class NdexPersistenceService extends PersistenceService {
 	 */
 	public Long getEdge(Long subjectNodeId, Long objectNodeId, Long predicateId, 
 			 Long supportId, Long citationId, Map<String,String> annotation ) throws NdexException, ExecutionException {
-		RawEdge rawEdge = new RawEdge(subjectNodeId, predicateId, objectNodeId );
-		Long edgeId = this.edgeMap.get(rawEdge);
-		if ( edgeId != null) return edgeId;
-		
 		return createEdge(subjectNodeId, objectNodeId, predicateId, supportId, citationId, annotation);
 	}	
 
@@ -443,6 +435,7 @@ public class NdexPersistenceService extends PersistenceService {
 			throws NdexException, ExecutionException {
 		if (null != objectNodeId && null != subjectNodeId && null != predicateId) {
 			
+			CancellationToken.checkpoint(1);
 			Long edgeId = database.getNextId(localConnection);
 /*			Edge edge = new Edge();
 			edge.setId(database.getNextId());
@@ -665,8 +658,19 @@ public class NdexPersistenceService extends PersistenceService {
 	public Long getCitationId(String title, String idType, String identifier, 
 			List<String> contributors) throws NdexException, ExecutionException {
 		
-		RawCitation rCitation = new RawCitation(title, idType, identifier, contributors);
-		Long citationId = rawCitationMap.get(rCitation);
+		if ( title == null && identifier == null)
+			throw new NdexException ("Invalid Citation object: title and identifier are both null.");
+
+		String key = citationKey(title, idType, identifier);
+		Long citationId = rawCitationMap.get(key, new ElementDedupMap.Verifier() {
+			@Override
+			public String getCanonicalKey(Long elementId) throws ExecutionException {
+				ODocument doc = elementIdCache.get(elementId);
+				return citationKey((String)doc.field(NdexClasses.Citation_P_title), 
+						(String)doc.field(NdexClasses.Citation_p_idType),
+						(String)doc.field(NdexClasses.Citation_P_identifier));
+			}
+		});
 
 		if ( citationId != null ) {
 	        return citationId;
@@ -675,26 +679,36 @@ public class NdexPersistenceService extends PersistenceService {
 		// persist the citation object in db.
 		citationId = createCitation(title, idType, identifier, contributors, null);
 				
-		rawCitationMap.put(rCitation, citationId);
+		rawCitationMap.put(key, citationId);
 		return citationId; 
 	}
 	
 	
+	// same matching rule as RawCitation: title is only compared when the identifier or its type is missing.
+	private static String citationKey(String title, String idType, String identifier) {
+		return (identifier != null && idType != null) ? 
+				ElementDedupMap.canonicalKey(identifier, idType, null) :
+				ElementDedupMap.canonicalKey(identifier, idType, title);
+	}
+	
 	// input parameter is a "rawFunctionTerm", which has element_id as -1;
 	public Long getFunctionTermId(Long baseTermId, List<Long> termList) throws ExecutionException {
 		
-		FunctionTerm func = new FunctionTerm();
-		func.setFunctionTermId(baseTermId);
-			
-		for ( Long termId : termList) {
-			  func.getParameterIds().add( termId);
-		}		  
-	
-		Long functionTermId = this.rawFunctionTermFunctionTermIdMap.get(func);
+		String key = ElementDedupMap.canonicalKey(baseTermId, termList);
+		Long functionTermId = this.rawFunctionTermFunctionTermIdMap.get(key, new ElementDedupMap.Verifier() {
+			@Override
+			public String getCanonicalKey(Long elementId) throws ExecutionException {
+				ODocument doc = elementIdCache.get(elementId);
+				List<Long> parameters = new ArrayList<>();
+				for ( ODocument parameterDoc : Helper.getDocumentLinks(doc, "out_", NdexClasses.FunctionTerm_E_paramter))
+					parameters.add((Long)parameterDoc.field(NdexClasses.Element_ID));
+				return ElementDedupMap.canonicalKey(doc.field(NdexClasses.BaseTerm), parameters);
+			}
+		});
 		if ( functionTermId != null) return functionTermId;
 		
 		functionTermId = createFunctionTerm(baseTermId, termList);
-        this.rawFunctionTermFunctionTermIdMap.put(func, functionTermId);
+        this.rawFunctionTermFunctionTermIdMap.put(key, functionTermId);
         return functionTermId;
 	}
 	
@@ -759,9 +773,13 @@ public class NdexPersistenceService extends PersistenceService {
 	}
 	
 	
-	public Long getNodeIdByName(String key) {
-		Long nodeId = this.namedNodeMap.get(key);
-		
+	public Long getNodeIdByName(String key) throws ExecutionException {
+		Long nodeId = this.namedNodeMap.get(key, new ElementDedupMap.Verifier() {
+			@Override
+			public String getCanonicalKey(Long elementId) throws ExecutionException {
+				return elementIdCache.get(elementId).field(NdexClasses.Node_P_name);
+			}
+		});
 		if ( nodeId !=null ) {
 			return nodeId;
 		}
@@ -829,15 +847,28 @@ public class NdexPersistenceService extends PersistenceService {
 	
 	public Long getSupportId(String literal, Long citationId) throws NdexException {
 		
-		RawSupport r = new RawSupport(literal, (citationId !=null ? citationId.longValue(): -1));
-
-		Long supportId = this.rawSupportMap.get(r);
+		long cId = citationId !=null ? citationId.longValue(): -1;
+		String key = ElementDedupMap.canonicalKey(cId, literal);
 
+		Long supportId;
+		try {
+			supportId = this.rawSupportMap.get(key, new ElementDedupMap.Verifier() {
+				@Override
+				public String getCanonicalKey(Long elementId) throws ExecutionException {
+					ODocument doc = elementIdCache.get(elementId);
+					Long storedCitation = doc.field(NdexClasses.Citation);
+					return ElementDedupMap.canonicalKey(storedCitation == null ? -1 : storedCitation.longValue(), 
+							doc.field(NdexClasses.Support_P_text));
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new NdexException("Failed to look up support: " + e.getMessage());
+		}
 		if ( supportId != null ) return supportId;
 		
 		// persist the support object in db.
 		supportId = createSupport(literal, citationId,null);
-		this.rawSupportMap.put(r, supportId);
+		this.rawSupportMap.put(key, supportId);
 		return supportId; 
 	}
 	
@@ -875,6 +906,11 @@ public class NdexPersistenceService extends PersistenceService {
 				createSolrIndex(networkDoc);
 				
 				this.localConnection.commit();
+				// only after the commit, so that a failed load never leaves the permission in the cache.
+				NetworkACLCache.INSTANCE.setPermission(ownerDoc.getIdentity(), 
+						this.network.getExternalId().toString(), Permissions.ADMIN);
+				// the network record may only get its final rid on commit, so the owner is reloaded on next use.
+				NetworkMembershipIndex.INSTANCE.invalidateAccount(ownerDoc.getIdentity());
 			}
 
 			logger.info("Finished loading network " + network.getName());
@@ -893,6 +929,7 @@ public class NdexPersistenceService extends PersistenceService {
 	@Override
 	public void close () {
 		graph.shutdown();
+		elementIdCache.release();
 		logger.info("Connection to orientdb database closed");
 	}
 	
@@ -960,6 +997,31 @@ public class NdexPersistenceService extends PersistenceService {
 	}
 	
 	
+	@Override
+	public void addNodeProperty(Long nodeId, String key, String value, String type) throws ExecutionException {
+		addElementProperty(nodeId, key, value, type);
+	}
+
+	@Override
+	public void addEdgeProperty(Long edgeId, String key, String value, String type) throws ExecutionException {
+		addElementProperty(edgeId, key, value, type);
+	}
+
+	@Override
+	public void addCitationProperty(Long citationId, String key, String value, String type) throws ExecutionException {
+		addElementProperty(citationId, key, value, type);
+	}
+
+	@Override
+	public void addSupportProperty(Long supportId, String key, String value, String type) throws ExecutionException {
+		addElementProperty(supportId, key, value, type);
+	}
+
+	@Override
+	public void addNamespaceProperty(Long namespaceId, String key, String value, String type) throws ExecutionException {
+		addElementProperty(namespaceId, key, value, type);
+	}
+	
 	public void setNodeProperties(Long nodeId, Collection<NdexPropertyValuePair> properties, 
 			Collection<SimplePropertyValuePair> presentationProperties) throws ExecutionException {
 		setElementProperties(nodeId, properties);
@@ -31,6 +31,7 @@
 package org.ndexbio.common.persistence.orientdb;
 
 import java.util.List;
+import java.util.UUID;
 
 import org.ndexbio.common.models.dao.orientdb.TaskDAO;
 import org.ndexbio.common.models.dao.orientdb.TaskDocDAO;
@@ -38,12 +39,10 @@ import org.ndexbio.common.models.dao.orientdb.UserDAO;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.Status;
 import org.ndexbio.model.object.Task;
+import org.ndexbio.task.ClientTaskProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.orientechnologies.orient.core.record.impl.ODocument;
-import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
-
 /*
  * Represents a collection of methods for interacting with Tasks in the orientdb database
  * Retained in the common ndex-common project to facilitate availability to multiple ndex
@@ -58,6 +57,8 @@ public class NdexTaskService
     private static final Logger logger = LoggerFactory.getLogger(NdexTaskService.class);
     private OrientDBNoTxConnectionService ndexService;
     
+    private static final int purgeBatchSize = 1000;
+    
     public NdexTaskService()
     {
     	ndexService = new OrientDBNoTxConnectionService();  
@@ -69,17 +70,13 @@ public class NdexTaskService
      * QUEUED_FOR_DELETION
      */
     public void deleteTasksQueuedForDeletion() throws NdexException {
-    	String query = "select from task "
-	            + " where status = '" +Status.QUEUED_FOR_DELETION.toString() +"'";
-    	
     	try {
     		
 			this.ndexService.setupDatabase();
-			
-			final List<ODocument> taskDocumentList = this.ndexService._ndexDatabase.
-					query(new OSQLSynchQuery<ODocument>(query));
-			for (final ODocument document : taskDocumentList) {
-				this.ndexService.getGraph().getVertex(document).remove();
+			try (TaskDAO dao = new TaskDAO(this.ndexService._ndexDatabase)) {
+				int count = dao.purgeTasks(Status.QUEUED_FOR_DELETION, false, null, purgeBatchSize) + 
+						dao.purgeTasks(Status.QUEUED_FOR_DELETION, true, null, purgeBatchSize);
+				logger.info(count + " tasks queued for deletion removed.");
 			}
 			
 		} catch (Exception e) {
@@ -138,6 +135,32 @@ public class NdexTaskService
    	 
     }
 
+    /**
+     * Cancel a user task that is queued or running. 
+     * @return false if the task is neither queued nor running.
+     */
+    public boolean cancelTask(String taskUUID, String reason) throws NdexException {
+    	boolean cancelled = ClientTaskProcessor.cancelTask(taskUUID, reason);
+    	logger.info("Cancel request for task " + taskUUID + (cancelled ? " accepted." : " ignored, task is not queued or running."));
+    	return cancelled;
+    }
+
+    /**
+     * Delete a user task. A task that is still queued or running is cancelled first.
+     */
+    public void deleteTask(String taskUUID) throws NdexException {
+    	cancelTask(taskUUID, "task deleted");
+    	try {
+    		
+			this.ndexService.setupDatabase();
+			TaskDocDAO dao = new TaskDocDAO(this.ndexService._ndexDatabase);
+			dao.deleteTask(UUID.fromString(taskUUID));
+			this.ndexService._ndexDatabase.commit();
+		} finally {
+			this.ndexService.teardownDatabase();
+		}
+    }
+
     public Task updateTaskStatus(Status status, Task task) throws NdexException {
     	
     	try {
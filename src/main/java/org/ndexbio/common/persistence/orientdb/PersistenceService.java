@@ -35,7 +35,6 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -60,9 +59,7 @@ import org.ndexbio.model.object.network.Namespace;
 import org.ndexbio.model.object.network.NetworkSourceFormat;
 import org.ndexbio.model.object.network.NetworkSummary;
 
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -71,12 +68,10 @@ import com.tinkerpop.blueprints.impls.orient.OrientVertex;
 
 public abstract class PersistenceService extends BasicNetworkDAO {
 
-	//TODO: turn this into configuration property
-	private static final long CACHE_SIZE = 100000L;
-
 	protected NdexDatabase database;
 
-	protected LoadingCache<Long, ODocument>  elementIdCache;
+	// element id -> document cache of this loading session. Bounded by the shared heap budget in ElementDocumentCache.
+	protected ElementDocumentCache  elementIdCache;
     
 	// prefix to namespace mapping
 	private Map<String, Namespace> prefixMap;
@@ -279,10 +274,7 @@ public abstract class PersistenceService extends BasicNetworkDAO {
 		this.namespaceMap   = new TreeMap <>();
 		URINamespaceMap = new HashMap<>();
 
-		this.elementIdCache = CacheBuilder
-				.newBuilder().maximumSize(CACHE_SIZE*5)
-				.expireAfterAccess(240L, TimeUnit.MINUTES)
-				.build(new CacheLoader<Long, ODocument>() {
+		this.elementIdCache = new ElementDocumentCache(new CacheLoader<Long, ODocument>() {
 				   @Override
 				   public ODocument load(Long key) throws NdexException, ExecutionException {
 					   ODocument o = networkDAO.getDocumentByElementId(key);
@@ -711,6 +703,7 @@ public abstract class PersistenceService extends BasicNetworkDAO {
 	  @Override
 	public void close () {
           this.graph.shutdown();
+          this.elementIdCache.release();
 	  }
 	  
 	  
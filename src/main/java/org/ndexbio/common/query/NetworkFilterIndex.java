@@ -0,0 +1,501 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.models.dao.orientdb.Helper;
+import org.ndexbio.common.query.filter.orientdb.EdgeByEdgePropertyFilterODB;
+import org.ndexbio.common.query.filter.orientdb.EdgeByNodePropertyFilterODB;
+import org.ndexbio.common.query.filter.orientdb.EdgeCollectionQueryODB;
+import org.ndexbio.common.query.filter.orientdb.PropertyFilterODB;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.task.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * In-memory secondary index of a network for edge filter queries. It maps the lower cased node names, node and 
+ * edge properties, represents term ids, function term names and predicate ids to sorted posting lists of 
+ * element ids, so that a filter query can be answered by posting list unions and intersections, and only the
+ * matching edges need to be loaded from the database.
+ * 
+ * Edge posting lists hold the positions of the edges in the network's edge list rather than their ids, so that
+ * the matches come out in the same order as a scan of the edge list, and an edge limit keeps the same edges.
+ * 
+ * Indexes are built on the first query of a network and kept in a cache that is bounded by the total number 
+ * of indexed elements. An index is rebuilt when the modification time of the network changes. Networks that 
+ * are larger than the whole cache are not indexed; their queries fall back to scanning the edges.
+ * 
+ * Configuration property:
+ *   Filter-Index-Cache-Max-Elements  total number of nodes and edges kept in the cache. 0 disables the index.
+ *
+ */
+public class NetworkFilterIndex {
+
+	private static final Logger logger = Logger.getLogger(NetworkFilterIndex.class.getName());
+
+	private static final String cacheSizeProp = "Filter-Index-Cache-Max-Elements";
+	private static final long defaultCacheSize = 5000000;
+
+	private static final long[] emptyList = new long[0];
+
+	private static Cache<String, NetworkFilterIndex> indexCache;
+	private static long cacheSize = -1;
+
+	private final Date modificationTime;
+	private final int elementCount;
+
+	// edge element ids in the order of the network's edge list. 
+	private long[] edgeIds;
+
+	private Map<String, long[]> nodeNameIndex;
+	private Map<String, long[]> nodePropertyIndex;
+	private Map<Long, long[]> representsIndex;
+	private Map<String, long[]> functionTermIndex;
+
+	// the edge posting lists hold edge positions, i.e. indexes into edgeIds.
+	private Map<String, long[]> edgePropertyIndex;
+	private Map<Long, long[]> predicateIndex;
+	// node id -> positions of the edges that have this node as subject/object
+	private Map<Long, long[]> subjectIndex;
+	private Map<Long, long[]> objectIndex;
+
+	private NetworkFilterIndex(Date modificationTime, int elementCount) {
+		this.modificationTime = modificationTime;
+		this.elementCount = elementCount;
+	}
+
+	/**
+	 * @return true if the filter index is enabled on this server.
+	 */
+	public static boolean isEnabled() {
+		return getCache() != null;
+	}
+
+	/**
+	 * Get the index of a network from the cache, building it if it is missing or out of date. 
+	 * @return null if the network has more elements than the cache can hold. 
+	 */
+	public static NetworkFilterIndex getIndex(final ODocument networkDoc) throws NdexException {
+		Cache<String, NetworkFilterIndex> cache = getCache();
+		if ( cache == null)
+			throw new NdexException("Network filter index is disabled on this server.");
+
+		if ( !fitsInCache(networkDoc))
+			return null;
+
+		String networkId = networkDoc.field(NdexClasses.Network_P_UUID);
+		Date mTime = networkDoc.field(NdexClasses.ExternalObj_mTime);
+
+		NetworkFilterIndex idx = cache.getIfPresent(networkId);
+		if ( idx != null && !sameTime(idx.modificationTime, mTime)) {
+			cache.invalidate(networkId);
+		}
+		try {
+			return cache.get(networkId, new Callable<NetworkFilterIndex>() {
+				@Override
+				public NetworkFilterIndex call() throws Exception {
+					return build(networkDoc);
+				}
+			});
+		} catch (ExecutionException e) {
+			throw new NdexException("Failed to build filter index of network " + networkId + ": " + 
+					e.getCause().getMessage());
+		}
+	}
+
+	public static void invalidate(String networkId) {
+		Cache<String, NetworkFilterIndex> cache = getCache();
+		if ( cache != null)
+			cache.invalidate(networkId);
+	}
+
+	private static synchronized Cache<String, NetworkFilterIndex> getCache() {
+		if ( cacheSize < 0) {
+			cacheSize = defaultCacheSize;
+			try {
+				String v = Configuration.getInstance().getProperty(cacheSizeProp);
+				if ( v != null)
+					cacheSize = Long.parseLong(v.trim());
+			} catch (NdexException | NumberFormatException e) {
+				logger.warning("Failed to read " + cacheSizeProp + " from configuration, using default value. " + e.getMessage());
+			}
+			if ( cacheSize > 0) {
+				indexCache = newCache(cacheSize);
+			}
+		}
+		return indexCache;
+	}
+
+	static Cache<String, NetworkFilterIndex> newCache(long maxElements) {
+		// a single segment, otherwise Guava splits the weight budget between the segments and 
+		// evicts indexes larger than one segment's share right after they are built.
+		return CacheBuilder.newBuilder()
+				.concurrencyLevel(1)
+				.maximumWeight(maxElements)
+				.weigher(new Weigher<String, NetworkFilterIndex>() {
+					@Override
+					public int weigh(String key, NetworkFilterIndex value) {
+						return Math.max(1, value.elementCount);
+					}
+				})
+				.build();
+	}
+
+	private static boolean fitsInCache(ODocument networkDoc) {
+		Integer nodeCount = networkDoc.field(NdexClasses.Network_P_nodeCount);
+		Integer edgeCount = networkDoc.field(NdexClasses.Network_P_edgeCount);
+		long count = (nodeCount == null ? 0 : nodeCount.longValue()) + (edgeCount == null ? 0 : edgeCount.longValue());
+		return count <= cacheSize;
+	}
+
+	private static boolean sameTime(Date d1, Date d2) {
+		if ( d1 == null) return d2 == null;
+		return d2 != null && d1.getTime() == d2.getTime();
+	}
+
+	private static NetworkFilterIndex build(ODocument networkDoc) {
+		long t0 = System.currentTimeMillis();
+
+		// base term and function term names, so that nodes represented by function terms don't need a lookup each.
+		Map<Long, String> baseTermNames = new HashMap<>();
+		for ( ODocument d : Helper.getNetworkElements(networkDoc, NdexClasses.Network_E_BaseTerms)) {
+			String name = d.field(NdexClasses.BTerm_P_name);
+			if ( name != null)
+				baseTermNames.put((Long)d.field(NdexClasses.Element_ID), name.toLowerCase());
+		}
+		Map<Long, String> functionTermNames = new HashMap<>();
+		for ( ODocument d : Helper.getNetworkElements(networkDoc, NdexClasses.Network_E_FunctionTerms)) {
+			Long btermId = d.field(NdexClasses.BaseTerm);
+			String name = btermId == null ? null : baseTermNames.get(btermId);
+			if ( name != null)
+				functionTermNames.put((Long)d.field(NdexClasses.Element_ID), name);
+		}
+		baseTermNames = null;
+
+		Builder builder = new Builder();
+
+		for ( ODocument nodeDoc : Helper.getNetworkElements(networkDoc, NdexClasses.Network_E_Nodes)) {
+			Long termId = nodeDoc.field(NdexClasses.Node_P_represents);
+			String fname = null;
+			if ( termId != null && NdexClasses.FunctionTerm.equals(nodeDoc.field(NdexClasses.Node_P_representTermType)))
+				fname = functionTermNames.get(termId);
+			builder.addNode((Long)nodeDoc.field(NdexClasses.Element_ID), (String)nodeDoc.field(NdexClasses.Node_P_name), 
+					termId, fname, (List<NdexPropertyValuePair>)nodeDoc.field(NdexClasses.ndexProperties));
+		}
+
+		for ( ODocument edgeDoc : Helper.getNetworkElements(networkDoc, NdexClasses.Network_E_Edges)) {
+			ODocument subject = edgeDoc.field("in_" + NdexClasses.Edge_E_subject);
+			ODocument object = edgeDoc.field("out_" + NdexClasses.Edge_E_object);
+			builder.addEdge((Long)edgeDoc.field(NdexClasses.Element_ID), (Long)edgeDoc.field(NdexClasses.Edge_P_predicateId),
+					subject == null ? null : (Long)subject.field(NdexClasses.Element_ID),
+					object == null ? null : (Long)object.field(NdexClasses.Element_ID),
+					(List<NdexPropertyValuePair>)edgeDoc.field(NdexClasses.ndexProperties));
+		}
+
+		NetworkFilterIndex idx = builder.build((Date)networkDoc.field(NdexClasses.ExternalObj_mTime));
+
+		logger.info("Filter index of network " + networkDoc.field(NdexClasses.Network_P_UUID) + " built on " + 
+				idx.elementCount + " elements in " + (System.currentTimeMillis() - t0) + " ms.");
+		return idx;
+	}
+
+	/**
+	 * Collects the elements of a network in the order of its node and edge lists.
+	 */
+	static class Builder {
+		private final Map<String, PostingListBuilder> nodeNames = new HashMap<>();
+		private final Map<String, PostingListBuilder> nodeProps = new HashMap<>();
+		private final Map<Long, PostingListBuilder> represents = new HashMap<>();
+		private final Map<String, PostingListBuilder> functionTerms = new HashMap<>();
+
+		private final PostingListBuilder edgeIds = new PostingListBuilder();
+		private final Map<String, PostingListBuilder> edgeProps = new HashMap<>();
+		private final Map<Long, PostingListBuilder> predicates = new HashMap<>();
+		private final Map<Long, PostingListBuilder> subjects = new HashMap<>();
+		private final Map<Long, PostingListBuilder> objects = new HashMap<>();
+
+		private int count = 0;
+
+		/**
+		 * @param functionTermName lower cased name of the function term the node represents, or null.
+		 */
+		void addNode(Long nodeId, String name, Long termId, String functionTermName, List<NdexPropertyValuePair> props) {
+			count++;
+			if ( name != null)
+				add(nodeNames, name.toLowerCase(), nodeId);
+			if ( termId != null)
+				add(represents, termId, nodeId);
+			if ( functionTermName != null)
+				add(functionTerms, functionTermName, nodeId);
+			addProperties(nodeProps, props, nodeId);
+		}
+
+		void addEdge(Long edgeId, Long predicateId, Long subjectId, Long objectId, List<NdexPropertyValuePair> props) {
+			count++;
+			if ( edgeId == null)
+				return;
+			Long position = Long.valueOf(edgeIds.size());
+			edgeIds.add(edgeId.longValue());
+			if ( predicateId != null)
+				add(predicates, predicateId, position);
+			if ( subjectId != null)
+				add(subjects, subjectId, position);
+			if ( objectId != null)
+				add(objects, objectId, position);
+			addProperties(edgeProps, props, position);
+		}
+
+		NetworkFilterIndex build(Date modificationTime) {
+			NetworkFilterIndex idx = new NetworkFilterIndex(modificationTime, count);
+			idx.edgeIds = edgeIds.toArray();
+			idx.nodeNameIndex = freeze(nodeNames);
+			idx.nodePropertyIndex = freeze(nodeProps);
+			idx.representsIndex = freeze(represents);
+			idx.functionTermIndex = freeze(functionTerms);
+			idx.edgePropertyIndex = freeze(edgeProps);
+			idx.predicateIndex = freeze(predicates);
+			idx.subjectIndex = freeze(subjects);
+			idx.objectIndex = freeze(objects);
+			return idx;
+		}
+	}
+
+	private static void addProperties(Map<String, PostingListBuilder> index, List<NdexPropertyValuePair> props, Long id) {
+		if ( props == null)
+			return;
+		for ( NdexPropertyValuePair p : props) {
+			if ( p.getPredicateString() != null && p.getValue() != null)
+				add(index, propertyKey(p.getPredicateString(), p.getValue()), id);
+		}
+	}
+
+	// names and values are both case insensitive, on the scan path as well.
+	static String propertyKey(String name, String value) {
+		return name.toLowerCase() + "\t" + value.toLowerCase();
+	}
+
+	private static <K> void add(Map<K, PostingListBuilder> index, K key, Long id) {
+		if ( id == null)
+			return;
+		PostingListBuilder b = index.get(key);
+		if ( b == null) {
+			b = new PostingListBuilder();
+			index.put(key, b);
+		}
+		b.add(id.longValue());
+	}
+
+	private static <K> Map<K, long[]> freeze(Map<K, PostingListBuilder> builders) {
+		Map<K, long[]> result = new HashMap<>(builders.size() * 4 / 3 + 1);
+		for ( Map.Entry<K, PostingListBuilder> e : builders.entrySet()) {
+			result.put(e.getKey(), e.getValue().toSortedArray());
+		}
+		return result;
+	}
+
+	/**
+	 * Evaluate a filter query against this index.
+	 * @return the ids of the matching edges, in the order of the network's edge list. 
+	 */
+	public long[] findEdges(EdgeCollectionQueryODB query) {
+		long[] positions = findEdgePositions(query);
+		long[] result = new long[positions.length];
+		for ( int i = 0; i < positions.length; i++)
+			result[i] = edgeIds[(int)positions[i]];
+		return result;
+	}
+
+	private long[] findEdgePositions(EdgeCollectionQueryODB query) {
+		long[] positions = null;   // null means no restriction
+
+		EdgeByEdgePropertyFilterODB edgeFilter = query.getEdgeFilter();
+		if ( edgeFilter != null) {
+			List<long[]> lists = new ArrayList<>();
+			for ( Long predicateId : edgeFilter.getPredicateIds())
+				addList(lists, predicateIndex.get(predicateId));
+			addPropertyLists(lists, edgePropertyIndex, edgeFilter);
+			positions = union(lists);
+		}
+
+		EdgeByNodePropertyFilterODB nodeFilter = query.getNodeFilter();
+		if ( nodeFilter != null && (positions == null || positions.length > 0)) {
+			long[] nodeIds = findNodes(nodeFilter);
+			long[] byNodes;
+			switch (nodeFilter.getMode()) {
+			case Source:
+				byNodes = edgesOf(subjectIndex, nodeIds);
+				break;
+			case Target:
+				byNodes = edgesOf(objectIndex, nodeIds);
+				break;
+			case Either:
+				byNodes = union(Arrays.asList(edgesOf(subjectIndex, nodeIds), edgesOf(objectIndex, nodeIds)));
+				break;
+			case Both:
+				byNodes = intersect(edgesOf(subjectIndex, nodeIds), edgesOf(objectIndex, nodeIds));
+				break;
+			default:
+				byNodes = emptyList;
+			}
+			positions = positions == null ? byNodes : intersect(positions, byNodes);
+		}
+
+		if ( positions == null) {
+			// no filter at all matches every edge, like the scan does.
+			positions = new long[edgeIds.length];
+			for ( int i = 0; i < positions.length; i++)
+				positions[i] = i;
+		}
+		return positions;
+	}
+
+	private long[] findNodes(EdgeByNodePropertyFilterODB nodeFilter) {
+		List<long[]> lists = new ArrayList<>();
+		for ( String name : nodeFilter.getNodeNames())
+			addList(lists, nodeNameIndex.get(name));
+		for ( Long termId : nodeFilter.getRepresentTermIDs())
+			addList(lists, representsIndex.get(termId));
+		for ( String fname : nodeFilter.getFunctionTermNames())
+			addList(lists, functionTermIndex.get(fname));
+		addPropertyLists(lists, nodePropertyIndex, nodeFilter);
+		return union(lists);
+	}
+
+	private static void addPropertyLists(List<long[]> lists, Map<String, long[]> index, PropertyFilterODB filter) {
+		for ( Map.Entry<String, String> e : filter.getProperties().entrySet()) {
+			if ( e.getKey() != null && e.getValue() != null)
+				addList(lists, index.get(propertyKey(e.getKey(), e.getValue())));
+		}
+	}
+
+	private static void addList(List<long[]> lists, long[] list) {
+		if ( list != null)
+			lists.add(list);
+	}
+
+	private static long[] edgesOf(Map<Long, long[]> index, long[] nodeIds) {
+		List<long[]> lists = new ArrayList<>(nodeIds.length);
+		for ( long nodeId : nodeIds)
+			addList(lists, index.get(nodeId));
+		return union(lists);
+	}
+
+	/**
+	 * Union of sorted posting lists. The result is sorted and free of duplicates. 
+	 */
+	static long[] union(List<long[]> lists) {
+		if ( lists.isEmpty())
+			return emptyList;
+		if ( lists.size() == 1)
+			return lists.get(0);
+		int total = 0;
+		for ( long[] l : lists)
+			total += l.length;
+		long[] all = new long[total];
+		int pos = 0;
+		for ( long[] l : lists) {
+			System.arraycopy(l, 0, all, pos, l.length);
+			pos += l.length;
+		}
+		Arrays.sort(all);
+		return dedupe(all, all.length);
+	}
+
+	/**
+	 * Intersection of two sorted posting lists.
+	 */
+	static long[] intersect(long[] a, long[] b) {
+		long[] result = new long[Math.min(a.length, b.length)];
+		int i = 0, j = 0, n = 0;
+		while ( i < a.length && j < b.length) {
+			if ( a[i] < b[j])
+				i++;
+			else if ( a[i] > b[j])
+				j++;
+			else {
+				result[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return n == result.length ? result : Arrays.copyOf(result, n);
+	}
+
+	private static long[] dedupe(long[] sorted, int length) {
+		if ( length == 0)
+			return emptyList;
+		int n = 1;
+		for ( int i = 1; i < length; i++) {
+			if ( sorted[i] != sorted[n - 1])
+				sorted[n++] = sorted[i];
+		}
+		return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+	}
+
+	private static class PostingListBuilder {
+		private long[] ids = new long[4];
+		private int size = 0;
+
+		void add(long id) {
+			if ( size == ids.length)
+				ids = Arrays.copyOf(ids, size * 2);
+			ids[size++] = id;
+		}
+
+		int size() {
+			return size;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(ids, size);
+		}
+
+		long[] toSortedArray() {
+			Arrays.sort(ids, 0, size);
+			return dedupe(ids, size);
+		}
+	}
+}
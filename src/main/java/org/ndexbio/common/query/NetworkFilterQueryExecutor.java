@@ -31,7 +31,9 @@
 package org.ndexbio.common.query;
 
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.models.dao.orientdb.Helper;
@@ -41,10 +43,10 @@ import org.ndexbio.common.query.filter.orientdb.EdgeByNodePropertyFilterODB;
 import org.ndexbio.common.query.filter.orientdb.EdgeCollectionQueryODB;
 import org.ndexbio.common.query.filter.orientdb.PropertyFilterODB;
 import org.ndexbio.model.exceptions.NdexException;
-import org.ndexbio.model.object.network.Edge;
 import org.ndexbio.model.object.NdexPropertyValuePair;
 import org.ndexbio.model.object.network.Network;
 
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 
 public class NetworkFilterQueryExecutor {
@@ -63,51 +65,90 @@ public class NetworkFilterQueryExecutor {
 		try (NetworkDocDAO dao = new NetworkDocDAO() ) {
 			Network result = new Network () ;
  		    ODocument networkDoc = dao.getRecordByUUIDStr(networkId, NdexClasses.Network);
+ 		    
+ 		    NetworkFilterIndex index = NetworkFilterIndex.isEnabled() ? NetworkFilterIndex.getIndex(networkDoc) : null;
+ 		    if ( index != null) {
+ 		    	// answer the query from the posting lists and only load the matching edges.
+ 		    	long[] edgeIds = index.findEdges(query);
+ 		    	List<ODocument> edgeDocs = new ArrayList<>();
+ 		    	for ( long edgeId : edgeIds) {
+ 		    		ODocument edgeDoc = dao.getDocumentByElementId(NdexClasses.Edge, edgeId);
+ 		    		if ( edgeDoc == null) continue;
+ 		    		edgeDocs.add(edgeDoc);
+ 		    		if ( limit > 0 && edgeDocs.size() >= limit)
+ 		    			break;
+ 		    	}
+ 		    	dao.addEdgesToNetwork(edgeDocs, result);
+ 		    	return finishResult(result);
+ 		    }
+		
+		    Integer edgeCount = networkDoc.field(NdexClasses.Network_P_edgeCount);
+		    if ( edgeCount != null && ParallelEdgeFilterEvaluator.useParallelScan(edgeCount.intValue())) {
+		    	List<ORID> matches = new ParallelEdgeFilterEvaluator(this, networkDoc, limit).evaluate();
+		    	dao.getDBConnection().activateOnCurrentThread();
+		    	List<ODocument> edgeDocs = new ArrayList<>(matches.size());
+		    	for ( ORID rid : matches) 
+		    		edgeDocs.add((ODocument)dao.getDBConnection().load(rid));
+		    	dao.addEdgesToNetwork(edgeDocs, result);
+		    	return finishResult(result);
+		    }
 		
 		    Iterable<ODocument> edgeDocs = Helper.getNetworkElements(networkDoc, NdexClasses.Network_E_Edges );
 	        if ( edgeDocs != null) {
+	        	List<ODocument> matches = new ArrayList<>();
 	        	for ( ODocument edgeDoc : edgeDocs) {
 
 	        		// check against filter
 	        		if ( EdgeRecordSatisfyFilter(dao, edgeDoc)) {
-	        			Edge e = dao.getEdgeFromDocument(edgeDoc,result);
-	        			result.getEdges().put(e.getId(), e);
-	        			if ( limit > 0 && result.getEdges().size() >= limit)
+	        			matches.add(edgeDoc);
+	        			if ( limit > 0 && matches.size() >= limit)
 	        				break;
 	        		}	
 	        	}
+	        	dao.addEdgesToNetwork(matches, result);
 	        }
-	        if( query.getQueryName() != null) 
-				result.setName(query.getQueryName());
-	        else
-				result.setName("");
-		
-	        result.setNodeCount(result.getNodes().size());
-	        result.setEdgeCount(result.getEdges().size());
-		
-	        return result;
+	        return finishResult(result);
 		}
 		
 	}
 	
-   // TODO: need to make this case insensitive.
+	private Network finishResult(Network result) {
+        if( query.getQueryName() != null) 
+			result.setName(query.getQueryName());
+        else
+			result.setName("");
+	
+        result.setNodeCount(result.getNodes().size());
+        result.setEdgeCount(result.getEdges().size());
+	
+        return result;
+	}
+	
 	private static boolean elementHasPropertySatisfyFilter(ODocument elementDoc, PropertyFilterODB filter) {
-
 		List<NdexPropertyValuePair> props = elementDoc.field(NdexClasses.ndexProperties);
+		return propertiesSatisfyFilter(props, filter);
+	}
+
+	/**
+	 * Property names and values are matched case insensitively, the same way NetworkFilterIndex matches them.
+	 */
+	static boolean propertiesSatisfyFilter(List<NdexPropertyValuePair> props, PropertyFilterODB filter) {
 		if ( props !=null )
 		 for (NdexPropertyValuePair property : props) {
-			String value = filter.getValue(property.getPredicateString());
-			if ( value !=null && value.equalsIgnoreCase(property.getValue()))
-				return true;
-	/*		if ( filter.containsPropertyName(property.getPredicateString()) ) {
+			if ( property.getPredicateString() == null || property.getValue() == null)
+				continue;
+			String key = NetworkFilterIndex.propertyKey(property.getPredicateString(), property.getValue());
+			for ( Map.Entry<String, String> e : filter.getProperties().entrySet()) {
+				if ( e.getKey() != null && e.getValue() != null && 
+						key.equals(NetworkFilterIndex.propertyKey(e.getKey(), e.getValue())))
 					return true;
-			} */
+			}
 		 }
 		return false;
 	}
 	
 	
-	private boolean EdgeRecordSatisfyFilter(NetworkDocDAO dao, ODocument edgeDoc) {
+	boolean EdgeRecordSatisfyFilter(NetworkDocDAO dao, ODocument edgeDoc) {
 	    
 		return EdgeRecordSatisfyEdgePropertyFilter(edgeDoc, query.getEdgeFilter()) &&
 				EdgeRecordSatisfyNodeFilters  (dao, edgeDoc, query.getNodeFilter())		;
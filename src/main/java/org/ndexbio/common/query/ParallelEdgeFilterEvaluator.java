@@ -0,0 +1,325 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.Configuration;
+
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.db.record.ridbag.ORidBag;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * Evaluates the edge filter of a NetworkFilterQueryExecutor over the edges of a network in parallel. 
+ * 
+ * The calling thread walks the edge rid bag of the network lazily and hands out ranges of rids through a 
+ * bounded queue, so only the ranges in flight are held in memory. Each worker opens one database connection 
+ * and scans all the ranges it takes from the queue with it.
+ * 
+ * The result is the same as a sequential scan: matching edges are returned in rid bag order, and when an edge
+ * limit is given, the first <i>limit</i> matches in that order are returned. No more ranges are handed out, and
+ * queued ranges are skipped, once the ranges before them already hold enough matches. 
+ * 
+ * Configuration properties:
+ *   Filter-Query-Parallelism         number of worker threads. Defaults to the number of processors, 1 disables it. 
+ *   Filter-Query-Parallel-Threshold  minimum edge count of a network to be scanned in parallel. Default 50000.
+ */
+class ParallelEdgeFilterEvaluator {
+
+	private static final Logger logger = Logger.getLogger(ParallelEdgeFilterEvaluator.class.getName());
+
+	private static final String parallelismProp = "Filter-Query-Parallelism";
+	private static final String thresholdProp = "Filter-Query-Parallel-Threshold";
+
+	// edges per range. Small enough to balance the load and stop early on a limit.
+	private static final int rangeSize = 10000;
+
+	private static final Range endOfRanges = new Range(-1, null, 0);
+
+	private static ExecutorService pool;
+	private static int parallelism = -1;
+	private static int threshold = 50000;
+
+	private final NetworkFilterQueryExecutor executor;
+	private final ODocument networkDoc;
+	private final int limit;
+
+	// guarded by this.
+	private final List<List<ORID>> rangeResults;
+	private int finishedPrefix;
+	private int prefixMatchCount;
+	// ranges after this one are not needed any more, because the ranges up to it hold enough matches.
+	private final AtomicInteger cutoffRange;
+	private volatile NdexException error;
+
+	ParallelEdgeFilterEvaluator(NetworkFilterQueryExecutor executor, ODocument networkDoc, int limit) {
+		this.executor = executor;
+		this.networkDoc = networkDoc;
+		this.limit = limit;
+		this.rangeResults = new ArrayList<>();
+		this.finishedPrefix = 0;
+		this.prefixMatchCount = 0;
+		this.cutoffRange = new AtomicInteger(Integer.MAX_VALUE);
+		this.error = null;
+	}
+
+	/**
+	 * @return true if a network of the given size should be scanned in parallel.
+	 */
+	static boolean useParallelScan(int edgeCount) {
+		return getPool() != null && edgeCount >= threshold;
+	}
+
+	/**
+	 * @return an iterator over the rids in the edge rid bag of the network, which doesn't load the edge records.
+	 */
+	static Iterator<ORID> getEdgeRids(ODocument networkDoc) {
+		Object f = networkDoc.field("out_" + NdexClasses.Network_E_Edges);
+		if ( f == null)
+			return Collections.<ORID>emptyIterator();
+		if ( f instanceof OIdentifiable && !(f instanceof ORidBag))
+			return Collections.singletonList(((OIdentifiable)f).getIdentity()).iterator();
+		if ( f instanceof ORidBag)
+			((ORidBag)f).setAutoConvertToRecord(false);
+		final Iterator<?> it = ((Iterable<?>)f).iterator();
+		return new Iterator<ORID>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public ORID next() {
+				return ((OIdentifiable)it.next()).getIdentity();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Run the scan. Must be called on the thread that owns the connection of the network document, 
+	 * because the rid bag is read on this thread.
+	 * @return rids of the matching edges, in rid bag order, truncated to the edge limit.
+	 */
+	List<ORID> evaluate() throws NdexException {
+		long t0 = System.currentTimeMillis();
+		int workerCount = parallelism;
+		BlockingQueue<Range> ranges = new ArrayBlockingQueue<>(2 * workerCount);
+		List<Future<?>> workers = new ArrayList<>(workerCount);
+		for ( int i = 0 ; i < workerCount; i++)
+			workers.add(getPool().submit(new Worker(ranges)));
+
+		long edgeCount = 0;
+		int rangeCount = 0;
+		try {
+			Iterator<ORID> rids = getEdgeRids(networkDoc);
+			while ( rids.hasNext() && rangeCount <= cutoffRange.get() && error == null) {
+				ORID[] chunk = new ORID[rangeSize];
+				int size = 0;
+				while ( size < rangeSize && rids.hasNext())
+					chunk[size++] = rids.next();
+				edgeCount += size;
+				synchronized (this) {
+					rangeResults.add(null);
+				}
+				ranges.put(new Range(rangeCount++, chunk, size));
+			}
+		} catch (InterruptedException e) {
+			throw new NdexException("Parallel filter scan interrupted.");
+		} finally {
+			for ( int i = 0 ; i < workerCount; i++) {
+				try {
+					ranges.put(endOfRanges);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		for ( Future<?> w : workers) {
+			try {
+				w.get();
+			} catch (InterruptedException | ExecutionException e) {
+				throw new NdexException("Error in parallel filter scan: " + e.getMessage());
+			}
+		}
+		if ( error != null)
+			throw error;
+
+		List<ORID> result = new ArrayList<>();
+		int cutoff = cutoffRange.get();
+		for ( int i = 0 ; i < rangeResults.size() && i <= cutoff; i++) {
+			for ( ORID rid : rangeResults.get(i)) {
+				if ( limit > 0 && result.size() >= limit)
+					break;
+				result.add(rid);
+			}
+		}
+		logger.info("Parallel filter scan of " + edgeCount + " edges in " + rangeCount + 
+				" ranges found " + result.size() + " edges in " + (System.currentTimeMillis() - t0) + " ms.");
+		return result;
+	}
+
+	/**
+	 * Record the result of a finished range and move the cutoff forward when the completed prefix of ranges 
+	 * holds enough matches.
+	 */
+	private synchronized void rangeFinished(int rangeIdx, List<ORID> matches) {
+		rangeResults.set(rangeIdx, matches);
+		if ( limit <= 0)
+			return;
+		while ( finishedPrefix < rangeResults.size() && rangeResults.get(finishedPrefix) != null) {
+			prefixMatchCount += rangeResults.get(finishedPrefix).size();
+			finishedPrefix++;
+			if ( prefixMatchCount >= limit && finishedPrefix - 1 < cutoffRange.get()) {
+				cutoffRange.set(finishedPrefix - 1);
+				break;
+			}
+		}
+	}
+
+	private static class Range {
+		final int idx;
+		final ORID[] rids;
+		final int size;
+
+		Range(int idx, ORID[] rids, int size) {
+			this.idx = idx;
+			this.rids = rids;
+			this.size = size;
+		}
+	}
+
+	/**
+	 * Takes ranges from the queue until the end marker, and scans them with one connection.
+	 */
+	private class Worker implements Runnable {
+		private final BlockingQueue<Range> ranges;
+
+		Worker(BlockingQueue<Range> ranges) {
+			this.ranges = ranges;
+		}
+
+		@Override
+		public void run() {
+			NetworkDocDAO dao = null;
+			try {
+				try {
+					dao = new NetworkDocDAO();
+					dao.getDBConnection().activateOnCurrentThread();
+				} catch (NdexException e) {
+					error = e;
+				}
+				Range range;
+				while ( (range = ranges.take()) != endOfRanges) {
+					List<ORID> matches = new ArrayList<>();
+					// keep taking ranges after an error, so the producer is never blocked on a full queue.
+					if ( error == null && range.idx <= cutoffRange.get())
+						scan(dao, range, matches);
+					rangeFinished(range.idx, matches);
+				}
+			} catch (InterruptedException e) {
+				error = new NdexException("Parallel filter scan interrupted.");
+			} finally {
+				if ( dao != null)
+					dao.close();
+			}
+		}
+
+		private void scan(NetworkDocDAO dao, Range range, List<ORID> matches) {
+			try {
+				for ( int i = 0 ; i < range.size; i++) {
+					if ( range.idx > cutoffRange.get())
+						break;
+					ODocument edgeDoc = dao.getDBConnection().load(range.rids[i]);
+					if ( edgeDoc != null && executor.EdgeRecordSatisfyFilter(dao, edgeDoc)) {
+						matches.add(range.rids[i]);
+						if ( limit > 0 && matches.size() >= limit)
+							break;
+					}
+				}
+			} catch (RuntimeException e) {
+				error = new NdexException("Error in parallel filter scan: " + e.getMessage());
+			}
+		}
+	}
+
+	private static synchronized ExecutorService getPool() {
+		if ( parallelism < 0) {
+			parallelism = Runtime.getRuntime().availableProcessors();
+			try {
+				Configuration config = Configuration.getInstance();
+				String v = config.getProperty(parallelismProp);
+				if ( v != null)
+					parallelism = Integer.parseInt(v.trim());
+				v = config.getProperty(thresholdProp);
+				if ( v != null)
+					threshold = Integer.parseInt(v.trim());
+			} catch (NdexException | NumberFormatException e) {
+				logger.warning("Failed to read parallel filter settings from configuration, using defaults. " + e.getMessage());
+			}
+			if ( parallelism > 1) {
+				final AtomicInteger threadCounter = new AtomicInteger(0);
+				// one connection per thread, so the pool size also bounds the connections used by filter scans.
+				pool = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "edge-filter-" + threadCounter.incrementAndGet());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			}
+		}
+		return pool;
+	}
+}
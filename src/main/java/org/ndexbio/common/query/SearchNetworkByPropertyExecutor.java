@@ -31,11 +31,13 @@
 package org.ndexbio.common.query;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
 import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.models.dao.orientdb.NetworkDAO;
+import org.ndexbio.common.models.dao.orientdb.NetworkListingEngine;
 import org.ndexbio.common.models.dao.orientdb.NetworkSearchDAO;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
 import org.ndexbio.model.exceptions.NdexException;
@@ -44,6 +46,7 @@ import org.ndexbio.model.network.query.PropertySpecification;
 import org.ndexbio.model.object.NdexPropertyValuePair;
 import org.ndexbio.model.object.Permissions;
 import org.ndexbio.model.object.network.NetworkSummary;
+import org.ndexbio.model.object.network.VisibilityType;
 
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.record.impl.ODocument;
@@ -72,27 +75,40 @@ public class SearchNetworkByPropertyExecutor {
 		
 	}
 	
+	/**
+	 * @return all the matching networks the user can read, newest first.
+	 */
 	public Collection<NetworkSummary> evaluate() throws NdexException {
+		return evaluate(0, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get one page of the matching networks the user can read, newest first. The listing stops once 
+	 * skipBlocks * blockSize + blockSize matches are found.
+	 */
+	public Collection<NetworkSummary> evaluate(int skipBlocks, int blockSize) throws NdexException {
 		
 		Collection<NetworkSummary> result = new ArrayList<>();
 
-		if ( filters == null || filters.size() == 0)
+		if ( filters == null || filters.size() == 0 || blockSize <= 0)
 			return result;
+		int skip = (int)Math.min(Integer.MAX_VALUE, (long)skipBlocks * blockSize);
 		
 		try (NetworkDAO dao = new NetworkDAO() ) {
 
-			for (final ODocument networkDoc : dao.getDBConnection().browseClass(NdexClasses.Network)) {
-				Boolean isComplete = networkDoc.field(NdexClasses.Network_P_isComplete);
-				Boolean isDeleted = networkDoc.field(NdexClasses.ExternalObj_isDeleted);
-				if ( isComplete !=null && isComplete.booleanValue() && !isDeleted.booleanValue()) {
-					if ( NetworkSearchDAO.isSearchable(networkDoc, userRID, adminUserRID, false, true, Permissions.READ) )	{	
-						   if ( networkSatisfyFilter(networkDoc))
-							result.add(dao.getNetworkSummary(networkDoc));
-					}
-				}
-			} 
-
-		
+			// check the properties first, the permission traversal only runs on the networks that match.
+			NetworkListingEngine engine = new NetworkListingEngine(dao.getDBConnection());
+			List<ODocument> networkDocs = engine.listNetworks(Arrays.asList(VisibilityType.values()),
+					new NetworkListingEngine.NetworkDocFilter() {
+						@Override
+						public boolean accept(ODocument networkDoc) throws NdexException {
+							return networkSatisfyFilter(networkDoc) && 
+									NetworkSearchDAO.isSearchable(networkDoc, userRID, adminUserRID, false, true, Permissions.READ);
+						}
+					}, skip, blockSize);
+			
+			for ( ODocument networkDoc : networkDocs) 
+				result.add(dao.getNetworkSummary(networkDoc));
 		}
 		
 		return result;
@@ -42,9 +42,9 @@ public class EdgeByEdgePropertyFilterODB extends PropertyFilterODB {
 		predicateIds = new TreeSet<>();
 	}
 
-/*	public Set<String> getPredicateIds() {
+	public Set<Long> getPredicateIds() {
 		return predicateIds;
-	} */
+	}
 
 	public void addPredicateId(Long predicateId) {
 		this.predicateIds.add(predicateId);
@@ -56,19 +56,17 @@ public class EdgeByNodePropertyFilterODB extends PropertyFilterODB {
 	public void setMode(SpecMatchMode mode) {
 		this.mode = mode;
 	}
-/*
-	public Collection<String> getNodeNames() {
+	public Set<String> getNodeNames() {
 		return nodeNames;
 	}
-*/
+
 	public void addNodeName(String nodeName) {
 		this.nodeNames.add(nodeName.toLowerCase());
 	}
-/*
-	public Collection<String> getRepresentTermIDs() {
+	public Set<Long> getRepresentTermIDs() {
 		return representTermIDs;
 	}
-*/
+
 	public void addRepresentTermID( Long termID) {
 		this.representTermIDs.add(termID);
 	}
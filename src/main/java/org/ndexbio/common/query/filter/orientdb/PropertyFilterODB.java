@@ -58,4 +58,8 @@ public class PropertyFilterODB {
 	public String getValue ( String propertyName) {
 		return _propertySet.get(propertyName);
 	}
+
+	public Map<String,String> getProperties() {
+		return _propertySet;
+	}
 }
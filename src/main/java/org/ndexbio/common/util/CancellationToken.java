@@ -0,0 +1,169 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.util;
+
+/**
+ * Cooperative cancellation of long running tasks. 
+ * 
+ * The task processor attaches a token to the thread that executes a task. Parsers, loaders and exporters
+ * call checkpoint() at their batch boundaries, which throws a TaskCancelledException when the task
+ * has been cancelled from another thread, or when it has run longer or processed more elements than
+ * its budget allows. On threads without a token, checkpoint() does nothing.
+ * 
+ * Elements are counted in one layer only: the loaders and the persistence service that create them
+ * call checkpoint(n). Parsers and converters feeding them call checkpoint() to poll without counting.
+ *
+ */
+public class CancellationToken {
+
+	private static final ThreadLocal<CancellationToken> currentToken = new ThreadLocal<>();
+
+	// the flag and the clock are only looked at once per this many elements.
+	public static final int checkInterval = 1000;
+
+	private final String name;
+	private long timeLimit;
+	private long deadline;
+	private long elementLimit;
+
+	// only updated by the thread that runs the task. 
+	private volatile long elementCount;
+	private long nextCheck;
+	private volatile String cancelReason;
+
+	/**
+	 * Create a token without budgets. Budgets can be set with start() when the task starts running.
+	 * @param name name of the task, used in the error messages.
+	 */
+	public CancellationToken(String name) {
+		this(name, 0, 0);
+	}
+
+	/**
+	 * @param name name of the task, used in the error messages.
+	 * @param timeLimit time budget in milliseconds. 0 or less means no limit.
+	 * @param elementLimit element budget. 0 or less means no limit.
+	 */
+	public CancellationToken(String name, long timeLimit, long elementLimit) {
+		this.name = name;
+		this.cancelReason = null;
+		start(timeLimit, elementLimit);
+	}
+
+	/**
+	 * Set the budgets and start the clock of the time budget. Called by the thread that runs the task.
+	 */
+	public void start(long newTimeLimit, long newElementLimit) {
+		this.timeLimit = newTimeLimit;
+		this.deadline = newTimeLimit > 0 ? System.currentTimeMillis() + newTimeLimit : 0;
+		this.elementLimit = newElementLimit;
+		this.elementCount = 0;
+		this.nextCheck = checkInterval;
+		if ( newElementLimit > 0 && newElementLimit < nextCheck)
+			nextCheck = newElementLimit + 1;
+	}
+
+	/**
+	 * Request cancellation. The task stops at its next checkpoint.
+	 */
+	public void cancel(String reason) {
+		if ( cancelReason == null)
+			cancelReason = reason == null ? "cancelled by request" : reason;
+	}
+
+	public boolean isCancelled() {
+		return cancelReason != null;
+	}
+
+	public String getCancelReason() {
+		return cancelReason;
+	}
+
+	public long getElementCount() {
+		return elementCount;
+	}
+
+	/**
+	 * Count processed elements. The cancellation flag and the budgets are checked when no elements 
+	 * are given, and otherwise once every checkInterval elements. A check without elements does not
+	 * move the next interval check.
+	 * @param newElements number of elements processed since the last check.
+	 * @throws TaskCancelledException if the task is cancelled or over budget.
+	 */
+	public void check(long newElements) throws TaskCancelledException {
+		long count = elementCount + newElements;
+		elementCount = count;
+		if ( newElements > 0) {
+			if ( count < nextCheck)
+				return;
+			nextCheck = count + checkInterval;
+			if ( elementLimit > 0 && elementLimit < nextCheck)
+				nextCheck = Math.max(count, elementLimit) + 1;
+		}
+
+		if ( cancelReason == null) {
+			if ( deadline > 0 && System.currentTimeMillis() > deadline)
+				cancel("time budget of " + (timeLimit / 1000) + " seconds exceeded");
+			else if ( elementLimit > 0 && count > elementLimit)
+				cancel("element budget of " + elementLimit + " exceeded");
+		}
+		if ( cancelReason != null)
+			throw new TaskCancelledException("Task " + name + " stopped: " + cancelReason + ".");
+	}
+
+	public static void setCurrent(CancellationToken token) {
+		currentToken.set(token);
+	}
+
+	public static CancellationToken getCurrent() {
+		return currentToken.get();
+	}
+
+	public static void clearCurrent() {
+		currentToken.remove();
+	}
+
+	/**
+	 * Check the token of the current thread. 
+	 */
+	public static void checkpoint() throws TaskCancelledException {
+		checkpoint(0);
+	}
+
+	/**
+	 * Count the given number of processed elements against the budget of the current thread's token, and check it.
+	 */
+	public static void checkpoint(long newElements) throws TaskCancelledException {
+		CancellationToken token = currentToken.get();
+		if ( token != null)
+			token.check(newElements);
+	}
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.util;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that caps the rate at which bytes are passed on to the underlying stream.
+ * The writer is put to sleep whenever it gets ahead of the allowed rate, so long running
+ * background jobs (e.g. database backups) don't starve the live traffic on the same disk.
+ *
+ * A limit of 0 or less disables throttling.
+ */
+public class ThrottledOutputStream extends FilterOutputStream {
+
+	// check the rate after at least this many bytes have been written.
+	private static final int checkInterval = 64 * 1024;
+
+	private final long bytesPerSecond;
+	private final long startTime;
+	private long bytesWritten;
+	private long bytesSinceCheck;
+
+	public ThrottledOutputStream(OutputStream out, long maxBytesPerSecond) {
+		super(out);
+		this.bytesPerSecond = maxBytesPerSecond;
+		this.startTime = System.currentTimeMillis();
+		this.bytesWritten = 0;
+		this.bytesSinceCheck = 0;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		out.write(b);
+		count(1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		out.write(b, off, len);
+		count(len);
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	private void count(int len) throws IOException {
+		bytesWritten += len;
+		if ( bytesPerSecond <= 0)
+			return;
+
+		bytesSinceCheck += len;
+		if ( bytesSinceCheck < checkInterval)
+			return;
+		bytesSinceCheck = 0;
+
+		long expectedTime = bytesWritten * 1000 / bytesPerSecond;
+		long elapsedTime = System.currentTimeMillis() - startTime;
+		if ( expectedTime > elapsedTime) {
+			try {
+				Thread.sleep(expectedTime - elapsedTime);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while throttling output.");
+			}
+		}
+	}
+}
@@ -63,13 +63,43 @@ public class NdexSchemaManager
     
 	private static final Logger logger = Logger.getLogger(NdexSchemaManager.class.getName());
 
+    /**
+     * Create the indexes that were added after version 1.1 of the schema, so that existing databases get them 
+     * on the next start up without a schema version change.
+     */
+    private static void ensureIndexes(ODatabaseDocumentTx orientDb) {
+    	OSchema schema = orientDb.getMetadata().getSchema();
+    	OClass networkClass = schema.getClass(NdexClasses.Network);
+    	if ( networkClass != null && networkClass.getClassIndex(NdexClasses.Index_network_listing) == null) {
+    		logger.info("Creating index " + NdexClasses.Index_network_listing + ". This might take a while on a large database.");
+    		if ( networkClass.getProperty(NdexClasses.Network_P_isComplete) == null)
+    			networkClass.createProperty(NdexClasses.Network_P_isComplete, OType.BOOLEAN);
+    		if ( networkClass.getProperty(NdexClasses.Network_P_visibility) == null)
+    			networkClass.createProperty(NdexClasses.Network_P_visibility, OType.STRING);
+    		networkClass.createIndex(NdexClasses.Index_network_listing, OClass.INDEX_TYPE.NOTUNIQUE, 
+    				NdexClasses.Network_P_isComplete, NdexClasses.ExternalObj_isDeleted, 
+    				NdexClasses.Network_P_visibility, NdexClasses.ExternalObj_mTime);
+    		schema.save();
+    	}
+    	
+    	OClass taskClass = schema.getClass(NdexClasses.Task);
+    	if ( taskClass != null && taskClass.getClassIndex(NdexClasses.Index_task_status) == null) {
+    		logger.info("Creating index " + NdexClasses.Index_task_status + ". This might take a while on a large database.");
+    		taskClass.createIndex(NdexClasses.Index_task_status, OClass.INDEX_TYPE.NOTUNIQUE, 
+    				NdexClasses.Task_P_status, NdexClasses.ExternalObj_isDeleted);
+    		schema.save();
+    	}
+    }
+
     //TODO: type property might not be needed because we can get them from the vertex type.
     public synchronized void init(ODatabaseDocumentTx  orientDb) throws NdexException
     {
     	ODocument  versionDoc = orientDb.getDictionary().get(NdexDbVersionKey); 
     	if( versionDoc != null ) {
-    	   if ( versionDoc.field(NdexVField).equals(NdexDbVersion))	
+    	   if ( versionDoc.field(NdexVField).equals(NdexDbVersion))	{
+    		  ensureIndexes(orientDb);
     		  return;
+    	   }
 		   throw new NdexException("Another version ("+versionDoc.field(NdexVField)+ 
 				") of Ndex database found in the database. Please drop it before creating a new one.");
     	}
@@ -356,6 +386,7 @@ public class NdexSchemaManager
         logger.info("All indexes are created.");
 
         orientDb.getMetadata().getSchema().save();
+        ensureIndexes(orientDb);
         
         versionDoc = new ODocument(NdexVField, NdexDbVersion);
         orientDb.getDictionary().put(NdexDbVersionKey, versionDoc);
@@ -101,6 +101,7 @@ public class BioPAXExporterTask extends NdexTask {
 			if ( db !=null ) db.close();
 		    out.close();
 		}
+		setBytesProcessed(new File(exportFilename).length());
 	}
 	
 	/*
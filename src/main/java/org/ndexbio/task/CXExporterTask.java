@@ -90,6 +90,7 @@ public class CXExporterTask extends NdexTask {
 		} finally { 
 		    out.close();
 		}
+		setBytesProcessed(new File(exportFilename).length());
 	}
 	
 	/*
@@ -35,10 +35,13 @@ import java.io.StringWriter;
 
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.TaskDocDAO;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.common.util.TaskCancelledException;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.Status;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.model.object.network.FileFormat;
+import org.ndexbio.task.metrics.TaskMetrics;
 import org.slf4j.LoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
@@ -48,7 +51,12 @@ import org.slf4j.MDC;
 public class ClientTaskProcessor extends NdexTaskProcessor {
 
 	static Logger logger = LoggerFactory.getLogger(ClientTaskProcessor.class);
-	
+
+	// per task type budgets, e.g. Task-Time-Limit.PROCESS_UPLOADED_NETWORK=120 (in minutes)
+	// and Task-Element-Limit.PROCESS_UPLOADED_NETWORK=5000000. No limit if not set.
+	private static final String timeLimitProp = "Task-Time-Limit.";
+	private static final String elementLimitProp = "Task-Element-Limit.";
+
 	public ClientTaskProcessor () {
 		super();
 	}
@@ -68,31 +76,109 @@ public class ClientTaskProcessor extends NdexTaskProcessor {
 				return;
 			}
 			
+			long startTime = System.currentTimeMillis();
+			boolean succeeded = false;
+			NdexTask t = null;
+			String taskId = task.getExternalId().toString();
+			CancellationToken token = startCancellationToken(task);
+			CancellationToken.setCurrent(token);
 			try {		        
+				if ( token.isCancelled()) 
+					throw new TaskCancelledException("Task " + taskId + " cancelled before it started.");
+
 		        MDC.put("RequestsUniqueId", (String)task.getAttribute("RequestsUniqueId") );
 				logger.info("[start: starting task]");
 				
-				NdexTask t = getNdexTask(task);
+				t = getNdexTask(task);
 				saveTaskStatus(task.getExternalId().toString(), Status.PROCESSING, null,null);
 				Task taskObj = t.call();
 				saveTaskStatus(task.getExternalId().toString(), Status.COMPLETED, taskObj.getMessage(),null);
+				succeeded = true;
 
 				logger.info("[end: task completed]");
 
 			} catch (Exception e) {
-				logger.error("Error occured when executing task " + task.getExternalId());
-				e.printStackTrace();
 				StringWriter sw = new StringWriter();
 				PrintWriter pw = new PrintWriter(sw);
 				e.printStackTrace(pw);     
+				String message = e.getMessage();
+				if ( token.isCancelled()) {
+					// the parsers have already rolled back the partial network when the exception passed through them.
+					message = "Task stopped: " + token.getCancelReason() + ".";
+					logger.warn("Task " + taskId + " cancelled after " + token.getElementCount() + " elements: " + token.getCancelReason());
+				} else {
+					logger.error("Error occured when executing task " + task.getExternalId());
+					e.printStackTrace();
+				}
 				try {
-					saveTaskStatus(task.getExternalId().toString(), Status.FAILED, e.getMessage(), sw.toString() );
+					saveTaskStatus(taskId, Status.FAILED, message, sw.toString() );
 
 				} catch (NdexException e1) {
 					logger.error("Error occured when saving task " + e1);
 				}
 				
-			} 
+			} finally {
+				CancellationToken.clearCurrent();
+				NdexServerQueue.INSTANCE.releaseUserTask(taskId);
+				TaskMetrics.INSTANCE.recordTask(task, startTime, System.currentTimeMillis(), succeeded,
+						t == null ? 0 : t.getBytesProcessed(), t == null ? 0 : t.getElementsProcessed());
+			}
+		}
+	}
+	
+	/**
+	 * Cancel a user task. A running task stops at its next checkpoint; a task that is still waiting in the queue 
+	 * is removed from the queue and marked as failed. If a processor takes the task from the queue at the same 
+	 * time, the processor finds the token already cancelled and fails the task without running it.
+	 * @return false if the task is neither running nor queued.
+	 * @throws NdexException 
+	 */
+	public static boolean cancelTask(String taskId, String reason) throws NdexException {
+		CancellationToken token = NdexServerQueue.INSTANCE.getUserTaskToken(taskId);
+		if ( token == null)
+			return false;
+		
+		token.cancel(reason);
+		Task queuedTask = NdexServerQueue.INSTANCE.removeUserTask(taskId);
+		if ( queuedTask != null) {
+			saveTaskStatus(taskId, Status.FAILED, "Task cancelled before it started: " + 
+					token.getCancelReason() + ".", null);
+			logger.info("Queued task " + taskId + " removed from the user task queue.");
+		} else 
+			logger.info("Cancellation requested for running task " + taskId);
+		return true;
+	}
+
+	// use the token that was registered when the task was queued, so that cancel requests made while 
+	// the task was waiting are not lost, and start its budgets now.
+	private static CancellationToken startCancellationToken(Task task) {
+		String taskId = task.getExternalId().toString();
+		CancellationToken token = NdexServerQueue.INSTANCE.getUserTaskToken(taskId);
+		if ( token == null)
+			token = new CancellationToken(taskId);
+		
+		long timeLimit = 0;
+		long elementLimit = 0;
+		try {
+			Configuration config = Configuration.getInstance();
+			String typeName = task.getTaskType() == null ? "" : task.getTaskType().toString();
+			timeLimit = getLimit(config.getProperty(timeLimitProp + typeName)) * 60 * 1000;
+			elementLimit = getLimit(config.getProperty(elementLimitProp + typeName));
+		} catch (NdexException e) {
+			logger.warn("Failed to read task budgets from configuration, task runs without limits. " + e.getMessage());
+		}
+		token.start(timeLimit, elementLimit);
+		return token;
+	}
+
+	private static long getLimit(String value) {
+		if ( value == null || value.trim().isEmpty())
+			return 0;
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			logger.warn("Invalid task budget value '" + value + "' ignored.");
+			return 0;
 		}
 	}
 	
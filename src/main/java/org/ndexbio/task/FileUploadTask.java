@@ -31,12 +31,16 @@
 package org.ndexbio.task;
 
 import java.io.File;
+import java.util.UUID;
 
 import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.model.object.Status;
+import org.ndexbio.model.object.network.NetworkSummary;
 import org.ndexbio.task.parsingengines.*;
+import org.ndexbio.task.parsingengines.XbelFileValidator.ValidationState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,6 +62,8 @@ public class FileUploadTask extends NdexTask {
 			.getLogger(FileUploadTask.class);
 
     private NdexDatabase db;
+
+    private static final String uploadViaCXLoaderProperty = "Upload-Via-CX-Loader";
 	
 	public FileUploadTask(Task itask, NdexDatabase ndexDb) throws IllegalArgumentException,
 			SecurityException, NdexException {
@@ -81,6 +87,19 @@ public class FileUploadTask extends NdexTask {
 		}
 	}
 
+	/*
+	 * Uploads in the legacy formats are converted to CX and loaded by the CX loader, unless 
+	 * Upload-Via-CX-Loader is set to false in the server configuration.
+	 */
+	private static boolean useCXLoader() {
+		try {
+			String value = Configuration.getInstance().getProperty(uploadViaCXLoaderProperty);
+			return value == null || Boolean.parseBoolean(value.trim());
+		} catch (NdexException e) {
+			return true;
+		}
+	}
+
 	protected String getFilename() {
 		return this.filename;
 
@@ -96,25 +115,43 @@ public class FileUploadTask extends NdexTask {
 		logger.info("File extension = " + fileExtension);
 		String networkName = Files.getNameWithoutExtension(this.getTask().getDescription());
 		IParsingEngine parser = null;
+		boolean useCXLoader = useCXLoader();
 
 		switch (fileExtension) {
 		case ("SIF"):
-			parser = new SifParser(
+			if ( useCXLoader)
+				parser = new CXParser(new SifCXConverter(file, networkName), this.getTaskOwnerAccount(), getTask().getDescription());
+			else
+				parser = new SifParser(
 						file.getAbsolutePath(), this.getTaskOwnerAccount(),db, networkName, getTask().getDescription());
 			break;
 		case ("XGMML"):
-			parser = new XgmmlParser(
+			if ( useCXLoader)
+				parser = new CXParser(new XgmmlCXConverter(file, networkName), this.getTaskOwnerAccount(), getTask().getDescription());
+			else
+				parser = new XgmmlParser(
 						file.getAbsolutePath(), this.getTaskOwnerAccount(),db, networkName, getTask().getDescription());
 			break;
 		case ("OWL"):
-			parser = new BioPAXParser(
+			if ( useCXLoader)
+				parser = new CXParser(new BioPAXCXConverter(file, networkName), this.getTaskOwnerAccount(), getTask().getDescription());
+			else
+				parser = new BioPAXParser(
 						file.getAbsolutePath(), this.getTaskOwnerAccount(),db, networkName, getTask().getDescription());
 			break;
 		case ("XBEL"):
-			parser = new XbelParser(
+			ValidationState validationState;
+			if ( useCXLoader) {
+				XbelCXConverter converter = new XbelCXConverter(file);
+				validationState = converter.getValidationState();
+				parser = new CXParser(converter, this.getTaskOwnerAccount(), getTask().getDescription());
+			} else {
+				parser = new XbelParser(
 						file.getAbsolutePath(), this.getTaskOwnerAccount(),db, getTask().getDescription());
+				validationState = ((XbelParser)parser).getValidationState();
+			}
 
-			if (!((XbelParser)parser).getValidationState().isValid()) {
+			if (!validationState.isValid()) {
 					logger.info("XBel validation failed");
 					taskStatus = Status.COMPLETED_WITH_ERRORS;
 					throw new NdexException(
@@ -123,7 +160,10 @@ public class FileUploadTask extends NdexTask {
 			break;
 		case ("XLSX"):
 		case ("XLS"):
-			parser = new ExcelParser(
+			if ( useCXLoader)
+				parser = new CXParser(new ExcelCXConverter(file, networkName), this.getTaskOwnerAccount(), getTask().getDescription());
+			else
+				parser = new ExcelParser(
 						file.getAbsolutePath(), this.getTaskOwnerAccount(),db);
 			break;
 		case ("CX")	:
@@ -138,6 +178,8 @@ public class FileUploadTask extends NdexTask {
 		parser.parseFile();
 		taskStatus = Status.COMPLETED;
 		long fileSize = file.length();
+		setBytesProcessed(fileSize);
+		setElementsProcessed(getElementCount(parser.getUUIDOfUploadedNetwork()));
 		file.delete(); // delete the file from the staging area
 		logger.info("Network upload file: " + file.getName() +" deleted from staging area");
 		this.addTaskAttribute("networkUUID", parser.getUUIDOfUploadedNetwork().toString());
@@ -145,4 +187,18 @@ public class FileUploadTask extends NdexTask {
         logger.info("[end: Network upload finished; UUID='{}' fileSize={}]", parser.getUUIDOfUploadedNetwork().toString(), fileSize);
 	}
 
+	/**
+	 * Only used for the task metrics, so a failure is logged and counted as 0 elements rather than failing an 
+	 * upload that has already been committed.
+	 */
+	private static long getElementCount(UUID networkId) {
+		try (NetworkDocDAO dao = new NetworkDocDAO()) {
+			NetworkSummary summary = dao.getNetworkSummaryById(networkId.toString());
+			return (long)summary.getNodeCount() + summary.getEdgeCount();
+		} catch (Exception e) {
+			logger.warn("Failed to get the element count of network {} for the task metrics: {}", networkId, e.getMessage());
+			return 0;
+		}
+	}
+
 }
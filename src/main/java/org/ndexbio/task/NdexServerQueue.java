@@ -31,9 +31,13 @@
 package org.ndexbio.task;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingDeque;
 
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.object.Task;
+import org.ndexbio.task.metrics.TaskMetrics;
 
 public enum NdexServerQueue {
 	
@@ -42,11 +46,17 @@ public enum NdexServerQueue {
 	private LinkedBlockingDeque<Task> systemTaskQueue;
 	private LinkedBlockingDeque<Task> userTaskQueue;
 	
+	// cancellation tokens of the user tasks that are queued or running, keyed by task id. A token is 
+	// registered before its task enters the queue, so a cancel request always finds it, no matter whether 
+	// a processor has taken the task yet.
+	private ConcurrentMap<String, CancellationToken> userTaskTokens;
+	
 	public static final Task endOfQueue = new Task();
 	
 	private NdexServerQueue () {
 		systemTaskQueue = new LinkedBlockingDeque<>();
 		userTaskQueue = new LinkedBlockingDeque<>();
+		userTaskTokens = new ConcurrentHashMap<>();
     }
 	
 
@@ -67,8 +77,42 @@ public enum NdexServerQueue {
 	}
 	
 	public void addUserTask (Task task)  {
+		if ( task.getExternalId() != null) {
+			String taskId = task.getExternalId().toString();
+			userTaskTokens.putIfAbsent(taskId, new CancellationToken(taskId));
+		}
 		userTaskQueue.add(task);
 	}
+
+	/**
+	 * @return the cancellation token of a queued or running user task, or null if the task is neither.
+	 */
+	public CancellationToken getUserTaskToken (String taskId) {
+		return userTaskTokens.get(taskId);
+	}
+
+	/**
+	 * Drop the cancellation token of a user task that has finished. 
+	 */
+	public void releaseUserTask (String taskId) {
+		userTaskTokens.remove(taskId);
+	}
+
+	/**
+	 * Remove a task that is still waiting in the user task queue.
+	 * @return the removed task, or null if no queued task has the given id.
+	 */
+	public Task removeUserTask (String taskId) {
+		for ( Task t : userTaskQueue) {
+			if ( t != endOfQueue && t.getExternalId() != null && t.getExternalId().toString().equals(taskId)) {
+				if ( userTaskQueue.remove(t)) {
+					userTaskTokens.remove(taskId);
+					return t;
+				}
+			}
+		}
+		return null;
+	}
 	
 	public BlockingQueue<Task> getSystemTaskQueue () {
 		return systemTaskQueue;
@@ -81,6 +125,6 @@ public enum NdexServerQueue {
 	public void shutdown () {
 		systemTaskQueue.add(endOfQueue);
 		userTaskQueue.add(endOfQueue);
-		
+		TaskMetrics.INSTANCE.stopReporting();
 	}
  }
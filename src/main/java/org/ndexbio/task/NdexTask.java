@@ -45,10 +45,16 @@ public abstract class NdexTask implements Callable<Task> {
 	private  Task task;
 	private String taskOwnerAccount;
 	
+	// workload counters, collected by the task processors for the task metrics. 
+	private long bytesProcessed;
+	private long elementsProcessed;
+	
 	public NdexTask(Task itask) throws NdexException {
 		this.taskService = new NdexTaskService();
 		this.task = itask;
 		this.taskOwnerAccount = taskService.getTaskOwnerAccount(itask);
+		this.bytesProcessed = 0;
+		this.elementsProcessed = 0;
 	}
 
 	protected Task getTask() { return this.task;}
@@ -81,4 +87,18 @@ public abstract class NdexTask implements Callable<Task> {
 	
 	protected String getTaskOwnerAccount() {return this.taskOwnerAccount;}
 
+	/**
+	 * @return number of bytes this task has read or written.
+	 */
+	public long getBytesProcessed() {return this.bytesProcessed;}
+	
+	protected void setBytesProcessed(long bytes) {this.bytesProcessed = bytes;}
+
+	/**
+	 * @return number of network elements this task has processed.
+	 */
+	public long getElementsProcessed() {return this.elementsProcessed;}
+	
+	protected void setElementsProcessed(long elements) {this.elementsProcessed = elements;}
+
 }
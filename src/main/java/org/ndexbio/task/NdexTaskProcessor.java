@@ -30,12 +30,29 @@
  */
 package org.ndexbio.task;
 
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.metrics.TaskMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public abstract class NdexTaskProcessor implements Runnable {
 
+	private static final Logger logger = LoggerFactory.getLogger(NdexTaskProcessor.class);
+
 	protected boolean shutdown;
 	
 	public NdexTaskProcessor () {
 		shutdown = false;
+		try {
+			TaskMetrics.INSTANCE.startReporting();
+		} catch (NdexException e) {
+			logger.error("Failed to start task metrics reporting: " + e.getMessage());
+		}
+		try {
+			TaskPurgeJob.INSTANCE.start();
+		} catch (NdexException e) {
+			logger.error("Failed to start task purge job: " + e.getMessage());
+		}
 	}
 	
 	public void shutdown() {
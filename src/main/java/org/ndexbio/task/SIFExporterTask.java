@@ -37,10 +37,11 @@ import java.util.UUID;
 
 import org.ndexbio.common.exporter.SIFNetworkExporter;
 import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
+import org.ndexbio.common.models.dao.orientdb.NetworkElementStream;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.Status;
 import org.ndexbio.model.object.Task;
-import org.ndexbio.model.object.network.Network;
+import org.ndexbio.model.object.network.NetworkSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,23 +78,22 @@ public class SIFExporterTask extends NdexTask {
 			this.startTask();
 			String exportFilename = this.resolveFilename(NETWORK_EXPORT_PATH, XGMML_FILE_EXTENSION);
 
-			Network network = null;
-			try (NetworkDocDAO dao = new NetworkDocDAO()) {
-				network = dao.getNetworkById(UUID.fromString(getTask().getResource()));
-			
-			}
-		
-			if ( network == null) throw new NdexException("Failed to get network from db.");
-		
-			try (FileOutputStream out = new FileOutputStream (exportFilename)) {
+			long elementCount = 0;
+			try (NetworkDocDAO dao = new NetworkDocDAO();
+				 FileOutputStream out = new FileOutputStream (exportFilename)) {
+				NetworkElementStream stream = new NetworkElementStream(dao, UUID.fromString(getTask().getResource()));
 
 				OutputStreamWriter writer = new OutputStreamWriter(out);
-				SIFNetworkExporter exporter = new SIFNetworkExporter (network);	
+				SIFNetworkExporter exporter = new SIFNetworkExporter (stream);	
 				exporter.exportNetwork( writer );
 				this.taskStatus = Status.COMPLETED;
 				this.updateTaskStatus(this.taskStatus);
 				writer.close();
+				NetworkSummary summary = stream.getNetworkSummary();
+				elementCount = summary.getNodeCount() + summary.getEdgeCount();
 			} 
+			setBytesProcessed(new File(exportFilename).length());
+			setElementsProcessed(elementCount);
 	}
 	
 	private String resolveFilename(String path, String extension) {
@@ -31,7 +31,6 @@
 package org.ndexbio.task;
 
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.List;
 import java.util.logging.Logger;
@@ -42,6 +41,9 @@ import org.ndexbio.common.models.dao.orientdb.NetworkDAO;
 import org.ndexbio.common.models.dao.orientdb.RequestDAO;
 import org.ndexbio.common.models.dao.orientdb.TaskDAO;
 import org.ndexbio.common.util.NdexUUIDFactory;
+import org.ndexbio.task.backup.BackupManifest;
+import org.ndexbio.task.backup.DatabaseBackupManager;
+import org.ndexbio.task.metrics.TaskMetrics;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.Request;
 import org.ndexbio.model.object.ResponseType;
@@ -49,9 +51,7 @@ import org.ndexbio.model.object.Status;
 import org.ndexbio.model.object.Task;
 import org.ndexbio.model.object.TaskType;
 
-import com.orientechnologies.orient.core.command.OCommandOutputListener;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
-import com.orientechnologies.orient.core.db.tool.ODatabaseExport;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 
@@ -79,9 +79,13 @@ public class SystemTaskProcessor extends NdexTaskProcessor {
 			}
 
 			TaskType type = task.getTaskType();
+			long startTime = System.currentTimeMillis();
 			if ( type == TaskType.SYSTEM_DELETE_NETWORK) {
+				int deletedCount = 0;
+				boolean succeeded = false;
 				try {
-				    cleanupDeletedNetwork(task);
+				    deletedCount = cleanupDeletedNetwork(task);
+				    succeeded = true;
 				} catch (NdexException e) {
 					logger.severe("Error when executing system task: " + e.getMessage());
 					e.printStackTrace();
@@ -89,14 +93,20 @@ public class SystemTaskProcessor extends NdexTaskProcessor {
 					logger.severe("Error when executing system task: " + e2.getMessage());
 					e2.printStackTrace();
 				}
+				TaskMetrics.INSTANCE.recordTask(task, startTime, System.currentTimeMillis(),
+						succeeded, 0, deletedCount);
 			} else if ( type == TaskType.SYSTEM_DATABASE_BACKUP ) {
+				long bytesWritten = 0;
+				boolean succeeded = false;
 				try {
-					backupDatabase(task);
+					bytesWritten = backupDatabase(task);
+					succeeded = task.getStatus() == Status.COMPLETED;
 				} catch (NdexException e) {
-					// TODO Auto-generated catch block
 					logger.severe("Error when export backup system task: " + e);
 					e.printStackTrace();
 				}
+				TaskMetrics.INSTANCE.recordTask(task, startTime, System.currentTimeMillis(),
+						succeeded, bytesWritten, 0);
 			} else {
 					logger.severe("Unsupported system task type " + type + ". Task ignored.");
 			}
@@ -104,7 +114,10 @@ public class SystemTaskProcessor extends NdexTaskProcessor {
 	}
 	
 	
-	private void cleanupDeletedNetwork (Task task) throws NdexException  {
+	/**
+	 * @return number of vertices deleted.
+	 */
+	private int cleanupDeletedNetwork (Task task) throws NdexException  {
 		logger.info( "Cleanup deleted network " + task.getResource());
 
 		task.setStartTime(new Timestamp(Calendar.getInstance().getTimeInMillis()));
@@ -126,55 +139,48 @@ public class SystemTaskProcessor extends NdexTaskProcessor {
 				taskdao.commit();
 			}
 			if ( cnt < 0 ) {
+				// it goes back in the queue as a new task, so its wait time is measured from now.
 				task.setExternalId(NdexUUIDFactory.INSTANCE.createNewNDExUUID());
+				task.setCreationTime(new Timestamp(Calendar.getInstance().getTimeInMillis()));
+				task.setStatus(Status.QUEUED);
+				task.setStartTime(null);
+				task.setFinishTime(null);
 				NdexServerQueue.INSTANCE.addSystemTask(task); // add the task back to the queue.
 			}
+			return Math.abs(cnt);
 		}	
 	}
 	
-	private void backupDatabase (Task task) throws NdexException {
+	/**
+	 * @return number of bytes written to the backup.
+	 */
+	private long backupDatabase (Task task) throws NdexException {
 
 		task.setStartTime(new Timestamp(Calendar.getInstance().getTimeInMillis()));
-   		 String ndexRoot = Configuration.getInstance().getNdexRoot();
-   		 SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
-   		 String strDate = sdf.format(Calendar.getInstance().getTime());
+		task.setStatus(Status.PROCESSING);
+		long bytesWritten = 0;
 
-   		 try (ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()){
-		
-       		 String exportFile = ndexRoot + "/dbbackups/db_"+ strDate + ".export";
-
-       		 logger.info("Backing up database to " + exportFile);
-       		 
-       		 try{
-       			  OCommandOutputListener listener = new OCommandOutputListener() {
-       			    @Override
-       			    public void onMessage(String iText) {
-       			      logger.info(iText);
-       			    }
-       			  };
-
-       			  ODatabaseExport export = new ODatabaseExport(db, exportFile, listener);
-       			  export.setIncludeIndexDefinitions(false);
-       			  export.exportDatabase();
-       			  export.close();
-       			  task.setFinishTime(new Timestamp(Calendar.getInstance().getTimeInMillis()));
-       			  task.setStatus(Status.COMPLETED);
-       			  task.setMessage("Db exported to " + exportFile);
-           		 logger.info("Database back up fininished succefully.");
-       			} catch (Exception e) {
-       				task.setMessage(e.getMessage());
-       				task.setStatus(Status.FAILED);
-					logger.severe("IO exception when backing up database. " + e.getMessage());
-					e.printStackTrace();
-				} 
-
- 			try (TaskDAO taskdao = new TaskDAO (NdexDatabase.getInstance().getAConnection())) {
- 				taskdao.createTask(null, task);
- 				taskdao.commit();
- 				taskdao.close();
- 			}
+		try {
+			DatabaseBackupManager backupManager = new DatabaseBackupManager();
+			BackupManifest.Entry backup = backupManager.backup(
+					DatabaseBackupManager.parseBackupType(task.getAttribute(DatabaseBackupManager.backupTypeAttr)));
+			task.setFinishTime(new Timestamp(Calendar.getInstance().getTimeInMillis()));
+			task.setStatus(Status.COMPLETED);
+			task.setMessage(backup.getType() + " backup: " + backup.getMessage());
+			bytesWritten = backup.getBytesWritten();
+			logger.info("Database back up fininished succefully.");
+		} catch (NdexException e) {
+			task.setMessage(e.getMessage());
+			task.setStatus(Status.FAILED);
+			logger.severe("Error when backing up database. " + e.getMessage());
+			e.printStackTrace();
+		}
 
-       	 } 	
+		try (TaskDAO taskdao = new TaskDAO (NdexDatabase.getInstance().getAConnection())) {
+			taskdao.createTask(null, task);
+			taskdao.commit();
+		}
+		return bytesWritten;
 	}
 	
 	
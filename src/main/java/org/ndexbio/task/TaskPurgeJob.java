@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.models.dao.orientdb.TaskDAO;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background job that removes old task records from the db in batches.
+ * 
+ * Configuration properties:
+ *   Task-Purge-Interval-Hours        how often the job runs. 0 turns it off. Default 24.
+ *   Task-Purge-Batch-Size            number of tasks removed per transaction. Default 1000.
+ *   Task-Retention-Days.&lt;Status&gt;   days to keep tasks with the given status, e.g. Task-Retention-Days.COMPLETED=30.
+ *                                    Tasks of a status without this property are kept.
+ *   Task-Retention-Days.Deleted      days to keep tasks that have been deleted by their owner, whatever their status.
+ * 
+ * Tasks with status QUEUED_FOR_DELETION are always removed. Tasks that are QUEUED, STAGED or PROCESSING
+ * are never removed.
+ */
+public enum TaskPurgeJob {
+
+	INSTANCE;
+
+	public static final String intervalProp = "Task-Purge-Interval-Hours";
+	public static final String batchSizeProp = "Task-Purge-Batch-Size";
+	public static final String retentionProp = "Task-Retention-Days.";
+	public static final String deletedRetentionKey = "Deleted";
+
+	private static final long defaultInterval = 24;
+	private static final int defaultBatchSize = 1000;
+
+	private static final Logger logger = LoggerFactory.getLogger(TaskPurgeJob.class);
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Schedule the job with the configured interval. Does nothing if the job is already scheduled or turned off.
+	 */
+	public synchronized void start() throws NdexException {
+		if ( scheduler != null)
+			return;
+
+		long interval = getLongProperty(intervalProp, defaultInterval);
+		if ( interval <= 0)
+			return;
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "task-purge");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		scheduler.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					purge();
+				} catch (Exception e) {
+					logger.error("Task purge failed: " + e.getMessage(), e);
+				}
+			}
+		}, interval, interval, TimeUnit.HOURS);
+		logger.info("Task purge job scheduled. Interval: " + interval + " hours.");
+	}
+
+	public synchronized void stop() {
+		if ( scheduler == null)
+			return;
+		scheduler.shutdownNow();
+		scheduler = null;
+	}
+
+	/**
+	 * Apply the retention policies once.
+	 * @return number of tasks removed.
+	 */
+	public int purge() throws NdexException {
+		int batchSize = (int)getLongProperty(batchSizeProp, defaultBatchSize);
+		long deletedDays = getLongProperty(retentionProp + deletedRetentionKey, -1);
+		Map<Status, Long> retentionDays = new EnumMap<>(Status.class);
+		for ( Status status : Status.values()) {
+			long days = getLongProperty(retentionProp + status.toString(), -1);
+			if ( days >= 0)
+				retentionDays.put(status, days);
+		}
+
+		long now = System.currentTimeMillis();
+		int count;
+		try (TaskDAO dao = new TaskDAO(NdexDatabase.getInstance().getAConnection())) {
+			count = purge(dao, batchSize, retentionDays, deletedDays, now);
+		}
+		logger.info(count + " tasks purged in " + (System.currentTimeMillis() - now) + " ms.");
+		return count;
+	}
+
+	/**
+	 * @param retentionDays days to keep the tasks of a status. Statuses not in the map are kept.
+	 * @param deletedDays days to keep deleted tasks, -1 to keep them.
+	 */
+	static int purge(TaskDAO dao, int batchSize, Map<Status, Long> retentionDays, long deletedDays, long now) {
+		int count = dao.purgeTasks(Status.QUEUED_FOR_DELETION, false, null, batchSize);
+		count += dao.purgeTasks(Status.QUEUED_FOR_DELETION, true, null, batchSize);
+
+		for ( Status status : Status.values()) {
+			// queued, staged and running tasks are still owned by the task processors, whatever the retention is.
+			if ( status == Status.QUEUED_FOR_DELETION || status == Status.QUEUED || status == Status.STAGED
+					|| status == Status.PROCESSING)
+				continue;
+			if ( deletedDays >= 0)
+				count += dao.purgeTasks(status, true, cutoff(now, deletedDays), batchSize);
+			Long days = retentionDays.get(status);
+			if ( days != null)
+				count += dao.purgeTasks(status, false, cutoff(now, days.longValue()), batchSize);
+		}
+		return count;
+	}
+
+	private static Date cutoff(long now, long days) {
+		return new Date(now - TimeUnit.DAYS.toMillis(days));
+	}
+
+	private static long getLongProperty(String name, long defaultValue) throws NdexException {
+		String v = Configuration.getInstance().getProperty(name);
+		if ( v == null)
+			return defaultValue;
+		try {
+			return Long.parseLong(v.trim());
+		} catch (NumberFormatException e) {
+			throw new NdexException ("Invalid value '" + v + "' for configuration property " + name);
+		}
+	}
+}
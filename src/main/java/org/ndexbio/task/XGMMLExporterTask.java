@@ -108,6 +108,7 @@ public class XGMMLExporterTask extends NdexTask {
 			if ( db !=null ) db.close();
 		    out.close();
 		}
+		setBytesProcessed(new File(exportFilename).length());
 	}
 	
 	/*
@@ -111,6 +111,7 @@ public class XbelExporterTask extends NdexTask {
 		} finally { 
 			if ( db !=null ) db.close();
 		}
+		setBytesProcessed(new File(exportFilename).length());
 	}
 	
 	/*
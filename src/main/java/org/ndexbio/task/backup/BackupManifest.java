@@ -0,0 +1,183 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.backup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * The list of backups that have been taken in a backup directory. It is stored as a json file
+ * next to the backup files and is used to find the starting point of the next incremental backup.
+ *
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BackupManifest {
+
+	public enum BackupType { FULL, INCREMENTAL }
+
+	private List<Entry> backups;
+
+	public BackupManifest() {
+		backups = new ArrayList<>();
+	}
+
+	public List<Entry> getBackups() { return backups; }
+	public void setBackups(List<Entry> backups) { this.backups = backups; }
+
+	public void addBackup(Entry entry) {
+		backups.add(entry);
+	}
+
+	/**
+	 * @return the most recent successful backup, or null if there is none.
+	 */
+	public Entry getLastSuccessfulBackup() {
+		for ( int i = backups.size() - 1 ; i >= 0; i--) {
+			if ( backups.get(i).isSuccessful())
+				return backups.get(i);
+		}
+		return null;
+	}
+
+	/**
+	 * Remove the entries older than the most recent successful full backup. A restore starts from the last full
+	 * backup, so the older entries are no longer needed and the manifest doesn't grow without bound.
+	 * @return the number of entries removed.
+	 */
+	public int pruneBeforeLastFullBackup() {
+		Entry lastFull = getLastFullBackup();
+		if ( lastFull == null)
+			return 0;
+		int i = backups.indexOf(lastFull);
+		backups.subList(0, i).clear();
+		return i;
+	}
+
+	/**
+	 * @return the most recent successful full backup, or null if there is none.
+	 */
+	public Entry getLastFullBackup() {
+		for ( int i = backups.size() - 1 ; i >= 0; i--) {
+			Entry e = backups.get(i);
+			if ( e.isSuccessful() && e.getType() == BackupType.FULL)
+				return e;
+		}
+		return null;
+	}
+
+	public static BackupManifest load(File manifestFile) throws IOException {
+		if ( !manifestFile.exists())
+			return new BackupManifest();
+		ObjectMapper mapper = new ObjectMapper();
+		return mapper.readValue(manifestFile, BackupManifest.class);
+	}
+
+	/**
+	 * Write the manifest to a temporary file first and then rename it, so that an interrupted backup
+	 * won't leave a broken manifest behind.
+	 */
+	public void save(File manifestFile) throws IOException {
+		ObjectMapper mapper = new ObjectMapper();
+		mapper.enable(SerializationFeature.INDENT_OUTPUT);
+		File tmpFile = new File(manifestFile.getPath() + ".tmp");
+		mapper.writeValue(tmpFile, this);
+		if ( manifestFile.exists() && !manifestFile.delete())
+			throw new IOException("Failed to replace backup manifest " + manifestFile.getPath());
+		if ( !tmpFile.renameTo(manifestFile))
+			throw new IOException("Failed to rename " + tmpFile.getPath() + " to " + manifestFile.getPath());
+	}
+
+	@JsonIgnoreProperties(ignoreUnknown = true)
+	public static class Entry {
+		private BackupType type;
+		private String location;
+		private Date startTime;
+		private Date finishTime;
+		// modification time cutoff of an incremental backup.
+		private Date since;
+		private long bytesWritten;
+		private int networkCount;
+		private int recordCount;
+		private List<String> deletedNetworks;
+		// file with the ids of all the networks in the database at the time of the backup.
+		private String networkListLocation;
+		private boolean successful;
+		private String message;
+
+		public Entry() {
+			deletedNetworks = new ArrayList<>();
+			successful = false;
+		}
+
+		public BackupType getType() { return type; }
+		public void setType(BackupType type) { this.type = type; }
+
+		public String getLocation() { return location; }
+		public void setLocation(String location) { this.location = location; }
+
+		public Date getStartTime() { return startTime; }
+		public void setStartTime(Date startTime) { this.startTime = startTime; }
+
+		public Date getFinishTime() { return finishTime; }
+		public void setFinishTime(Date finishTime) { this.finishTime = finishTime; }
+
+		public Date getSince() { return since; }
+		public void setSince(Date since) { this.since = since; }
+
+		public long getBytesWritten() { return bytesWritten; }
+		public void setBytesWritten(long bytesWritten) { this.bytesWritten = bytesWritten; }
+
+		public int getNetworkCount() { return networkCount; }
+		public void setNetworkCount(int networkCount) { this.networkCount = networkCount; }
+
+		public int getRecordCount() { return recordCount; }
+		public void setRecordCount(int recordCount) { this.recordCount = recordCount; }
+
+		public List<String> getDeletedNetworks() { return deletedNetworks; }
+		public void setDeletedNetworks(List<String> deletedNetworks) { this.deletedNetworks = deletedNetworks; }
+
+		public String getNetworkListLocation() { return networkListLocation; }
+		public void setNetworkListLocation(String networkListLocation) { this.networkListLocation = networkListLocation; }
+
+		public boolean isSuccessful() { return successful; }
+		public void setSuccessful(boolean successful) { this.successful = successful; }
+
+		public String getMessage() { return message; }
+		public void setMessage(String message) { this.message = message; }
+	}
+}
@@ -0,0 +1,434 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.models.dao.orientdb.CXNetworkExporter;
+import org.ndexbio.common.models.dao.orientdb.Helper;
+import org.ndexbio.common.util.ThrottledOutputStream;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.Configuration;
+import org.ndexbio.task.backup.BackupManifest.BackupType;
+
+import com.google.common.io.CountingOutputStream;
+import com.orientechnologies.orient.core.command.OCommandOutputListener;
+import com.orientechnologies.orient.core.command.OCommandResultListener;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.tool.ODatabaseExport;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLAsynchQuery;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+/**
+ * Creates compressed database backups under NdexRoot/dbbackups.
+ *
+ * A full backup streams an ODatabaseExport through gzip. An incremental backup only writes the
+ * networks that were modified since the last successful backup (one gzipped CX file per network) and
+ * the user, group, request and task records modified in the same period. All output goes through a
+ * throttled stream, and every backup is recorded in the manifest file of the backup directory.
+ *
+ * Permission and group membership changes don't update the modification time of any record, so every
+ * incremental backup also writes a snapshot of all the permission links (permissions.json.gz). Every backup
+ * writes the list of the networks in the database, and networks that disappeared from it since the previous
+ * backup are recorded as deleted in the manifest, so hard deleted networks are caught as well.
+ * To restore, load the last full backup and apply the incremental backups taken after it in order. Manifest 
+ * entries older than the last full backup are dropped.
+ *
+ * Configuration properties:
+ *   Backup-Full-Interval-Days  days between full backups, incremental backups are taken in between. Default is 7.
+ *   Backup-Max-MB-Per-Second   max write rate of the backup files. 0 means unlimited. Default is 20.
+ *
+ */
+public class DatabaseBackupManager {
+
+	public static final String backupDirName  = "dbbackups";
+	public static final String manifestFileName = "backup-manifest.json";
+
+	// task attribute that can be used to force the type of a backup.
+	public static final String backupTypeAttr = "backupType";
+
+	public static final String fullBackupIntervalProp = "Backup-Full-Interval-Days";
+	public static final String maxMBPerSecondProp = "Backup-Max-MB-Per-Second";
+
+	private static final int defaultFullBackupInterval = 7;
+	private static final int defaultMaxMBPerSecond = 20;
+	private static final int gzipBufferSize = 64 * 1024;
+
+	private static final String[] incrementalRecordClasses =
+		{ NdexClasses.User, NdexClasses.Group, NdexClasses.Request, NdexClasses.Task};
+
+	private static final String[] permissionEdgeTypes = 
+		{ NdexClasses.E_admin, NdexClasses.account_E_canEdit, NdexClasses.account_E_canRead, 
+		  NdexClasses.GRP_E_admin, NdexClasses.GRP_E_member};
+
+	private static final Logger logger = Logger.getLogger(DatabaseBackupManager.class.getName());
+
+	private File backupDir;
+	private File manifestFile;
+	private int fullBackupInterval;
+	private long maxBytesPerSecond;
+
+	public DatabaseBackupManager() throws NdexException {
+		Configuration config = Configuration.getInstance();
+		backupDir = new File(config.getNdexRoot(), backupDirName);
+		manifestFile = new File(backupDir, manifestFileName);
+		fullBackupInterval = getIntProperty(config, fullBackupIntervalProp, defaultFullBackupInterval);
+		maxBytesPerSecond = getIntProperty(config, maxMBPerSecondProp, defaultMaxMBPerSecond) * 1024L * 1024L;
+	}
+
+	/**
+	 * Run a backup and record it in the manifest.
+	 * @param requestedType the type of backup to take. If it is null, a full backup is taken when there is
+	 *        no full backup in the last Backup-Full-Interval-Days days, otherwise an incremental one.
+	 * @return the manifest entry of this backup.
+	 * @throws NdexException
+	 */
+	public synchronized BackupManifest.Entry backup(BackupType requestedType) throws NdexException {
+		if (!backupDir.exists() && !backupDir.mkdirs())
+			throw new NdexException ("Failed to create backup directory " + backupDir.getPath());
+
+		BackupManifest manifest;
+		try {
+			manifest = BackupManifest.load(manifestFile);
+		} catch (IOException e) {
+			throw new NdexException ("Failed to read backup manifest " + manifestFile.getPath() + ": " + e.getMessage());
+		}
+
+		BackupManifest.Entry lastBackup = manifest.getLastSuccessfulBackup();
+		BackupType type = requestedType != null ? requestedType : chooseBackupType(manifest);
+		if ( type == BackupType.INCREMENTAL && lastBackup == null) {
+			logger.info("No previous backup found. Taking a full backup instead.");
+			type = BackupType.FULL;
+		}
+
+		BackupManifest.Entry entry = new BackupManifest.Entry();
+		entry.setType(type);
+		entry.setStartTime(new Date());
+		String stamp = new SimpleDateFormat("yyyy-MM-dd_HHmmss").format(entry.getStartTime());
+
+		try {
+			if ( type == BackupType.FULL) {
+				fullBackup(entry, "db_" + stamp + ".export.gz");
+				writeNetworkList(entry, "db_" + stamp + ".networks.txt.gz", lastBackup);
+			} else {
+				entry.setSince(lastBackup.getStartTime());
+				incrementalBackup(entry, "incr_" + stamp);
+				writeNetworkList(entry, "incr_" + stamp + File.separator + "networks.txt.gz", lastBackup);
+			}
+			entry.setSuccessful(true);
+		} catch (IOException | NdexException e) {
+			logger.severe("Database backup failed: " + e.getMessage());
+			e.printStackTrace();
+			entry.setMessage(e.getMessage());
+		} finally {
+			entry.setFinishTime(new Date());
+			manifest.addBackup(entry);
+			int pruned = manifest.pruneBeforeLastFullBackup();
+			if ( pruned > 0)
+				logger.info(pruned + " backup entries older than the last full backup removed from the manifest.");
+			try {
+				manifest.save(manifestFile);
+			} catch (IOException e) {
+				logger.severe("Failed to write backup manifest: " + e.getMessage());
+				e.printStackTrace();
+			}
+		}
+
+		if ( !entry.isSuccessful())
+			throw new NdexException("Database backup failed. " + entry.getMessage());
+
+		return entry;
+	}
+
+	private BackupType chooseBackupType(BackupManifest manifest) {
+		BackupManifest.Entry lastFull = manifest.getLastFullBackup();
+		if ( lastFull == null)
+			return BackupType.FULL;
+
+		Calendar cutoff = Calendar.getInstance();
+		cutoff.add(Calendar.DAY_OF_MONTH, -fullBackupInterval);
+		return lastFull.getStartTime().before(cutoff.getTime()) ? BackupType.FULL : BackupType.INCREMENTAL;
+	}
+
+	private void fullBackup(BackupManifest.Entry entry, String fileName) throws IOException, NdexException {
+		File exportFile = new File (backupDir, fileName);
+		entry.setLocation(fileName);
+		logger.info("Backing up database to " + exportFile.getPath());
+
+		CountingOutputStream counter = openCountingStream(exportFile);
+		try (ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()) {
+			OCommandOutputListener listener = new OCommandOutputListener() {
+				@Override
+				public void onMessage(String iText) {
+					logger.info(iText);
+				}
+			};
+
+			// the exporter closes the stream when it is closed.
+			ODatabaseExport export = new ODatabaseExport(db,
+					new GZIPOutputStream(counter, gzipBufferSize), listener);
+			export.setIncludeIndexDefinitions(false);
+			export.exportDatabase();
+			export.close();
+		} finally {
+			counter.close();
+			entry.setBytesWritten(counter.getCount());
+		}
+		entry.setMessage("Db exported to " + exportFile.getPath());
+		logger.info("Full database backup finished. " + counter.getCount() + " bytes written.");
+	}
+
+	private void incrementalBackup(final BackupManifest.Entry entry, String dirName) throws IOException, NdexException {
+		File incrDir = new File(backupDir, dirName);
+		if ( !incrDir.mkdirs())
+			throw new NdexException ("Failed to create backup directory " + incrDir.getPath());
+		entry.setLocation(dirName);
+		logger.info("Backing up records modified since " + entry.getSince() + " to " + incrDir.getPath());
+
+		List<String> changedNetworks = new ArrayList<>();
+		try (ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()) {
+			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(
+					"select " + NdexClasses.ExternalObj_ID + ", " + NdexClasses.ExternalObj_isDeleted +
+					" from " + NdexClasses.Network + " where " + NdexClasses.ExternalObj_mTime + " > ? and " +
+					NdexClasses.Network_P_isComplete + " = true");
+			List<ODocument> records = db.command(query).execute(entry.getSince());
+			for ( ODocument doc : records) {
+				String uuid = doc.field(NdexClasses.ExternalObj_ID);
+				Boolean isDeleted = doc.field(NdexClasses.ExternalObj_isDeleted);
+				if ( isDeleted != null && isDeleted.booleanValue())
+					entry.getDeletedNetworks().add(uuid);
+				else
+					changedNetworks.add(uuid);
+			}
+		}
+
+		long bytesWritten = 0;
+		int networkCount = 0;
+		for ( String uuid : changedNetworks) {
+			CountingOutputStream out = openCountingStream(new File(incrDir, uuid + ".cx.gz"));
+			try (GZIPOutputStream gzOut = new GZIPOutputStream(out, gzipBufferSize);
+				 CXNetworkExporter exporter = new CXNetworkExporter(uuid)) {
+				exporter.writeNetworkInCX(gzOut, false);
+			} catch (IOException | NdexException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new NdexException("Failed to back up network " + uuid + ": " + e.getMessage());
+			} finally {
+				out.close();
+				bytesWritten += out.getCount();
+			}
+			networkCount++;
+			if ( networkCount % 50 == 0)
+				logger.info(networkCount + " of " + changedNetworks.size() + " networks backed up.");
+		}
+		entry.setNetworkCount(networkCount);
+
+		CountingOutputStream out = openCountingStream(new File(incrDir, "records.json.gz"));
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(out, gzipBufferSize), StandardCharsets.UTF_8);
+			 ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()) {
+			int recordCount = 0;
+			for ( String className : incrementalRecordClasses) {
+				recordCount += writeModifiedRecords(db, className, entry.getSince(), writer);
+			}
+			entry.setRecordCount(recordCount);
+		} finally {
+			out.close();
+			bytesWritten += out.getCount();
+		}
+
+		out = openCountingStream(new File(incrDir, "permissions.json.gz"));
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(out, gzipBufferSize), StandardCharsets.UTF_8);
+			 ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()) {
+			writePermissions(db, writer);
+		} finally {
+			out.close();
+			bytesWritten += out.getCount();
+		}
+
+		entry.setBytesWritten(bytesWritten);
+		entry.setMessage(networkCount + " networks and " + entry.getRecordCount() + " records backed up to " + incrDir.getPath());
+		logger.info("Incremental database backup finished. " + entry.getMessage());
+	}
+
+	/**
+	 * Stream the records of the given class that were modified after the given time to the writer,
+	 * one json document per line.
+	 * @return number of records written.
+	 */
+	private static int writeModifiedRecords(ODatabaseDocumentTx db, String className, Date since,
+			final Writer writer) throws IOException {
+		final int[] counter = {0};
+		final IOException[] error = {null};
+
+		OSQLAsynchQuery<ODocument> query = new OSQLAsynchQuery<>(
+				"select from " + className + " where " + NdexClasses.ExternalObj_mTime + " > ?",
+				new OCommandResultListener() {
+					@Override
+					public boolean result(Object iRecord) {
+						try {
+							writer.write(((ODocument)iRecord).toJSON());
+							writer.write('\n');
+							counter[0]++;
+							return true;
+						} catch (IOException e) {
+							error[0] = e;
+							return false;
+						}
+					}
+
+					@Override
+					public void end() {
+						// nothing to clean up.
+					}
+				});
+		db.command(query).execute(since);
+
+		if ( error[0] != null)
+			throw error[0];
+		return counter[0];
+	}
+
+	/**
+	 * Write all the permission and group membership links, one json document per line. Links are lightweight
+	 * edges without a modification time, so they are written in full every time.
+	 */
+	private static void writePermissions(ODatabaseDocumentTx db, Writer writer) throws IOException {
+		for ( String className : new String[] {NdexClasses.User, NdexClasses.Group}) {
+			for ( ODocument account : db.browseClass(className)) {
+				String accountId = account.field(NdexClasses.ExternalObj_ID);
+				for ( String edgeType : permissionEdgeTypes) {
+					for ( ODocument resource : Helper.getDocumentLinks(account, "out_", edgeType)) {
+						writer.write("{\"account\":\"" + accountId + "\",\"accountType\":\"" + className + 
+								"\",\"permission\":\"" + edgeType + "\",\"resource\":\"" + 
+								resource.field(NdexClasses.ExternalObj_ID) + "\"}\n");
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write the ids of all the networks in the database to a file next to the backup. Networks in the list of the 
+	 * previous backup that are gone now were hard deleted and are added to the deleted networks of the entry.
+	 */
+	private void writeNetworkList(BackupManifest.Entry entry, String fileName, BackupManifest.Entry previous) 
+			throws IOException, NdexException {
+		Set<String> networks = new HashSet<>();
+		CountingOutputStream out = openCountingStream(new File(backupDir, fileName));
+		try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(out, gzipBufferSize), StandardCharsets.UTF_8);
+			 ODatabaseDocumentTx db = NdexDatabase.getInstance().getAConnection()) {
+			OSQLSynchQuery<ODocument> query = new OSQLSynchQuery<>(
+					"select " + NdexClasses.ExternalObj_ID + " from " + NdexClasses.Network + " where " + 
+					NdexClasses.ExternalObj_isDeleted + " = false or " + NdexClasses.ExternalObj_isDeleted + " is null");
+			List<ODocument> records = db.command(query).execute();
+			for ( ODocument doc : records) {
+				String uuid = doc.field(NdexClasses.ExternalObj_ID);
+				networks.add(uuid);
+				writer.write(uuid);
+				writer.write('\n');
+			}
+		} finally {
+			out.close();
+			entry.setBytesWritten(entry.getBytesWritten() + out.getCount());
+		}
+		entry.setNetworkListLocation(fileName);
+
+		if ( previous == null || previous.getNetworkListLocation() == null)
+			return;
+		File previousList = new File(backupDir, previous.getNetworkListLocation());
+		if ( !previousList.exists()) {
+			logger.warning("Network list " + previousList.getPath() + " of the previous backup is missing. " + 
+					"Hard deleted networks can't be detected in this backup.");
+			return;
+		}
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new GZIPInputStream(new FileInputStream(previousList)), StandardCharsets.UTF_8))) {
+			String uuid;
+			while ( (uuid = reader.readLine()) != null) {
+				if ( !networks.contains(uuid) && !entry.getDeletedNetworks().contains(uuid))
+					entry.getDeletedNetworks().add(uuid);
+			}
+		}
+	}
+
+	private CountingOutputStream openCountingStream(File file) throws IOException {
+		return new CountingOutputStream(
+				new ThrottledOutputStream(
+						new BufferedOutputStream(new FileOutputStream(file), gzipBufferSize), maxBytesPerSecond));
+	}
+
+	private static int getIntProperty(Configuration config, String propName, int defaultValue) throws NdexException {
+		String value = config.getProperty(propName);
+		if ( value == null)
+			return defaultValue;
+		try {
+			return Integer.parseInt(value.trim());
+		} catch ( NumberFormatException e) {
+			throw new NdexException ("Invalid value '" + value + "' for configuration property " + propName);
+		}
+	}
+
+	/**
+	 * Parse the backup type from a task attribute value.
+	 * @return null if the value is null, which means the type will be chosen by the manager.
+	 */
+	public static BackupType parseBackupType(Object value) throws NdexException {
+		if ( value == null)
+			return null;
+		try {
+			return BackupType.valueOf(value.toString().trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new NdexException ("Unsupported backup type " + value + ". Valid types are FULL and INCREMENTAL.");
+		}
+	}
+}
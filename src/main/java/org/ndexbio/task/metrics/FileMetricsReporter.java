@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Overwrites a json file with the current metrics on every report, so that external tools can pick up
+ * the latest numbers.
+ *
+ */
+public class FileMetricsReporter implements TaskMetricsReporter {
+
+	private final File metricsFile;
+	private final ObjectMapper mapper;
+
+	public FileMetricsReporter(File metricsFile) {
+		this.metricsFile = metricsFile;
+		this.mapper = new ObjectMapper();
+		this.mapper.enable(SerializationFeature.INDENT_OUTPUT);
+	}
+
+	@Override
+	public void start(TaskMetrics metrics) throws IOException {
+		File dir = metricsFile.getAbsoluteFile().getParentFile();
+		if ( !dir.exists() && !dir.mkdirs())
+			throw new IOException("Failed to create directory " + dir.getPath());
+	}
+
+	@Override
+	public void report(TaskMetrics metrics) throws IOException {
+		Map<String,Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("time", new Date().getTime());
+		snapshot.put("userQueueDepth", metrics.getUserQueueDepth());
+		snapshot.put("systemQueueDepth", metrics.getSystemQueueDepth());
+		List<Map<String,Object>> taskTypes = new ArrayList<>();
+		for ( TaskTypeStats stats : metrics.getAllStats()) {
+			taskTypes.add(stats.toMap());
+		}
+		snapshot.put("taskTypes", taskTypes);
+
+		File tmpFile = new File(metricsFile.getPath() + ".tmp");
+		mapper.writeValue(tmpFile, snapshot);
+		if ( metricsFile.exists() && !metricsFile.delete())
+			throw new IOException("Failed to replace metrics file " + metricsFile.getPath());
+		if ( !tmpFile.renameTo(metricsFile))
+			throw new IOException("Failed to rename " + tmpFile.getPath() + " to " + metricsFile.getPath());
+	}
+
+	@Override
+	public void stop(TaskMetrics metrics) {
+		// nothing to clean up.
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registers the task queues and the statistics of every task type as MXBeans in the platform MBean
+ * server. JMX clients read the live values, so report() has nothing to do.
+ *
+ */
+public class JmxMetricsReporter implements TaskMetricsReporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(JmxMetricsReporter.class);
+
+	private static final String domain = "org.ndexbio.task";
+
+	private final List<ObjectName> registeredNames = new ArrayList<>();
+
+	@Override
+	public void start(TaskMetrics metrics) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		ObjectName queueName = new ObjectName(domain + ":type=TaskQueues");
+		register(server, metrics, queueName);
+
+		for ( TaskTypeStats stats : metrics.getAllStats()) {
+			register(server, stats, new ObjectName(domain + ":type=TaskMetrics,taskType=" + stats.getTaskType()));
+		}
+	}
+
+	private void register(MBeanServer server, Object bean, ObjectName name) throws JMException {
+		if ( server.isRegistered(name))
+			server.unregisterMBean(name);
+		server.registerMBean(bean, name);
+		registeredNames.add(name);
+	}
+
+	@Override
+	public void report(TaskMetrics metrics) {
+		// values are read by the JMX clients directly.
+	}
+
+	@Override
+	public void stop(TaskMetrics metrics) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for ( ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				logger.warn("Failed to unregister MBean " + name + ": " + e.getMessage());
+			}
+		}
+		registeredNames.clear();
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of millisecond durations. Values below 8 get their own bucket, larger values
+ * are put in log2 buckets that are each split into 8 linear sub buckets, so a percentile read from this
+ * histogram is within 12.5% of the recorded value.
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int subBucketBits = 3;
+	private static final int subBuckets = 1 << subBucketBits;
+	private static final int maxExponent = 48;
+	private static final int bucketCount = subBuckets + (maxExponent - subBucketBits + 1) * subBuckets;
+
+	private final AtomicLongArray buckets;
+	private final AtomicLong count;
+	private final AtomicLong sum;
+	private final AtomicLong max;
+
+	public LatencyHistogram() {
+		buckets = new AtomicLongArray(bucketCount);
+		count = new AtomicLong(0);
+		sum = new AtomicLong(0);
+		max = new AtomicLong(0);
+	}
+
+	public void record(long value) {
+		if ( value < 0)
+			value = 0;
+		buckets.incrementAndGet(bucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax = max.get();
+		while ( value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	public long getCount() { return count.get(); }
+
+	public long getMax() { return max.get(); }
+
+	public long getMean() {
+		long c = count.get();
+		return c == 0 ? 0 : sum.get() / c;
+	}
+
+	/**
+	 * @param percentile a number between 0 and 100.
+	 * @return the upper bound of the bucket that holds the given percentile. 0 if nothing has been recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long total = count.get();
+		if ( total == 0)
+			return 0;
+
+		long threshold = (long) Math.ceil(total * percentile / 100.0);
+		if ( threshold < 1)
+			threshold = 1;
+
+		long cumulative = 0;
+		for ( int i = 0 ; i < bucketCount; i++) {
+			cumulative += buckets.get(i);
+			if ( cumulative >= threshold)
+				return Math.min(bucketUpperBound(i), max.get());
+		}
+		return max.get();
+	}
+
+	static int bucketIndex(long value) {
+		if ( value < subBuckets)
+			return (int) value;
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if ( exponent > maxExponent)
+			return bucketCount - 1;
+		int subBucket = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+		return subBuckets + (exponent - subBucketBits) * subBuckets + subBucket;
+	}
+
+	static long bucketUpperBound(int index) {
+		if ( index < subBuckets)
+			return index;
+
+		int exponent = (index - subBuckets) / subBuckets + subBucketBits;
+		int subBucket = (index - subBuckets) % subBuckets;
+		long lowerBound = ((long)(subBuckets + subBucket)) << (exponent - subBucketBits);
+		return lowerBound + (1L << (exponent - subBucketBits)) - 1;
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.Task;
+import org.ndexbio.model.object.TaskType;
+import org.ndexbio.task.Configuration;
+import org.ndexbio.task.NdexServerQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects queue wait time, execution time and throughput of the tasks executed by the task
+ * processors, and periodically hands them to the configured reporters.
+ *
+ * Configuration properties:
+ *   Task-Metrics-Reporters        comma separated list of log, jmx and file. Default is log. "none" turns reporting off.
+ *   Task-Metrics-Report-Interval  seconds between reports. Default is 300.
+ *   Task-Metrics-File             output of the file reporter. Default is NdexRoot/metrics/task-metrics.json.
+ *
+ */
+public enum TaskMetrics implements TaskMetricsMXBean {
+
+	INSTANCE;
+
+	public static final String reportersProp = "Task-Metrics-Reporters";
+	public static final String reportIntervalProp = "Task-Metrics-Report-Interval";
+	public static final String metricsFileProp = "Task-Metrics-File";
+
+	private static final String defaultReporters = "log";
+	private static final long defaultReportInterval = 300;
+
+	private static final Logger logger = LoggerFactory.getLogger(TaskMetrics.class);
+
+	private final Map<TaskType, TaskTypeStats> statsTable;
+
+	private List<TaskMetricsReporter> reporters;
+	private ScheduledExecutorService scheduler;
+
+	private TaskMetrics() {
+		statsTable = new EnumMap<>(TaskType.class);
+		for ( TaskType type : TaskType.values()) {
+			statsTable.put(type, new TaskTypeStats(type.toString()));
+		}
+		reporters = new ArrayList<>();
+	}
+
+	public TaskTypeStats getStats(TaskType type) {
+		return statsTable.get(type);
+	}
+
+	public Collection<TaskTypeStats> getAllStats() {
+		return statsTable.values();
+	}
+
+	/**
+	 * Record the execution of a task.
+	 * @param task the task that was executed. Its creation time is taken as the time it was queued.
+	 * @param startTime time the task was taken from the queue, in milliseconds.
+	 * @param endTime time the task finished, in milliseconds.
+	 * @param succeeded
+	 * @param bytes number of bytes read or written by the task.
+	 * @param elements number of network elements processed by the task.
+	 */
+	public void recordTask(Task task, long startTime, long endTime, boolean succeeded, long bytes, long elements) {
+		TaskType type = task.getTaskType();
+		if ( type == null)
+			return;
+		long waitTime = task.getCreationTime() == null ? -1 : startTime - task.getCreationTime().getTime();
+		statsTable.get(type).record(waitTime, endTime - startTime, succeeded, bytes, elements);
+	}
+
+	@Override
+	public int getUserQueueDepth() {
+		return NdexServerQueue.INSTANCE.getUserTaskQueue().size();
+	}
+
+	@Override
+	public int getSystemQueueDepth() {
+		return NdexServerQueue.INSTANCE.getSystemTaskQueue().size();
+	}
+
+	/**
+	 * Start the reporters configured in the server configuration. Does nothing if reporting is already running.
+	 */
+	public synchronized void startReporting() throws NdexException {
+		if ( scheduler != null)
+			return;
+
+		Configuration config = Configuration.getInstance();
+		String reporterNames = config.getProperty(reportersProp);
+		if ( reporterNames == null)
+			reporterNames = defaultReporters;
+
+		long interval = defaultReportInterval;
+		String intervalStr = config.getProperty(reportIntervalProp);
+		if ( intervalStr != null) {
+			try {
+				interval = Long.parseLong(intervalStr.trim());
+			} catch (NumberFormatException e) {
+				throw new NdexException ("Invalid value '" + intervalStr + "' for configuration property " + reportIntervalProp);
+			}
+		}
+
+		List<TaskMetricsReporter> reporterList = new ArrayList<>();
+		for ( String name : reporterNames.split(",")) {
+			switch (name.trim().toLowerCase()) {
+			case "log":
+				reporterList.add(new LogMetricsReporter());
+				break;
+			case "jmx":
+				reporterList.add(new JmxMetricsReporter());
+				break;
+			case "file":
+				String fileName = config.getProperty(metricsFileProp);
+				if ( fileName == null)
+					fileName = config.getNdexRoot() + "/metrics/task-metrics.json";
+				reporterList.add(new FileMetricsReporter(new File(fileName)));
+				break;
+			case "none":
+			case "":
+				break;
+			default:
+				throw new NdexException ("Unsupported task metrics reporter " + name);
+			}
+		}
+
+		startReporting(reporterList, interval);
+	}
+
+	/**
+	 * Start the given reporters and call them every interval seconds.
+	 */
+	public synchronized void startReporting(List<TaskMetricsReporter> reporterList, long interval) {
+		if ( scheduler != null || reporterList.isEmpty())
+			return;
+
+		for ( TaskMetricsReporter reporter : reporterList) {
+			try {
+				reporter.start(this);
+				reporters.add(reporter);
+			} catch (Exception e) {
+				logger.error("Failed to start task metrics reporter " + reporter.getClass().getSimpleName() + ": " + e.getMessage());
+			}
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "task-metrics-reporter");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		scheduler.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				report();
+			}
+		}, interval, interval, TimeUnit.SECONDS);
+		logger.info("Task metrics reporting started. Interval: " + interval + " seconds.");
+	}
+
+	public synchronized void report() {
+		for ( TaskMetricsReporter reporter : reporters) {
+			try {
+				reporter.report(this);
+			} catch (Exception e) {
+				logger.error("Task metrics reporter " + reporter.getClass().getSimpleName() + " failed: " + e.getMessage());
+			}
+		}
+	}
+
+	public synchronized void stopReporting() {
+		if ( scheduler == null)
+			return;
+		scheduler.shutdownNow();
+		scheduler = null;
+		report();
+		for ( TaskMetricsReporter reporter : reporters) {
+			reporter.stop(this);
+		}
+		reporters.clear();
+	}
+}
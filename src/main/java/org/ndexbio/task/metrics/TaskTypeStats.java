@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timing and throughput statistics of the tasks of one task type.
+ *
+ */
+public class TaskTypeStats implements TaskTypeStatsMXBean {
+
+	private final String taskType;
+
+	private final LatencyHistogram waitTime;
+	private final LatencyHistogram executionTime;
+
+	private final AtomicLong completedCount;
+	private final AtomicLong failedCount;
+	private final AtomicLong bytesProcessed;
+	private final AtomicLong elementsProcessed;
+	private final AtomicLong totalExecutionTime;
+
+	public TaskTypeStats(String taskType) {
+		this.taskType = taskType;
+		waitTime = new LatencyHistogram();
+		executionTime = new LatencyHistogram();
+		completedCount = new AtomicLong(0);
+		failedCount = new AtomicLong(0);
+		bytesProcessed = new AtomicLong(0);
+		elementsProcessed = new AtomicLong(0);
+		totalExecutionTime = new AtomicLong(0);
+	}
+
+	/**
+	 * @param waitMillis time the task spent in the queue. A negative value means it is unknown.
+	 * @param executionMillis time spent on executing the task.
+	 * @param succeeded
+	 * @param bytes number of bytes read or written by the task.
+	 * @param elements number of network elements processed by the task.
+	 */
+	public void record(long waitMillis, long executionMillis, boolean succeeded, long bytes, long elements) {
+		if ( waitMillis >= 0)
+			waitTime.record(waitMillis);
+		executionTime.record(executionMillis);
+		totalExecutionTime.addAndGet(executionMillis);
+		if ( succeeded)
+			completedCount.incrementAndGet();
+		else
+			failedCount.incrementAndGet();
+		bytesProcessed.addAndGet(bytes);
+		elementsProcessed.addAndGet(elements);
+	}
+
+	public LatencyHistogram getWaitTime() { return waitTime; }
+	public LatencyHistogram getExecutionTime() { return executionTime; }
+
+	@Override
+	public String getTaskType() { return taskType; }
+
+	@Override
+	public long getCompletedCount() { return completedCount.get(); }
+	@Override
+	public long getFailedCount() { return failedCount.get(); }
+
+	@Override
+	public long getWaitTimeP50() { return waitTime.getPercentile(50); }
+	@Override
+	public long getWaitTimeP95() { return waitTime.getPercentile(95); }
+	@Override
+	public long getWaitTimeP99() { return waitTime.getPercentile(99); }
+	@Override
+	public long getWaitTimeMax() { return waitTime.getMax(); }
+
+	@Override
+	public long getExecutionTimeP50() { return executionTime.getPercentile(50); }
+	@Override
+	public long getExecutionTimeP95() { return executionTime.getPercentile(95); }
+	@Override
+	public long getExecutionTimeP99() { return executionTime.getPercentile(99); }
+	@Override
+	public long getExecutionTimeMax() { return executionTime.getMax(); }
+
+	@Override
+	public long getBytesProcessed() { return bytesProcessed.get(); }
+	@Override
+	public long getElementsProcessed() { return elementsProcessed.get(); }
+
+	@Override
+	public long getBytesPerSecond() {
+		long t = totalExecutionTime.get();
+		return t == 0 ? 0 : bytesProcessed.get() * 1000 / t;
+	}
+
+	@Override
+	public long getElementsPerSecond() {
+		long t = totalExecutionTime.get();
+		return t == 0 ? 0 : elementsProcessed.get() * 1000 / t;
+	}
+
+	public long getTaskCount() {
+		return completedCount.get() + failedCount.get();
+	}
+
+	public Map<String,Object> toMap() {
+		Map<String,Object> result = new LinkedHashMap<>();
+		result.put("taskType", taskType);
+		result.put("completed", getCompletedCount());
+		result.put("failed", getFailedCount());
+		result.put("waitP50", getWaitTimeP50());
+		result.put("waitP95", getWaitTimeP95());
+		result.put("waitP99", getWaitTimeP99());
+		result.put("waitMax", getWaitTimeMax());
+		result.put("execP50", getExecutionTimeP50());
+		result.put("execP95", getExecutionTimeP95());
+		result.put("execP99", getExecutionTimeP99());
+		result.put("execMax", getExecutionTimeMax());
+		result.put("bytes", getBytesProcessed());
+		result.put("elements", getElementsProcessed());
+		result.put("bytesPerSecond", getBytesPerSecond());
+		result.put("elementsPerSecond", getElementsPerSecond());
+		return result;
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+
+import org.cxio.aspects.datamodels.ATTRIBUTE_DATA_TYPE;
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NetworkAttributesElement;
+import org.cxio.aspects.datamodels.NodeAttributesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.cxio.core.interfaces.AspectElement;
+import org.cxio.metadata.MetaDataCollection;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.cx.CXNetworkConverter;
+import org.ndexbio.common.cx.aspect.CXMetaDataManager;
+import org.ndexbio.common.models.dao.orientdb.SingleNetworkDAO;
+import org.ndexbio.common.persistence.orientdb.ElementDedupMap;
+import org.ndexbio.common.util.TermStringType;
+import org.ndexbio.common.util.TermUtilities;
+import org.ndexbio.model.cx.CXSimpleAttribute;
+import org.ndexbio.model.cx.CitationElement;
+import org.ndexbio.model.cx.EdgeCitationLinksElement;
+import org.ndexbio.model.cx.NodeCitationLinksElement;
+import org.ndexbio.model.cx.SupportElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+
+/**
+ * Base class of the converters from the legacy upload formats to CX. It gives the converters the same kind 
+ * of element level operations they used to call on NdexPersistenceService (find or create a node by name or 
+ * base term, create an edge, find or create a citation ...), but instead of saving the elements it writes them
+ * as CX aspect elements to the sink, and keeps track of the id counters and element counts for the metadata.
+ * 
+ * Nodes and citations are deduplicated the same way the persistence service does it, through compact hash 
+ * tables of the elements written so far.
+ */
+public abstract class AbstractCXNetworkConverter implements CXNetworkConverter {
+
+	private final String networkName;
+
+	private ElementSink sink;
+	private long nodeIdCounter;
+	private long edgeIdCounter;
+	private long citationIdCounter;
+	private long supportIdCounter;
+
+	private ElementDedupMap nodeNameMap;
+	private ElementDedupMap nodeTermMap;
+	private ElementDedupMap citationMap;
+
+	// aspect name => number of elements written.
+	private Map<String, Long> elementCounts;
+	private MetaDataCollection metadata;
+
+	protected AbstractCXNetworkConverter(String networkName) {
+		this.networkName = networkName;
+	}
+
+	protected abstract NetworkSourceFormat getSourceFormat();
+
+	/**
+	 * Read the source and write the elements of the network through the methods of this class.
+	 */
+	protected abstract void writeNetwork() throws NdexException, IOException, ExecutionException;
+
+	@Override
+	public void convert(ElementSink elementSink) throws NdexException, IOException {
+		this.sink = elementSink;
+		this.nodeIdCounter = 0;
+		this.edgeIdCounter = 0;
+		this.citationIdCounter = 0;
+		this.supportIdCounter = 0;
+		this.nodeNameMap = new ElementDedupMap();
+		this.nodeTermMap = new ElementDedupMap();
+		this.citationMap = new ElementDedupMap();
+		this.elementCounts = new TreeMap<>();
+		this.elementCounts.put(NodesElement.ASPECT_NAME, 0L);
+		this.elementCounts.put(EdgesElement.ASPECT_NAME, 0L);
+		this.metadata = null;
+
+		if ( networkName != null)
+			writeNetworkAttribute(NdexClasses.Network_P_name, networkName);
+		writeNetworkAttribute(SingleNetworkDAO.CXsrcFormatAttrName, getSourceFormat().toString());
+
+		try {
+			writeNetwork();
+		} catch (ExecutionException e) {
+			throw new NdexException("Failed to convert network to CX: " + e.getMessage());
+		}
+
+		this.metadata = createMetaData();
+	}
+
+	@Override
+	public MetaDataCollection getMetaData() {
+		return metadata;
+	}
+
+	private MetaDataCollection createMetaData() throws NdexException {
+		MetaDataCollection md = CXMetaDataManager.getInstance().createCXMataDataTemplateForAspects(elementCounts.keySet());
+		for ( Map.Entry<String, Long> e : elementCounts.entrySet()) {
+			md.setElementCount(e.getKey(), e.getValue());
+		}
+		md.setIdCounter(NodesElement.ASPECT_NAME, nodeIdCounter);
+		md.setIdCounter(EdgesElement.ASPECT_NAME, edgeIdCounter);
+		if ( elementCounts.containsKey(CitationElement.ASPECT_NAME))
+			md.setIdCounter(CitationElement.ASPECT_NAME, citationIdCounter);
+		if ( elementCounts.containsKey(SupportElement.ASPECT_NAME))
+			md.setIdCounter(SupportElement.ASPECT_NAME, supportIdCounter);
+		return md;
+	}
+
+	protected void write(AspectElement element) throws NdexException, IOException {
+		Long cnt = elementCounts.get(element.getAspectName());
+		elementCounts.put(element.getAspectName(), cnt == null ? 1L : cnt + 1);
+		sink.write(element);
+	}
+
+	/**
+	 * Id of a new node, for converters that write their node elements themselves.
+	 */
+	protected Long nextNodeId() {
+		return ++nodeIdCounter;
+	}
+
+	protected Long nextCitationId() {
+		return ++citationIdCounter;
+	}
+
+	protected Long nextSupportId() {
+		return ++supportIdCounter;
+	}
+
+	/**
+	 * Find or create the node for a string that is either a plain name or a base term.
+	 */
+	protected Long addNode(String nameOrTerm) throws NdexException, IOException, ExecutionException {
+		return addNode(nameOrTerm, TermUtilities.getTermType(nameOrTerm));
+	}
+
+	protected Long addNode(String nameOrTerm, TermStringType stype) throws NdexException, IOException, ExecutionException {
+		if ( stype == TermStringType.NAME) 
+			return getNodeIdByName(nameOrTerm);
+		return getNodeIdByBaseTerm(nameOrTerm);
+	}
+
+	protected Long getNodeIdByName(String name) throws NdexException, IOException, ExecutionException {
+		if ( name == null )
+			throw new NdexException ("empty name found when creating node.");
+		Long nodeId = nodeNameMap.get(name);
+		if ( nodeId == null) {
+			nodeId = nextNodeId();
+			write(new NodesElement(nodeId, name, null));
+			nodeNameMap.put(name, nodeId);
+		}
+		return nodeId;
+	}
+
+	protected Long getNodeIdByBaseTerm(String termString) throws NdexException, IOException, ExecutionException {
+		return getNodeIdByBaseTerm(termString, null);
+	}
+
+	/**
+	 * @param nodeName name of the node if it has to be created.
+	 */
+	protected Long getNodeIdByBaseTerm(String termString, String nodeName) throws NdexException, IOException, ExecutionException {
+		Long nodeId = nodeTermMap.get(termString);
+		if ( nodeId == null) {
+			nodeId = nextNodeId();
+			write(new NodesElement(nodeId, nodeName, termString));
+			nodeTermMap.put(termString, nodeId);
+		}
+		return nodeId;
+	}
+
+	protected Long createEdge(Long subjectNodeId, Long objectNodeId, String predicate) throws NdexException, IOException {
+		Long edgeId = ++edgeIdCounter;
+		write(new EdgesElement(edgeId, subjectNodeId, objectNodeId, predicate));
+		return edgeId;
+	}
+
+	/**
+	 * Find or create a citation. Citations are the same if they have the same type and identifier, 
+	 * or the same title when they don't have an identifier.
+	 */
+	protected Long getCitationId(String title, String idType, String identifier, List<String> contributors, 
+			List<NdexPropertyValuePair> properties) throws NdexException, IOException, ExecutionException {
+		String key = (identifier == null || idType == null) ? 
+				ElementDedupMap.canonicalKey(title, idType, identifier) :
+				ElementDedupMap.canonicalKey(null, idType, identifier);
+		Long citationId = citationMap.get(key);
+		if ( citationId == null) {
+			citationId = nextCitationId();
+			CitationElement citation = new CitationElement();
+			citation.setId(citationId);
+			citation.setTitle(title);
+			citation.setCitationType(idType);
+			citation.setIdentifier(identifier);
+			if ( contributors != null && !contributors.isEmpty())
+				citation.setContributor(contributors);
+			if ( properties != null && !properties.isEmpty()) {
+				List<CXSimpleAttribute> attrs = new ArrayList<>(properties.size());
+				for ( NdexPropertyValuePair p : properties)
+					attrs.add(new CXSimpleAttribute(p));
+				citation.setProps(attrs);
+			}
+			write(citation);
+			citationMap.put(key, citationId);
+		}
+		return citationId;
+	}
+
+	protected void writeNetworkAttribute(String name, String value) throws NdexException, IOException {
+		write(new NetworkAttributesElement(null, name, value));
+	}
+
+	protected void writeNodeAttribute(Long nodeId, String name, String value) throws NdexException, IOException {
+		write(new NodeAttributesElement(null, nodeId, name, value, ATTRIBUTE_DATA_TYPE.STRING));
+	}
+
+	protected void writeNodeAttribute(Long nodeId, String name, List<String> values) throws NdexException, IOException {
+		write(new NodeAttributesElement(null, nodeId, name, values, ATTRIBUTE_DATA_TYPE.LIST_OF_STRING));
+	}
+
+	/**
+	 * Set the aliases of a node. The values are base terms.
+	 */
+	protected void writeNodeAliases(Long nodeId, List<String> terms) throws NdexException, IOException {
+		if ( !terms.isEmpty())
+			writeNodeAttribute(nodeId, NdexClasses.Node_P_alias, terms);
+	}
+
+	/**
+	 * Set the related terms of a node. The values are base terms.
+	 */
+	protected void writeNodeRelatedTerms(Long nodeId, List<String> terms) throws NdexException, IOException {
+		if ( !terms.isEmpty())
+			writeNodeAttribute(nodeId, NdexClasses.Node_P_relatedTo, terms);
+	}
+
+	protected void writeNodeCitations(Long nodeId, List<Long> citationIds) throws NdexException, IOException {
+		if ( !citationIds.isEmpty())
+			write(new NodeCitationLinksElement(nodeId, citationIds));
+	}
+
+	protected void writeEdgeCitations(Long edgeId, List<Long> citationIds) throws NdexException, IOException {
+		if ( !citationIds.isEmpty())
+			write(new EdgeCitationLinksElement(edgeId, citationIds));
+	}
+
+}
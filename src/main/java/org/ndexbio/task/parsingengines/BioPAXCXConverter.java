@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.biopax.paxtools.model.BioPAXElement;
+import org.ndexbio.common.persistence.orientdb.ElementDedupMap;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.cx.NamespacesElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.ndexbio.model.tools.PropertyHelpers;
+
+/**
+ * Converts a BioPAX level 3 document to CX, with the same mapping as BioPAXParser. The document is read 
+ * twice with BioPAXStreamReader: the first pass writes the nodes of all elements and the citations of 
+ * the publication xrefs, the second pass writes the edges, node attributes and citation links, when 
+ * every element a reference can point to has been seen.
+ */
+public class BioPAXCXConverter extends AbstractCXNetworkConverter {
+
+	private static Logger logger = Logger.getLogger("BioPAXCXConverter");
+
+	private final File bioPAXFile;
+
+	private String bioPaxPrefix;
+
+	// rdfId => node id, for all elements.
+	private ElementDedupMap rdfIdToNodeIdMap;
+	// rdfId => citation id, for publication xrefs.
+	private ElementDedupMap rdfIdToCitationIdMap;
+	// rdfId => base term, for unification and relationship xrefs.
+	private Map<String, String> rdfIdToTermMap;
+	private Map<String, String> rdfIdToXrefTypeMap;
+
+	public BioPAXCXConverter(File bioPAXFile, String networkName) {
+		super(networkName);
+		this.bioPAXFile = bioPAXFile;
+	}
+
+	@Override
+	protected NetworkSourceFormat getSourceFormat() {
+		return NetworkSourceFormat.BIOPAX;
+	}
+
+	@Override
+	protected void writeNetwork() throws NdexException, IOException, ExecutionException {
+		rdfIdToNodeIdMap = new ElementDedupMap();
+		rdfIdToCitationIdMap = new ElementDedupMap();
+		rdfIdToTermMap = new HashMap<>();
+		rdfIdToXrefTypeMap = new HashMap<>();
+
+		try (BioPAXStreamReader reader = new BioPAXStreamReader(bioPAXFile)) {
+			if ( reader.getXmlBase() != null)
+				writeNetworkAttribute("xmlBase", reader.getXmlBase());
+
+			NamespacesElement namespaces = new NamespacesElement();
+			for (Map.Entry<String, String> e : reader.getNamespaces().entrySet()) {
+				if ( e.getValue().equals(BioPAXStreamReader.bioPAXLevel3URI))
+					bioPaxPrefix = e.getKey();
+				if ( !e.getKey().isEmpty())
+					namespaces.put(e.getKey(), e.getValue());
+			}
+			if ( !namespaces.isEmpty())
+				write(namespaces);
+
+			BioPAXStreamReader.Element bpe;
+			while ( (bpe = reader.next()) != null) {
+				CancellationToken.checkpoint();
+				if ( isXref(bpe))
+					writeXrefNode(bpe);
+				else 
+					rdfIdToNodeIdMap.put(bpe.getRdfId(), getNodeIdByBaseTerm(bpe.getRdfId(), getNodeName(bpe)));
+			}
+		}
+
+		try (BioPAXStreamReader reader = new BioPAXStreamReader(bioPAXFile)) {
+			BioPAXStreamReader.Element bpe;
+			while ( (bpe = reader.next()) != null) {
+				CancellationToken.checkpoint();
+				if ( !isXref(bpe))
+					writeElementProperties(bpe);
+				else if ( bpe.getType().equals("RelationshipXref")) 
+					writeRelationshipType(bpe);
+			}
+		}
+	}
+
+	private static boolean isXref(BioPAXStreamReader.Element bpe) {
+		return bpe.getType().endsWith("Xref");
+	}
+
+	private static String getNodeName(BioPAXStreamReader.Element bpe) {
+		String name = bpe.getFirstValue("displayName");
+		if ( name == null)
+			name = bpe.getFirstValue("standardName");
+		if ( name == null)
+			name = bpe.getFirstValue("name");
+		return name;
+	}
+
+	private String getPredicate(String propertyName) {
+		if ( bioPaxPrefix == null || bioPaxPrefix.isEmpty())
+			return propertyName;
+		return bioPaxPrefix + ":" + propertyName;
+	}
+
+	private void writeXrefNode(BioPAXStreamReader.Element xref) throws NdexException, IOException, ExecutionException {
+		String rdfId = xref.getRdfId();
+		Long nodeId = getNodeIdByBaseTerm(rdfId);
+		rdfIdToNodeIdMap.put(rdfId, nodeId);
+		rdfIdToXrefTypeMap.put(rdfId, xref.getType());
+
+		List<NdexPropertyValuePair> nodeProperties = getXRefProperties(xref);
+		String xrefDb = xref.getFirstValue("db");
+		String xrefId = xref.getFirstValue("id");
+
+		if ( xref.getType().equals("PublicationXref")) {
+			List<NdexPropertyValuePair> citationProperties = new ArrayList<>();
+			for ( NdexPropertyValuePair prop : nodeProperties) {
+				if ( !prop.getPredicateString().equals("db") && !prop.getPredicateString().equals("id")) 
+					citationProperties.add(prop);
+			}
+			for (String source : new LinkedHashSet<>(xref.getValues("source"))) {
+				PropertyHelpers.addNdexProperty("source", source, citationProperties);
+				PropertyHelpers.addNdexProperty("source", source, nodeProperties);
+			}
+			for (String url : new LinkedHashSet<>(xref.getValues("url")))
+				PropertyHelpers.addNdexProperty("url", url, nodeProperties);
+			List<String> contributors = new ArrayList<>(new LinkedHashSet<>(xref.getValues("author")));
+			for (String author : contributors) 
+				PropertyHelpers.addNdexProperty("author", author, nodeProperties);
+			String title = xref.getFirstValue("title");
+			if ( title != null)
+				PropertyHelpers.addNdexProperty("title", title, nodeProperties);
+			String year = xref.getFirstValue("year");
+			PropertyHelpers.addNdexProperty("year", 
+					year == null ? Integer.toString(BioPAXElement.UNKNOWN_INT) : year.trim(), nodeProperties);
+
+			Long citationId;
+			if ( xrefDb != null && xrefId != null) 
+				citationId = getCitationId(title, "URI", xrefDb + ":" + xrefId, contributors, citationProperties);
+			else if ( xrefId != null)
+				citationId = getCitationId(title, "Unknown", xrefId, contributors, citationProperties);
+			else 
+				citationId = getCitationId(title, "Unknown", "unspecified", contributors, citationProperties);
+			rdfIdToCitationIdMap.put(rdfId, citationId);
+		} else {
+			if (null != xrefId && null != xrefDb) 
+				rdfIdToTermMap.put(rdfId, xrefDb + ":" + xrefId);
+			else if (null != xrefId) 
+				rdfIdToTermMap.put(rdfId, xrefId);
+			else 
+				throw new NdexException("no id for xref " + rdfId);
+		}
+
+		writeNodeAttribute(nodeId, "ndex:bioPAXType", xref.getType());
+		for ( NdexPropertyValuePair p : nodeProperties)
+			writeNodeAttribute(nodeId, p.getPredicateString(), p.getValue());
+	}
+
+	private static List<NdexPropertyValuePair> getXRefProperties(BioPAXStreamReader.Element xref) {
+		List<NdexPropertyValuePair> literalProperties = new ArrayList<>();
+		for ( String name : new String[] {"db", "dbVersion", "id", "idVersion"}) {
+			String value = xref.getFirstValue(name);
+			if ( value != null)
+				PropertyHelpers.addNdexProperty(name, value, literalProperties);
+		}
+		for (String comment : new LinkedHashSet<>(xref.getValues("comment"))) 
+			PropertyHelpers.addNdexProperty("comment", comment, literalProperties);
+		return literalProperties;
+	}
+
+	private void writeRelationshipType(BioPAXStreamReader.Element xref) throws NdexException, IOException, ExecutionException {
+		String vocabRdfId = xref.getFirstValue("relationshipType");
+		if ( vocabRdfId == null)
+			return;
+		Long vocabNodeId = rdfIdToNodeIdMap.get(vocabRdfId);
+		if ( vocabNodeId == null) {
+			logger.warning("Element " + vocabRdfId + " referenced by " + xref.getRdfId() + " is not defined in this document. Ignored.");
+			return;
+		}
+		createEdge(rdfIdToNodeIdMap.get(xref.getRdfId()), vocabNodeId, getPredicate("relationshipType"));
+	}
+
+	private void writeElementProperties(BioPAXStreamReader.Element bpe) throws NdexException, IOException, ExecutionException {
+		String rdfId = bpe.getRdfId();
+		Long nodeId = rdfIdToNodeIdMap.get(rdfId);
+
+		writeNodeAttribute(nodeId, "ndex:bioPAXType", bpe.getType());
+
+		List<String> aliases = new ArrayList<>();
+		List<String> relatedTerms = new ArrayList<>();
+		List<Long> citations = new ArrayList<>();
+
+		// property values are sets in BioPAX.
+		LinkedHashSet<String> seen = new LinkedHashSet<>();
+		for ( BioPAXStreamReader.Property property : bpe.getProperties()) {
+			String propertyName = property.getName();
+			String val = property.getValue();
+			if ( !seen.add(ElementDedupMap.canonicalKey(propertyName, property.isReference(), val)))
+				continue;
+
+			if ( !property.isReference()) {
+				writeNodeAttribute(nodeId, propertyName, val);
+				continue;
+			}
+
+			Long objectId = rdfIdToNodeIdMap.get(val);
+			if ( objectId == null) {
+				logger.warning("Element " + val + " referenced by " + rdfId + " is not defined in this document. Ignored.");
+				continue;
+			}
+			createEdge(nodeId, objectId, getPredicate(propertyName));
+
+			if ( propertyName.equals("xref")) {
+				String xrefType = rdfIdToXrefTypeMap.get(val);
+				if ( xrefType == null)
+					throw new NdexException("Unhandled value type for xref " + val + " found in the loader.");
+				if ( xrefType.equals("PublicationXref"))
+					citations.add(rdfIdToCitationIdMap.get(val));
+				else if ( xrefType.equals("UnificationXref"))
+					aliases.add(rdfIdToTermMap.get(val));
+				else if ( xrefType.equals("RelationshipXref"))
+					relatedTerms.add(rdfIdToTermMap.get(val));
+				else
+					throw new NdexException("Unhandled value type " + xrefType + " found in the loader.");
+			}
+		}
+
+		writeNodeAliases(nodeId, aliases);
+		writeNodeRelatedTerms(nodeId, relatedTerms);
+		writeNodeCitations(nodeId, citations);
+	}
+}
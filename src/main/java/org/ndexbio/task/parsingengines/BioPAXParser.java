@@ -31,11 +31,10 @@
 package org.ndexbio.task.parsingengines;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -44,22 +43,13 @@ import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Logger;
 
-import org.biopax.paxtools.controller.EditorMap;
-import org.biopax.paxtools.controller.PropertyEditor;
-import org.biopax.paxtools.controller.SimpleEditorMap;
-import org.biopax.paxtools.io.SimpleIOHandler;
 import org.biopax.paxtools.model.BioPAXElement;
-import org.biopax.paxtools.model.BioPAXLevel;
-import org.biopax.paxtools.model.Model;
-import org.biopax.paxtools.model.level3.PublicationXref;
-import org.biopax.paxtools.model.level3.RelationshipTypeVocabulary;
-import org.biopax.paxtools.model.level3.RelationshipXref;
-import org.biopax.paxtools.model.level3.UnificationXref;
-import org.biopax.paxtools.model.level3.Xref;
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.Helper;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
+import org.ndexbio.common.persistence.orientdb.ElementDedupMap;
 import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
 import org.ndexbio.model.object.NdexProvenanceEventType;
@@ -89,12 +79,19 @@ public class BioPAXParser implements IParsingEngine {
 //	public int literalPropertyCount;
 //	public int referencePropertyCount;
 
-	
-	EditorMap editorMap ;
 
 	private static Logger logger = Logger.getLogger("BioPAXParser");
 	
-	private Map<String, Long> rdfIdToElementIdMap;
+	// kinds of xref recorded in xrefKindMap.
+	private static final long publicationXref = 1;
+	private static final long unificationXref = 2;
+	private static final long relationshipXref = 3;
+	private static final long otherXref = 4;
+
+	// rdfId => id of the node, base term or citation created for it in the first pass.
+	private ElementDedupMap rdfIdToElementIdMap;
+	// rdfId => kind of xref, for the xrefs of the document.
+	private ElementDedupMap xrefKindMap;
 
 	private NdexPersistenceService persistenceService;
 
@@ -117,12 +114,11 @@ public class BioPAXParser implements IParsingEngine {
 					.getResource(fn).toURI());
 		this.bioPAXURI = bioPAXFile.toURI().toString();
 		this.persistenceService = new NdexPersistenceService(db);
-		this.rdfIdToElementIdMap = new HashMap<>();
+		this.rdfIdToElementIdMap = new ElementDedupMap();
+		this.xrefKindMap = new ElementDedupMap();
 
         //String title = Files.getNameWithoutExtension(this.bioPAXFile.getName());
 
-		editorMap =  SimpleEditorMap.L3;
-		
 		persistenceService.createNewNetwork(ownerName, networkName, null);
         this.description = description;
 
@@ -207,195 +203,156 @@ public class BioPAXParser implements IParsingEngine {
 	}
 
 	private void processBioPAX(File f) throws IOException, NdexException, ExecutionException  {
-		try ( FileInputStream fin = new FileInputStream(f) ) 
-		{
-			SimpleIOHandler handler = new SimpleIOHandler(BioPAXLevel.L3);
-			handler.mergeDuplicates(false);
-			Model model = handler.convertFromOWL(fin);
-			
-			loadBioPAXModel(model);
-		} catch ( FileNotFoundException e) {
+		if ( !f.exists())
 			throw new NdexException ("File not found " + f.getAbsolutePath());
-		}
-	}
-
-	private void loadBioPAXModel(Model model) throws NdexException, ExecutionException  {
-		
 
-		String xmlBase = model.getXmlBase();
-		if ( xmlBase !=null) {
-		  NdexPropertyValuePair xmlBaseProp = new NdexPropertyValuePair("xmlBase", xmlBase);
-		  List<NdexPropertyValuePair> networkProperties = new ArrayList<>();
-		  networkProperties.add(xmlBaseProp);	
-		  this.persistenceService.setNetworkProperties(networkProperties, null);
-		}
-		addBioPAXNamespaces(model);
-		
-		Set<BioPAXElement> elementSet = model.getObjects();
-		//
-		// Iterate over all elements to create Node, Citation and BaseTerm
-		// objects
-		//
-		for (BioPAXElement bpe : elementSet) {
-			this.entityCount++;
-			if (bpe instanceof Xref) {
-				// Process Xrefs to create BaseTerm and Citation objects
-				this.processXREFElement((Xref)bpe);
-			} else {
-				// Process all Other Elements to create Node objects
-				this.processElementToNode(bpe);
+		// first pass: create the nodes, base terms and citations of all elements.
+		try (BioPAXStreamReader reader = new BioPAXStreamReader(f)) {
+			String xmlBase = reader.getXmlBase();
+			if ( xmlBase !=null) {
+			  NdexPropertyValuePair xmlBaseProp = new NdexPropertyValuePair("xmlBase", xmlBase);
+			  List<NdexPropertyValuePair> networkProperties = new ArrayList<>();
+			  networkProperties.add(xmlBaseProp);	
+			  this.persistenceService.setNetworkProperties(networkProperties, null);
 			}
-			if ( entityCount % 10000 == 0 ) {
-				logger.info("Commiting " + entityCount + " entities in BioPAX loader.");
-				this.persistenceService.commit();
+			addBioPAXNamespaces(reader.getNamespaces());
+
+			BioPAXStreamReader.Element bpe;
+			while ( (bpe = reader.next()) != null) {
+				this.entityCount++;
+				CancellationToken.checkpoint();
+				if (isXref(bpe)) {
+					// Process Xrefs to create BaseTerm and Citation objects
+					this.processXREFElement(bpe);
+				} else {
+					// Process all Other Elements to create Node objects
+					this.processElementToNode(bpe);
+				}
+				if ( entityCount % 10000 == 0 ) {
+					logger.info("Commiting " + entityCount + " entities in BioPAX loader.");
+					this.persistenceService.commit();
+				}
 			}
 		}
 		logger.info( entityCount + " entities created by BioPAX loader.");
 
 		//
-		// Iterate over all BioPAX elements to
-		// process all Properties in each Element
+		// second pass: process all Properties in each non-xref Element
 		// to create NDExPropertyValuePair and Edge objects
 		//
 		int counter = 0; 
-		for (BioPAXElement bpe : elementSet) {
-			if (! (bpe instanceof Xref)) {
-				// Process all other Elements
-				this.processElementProperties(bpe);
-				counter ++;
-				if ( counter % 5000 == 0 ) {
-					logger.info("Commiting " + counter + " properities in BioPAX loader.");
-					this.persistenceService.commit();
+		try (BioPAXStreamReader reader = new BioPAXStreamReader(f)) {
+			BioPAXStreamReader.Element bpe;
+			while ( (bpe = reader.next()) != null) {
+				if (!isXref(bpe)) {
+					this.processElementProperties(bpe);
+					counter ++;
+					if ( counter % 5000 == 0 ) {
+						logger.info("Commiting " + counter + " properities in BioPAX loader.");
+						this.persistenceService.commit();
+						CancellationToken.checkpoint();
+					}
 				}
 			}
 		}
-		
 	}
 
+	private static boolean isXref(BioPAXStreamReader.Element bpe) {
+		return bpe.getType().endsWith("Xref");
+	}
 	
-	private void processElementToNode(BioPAXElement bpe) throws NdexException, ExecutionException {
-		String rdfId = bpe.getRDFId();
-//		String className = bpe.getClass().getName();
-//		String simpleName = bpe.getModelInterface().getSimpleName();
-		//System.out.println("Element To Node: " + rdfId + ": " + simpleName);
-		// this.persistenceService.
+	private void processElementToNode(BioPAXStreamReader.Element bpe) throws NdexException, ExecutionException {
+		String rdfId = bpe.getRdfId();
 		// create the node, map the id to the rdfId
-		// add a property to the node, setting bp:nodeType to the simpleName
 		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
 
-		//Long nodeId = this.persistenceService.getNodeId();
 		this.mapRdfIdToElementId(rdfId, nodeId);
 	}
 
-	private void processElementProperties(BioPAXElement bpe) throws ExecutionException, NdexException {
-		String rdfId = bpe.getRDFId();
+	private void processElementProperties(BioPAXStreamReader.Element bpe) throws ExecutionException, NdexException {
+		String rdfId = bpe.getRdfId();
 		// Get the elementId for the Node corresponding to this rdfId
 		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
 		
 		List<NdexPropertyValuePair> literalProperties = new ArrayList<>();
 
-		String simpleName = bpe.getModelInterface().getSimpleName();
-		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", simpleName));
-		
-//		EditorMap editorMap =  SimpleEditorMap.L2;
-		Set<PropertyEditor> editors = editorMap.getEditorsOf(bpe);
+		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", bpe.getType()));
 		
 		String nodeName = null;
 		String standardName = null;
 		String displayName = null;
-		//
-		// iterate over the property editors
-		//
+
 		List<Long> aliasList = new ArrayList<>();
 		List<Long> relateToList = new ArrayList<> ();
 		List<Long> citationList = new ArrayList<> (); 
 		
-		for (PropertyEditor editor : editors) {
-			//
-			// iterate over the values for each editor:
-			//
-			// For each property that has a value or values, we want to see if
-			// whether each value is a literal or a resource
-			//
-			// If the value is a Xref resource, handle specially:
-			// - link the current Node to a BaseTerm or Citation
-			//
-
-			// If the value is a Resource of any other type:
-			// - create an Edge from the current Node to the Node for that
-			// Resource
-			//
-			// Else, the value is a literal:
-			// - create an NdexPropertyValuePair and add it to the current Node
-			// - (note that Edges do not have properties in BioPAX3, only Nodes)
-			//
-
-			Set<Object > values = editor.getValueFromBean(bpe);  
-			if (values.size() >0 ) {    // we only process it when we found values.
-				String propertyName = editor.getProperty();
-			  for (Object val : values) {
+		//
+		// For each property value, we want to see whether it is a literal or a resource
+		//
+		// If the value is a Xref resource, handle specially:
+		// - link the current Node to a BaseTerm or Citation
+		//
+		// If the value is a Resource of any other type:
+		// - create an Edge from the current Node to the Node for that
+		// Resource
+		//
+		// Else, the value is a literal:
+		// - create an NdexPropertyValuePair and add it to the current Node
+		// - (note that Edges do not have properties in BioPAX3, only Nodes)
+		//
+		Set<String> seenValues = new HashSet<>();
+		for (BioPAXStreamReader.Property property : bpe.getProperties()) {
+			String propertyName = property.getName();
+			String val = property.getValue();
+			// property values are sets in BioPAX.
+			if ( !seenValues.add(ElementDedupMap.canonicalKey(propertyName, property.isReference(), val)))
+				continue;
+
+			if ( property.isReference()) {
+				Long referencedId = getElementIdByRdfId(val);
+				if ( referencedId == null) {
+					logger.warning("Element " + val + " referenced by " + rdfId + " is not defined in this document. Ignored.");
+					continue;
+				}
 				if ( propertyName.equals("xref"))   {
-					if (val instanceof PublicationXref) {
-						Long objectId = this.persistenceService.getNodeIdByBaseTerm(((PublicationXref)val).getRDFId());
-						Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
-						this.persistenceService.createEdge(nodeId, objectId, predicateId, null,null,(List<NdexPropertyValuePair>)null);
-					
-						Long citationId = getElementIdByRdfId(((PublicationXref)val).getRDFId());
-					
-						citationList.add(citationId);
-						//					processPublicationXrefProperty(predicateId,(PublicationXref) val, nodeId);
-					} else if (val instanceof UnificationXref) {
-				     Long objectId = this.persistenceService.getNodeIdByBaseTerm(((UnificationXref)val).getRDFId());
-						Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
-					 this.persistenceService.createEdge(nodeId, objectId, predicateId, null,null,(List<NdexPropertyValuePair>)null);
-						
-					 Long termId = getElementIdByRdfId(((UnificationXref)val).getRDFId());
-					 
-					 aliasList.add(termId);
-					 	
-//					processUnificationXrefProperty(predicateId, (UnificationXref) val,nodeId);
-					} else if (val instanceof RelationshipXref) {
-						Long objectId = this.persistenceService.getNodeIdByBaseTerm(((RelationshipXref)val).getRDFId());
-						Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
-						this.persistenceService.createEdge(nodeId, objectId, predicateId, null,null,(List<NdexPropertyValuePair>)null);
-					
-						Long termId = getElementIdByRdfId(((RelationshipXref)val).getRDFId());
-					
-						relateToList.add(termId);
-					} else {
-						throw new NdexException("Unhandled value type " + val.getClass().getName() + " found in the loader.");
-					}
+					Long xrefKind = this.xrefKindMap.get(val);
+					if ( xrefKind == null)
+						throw new NdexException("Unhandled value type for xref " + val + " found in the loader.");
+					Long objectId = this.persistenceService.getNodeIdByBaseTerm(val);
+					Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
+					this.persistenceService.createEdge(nodeId, objectId, predicateId, null,null,(List<NdexPropertyValuePair>)null);
+
+					if ( xrefKind.longValue() == publicationXref)
+						citationList.add(referencedId);
+					else if ( xrefKind.longValue() == unificationXref)
+						aliasList.add(referencedId);
+					else if ( xrefKind.longValue() == relationshipXref)
+						relateToList.add(referencedId);
+					else 
+						throw new NdexException("Unhandled value type for xref " + val + " found in the loader.");
 				} else {
-					if (val instanceof BioPAXElement){
-						// create the edge
-						Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
-						processEdge(predicateId, (BioPAXElement) val, nodeId);
-			//			this.referencePropertyCount++;
-					} else if (null != val){
-						// queue up a property to be in the set to add
-						String valueString = val.toString();
-
-						NdexPropertyValuePair pvp = new NdexPropertyValuePair(propertyName, valueString);
-						literalProperties.add(pvp);
-			//			this.literalPropertyCount++;
-					
-						// populate the node name if possible.
-						if ( propertyName.equals("name")) {
-							nodeName = valueString;
-						} else if ( propertyName.equals("displayName")) {
-							displayName = valueString;
-						} else if ( propertyName.equals("standardName")) {
-							standardName = valueString;
-						}
-					}
-				}	
-			  }
-			}
+					// create the edge
+					Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix,propertyName);
+					this.persistenceService.createEdge(nodeId, referencedId, predicateId, null, null, (List<NdexPropertyValuePair>)null);		
+				}
+			} else {
+				// queue up a property to be in the set to add
+				NdexPropertyValuePair pvp = new NdexPropertyValuePair(propertyName, val);
+				literalProperties.add(pvp);
+				
+				// populate the node name if possible.
+				if ( propertyName.equals("name")) {
+					nodeName = val;
+				} else if ( propertyName.equals("displayName")) {
+					displayName = val;
+				} else if ( propertyName.equals("standardName")) {
+					standardName = val;
+				}
+			}	
 		}
 		
 		this.persistenceService.setReferencesOnNode(nodeId, citationList, relateToList, aliasList);
 		
-//		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", bpe.getModelInterface().getSimpleName()));
 		this.persistenceService.setNodeProperties(nodeId, literalProperties, null);
 
 		// set the node name if possible.
@@ -408,61 +365,42 @@ public class BioPAXParser implements IParsingEngine {
 		}
 	}
 
-	private void processEdge(
-			Long predicateId,
-			BioPAXElement bpe, 
-			Long subjectNodeId) throws NdexException, ExecutionException {
-		Long objectNodeId = getElementIdByRdfId(bpe.getRDFId());
-		this.persistenceService.createEdge(subjectNodeId, objectNodeId, predicateId, null, null, (List<NdexPropertyValuePair>)null);		
-	}
-	
-
-	private void processXREFElement(Xref xref) throws NdexException,
+	private void processXREFElement(BioPAXStreamReader.Element xref) throws NdexException,
 			ExecutionException {
-		if (xref instanceof PublicationXref) {
-			processPublicationXref((PublicationXref)xref);
-		} else if (xref instanceof UnificationXref) {
-			processUnificationXref((UnificationXref)xref);
+		String type = xref.getType();
+		if (type.equals("PublicationXref")) {
+			processPublicationXref(xref);
+			this.xrefKindMap.put(xref.getRdfId(), Long.valueOf(publicationXref));
+		} else if (type.equals("UnificationXref")) {
+			processXref(xref);
+			this.xrefKindMap.put(xref.getRdfId(), Long.valueOf(unificationXref));
 			this.uXrefCount++;
-		} else if (xref instanceof RelationshipXref) {
-			processRelationshipXref((RelationshipXref)xref);
+		} else if (type.equals("RelationshipXref")) {
+			processRelationshipXref(xref);
+			this.xrefKindMap.put(xref.getRdfId(), Long.valueOf(relationshipXref));
 			this.rXrefCount++;
 		} else {
-			
 			processXref(xref);
+			this.xrefKindMap.put(xref.getRdfId(), Long.valueOf(otherXref));
 			this.rXrefCount++;
-			System.out.println("Unexpected xref of type: " + xref.getClass().getSimpleName());
+			System.out.println("Unexpected xref of type: " + type);
 		}
 	}
 
-	private void processUnificationXref(UnificationXref xref) throws NdexException, ExecutionException {
-		String rdfId = xref.getRDFId();
-		// Create a node to hold the mapping of the rdfId to a biopax type
-		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
-
-		List<NdexPropertyValuePair> literalProperties = getXRefProperties( xref,true);
+	private void processRelationshipXref(BioPAXStreamReader.Element xref) throws NdexException, ExecutionException {
 		
-		String simpleName = xref.getModelInterface().getSimpleName();
-		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", simpleName));
-			
-		this.persistenceService.setNodeProperties(nodeId, literalProperties, null);
-	}
-	
-	private void processRelationshipXref(RelationshipXref xref) throws NdexException, ExecutionException {
-		
-		String rdfId = xref.getRDFId();
+		String rdfId = xref.getRdfId();
 		
 		// Create a node to hold the mapping of the rdfId to a biopax type
 		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
 
 		List<NdexPropertyValuePair> literalProperties = getXRefProperties( xref,true);
-		String simpleName = xref.getModelInterface().getSimpleName();
-		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", simpleName));
+		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", xref.getType()));
 			
-		RelationshipTypeVocabulary vocabObj=xref.getRelationshipType();
+		String vocabRdfId = xref.getFirstValue("relationshipType");
 		
-		if ( vocabObj != null) {   // add an edge to the vocab entity.
-			Long vocabNodeId = this.persistenceService.getNodeIdByBaseTerm(vocabObj.getRDFId()); 
+		if ( vocabRdfId != null) {   // add an edge to the vocab entity.
+			Long vocabNodeId = this.persistenceService.getNodeIdByBaseTerm(vocabRdfId); 
 			Long predicateId = this.persistenceService.getBaseTermId(this.bioPaxPrefix, "relationshipType");
 			this.persistenceService.createEdge(nodeId, vocabNodeId, predicateId, null, null, (List<NdexPropertyValuePair>)null);
 		}
@@ -480,24 +418,21 @@ public class BioPAXParser implements IParsingEngine {
 	 * @throws NdexException
 	 * @throws ExecutionException
 	 */
-	private List<NdexPropertyValuePair> getXRefProperties(Xref xref, boolean createBaseterm) throws NdexException, ExecutionException {
+	private List<NdexPropertyValuePair> getXRefProperties(BioPAXStreamReader.Element xref, boolean createBaseterm) throws NdexException, ExecutionException {
 		List<NdexPropertyValuePair> literalProperties = new ArrayList<>();
 			
-		Set<String> comments = xref.getComment();
-		String xrefDb = xref.getDb();
-		String xrefDbVersion = xref.getDbVersion();
-		String xrefId = xref.getId();
-		String xrefIdVersion = xref.getIdVersion();
+		String xrefDb = xref.getFirstValue("db");
+		String xrefDbVersion = xref.getFirstValue("dbVersion");
+		String xrefId = xref.getFirstValue("id");
+		String xrefIdVersion = xref.getFirstValue("idVersion");
 		
 		addBPPropertyToList("db", xrefDb, literalProperties);
 		addBPPropertyToList("dbVersion", xrefDbVersion, literalProperties);
 		addBPPropertyToList("id", xrefId, literalProperties);
 		addBPPropertyToList("idVersion", xrefIdVersion, literalProperties);
       
-		if ( comments != null) {
-			for (String comment : comments) {
-				addBPPropertyToList("comment", comment, literalProperties);
-			}
+		for (String comment : distinctValues(xref, "comment")) {
+			addBPPropertyToList("comment", comment, literalProperties);
 		}
 
 		if ( createBaseterm) {
@@ -511,14 +446,17 @@ public class BioPAXParser implements IParsingEngine {
 				termId = this.persistenceService.getBaseTermId(xrefId);
 			} else {
 				// bad xref with no id!
-				throw new NdexException("no id for xref " + xref.getRDFId());
+				throw new NdexException("no id for xref " + xref.getRdfId());
 			}
 
-			this.mapRdfIdToElementId(xref.getRDFId(), termId); 
+			this.mapRdfIdToElementId(xref.getRdfId(), termId); 
 		}
 		return literalProperties;
 	}
 
+	private static Set<String> distinctValues(BioPAXStreamReader.Element bpe, String propertyName) {
+		return new LinkedHashSet<>(bpe.getValues(propertyName));
+	}
 	
 	/**
 	 * Add property to the given. property list. This function will add the "bp:" prefix to the property name automatically 
@@ -535,22 +473,21 @@ public class BioPAXParser implements IParsingEngine {
 	}
 	
 	
-	private void processXref(Xref xref) throws NdexException, ExecutionException {
+	private void processXref(BioPAXStreamReader.Element xref) throws NdexException, ExecutionException {
 
-		String rdfId = xref.getRDFId();
+		String rdfId = xref.getRdfId();
 		// Create a node to hold the mapping of the rdfId to a biopax type
 		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
 
 		List<NdexPropertyValuePair> literalProperties = getXRefProperties( xref,true);
 		
-		String simpleName = xref.getModelInterface().getSimpleName();
-		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", simpleName));
+		literalProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", xref.getType()));
 			
 		this.persistenceService.setNodeProperties(nodeId, literalProperties, null);
 
 	}
 
-	private void processPublicationXref(PublicationXref xref)
+	private void processPublicationXref(BioPAXStreamReader.Element xref)
 			throws NdexException, ExecutionException {
 
 		/*
@@ -596,7 +533,7 @@ public class BioPAXParser implements IParsingEngine {
 		this.pubXrefCount++;
 		
 
-		String rdfId = xref.getRDFId();
+		String rdfId = xref.getRdfId();
 		Long nodeId = this.persistenceService.getNodeIdByBaseTerm(rdfId);
 
 		List<NdexPropertyValuePair> nodeProperties = getXRefProperties( xref,false);  // properties for node 
@@ -610,14 +547,13 @@ public class BioPAXParser implements IParsingEngine {
 			}
 		}
 		
-		String simpleName = xref.getModelInterface().getSimpleName();
-		nodeProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", simpleName));
+		nodeProperties.add(new NdexPropertyValuePair("ndex:bioPAXType", xref.getType()));
 		
-		Set<String> authors = xref.getAuthor();
-		Set<String> sources = xref.getSource();
-		String xrefTitle = xref.getTitle();
-		Set<String> urls = xref.getUrl();
-		int year = xref.getYear();
+		Set<String> authors = distinctValues(xref, "author");
+		Set<String> sources = distinctValues(xref, "source");
+		String xrefTitle = xref.getFirstValue("title");
+		Set<String> urls = distinctValues(xref, "url");
+		String year = xref.getFirstValue("year");
 
 		for (String source : sources){
 			addBPPropertyToList("source", source, citationProperties);
@@ -636,18 +572,20 @@ public class BioPAXParser implements IParsingEngine {
 		}
 		
 		addBPPropertyToList("title", xrefTitle, nodeProperties);
-		addBPPropertyToList("year", Integer.toString(year), nodeProperties);
+		addBPPropertyToList("year", year == null ? Integer.toString(BioPAXElement.UNKNOWN_INT) : year.trim(), nodeProperties);
 		this.persistenceService.setNodeProperties(nodeId, nodeProperties, null);
 
 
 		// create extra citation node to help searches in the future.
 		String identifier = "unspecified";
 		Long citationId = null;
-		if ( xref.getDb()!=null && xref.getId()!=null) {
-			identifier = xref.getDb() + ":"+ xref.getId();
+		String xrefDb = xref.getFirstValue("db");
+		String xrefId = xref.getFirstValue("id");
+		if ( xrefDb!=null && xrefId!=null) {
+			identifier = xrefDb + ":"+ xrefId;
 			citationId = this.persistenceService.getCitationId(xrefTitle,"URI", identifier, contributors);
-		} else if ( xref.getId() !=null ) {
-			citationId = this.persistenceService.getCitationId(xrefTitle,"Unknown", xref.getId(), contributors);
+		} else if ( xrefId !=null ) {
+			citationId = this.persistenceService.getCitationId(xrefTitle,"Unknown", xrefId, contributors);
 		} else 
 			citationId = this.persistenceService.getCitationId(xrefTitle,"Unknown", identifier, contributors);
 		
@@ -655,29 +593,30 @@ public class BioPAXParser implements IParsingEngine {
 		this.mapRdfIdToElementId(rdfId, citationId);
 	}
 
-	private void addBioPAXNamespaces(Model model) throws NdexException {
-		Map<String,String> prefixMap = model.getNameSpacePrefixMap();
+	private void addBioPAXNamespaces(Map<String,String> prefixMap) throws NdexException {
 		for (Entry<String, String> pair : prefixMap.entrySet()){
 			String prefix = pair.getKey();
 			String uri = pair.getValue();
 			this.persistenceService.createNamespace2(prefix, uri);
-			if ( uri.equals("http://www.biopax.org/release/biopax-level3.owl#"))
+			if ( uri.equals(BioPAXStreamReader.bioPAXLevel3URI))
 				this.bioPaxPrefix = prefix;
 		}
 	}
 	
-	private Long getElementIdByRdfId(String rdfId) {
+	private Long getElementIdByRdfId(String rdfId) throws ExecutionException {
 		return this.rdfIdToElementIdMap.get(rdfId);
 	}
 	
-	private void mapRdfIdToElementId(String rdfId, Long elementId) throws NdexException {
-		Long previousId = rdfIdToElementIdMap.put(rdfId, elementId);
+	private void mapRdfIdToElementId(String rdfId, Long elementId) throws NdexException, ExecutionException {
+		Long previousId = rdfIdToElementIdMap.get(rdfId);
 		if ( previousId != null && !previousId.equals(elementId)){
 			throw new NdexException(
 					"Attempted to map rdfId = " + rdfId + 
 					" to elementId = " + elementId + 
 					" but it is already mapped to " + previousId);
 		}
+		if ( previousId == null)
+			rdfIdToElementIdMap.put(rdfId, elementId);
 	}
 
 	public String getNetworkUUID() {
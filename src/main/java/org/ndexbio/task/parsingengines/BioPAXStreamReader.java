@@ -0,0 +1,295 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.ndexbio.model.exceptions.NdexException;
+
+/**
+ * Reads the elements of a BioPAX level 3 RDF/XML document one at a time with StAX, instead of building
+ * a Paxtools model of the whole document.
+ * 
+ * Each element comes back with its BioPAX class name, its absolute RDF id and its properties in document
+ * order. A property is either a literal or a reference to the RDF id of another element. Elements nested 
+ * inside a property are returned as elements of their own, right after the element that contains them, and 
+ * the property refers to them by id. Nested elements without an id get a generated one that is the same 
+ * every time the document is read, so several passes over a file agree on the ids.
+ * 
+ * Only elements in the BioPAX level 3 namespace are returned; the OWL header is skipped.
+ */
+public class BioPAXStreamReader implements Closeable {
+
+	public static final String bioPAXLevel3URI = "http://www.biopax.org/release/biopax-level3.owl#";
+	private static final String rdfURI = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+	private static final String anonymousIdPrefix = "ndex_anonymous_";
+
+	public static final class Property {
+		private final String name;
+		private final String value;
+		private final boolean reference;
+
+		Property(String name, String value, boolean reference) {
+			this.name = name;
+			this.value = value;
+			this.reference = reference;
+		}
+
+		public String getName() { return name; }
+		/**
+		 * @return the literal value, or the RDF id of the referenced element.
+		 */
+		public String getValue() { return value; }
+		public boolean isReference() { return reference; }
+	}
+
+	public static final class Element {
+		private final String type;
+		private final String rdfId;
+		private final List<Property> properties;
+
+		Element(String type, String rdfId) {
+			this.type = type;
+			this.rdfId = rdfId;
+			this.properties = new ArrayList<>();
+		}
+
+		/**
+		 * @return the simple name of the BioPAX class, e.g. Protein or UnificationXref.
+		 */
+		public String getType() { return type; }
+		public String getRdfId() { return rdfId; }
+		public List<Property> getProperties() { return properties; }
+
+		/**
+		 * @return the first value of the given property, or null.
+		 */
+		public String getFirstValue(String propertyName) {
+			for ( Property p : properties) {
+				if ( p.getName().equals(propertyName))
+					return p.getValue();
+			}
+			return null;
+		}
+
+		public List<String> getValues(String propertyName) {
+			List<String> result = new ArrayList<>();
+			for ( Property p : properties) {
+				if ( p.getName().equals(propertyName))
+					result.add(p.getValue());
+			}
+			return result;
+		}
+	}
+
+	private final InputStream in;
+	private final XMLStreamReader reader;
+	private String xmlBase;
+	private final Map<String, String> namespaces;
+	private final Deque<Element> pending;
+	private long anonymousCounter;
+
+	public BioPAXStreamReader(File bioPAXFile) throws IOException, NdexException {
+		this.in = new BufferedInputStream(new FileInputStream(bioPAXFile));
+		this.namespaces = new LinkedHashMap<>();
+		this.pending = new ArrayDeque<>();
+		this.anonymousCounter = 0;
+		try {
+			XMLInputFactory factory = XMLInputFactory.newInstance();
+			factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+			factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+			factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+			this.reader = factory.createXMLStreamReader(in);
+			readRoot();
+		} catch (XMLStreamException e) {
+			in.close();
+			throw new NdexException("Failed to read BioPAX document " + bioPAXFile.getName() + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * @return the xml:base of the document, or null if it doesn't declare one.
+	 */
+	public String getXmlBase() {
+		return xmlBase;
+	}
+
+	/**
+	 * @return the namespace prefix to URI mappings declared on the root element.
+	 */
+	public Map<String, String> getNamespaces() {
+		return namespaces;
+	}
+
+	/**
+	 * @return the next BioPAX element of the document, or null at the end of it.
+	 */
+	public Element next() throws NdexException {
+		if ( !pending.isEmpty())
+			return pending.poll();
+		try {
+			while ( reader.hasNext()) {
+				int event = reader.next();
+				if ( event == XMLStreamConstants.START_ELEMENT) {
+					if ( bioPAXLevel3URI.equals(reader.getNamespaceURI())) {
+						Element e = readElement();
+						pending.addFirst(e);
+						return pending.poll();
+					}
+					skipElement();
+				}
+			}
+			return null;
+		} catch (XMLStreamException e) {
+			throw new NdexException("Error in BioPAX document at line " + 
+					(e.getLocation() == null ? "?" : e.getLocation().getLineNumber()) + ": " + e.getMessage());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			reader.close();
+		} catch (XMLStreamException e) {
+			// closing the stream below is what matters.
+		}
+		in.close();
+	}
+
+	private void readRoot() throws XMLStreamException {
+		while ( reader.hasNext()) {
+			if ( reader.next() == XMLStreamConstants.START_ELEMENT) {
+				for ( int i = 0 ; i < reader.getNamespaceCount(); i++) {
+					String prefix = reader.getNamespacePrefix(i);
+					namespaces.put(prefix == null ? "" : prefix, reader.getNamespaceURI(i));
+				}
+				xmlBase = reader.getAttributeValue(XMLConstants.XML_NS_URI, "base");
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Read the element the reader is positioned on, up to its end tag. Nested elements are put 
+	 * on the pending queue, after the elements queued before them.
+	 */
+	private Element readElement() throws XMLStreamException {
+		String type = reader.getLocalName();
+		String rdfId = getElementId();
+		Element element = new Element(type, rdfId);
+		List<Element> nested = new ArrayList<>();
+
+		while ( reader.hasNext()) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.END_ELEMENT)
+				break;
+			if ( event != XMLStreamConstants.START_ELEMENT)
+				continue;
+
+			// a property element
+			String propertyName = reader.getLocalName();
+			String resource = reader.getAttributeValue(rdfURI, "resource");
+			if ( resource != null) {
+				element.getProperties().add(new Property(propertyName, resolve(resource), true));
+				skipElement();
+				continue;
+			}
+
+			StringBuilder text = new StringBuilder();
+			boolean hasValue = false;
+			while ( reader.hasNext()) {
+				int e = reader.next();
+				if ( e == XMLStreamConstants.END_ELEMENT)
+					break;
+				if ( e == XMLStreamConstants.CHARACTERS || e == XMLStreamConstants.CDATA)
+					text.append(reader.getText());
+				else if ( e == XMLStreamConstants.START_ELEMENT) {
+					Element child = readElement();
+					nested.add(child);
+					element.getProperties().add(new Property(propertyName, child.getRdfId(), true));
+					hasValue = true;
+				}
+			}
+			if ( !hasValue)
+				element.getProperties().add(new Property(propertyName, text.toString(), false));
+		}
+
+		// nested elements come right after the element that contains them, in document order.
+		for ( int i = nested.size() - 1 ; i >= 0; i--)
+			pending.addFirst(nested.get(i));
+		return element;
+	}
+
+	private String getElementId() {
+		String id = reader.getAttributeValue(rdfURI, "ID");
+		if ( id != null)
+			return (xmlBase == null ? "" : xmlBase) + id;
+		String about = reader.getAttributeValue(rdfURI, "about");
+		if ( about != null)
+			return resolve(about);
+		return (xmlBase == null ? "" : xmlBase) + anonymousIdPrefix + (++anonymousCounter);
+	}
+
+	private String resolve(String uri) {
+		if ( uri.startsWith("#"))
+			return (xmlBase == null ? "" : xmlBase) + uri.substring(1);
+		return uri;
+	}
+
+	private void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while ( depth > 0 && reader.hasNext()) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT)
+				depth++;
+			else if ( event == XMLStreamConstants.END_ELEMENT)
+				depth--;
+		}
+	}
+}
@@ -0,0 +1,576 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.cxio.aspects.datamodels.ATTRIBUTE_DATA_TYPE;
+import org.cxio.aspects.datamodels.AttributesAspectUtils;
+import org.cxio.aspects.datamodels.EdgeAttributesElement;
+import org.cxio.aspects.datamodels.NetworkAttributesElement;
+import org.cxio.aspects.datamodels.NodeAttributesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.models.object.network.RawNamespace;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
+import org.ndexbio.common.persistence.orientdb.ElementDedupMap;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.cx.CXSimpleAttribute;
+import org.ndexbio.model.cx.CitationElement;
+import org.ndexbio.model.cx.EdgeCitationLinksElement;
+import org.ndexbio.model.cx.EdgeSupportLinksElement;
+import org.ndexbio.model.cx.FunctionTermElement;
+import org.ndexbio.model.cx.NamespacesElement;
+import org.ndexbio.model.cx.NodeCitationLinksElement;
+import org.ndexbio.model.cx.NodeSupportLinksElement;
+import org.ndexbio.model.cx.ReifiedEdgeElement;
+import org.ndexbio.model.cx.SupportElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+import org.ndexbio.model.object.SimplePropertyValuePair;
+import org.ndexbio.model.object.network.Namespace;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.ndexbio.model.object.network.NetworkSummary;
+
+/**
+ * NetworkElementBuilder that writes the network as CX through an AbstractCXNetworkConverter, so that the 
+ * XGMML and XBEL readers, which were written against NdexPersistenceService, can feed the CX loader unchanged.
+ * 
+ * Edges, links and node/edge attributes are written as soon as they are created. Nodes, citations, supports 
+ * and namespaces are kept until finish() is called, because the readers set the term a node represents and the 
+ * properties of citations and supports after creating them, and a CX element can't be changed once it is written.
+ * Terms are not CX elements; they are kept in memory and written as strings or function term elements 
+ * on the nodes that use them.
+ */
+class CXNetworkElementBuilder implements NetworkElementBuilder {
+
+	private static Logger logger = Logger.getLogger("CXNetworkElementBuilder");
+
+	private static final String baseTermType = "BaseTerm";
+	
+	private static class PendingNode {
+		private final String name;
+		private Long termId;
+		private String termType;
+		
+		PendingNode(String name) {
+			this.name = name;
+		}
+	}
+	
+	private static class FunctionTerm {
+		private final Long functionId;
+		private final List<Long> argumentIds;
+		
+		FunctionTerm(Long functionId, List<Long> argumentIds) {
+			this.functionId = functionId;
+			this.argumentIds = argumentIds;
+		}
+	}
+	
+	private final AbstractCXNetworkConverter converter;
+	
+	private NetworkSummary network;
+
+	// ids of terms and namespaces. They are never written, so they only need to be unique in this builder.
+	private long termIdCounter;
+	
+	private ElementDedupMap baseTermIds;
+	private Map<Long, String> baseTerms;
+	private ElementDedupMap functionTermIds;
+	private Map<Long, FunctionTerm> functionTerms;
+	private Map<Long, Long> edgeReifiedTermIds;
+	private Map<Long, Long> reifiedTermEdgeIds;
+
+	private Map<RawNamespace, Namespace> namespaces;
+	private Map<String, Namespace> prefixNamespaces;
+	private Map<String, Namespace> uriNamespaces;
+
+	// nodes are written in id order.
+	private Map<Long, PendingNode> nodes;
+	private ElementDedupMap externalIdNodeIds;
+	private Map<Long, Long> functionTermNodeIds;
+	private Map<Long, Long> reifiedTermNodeIds;
+
+	private ElementDedupMap citationIds;
+	private Map<Long, CitationElement> citations;
+	private ElementDedupMap supportIds;
+	private Map<Long, SupportElement> supports;
+	
+	CXNetworkElementBuilder(AbstractCXNetworkConverter converter) {
+		this.converter = converter;
+		this.termIdCounter = 0;
+		this.baseTermIds = new ElementDedupMap();
+		this.baseTerms = new HashMap<>();
+		this.functionTermIds = new ElementDedupMap();
+		this.functionTerms = new HashMap<>();
+		this.edgeReifiedTermIds = new HashMap<>();
+		this.reifiedTermEdgeIds = new HashMap<>();
+		this.namespaces = new TreeMap<>();
+		this.prefixNamespaces = new TreeMap<>();
+		this.uriNamespaces = new HashMap<>();
+		this.nodes = new LinkedHashMap<>();
+		this.externalIdNodeIds = new ElementDedupMap();
+		this.functionTermNodeIds = new HashMap<>();
+		this.reifiedTermNodeIds = new HashMap<>();
+		this.citationIds = new ElementDedupMap();
+		this.citations = new TreeMap<>();
+		this.supportIds = new ElementDedupMap();
+		this.supports = new TreeMap<>();
+	}
+	
+	@Override
+	public void createNewNetwork(String ownerName, String networkTitle, String version) {
+		network = new NetworkSummary();
+		network.setName(networkTitle);
+		network.setVersion(version);
+		if ( network.getProperties() == null)
+			network.setProperties(new ArrayList<NdexPropertyValuePair>());
+	}
+
+	@Override
+	public NetworkSummary getCurrentNetwork() {
+		return network;
+	}
+
+	/**
+	 * The network attributes are written by finish().
+	 */
+	@Override
+	public void updateNetworkSummary() {
+		// nothing to update.
+	}
+
+	@Override
+	public void setNetworkTitleAndDescription(String title, String description) {
+		if ( title != null)
+			network.setName(title);
+		network.setDescription(description != null ? description : "");
+	}
+
+	@Override
+	public void setNetworkProperties(Collection<NdexPropertyValuePair> properties,
+			Collection<SimplePropertyValuePair> presentationProperties) {
+		if ( properties != null)
+			network.getProperties().addAll(properties);
+	}
+
+	/**
+	 * The converter writes the source format itself.
+	 */
+	@Override
+	public void setNetworkSourceFormat(NetworkSourceFormat fmt) {
+		// nothing to do.
+	}
+
+	@Override
+	public void commit() {
+		// nothing is saved before finish().
+	}
+
+	@Override
+	public Namespace getNamespace(RawNamespace rns) throws NdexException {
+		if ( rns.getPrefix() == null) {
+			Namespace ns = uriNamespaces.get(rns.getURI());
+			if ( ns != null)
+				return ns;
+		}
+		
+		if ( rns.getURI() == null) {
+			Namespace ns = prefixNamespaces.get(rns.getPrefix());
+			if ( ns != null)
+				return ns;
+		}
+		
+		Namespace ns = namespaces.get(rns);
+		if ( ns != null) {
+			if (rns.getPrefix() != null && rns.getURI() != null && !ns.getUri().equals(rns.getURI()))
+				throw new NdexException("Namespace conflict: prefix " + rns.getPrefix() + " maps to  " + 
+						ns.getUri() + " and " + rns.getURI());
+			return ns;
+		}
+		
+		if ( rns.getPrefix() != null && rns.getURI() == null)
+			throw new NdexException ("Prefix " + rns.getPrefix() + " is not defined." );
+
+		ns = new Namespace();
+		ns.setPrefix(rns.getPrefix());
+		ns.setUri(rns.getURI());
+		ns.setId(++termIdCounter);
+		if ( ns.getPrefix() != null)
+			prefixNamespaces.put(ns.getPrefix(), ns);
+		if ( ns.getUri() != null)
+			uriNamespaces.put(ns.getUri(), ns);
+		namespaces.put(rns, ns);
+		return ns;
+	}
+
+	@Override
+	public Long getBaseTermId(String termString) throws NdexException {
+		if ( termString == null)
+			throw new NdexException ("Null value found when creating base term.");
+		Long termId = baseTermIds.get(termString);
+		if ( termId == null) {
+			termId = ++termIdCounter;
+			baseTermIds.put(termString, termId);
+			baseTerms.put(termId, termString);
+		}
+		return termId;
+	}
+
+	@Override
+	public Long getBaseTermId(Namespace namespace, String localTerm) throws NdexException {
+		if ( namespace.getPrefix() != null)
+			return getBaseTermId(namespace.getPrefix() + ":" + localTerm);
+		return getBaseTermId(namespace.getUri() + localTerm);
+	}
+
+	@Override
+	public Long getFunctionTermId(Long baseTermId, List<Long> termList) {
+		String key = ElementDedupMap.canonicalKey(baseTermId, termList);
+		Long termId = functionTermIds.get(key);
+		if ( termId == null) {
+			termId = ++termIdCounter;
+			functionTermIds.put(key, termId);
+			functionTerms.put(termId, new FunctionTerm(baseTermId, new ArrayList<>(termList)));
+		}
+		return termId;
+	}
+
+	@Override
+	public Long getReifiedEdgeTermIdFromEdgeId(Long edgeId) {
+		Long termId = edgeReifiedTermIds.get(edgeId);
+		if ( termId == null) {
+			termId = ++termIdCounter;
+			edgeReifiedTermIds.put(edgeId, termId);
+			reifiedTermEdgeIds.put(termId, edgeId);
+		}
+		return termId;
+	}
+
+	@Override
+	public Long findOrCreateNodeIdByExternalId(String id, String nodeName) {
+		Long nodeId = externalIdNodeIds.get(id);
+		if ( nodeId == null) {
+			nodeId = converter.nextNodeId();
+			nodes.put(nodeId, new PendingNode(nodeName));
+			externalIdNodeIds.put(id, nodeId);
+		}
+		return nodeId;
+	}
+
+	@Override
+	public Long getNodeIdByFunctionTermId(Long functionTermId) {
+		Long nodeId = functionTermNodeIds.get(functionTermId);
+		if ( nodeId == null) {
+			nodeId = createNodeFromTermId(functionTermId, "FunctionTerm");
+			functionTermNodeIds.put(functionTermId, nodeId);
+		}
+		return nodeId;
+	}
+
+	@Override
+	public Long getNodeIdByReifiedEdgeTermId(Long reifiedEdgeTermId) {
+		Long nodeId = reifiedTermNodeIds.get(reifiedEdgeTermId);
+		if ( nodeId == null) {
+			nodeId = createNodeFromTermId(reifiedEdgeTermId, "ReifiedEdgeTerm");
+			reifiedTermNodeIds.put(reifiedEdgeTermId, nodeId);
+		}
+		return nodeId;
+	}
+
+	@Override
+	public Long createNodeFromTermId(Long termId, String termType) {
+		Long nodeId = converter.nextNodeId();
+		PendingNode node = new PendingNode(null);
+		node.termId = termId;
+		node.termType = termType;
+		nodes.put(nodeId, node);
+		return nodeId;
+	}
+
+	@Override
+	public void setNodeRepresentBaseTerm(long nodeId, long baseTermId) throws ExecutionException {
+		PendingNode node = getNode(nodeId);
+		node.termId = baseTermId;
+		node.termType = baseTermType;
+	}
+
+	@Override
+	public void addMetaDataToNode(Long nodeId, Long supportId, Long citationId, Map<String, String> annotations)
+			throws ExecutionException {
+		getNode(nodeId);
+		try {
+			if ( supportId != null)
+				converter.write(new NodeSupportLinksElement(nodeId, Collections.singletonList(supportId)));
+			if ( citationId != null)
+				converter.write(new NodeCitationLinksElement(nodeId, Collections.singletonList(citationId)));
+			if ( annotations != null) {
+				for ( Map.Entry<String, String> e : annotations.entrySet())
+					converter.write(new NodeAttributesElement(null, nodeId, e.getKey(), e.getValue(), 
+							ATTRIBUTE_DATA_TYPE.STRING));
+			}
+		} catch (NdexException | IOException e) {
+			throw new ExecutionException(e);
+		}
+	}
+
+	@Override
+	public Long createEdge(Long subjectNodeId, Long objectNodeId, Long predicateId, Long supportId, Long citationId,
+			Map<String, String> annotation) throws NdexException, ExecutionException {
+		List<NdexPropertyValuePair> props = null;
+		if ( annotation != null && annotation.size() > 0) {
+			props = new ArrayList<>(annotation.size());
+			for (Map.Entry<String, String> e : annotation.entrySet()) {
+				props.add(new NdexPropertyValuePair(e.getKey(), e.getValue()));
+			}
+		}
+		return createEdge(subjectNodeId, objectNodeId, predicateId, supportId, citationId, props);
+	}
+
+	@Override
+	public Long createEdge(Long subjectNodeId, Long objectNodeId, Long predicateId, Long supportId, Long citationId,
+			List<NdexPropertyValuePair> properties) throws NdexException, ExecutionException {
+		if ( subjectNodeId == null || objectNodeId == null || predicateId == null)
+			throw new NdexException("Null value for one of the parameter when creating Edge.");
+		
+		CancellationToken.checkpoint();
+		try {
+			Long edgeId = converter.createEdge(subjectNodeId, objectNodeId, baseTerms.get(predicateId));
+			if ( citationId != null)
+				converter.write(new EdgeCitationLinksElement(edgeId, Collections.singletonList(citationId)));
+			if ( supportId != null)
+				converter.write(new EdgeSupportLinksElement(edgeId, Collections.singletonList(supportId)));
+			if ( properties != null) {
+				for ( NdexPropertyValuePair p : properties)
+					writeEdgeAttribute(edgeId, p.getPredicateString(), p.getValue(), p.getDataType());
+			}
+			return edgeId;
+		} catch (IOException e) {
+			throw new NdexException("Failed to write edge: " + e.getMessage());
+		}
+	}
+
+	@Override
+	public Long getCitationId(String title, String idType, String identifier, List<String> contributors)
+			throws NdexException {
+		if ( title == null && identifier == null)
+			throw new NdexException ("Invalid Citation object: title and identifier are both null.");
+
+		// same matching rule as NdexPersistenceService.
+		String key = (identifier != null && idType != null) ? 
+				ElementDedupMap.canonicalKey(identifier, idType, null) :
+				ElementDedupMap.canonicalKey(identifier, idType, title);
+		Long citationId = citationIds.get(key);
+		if ( citationId == null) {
+			citationId = converter.nextCitationId();
+			CitationElement citation = new CitationElement();
+			citation.setId(citationId);
+			citation.setTitle(title);
+			citation.setCitationType(idType);
+			citation.setIdentifier(identifier);
+			if ( contributors != null && !contributors.isEmpty())
+				citation.setContributor(contributors);
+			citations.put(citationId, citation);
+			citationIds.put(key, citationId);
+		}
+		return citationId;
+	}
+
+	@Override
+	public Long getSupportId(String literal, Long citationId) {
+		long cId = citationId != null ? citationId.longValue() : -1;
+		String key = ElementDedupMap.canonicalKey(cId, literal);
+		Long supportId = supportIds.get(key);
+		if ( supportId == null) {
+			supportId = converter.nextSupportId();
+			SupportElement support = new SupportElement();
+			support.setId(supportId);
+			support.setText(literal);
+			support.setCitationId(citationId);
+			supports.put(supportId, support);
+			supportIds.put(key, supportId);
+		}
+		return supportId;
+	}
+
+	@Override
+	public void addNodeProperty(Long nodeId, String key, String value, String type) throws ExecutionException {
+		getNode(nodeId);
+		ATTRIBUTE_DATA_TYPE t = toDataType(type);
+		try {
+			converter.write(AttributesAspectUtils.isListType(t) ?
+					NodeAttributesElement.createInstanceWithMultipleValues(null, nodeId, key, value, t) :
+					new NodeAttributesElement(null, nodeId, key, value, t));
+		} catch (NdexException | IOException e) {
+			throw new ExecutionException(e);
+		}
+	}
+
+	@Override
+	public void addEdgeProperty(Long edgeId, String key, String value, String type) throws ExecutionException {
+		if ( edgeId == null)
+			throw new ExecutionException(new NdexException("Edge id is null when adding property " + key));
+		try {
+			writeEdgeAttribute(edgeId, key, value, type);
+		} catch (NdexException | IOException e) {
+			throw new ExecutionException(e);
+		}
+	}
+
+	@Override
+	public void addCitationProperty(Long citationId, String key, String value, String type) throws ExecutionException {
+		CitationElement citation = citationId == null ? null : citations.get(citationId);
+		if ( citation == null)
+			throw new ExecutionException(new NdexException("Citation " + citationId + " not found."));
+		citation.setProps(addAttribute(citation.getProps(), key, value, type));
+	}
+
+	@Override
+	public void addSupportProperty(Long supportId, String key, String value, String type) throws ExecutionException {
+		SupportElement support = supportId == null ? null : supports.get(supportId);
+		if ( support == null)
+			throw new ExecutionException(new NdexException("Support " + supportId + " not found."));
+		support.setProps(addAttribute(support.getProps(), key, value, type));
+	}
+
+	/**
+	 * CX namespaces have no properties, the same as in the CX export of the legacy networks.
+	 */
+	@Override
+	public void addNamespaceProperty(Long namespaceId, String key, String value, String type) {
+		// dropped.
+	}
+
+	/**
+	 * Write the network attributes and the elements that were kept in memory. 
+	 */
+	void finish() throws NdexException, IOException {
+		if ( network != null) {
+			if ( network.getName() != null)
+				converter.writeNetworkAttribute(NdexClasses.Network_P_name, network.getName());
+			if ( network.getDescription() != null)
+				converter.writeNetworkAttribute(NdexClasses.Network_P_desc, network.getDescription());
+			if ( network.getVersion() != null)
+				converter.writeNetworkAttribute(NdexClasses.Network_P_version, network.getVersion());
+			for ( NdexPropertyValuePair p : network.getProperties()) {
+				if ( NdexClasses.Network_P_source_format.equals(p.getPredicateString()))
+					continue;
+				ATTRIBUTE_DATA_TYPE t = toDataType(p.getDataType());
+				converter.write(AttributesAspectUtils.isListType(t) ?
+						NetworkAttributesElement.createInstanceWithMultipleValues(p.getSubNetworkId(), 
+								p.getPredicateString(), p.getValue(), t) :
+						NetworkAttributesElement.createInstanceWithSingleValue(p.getSubNetworkId(), 
+								p.getPredicateString(), p.getValue(), t));
+			}
+		}
+
+		if ( !prefixNamespaces.isEmpty()) {
+			NamespacesElement prefixTable = new NamespacesElement();
+			for ( Namespace ns : prefixNamespaces.values())
+				prefixTable.put(ns.getPrefix(), ns.getUri());
+			converter.write(prefixTable);
+		}
+		
+		for ( CitationElement citation : citations.values())
+			converter.write(citation);
+		for ( SupportElement support : supports.values())
+			converter.write(support);
+		
+		for ( Map.Entry<Long, PendingNode> e : nodes.entrySet()) {
+			PendingNode node = e.getValue();
+			String represents = baseTermType.equals(node.termType) ? baseTerms.get(node.termId) : null;
+			converter.write(new NodesElement(e.getKey(), node.name, represents));
+			if ( node.termId == null || represents != null)
+				continue;
+			if ( functionTerms.containsKey(node.termId))
+				converter.write(getFunctionTermElement(e.getKey(), node.termId));
+			else if ( reifiedTermEdgeIds.containsKey(node.termId))
+				converter.write(new ReifiedEdgeElement(e.getKey(), reifiedTermEdgeIds.get(node.termId)));
+		}
+	}
+	
+	private FunctionTermElement getFunctionTermElement(Long nodeId, Long functionTermId) {
+		FunctionTerm term = functionTerms.get(functionTermId);
+		List<Object> args = new ArrayList<>(term.argumentIds.size());
+		for ( Long argId : term.argumentIds) {
+			String baseTerm = baseTerms.get(argId);
+			args.add(baseTerm != null ? baseTerm : getFunctionTermElement(null, argId));
+		}
+		return new FunctionTermElement(nodeId, baseTerms.get(term.functionId), args);
+	}
+
+	private PendingNode getNode(Long nodeId) throws ExecutionException {
+		PendingNode node = nodeId == null ? null : nodes.get(nodeId);
+		if ( node == null)
+			throw new ExecutionException(new NdexException("Node " + nodeId + " not found."));
+		return node;
+	}
+	
+	private void writeEdgeAttribute(Long edgeId, String key, String value, String type) throws NdexException, IOException {
+		ATTRIBUTE_DATA_TYPE t = toDataType(type);
+		converter.write(AttributesAspectUtils.isListType(t) ?
+				EdgeAttributesElement.createInstanceWithMultipleValues(null, edgeId, key, value, t) :
+				new EdgeAttributesElement(null, edgeId, key, value, t));
+	}
+
+	private static List<CXSimpleAttribute> addAttribute(List<CXSimpleAttribute> attributes, String key, 
+			String value, String type) {
+		List<CXSimpleAttribute> result = attributes == null ? new ArrayList<CXSimpleAttribute>() : attributes;
+		NdexPropertyValuePair p = new NdexPropertyValuePair(key, value);
+		if ( type != null)
+			p.setDataType(type);
+		result.add(new CXSimpleAttribute(p));
+		return result;
+	}
+
+	private static ATTRIBUTE_DATA_TYPE toDataType(String type) {
+		if ( type == null || type.isEmpty())
+			return ATTRIBUTE_DATA_TYPE.STRING;
+		try {
+			return AttributesAspectUtils.toDataType(type.toLowerCase());
+		} catch (IllegalArgumentException e) {
+			logger.warning("Property type " + type + " unsupported. Converting it to String in CX output. Error message: " + e.getMessage());
+			return ATTRIBUTE_DATA_TYPE.STRING;
+		}
+	}
+
+}
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.UUID;
 
 import org.ndexbio.common.access.NdexDatabase;
+import org.ndexbio.common.cx.CXNetworkConverter;
 import org.ndexbio.common.models.dao.orientdb.Helper;
 import org.ndexbio.common.models.dao.orientdb.NetworkDocDAO;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
@@ -54,17 +55,33 @@ public class CXParser implements IParsingEngine {
 	private UUID uuid;
 	private String description;
 
+	private CXNetworkConverter converter;
+
 	public CXParser(String fn, String ownerName, String description) {
 		this.fileName = fn;
 		this.ownerAccountName = ownerName;
 		this.description = description;
+		this.converter = null;
+	}
+
+	/**
+	 * Load a network in another format through the CX loader. 
+	 * @param converter converts the uploaded file to CX.
+	 */
+	public CXParser(CXNetworkConverter converter, String ownerName, String description) {
+		this.fileName = null;
+		this.ownerAccountName = ownerName;
+		this.description = description;
+		this.converter = converter;
 	}
 
 	@Override
 	public void parseFile() throws NdexException  {
 
 		
-		try (CXNetworkLoader loader = new CXNetworkLoader(new FileInputStream(fileName), ownerAccountName)) {
+		try (CXNetworkLoader loader = converter == null ? 
+				new CXNetworkLoader(new FileInputStream(fileName), ownerAccountName) :
+				new CXNetworkLoader(converter, ownerAccountName)) {
 			uuid = loader.persistCXNetwork();
 			
 			try (NetworkDocDAO dao = new NetworkDocDAO()) {
@@ -90,7 +107,7 @@ public class CXParser implements IParsingEngine {
 			}
 		} catch ( Exception e) {
 			e.printStackTrace();
-			throw new NdexException ("Failed to load CX file. " + e.getMessage());
+			throw new NdexException ("Failed to load " + (converter == null ? "CX file. " : "file. ") + e.getMessage());
 		} 
 		
 	}
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+
+/**
+ * Converts the first worksheet of an .xls or .xlsx workbook to CX. The interpretation of the rows is 
+ * the same as in ExcelParser.
+ */
+public class ExcelCXConverter extends AbstractCXNetworkConverter {
+
+	private final File excelFile;
+
+	public ExcelCXConverter(File excelFile, String networkName) {
+		super(networkName);
+		this.excelFile = excelFile;
+	}
+
+	@Override
+	protected NetworkSourceFormat getSourceFormat() {
+		return NetworkSourceFormat.EXCEL;
+	}
+
+	@Override
+	protected void writeNetwork() throws NdexException, IOException, ExecutionException {
+		// columns are source, relation, target
+		new ExcelRowReader(excelFile, 3).run(new ExcelRowReader.RowHandler() {
+			// The first row should have the headers, skip them.
+			private boolean headerRow = true;
+
+			@Override
+			public void handleRow(int rowNumber, String[] cells) throws NdexException, ExecutionException {
+				if ( headerRow) {
+					headerRow = false;
+					return;
+				}
+				CancellationToken.checkpoint();
+				try {
+					if (!cells[0].isEmpty() && !cells[1].isEmpty() && !cells[2].isEmpty()) 
+						createEdge(addNode(cells[0]), addNode(cells[2]), cells[1]);
+					else if (!cells[0].isEmpty())
+						addNode(cells[0]);
+				} catch (IOException e) {
+					throw new NdexException("Failed to write row " + rowNumber + ": " + e.getMessage());
+				}
+			}
+		});
+	}
+
+}
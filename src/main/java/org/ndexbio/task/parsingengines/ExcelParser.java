@@ -31,27 +31,19 @@
 package org.ndexbio.task.parsingengines;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
 
-import org.apache.poi.hssf.usermodel.HSSFSheet;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.ndexbio.common.NdexClasses;
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.util.CancellationToken;
 import org.ndexbio.common.util.TermStringType;
 import org.ndexbio.common.util.TermUtilities;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.exceptions.ObjectNotFoundException;
-import org.ndexbio.model.object.NdexPropertyValuePair;
-import org.ndexbio.model.object.network.Network;
 import org.ndexbio.model.object.network.NetworkSourceFormat;
 
 import com.google.common.base.Preconditions;
@@ -69,11 +61,15 @@ public class ExcelParser implements IParsingEngine
     private final File excelFile;
     private final String excelURI;
     private final List<String> msgBuffer;
-    private Network network;
     private String ownerName;
   //  private ExcelNetworkService networkService;
     private NdexPersistenceService networkService;
 
+    private static Logger logger = Logger.getLogger("ExcelParser");
+
+    // rows loaded between commits.
+    private static final int batchSize = 2000;
+
 
     public ExcelParser(String fileName, String ownerName, NdexDatabase db) throws Exception
     {
@@ -98,7 +94,10 @@ public class ExcelParser implements IParsingEngine
     * The first worksheet is the data
     * 
     * If there is a second worksheet, it holds meta information
-    * in a property-value format.
+    * in a property-value format. (not used yet)
+    * 
+    * The worksheet is read row by row with the POI event readers, so
+    * both .xls and .xlsx workbooks are loaded without holding them in memory.
      * @throws NdexException 
      * @throws ObjectNotFoundException 
     **************************************************************************/
@@ -107,53 +106,17 @@ public class ExcelParser implements IParsingEngine
     {
 
         this.getMsgBuffer().add("Parsing lines from " + this.getExcelURI());
-        // BufferedReader bufferedReader;
-        FileInputStream excelFileStream;
-        try
-        {
-            // bufferedReader = new BufferedReader(new
-            // FileReader(this.getExcelFile()));
-            excelFileStream = new FileInputStream(this.getExcelFile());
-        }
-        catch (FileNotFoundException e1)
+        if ( !this.getExcelFile().exists())
         {
             this.getMsgBuffer().add("Can't find file " + this.getExcelURI());
-            return;
+            throw new ObjectNotFoundException("Can't find file " + this.getExcelFile().getName());
         }
 
         try
         {
-            // Get the workbook instance for XLS file
-            HSSFWorkbook workbook = new HSSFWorkbook(excelFileStream);
-
-            int sheetCount = workbook.getNumberOfSheets();
-
-            if (sheetCount == 0)
-                throw new Exception("Empty Excel Workbook");
-
-            // Get first sheet from the workbook - this is the data
-            HSSFSheet sheet = workbook.getSheetAt(0);
-
-
-            // Get second sheet from the workbook
-            // If it exists, it is the metaData
-            HSSFSheet metaDataSheet = null;
-            
-            if (sheetCount > 1)
-            {
-                metaDataSheet = workbook.getSheetAt(1);
-            }
-
             createNetwork();
 
-            if (null == metaDataSheet)
-            {
-                this.buildNetworkFromWorksheet(sheet);
-            }
-            else
-            {
-                this.buildNetworkFromWorkSheet(sheet, metaDataSheet);
-            }
+            processDataSheet();
 
             // persist the network domain model, commit the transaction, close
             // database connection
@@ -161,13 +124,20 @@ public class ExcelParser implements IParsingEngine
 			this.networkService.setNetworkSourceFormat(NetworkSourceFormat.EXCEL);
 
             this.networkService.persistNetwork();
+            this.networkService.commit();
         }
         catch (Exception e)
         {
             // rollback current transaction and close the database connection
-            this.networkService.abortTransaction();
             e.printStackTrace();
+            this.networkService.abortTransaction();
+            throw new NdexException("Error occurred when loading file " +
+					this.excelFile.getName() + ". " + e.getMessage() );
         } 
+        finally
+        {
+            this.networkService.close();
+        }
     }
   
     private void createNetwork() throws Exception
@@ -176,7 +146,7 @@ public class ExcelParser implements IParsingEngine
         this.networkService.createNewNetwork(ownerName, networkTitle, null);
         		
         //this.networkService.setFormat("NDEX_EXCEL");
-        this.getMsgBuffer().add("New Excel: " + network.getName());
+        this.getMsgBuffer().add("New Excel: " + networkTitle);
     }
 
 
@@ -215,70 +185,42 @@ public class ExcelParser implements IParsingEngine
         return excelURI;
     }
 
-    private void buildNetworkFromWorksheet(HSSFSheet sheet) throws ExecutionException, NdexException
-    {
-        processDataSheet(sheet);
-    }
-
-    private void buildNetworkFromWorkSheet(HSSFSheet dataSheet, HSSFSheet metaDataSheet) throws ExecutionException, NdexException
+    private void processDataSheet() throws IOException, ExecutionException, NdexException
     {
-        // Iterate over the first 100(?) rows looking for values in col 0
-        // Those will be the properties
-        // Values in col 1 will be values
-        // We will take the properties that we know and comment on those that
-        // are
-        // not known. Rows with cell 0 blank are ignored.
-        Iterator<Row> rowIterator = metaDataSheet.iterator();
-
-        // TODO: use metaDataSheet
-
-        processDataSheet(dataSheet);
-
-    }
-
-    private void processDataSheet(HSSFSheet sheet) throws ExecutionException, NdexException
-    {
-        Iterator<Row> rowIterator = sheet.iterator();
-
-        // The first row should have the headers, skip them.
-        Row headerRow = rowIterator.next();
         // We are looking for the column names "source", "target", "relation"
-
         // TODO add support for other columns
-
-        // Iterate over the remaining rows to load each edge
-        while (rowIterator.hasNext())
-        {
-            Row row = rowIterator.next();
-            String subjectIdentifier = getCellText(row.getCell(0));
-            String predicateIdentifier = getCellText(row.getCell(1));
-            String objectIdentifier = getCellText(row.getCell(2));
-
-            if (!subjectIdentifier.isEmpty() && !predicateIdentifier.isEmpty() && !objectIdentifier.isEmpty())
-            {
-                addEdge(subjectIdentifier, predicateIdentifier, objectIdentifier);
-            }
-            else if (!subjectIdentifier.isEmpty())
-            {
-                addNode(subjectIdentifier);
-            }
-
-        }
-    }
-
-
-    private String getCellText(Cell cell)
-    {
-        switch (cell.getCellType())
-        {
-            case Cell.CELL_TYPE_BOOLEAN:
-                return Boolean.toString(cell.getBooleanCellValue());
-            case Cell.CELL_TYPE_NUMERIC:
-                return Double.toString(cell.getNumericCellValue());
-            case Cell.CELL_TYPE_STRING:
-                return cell.getStringCellValue();
-        }
-        return "";
+        new ExcelRowReader(this.getExcelFile(), 3).run(new ExcelRowReader.RowHandler() {
+        	// The first row should have the headers, skip them.
+        	private boolean headerRow = true;
+        	private int counter = 0;
+
+        	@Override
+        	public void handleRow(int rowNumber, String[] cells) throws NdexException, ExecutionException {
+        		if ( headerRow) {
+        			headerRow = false;
+        			return;
+        		}
+        		String subjectIdentifier = cells[0];
+        		String predicateIdentifier = cells[1];
+        		String objectIdentifier = cells[2];
+
+        		if (!subjectIdentifier.isEmpty() && !predicateIdentifier.isEmpty() && !objectIdentifier.isEmpty())
+        		{
+        			addEdge(subjectIdentifier, predicateIdentifier, objectIdentifier);
+        		}
+        		else if (!subjectIdentifier.isEmpty())
+        		{
+        			addNode(subjectIdentifier);
+        		}
+
+        		counter ++;
+        		if ( counter % batchSize == 0 ) {
+        			logger.info("processed " + counter + " rows so far. commit this batch.");
+        			networkService.commit();
+        			CancellationToken.checkpoint();
+        		}
+        	}
+        });
     }
 
 
@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.ndexbio.model.exceptions.NdexException;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * Reads the rows of the first worksheet of an Excel workbook with the POI event APIs, so a row is handed
+ * to the caller as soon as it is read and the workbook is never held in memory. Both the binary .xls format 
+ * and the OOXML .xlsx format are supported; the format is detected from the content of the file, not from 
+ * its name. Only the shared string table of the workbook is kept in memory.
+ * 
+ * Each row is returned as an array of the text of its first few cells. Missing and blank cells are empty 
+ * strings, and rows without any cells are skipped. Numeric cells are formatted with the number format of
+ * the cell in both formats, the way Excel displays them (1 rather than 1.0).
+ */
+public class ExcelRowReader {
+
+	public interface RowHandler {
+		void handleRow(int rowNumber, String[] cells) throws NdexException, ExecutionException;
+	}
+
+	private final File excelFile;
+	private final int columnCount;
+
+	/**
+	 * @param columnCount number of cells returned for each row, starting from the first column.
+	 */
+	public ExcelRowReader(File excelFile, int columnCount) {
+		this.excelFile = excelFile;
+		this.columnCount = columnCount;
+	}
+
+	public void run(RowHandler handler) throws IOException, NdexException, ExecutionException {
+		if ( isOOXML(excelFile)) 
+			readXSSF(handler);
+		else
+			readHSSF(handler);
+	}
+
+	private static boolean isOOXML(File f) throws IOException {
+		// .xlsx files are zip archives, .xls files are OLE2 documents.
+		byte[] header = new byte[4];
+		try (InputStream in = new FileInputStream(f)) {
+			int n = in.read(header);
+			return n == 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4;
+		}
+	}
+
+	/*
+	 * Collects the cells of the current row and hands the row over when the next row starts. 
+	 */
+	private class RowCollector {
+		private final RowHandler handler;
+		private String[] cells;
+		private int currentRow;
+		private boolean hasCells;
+
+		RowCollector(RowHandler handler) {
+			this.handler = handler;
+			this.cells = new String[columnCount];
+			this.currentRow = -1;
+			this.hasCells = false;
+		}
+
+		void cell(int row, int column, String value) throws NdexException, ExecutionException {
+			if ( row != currentRow) {
+				flush();
+				currentRow = row;
+			}
+			if ( column >= columnCount || value == null)
+				return;
+			cells[column] = value;
+			hasCells = true;
+		}
+
+		void flush() throws NdexException, ExecutionException {
+			if ( hasCells) {
+				for ( int i = 0 ; i < cells.length; i++) {
+					if ( cells[i] == null)
+						cells[i] = "";
+				}
+				handler.handleRow(currentRow, cells);
+				cells = new String[columnCount];
+				hasCells = false;
+			}
+		}
+	}
+
+	/*
+	 * The event APIs don't let us throw checked exceptions from the callbacks, so they are carried
+	 * out in this wrapper and unwrapped again in run().
+	 */
+	private static class HandlerException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		HandlerException(Exception cause) {
+			super(cause);
+		}
+
+		void rethrow() throws NdexException, ExecutionException {
+			if ( getCause() instanceof NdexException)
+				throw (NdexException) getCause();
+			throw (ExecutionException) getCause();
+		}
+	}
+
+	private void readHSSF(final RowHandler handler) throws IOException, NdexException, ExecutionException {
+		final RowCollector collector = new RowCollector(handler);
+
+		// keeps track of the number formats and cell styles of the workbook, so numeric cells can be 
+		// formatted the same way XSSFSheetXMLHandler formats them for .xlsx files.
+		final FormatTrackingHSSFListener formats = new FormatTrackingHSSFListener(new HSSFListener() {
+			@Override
+			public void processRecord(Record record) {
+				// records are dispatched by the listener below.
+			}
+		});
+
+		AbortableHSSFListener listener = new AbortableHSSFListener() {
+			private SSTRecord sst;
+			private int sheetIndex = -1;
+			private FormulaRecord pendingStringFormula;
+
+			@Override
+			public short abortableProcessRecord(Record record) throws HSSFUserException {
+				formats.processRecord(record);
+				try {
+					switch (record.getSid()) {
+					case BOFRecord.sid:
+						if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET)
+							sheetIndex++;
+						break;
+					case EOFRecord.sid:
+						if ( sheetIndex == 0) {
+							collector.flush();
+							return 1;  // we are only interested in the first worksheet.
+						}
+						break;
+					case SSTRecord.sid:
+						sst = (SSTRecord) record;
+						break;
+					case LabelSSTRecord.sid:
+						if ( sheetIndex == 0) {
+							LabelSSTRecord r = (LabelSSTRecord) record;
+							addCell(r, sst.getString(r.getSSTIndex()).getString());
+						}
+						break;
+					case LabelRecord.sid:
+						if ( sheetIndex == 0) 
+							addCell((LabelRecord) record, ((LabelRecord) record).getValue());
+						break;
+					case NumberRecord.sid:
+						if ( sheetIndex == 0) 
+							addCell((NumberRecord) record, formats.formatNumberDateCell((NumberRecord) record));
+						break;
+					case BoolErrRecord.sid:
+						if ( sheetIndex == 0 && ((BoolErrRecord) record).isBoolean()) 
+							addCell((BoolErrRecord) record, Boolean.toString(((BoolErrRecord) record).getBooleanValue()));
+						break;
+					case FormulaRecord.sid:
+						if ( sheetIndex == 0) {
+							FormulaRecord r = (FormulaRecord) record;
+							if ( r.hasCachedResultString())
+								pendingStringFormula = r;   // the value is in the next StringRecord
+							else if ( r.getCachedResultType() == Cell.CELL_TYPE_NUMERIC)
+								addCell(r, formats.formatNumberDateCell(r));
+							else if ( r.getCachedResultType() == Cell.CELL_TYPE_BOOLEAN)
+								addCell(r, Boolean.toString(r.getCachedBooleanValue()));
+						}
+						break;
+					case StringRecord.sid:
+						if ( pendingStringFormula != null) {
+							addCell(pendingStringFormula, ((StringRecord) record).getString());
+							pendingStringFormula = null;
+						}
+						break;
+					default:
+						break;
+					}
+				} catch (NdexException | ExecutionException e) {
+					throw new HSSFUserException(e.getMessage(), e);
+				}
+				return 0;
+			}
+
+			private void addCell(CellValueRecordInterface r, String value) throws NdexException, ExecutionException {
+				collector.cell(r.getRow(), r.getColumn(), value);
+			}
+		};
+
+		HSSFRequest request = new HSSFRequest();
+		request.addListenerForAllRecords(listener);
+
+		NPOIFSFileSystem fs = new NPOIFSFileSystem(excelFile);
+		try (InputStream workbook = fs.getRoot().createDocumentInputStream("Workbook")) {
+			new HSSFEventFactory().abortableProcessEvents(request, workbook);
+		} catch (HSSFUserException e) {
+			Throwable cause = e.getReason();
+			if ( cause instanceof NdexException)
+				throw (NdexException) cause;
+			if ( cause instanceof ExecutionException)
+				throw (ExecutionException) cause;
+			throw new NdexException("Failed to read Excel file " + excelFile.getName() + ": " + e.getMessage());
+		} finally {
+			fs.close();
+		}
+	}
+
+	private void readXSSF(final RowHandler handler) throws IOException, NdexException, ExecutionException {
+		final RowCollector collector = new RowCollector(handler);
+
+		SheetContentsHandler contentsHandler = new SheetContentsHandler() {
+			private int currentRow;
+
+			@Override
+			public void startRow(int rowNum) {
+				currentRow = rowNum;
+			}
+
+			@Override
+			public void endRow() {
+				try {
+					collector.flush();
+				} catch (NdexException | ExecutionException e) {
+					throw new HandlerException(e);
+				}
+			}
+
+			@Override
+			public void cell(String cellReference, String formattedValue) {
+				try {
+					int column = cellReference == null ? 0 : new CellReference(cellReference).getCol();
+					collector.cell(currentRow, column, formattedValue);
+				} catch (NdexException | ExecutionException e) {
+					throw new HandlerException(e);
+				}
+			}
+
+			@Override
+			public void headerFooter(String text, boolean isHeader, String tagName) {
+				// not used.
+			}
+		};
+
+		OPCPackage pkg = null;
+		try {
+			pkg = OPCPackage.open(excelFile.getAbsolutePath(), PackageAccess.READ);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			XSSFReader xssfReader = new XSSFReader(pkg);
+			StylesTable styles = xssfReader.getStylesTable();
+
+			Iterator<InputStream> sheets = xssfReader.getSheetsData();
+			if ( !sheets.hasNext())
+				throw new NdexException("Empty Excel Workbook");
+
+			try (InputStream sheet = sheets.next()) {
+				SAXParserFactory factory = SAXParserFactory.newInstance();
+				factory.setNamespaceAware(true);
+				XMLReader reader = factory.newSAXParser().getXMLReader();
+				reader.setContentHandler(new XSSFSheetXMLHandler(styles, strings, contentsHandler, false));
+				reader.parse(new InputSource(sheet));
+			}
+			collector.flush();
+		} catch (HandlerException e) {
+			e.rethrow();
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new NdexException("Failed to read Excel file " + excelFile.getName() + ": " + e.getMessage());
+		} finally {
+			if ( pkg != null)
+				pkg.revert();   // opened read only, nothing to save.
+		}
+	}
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cxio.core.CxWriter;
+import org.cxio.core.interfaces.AspectElement;
+import org.cxio.metadata.MetaDataCollection;
+import org.cxio.metadata.MetaDataElement;
+import org.cxio.misc.OpaqueElement;
+import org.ndexbio.common.cx.CXNetworkConverter;
+import org.ndexbio.common.models.dao.orientdb.CXNetworkExporter;
+import org.ndexbio.model.exceptions.NdexException;
+
+import com.google.common.io.Files;
+
+/**
+ * Command line tool that converts an upload file to CX with the same converters the server uses, without 
+ * touching the database. The CX can be written to a file or to stdout; timing and element counts are printed
+ * to stderr, so a failed upload can be checked (and profiled) offline, and large files can be converted ahead 
+ * of time and uploaded as CX.
+ */
+public class FileToCXConverter {
+
+	// elements of an aspect are buffered and written in fragments of up to this many elements, so a 
+	// converter that interleaves aspects doesn't produce a fragment per element.
+	private static final int maxFragmentSize = 10000;
+
+	private static class AspectStatistics {
+		// elements received from the converter.
+		private long elementCount;
+		private long fragmentCount;
+		// time spent writing the fragments of this aspect, in nanoseconds.
+		private long writeTime;
+	}
+
+	private final CXNetworkConverter converter;
+
+	// time spent in each stage, in nanoseconds. 
+	private long openTime;
+	private long convertTime;
+	private long writeTime;
+	private long metaDataTime;
+	// aspect name => statistics, in the order the aspects were first seen.
+	private final Map<String, AspectStatistics> aspectStatistics;
+	// aspect name => elements not written yet.
+	private final Map<String, List<AspectElement>> buffers;
+
+	public FileToCXConverter(CXNetworkConverter converter) {
+		this.converter = converter;
+		this.aspectStatistics = new LinkedHashMap<>();
+		this.buffers = new LinkedHashMap<>();
+	}
+
+	/**
+	 * Create the converter for the file and time it. Some converters check the file when they are created,
+	 * the XBEL converter validates the whole document for example. 
+	 */
+	public FileToCXConverter(File file) throws NdexException {
+		long start = System.nanoTime();
+		this.converter = getConverter(file);
+		this.openTime = System.nanoTime() - start;
+		this.aspectStatistics = new LinkedHashMap<>();
+		this.buffers = new LinkedHashMap<>();
+	}
+
+	/**
+	 * @return the converter for a file, chosen by its extension the same way FileUploadTask does.
+	 */
+	public static CXNetworkConverter getConverter(File file) throws NdexException {
+		String extension = Files.getFileExtension(file.getName()).toUpperCase().trim();
+		String networkName = Files.getNameWithoutExtension(file.getName());
+		switch (extension) {
+		case ("SIF"):
+			return new SifCXConverter(file, networkName);
+		case ("XGMML"):
+			return new XgmmlCXConverter(file, networkName);
+		case ("XBEL"):
+			return new XbelCXConverter(file);
+		case ("XLSX"):
+		case ("XLS"):
+			return new ExcelCXConverter(file, networkName);
+		case ("OWL"):
+			return new BioPAXCXConverter(file, networkName);
+		default:
+			throw new NdexException("No CX converter for file type " + extension + 
+					"; supported types are SIF, XGMML, XBEL, XLS, XLSX and OWL.");
+		}
+	}
+
+	public void convert(OutputStream out) throws IOException, NdexException {
+		final CxWriter cxwtr = CXNetworkExporter.getNdexCXWriter(out, false);
+		long start = System.nanoTime();
+		writeTime = 0;
+		metaDataTime = 0;
+		aspectStatistics.clear();
+		buffers.clear();
+
+		cxwtr.start();
+		try {
+			converter.convert(new CXNetworkConverter.ElementSink() {
+				@Override
+				public void write(AspectElement element) throws IOException {
+					long t = System.nanoTime();
+					String aspect = element.getAspectName();
+					AspectStatistics stats = aspectStatistics.get(aspect);
+					if ( stats == null) {
+						stats = new AspectStatistics();
+						aspectStatistics.put(aspect, stats);
+						buffers.put(aspect, new ArrayList<AspectElement>());
+					}
+					stats.elementCount++;
+					List<AspectElement> buffer = buffers.get(aspect);
+					buffer.add(element);
+					if ( buffer.size() >= maxFragmentSize)
+						writeFragment(cxwtr, aspect);
+					writeTime += System.nanoTime() - t;
+				}
+			});
+			long t = System.nanoTime();
+			for ( String aspect : buffers.keySet())
+				writeFragment(cxwtr, aspect);
+			writeTime += System.nanoTime() - t;
+			
+			t = System.nanoTime();
+			MetaDataCollection md = converter.getMetaData();
+			if ( md != null)
+				cxwtr.addPostMetaData(md);
+			cxwtr.end(true, "");
+			metaDataTime = System.nanoTime() - t;
+		} catch (IOException | NdexException e) {
+			cxwtr.end(false, "Error: " + e.getMessage());
+			throw e;
+		} finally {
+			convertTime = System.nanoTime() - start - writeTime - metaDataTime;
+		}
+	}
+
+	private void writeFragment(CxWriter cxwtr, String aspect) throws IOException {
+		List<AspectElement> buffer = buffers.get(aspect);
+		if ( buffer.isEmpty())
+			return;
+		long t = System.nanoTime();
+		cxwtr.startAspectFragment(aspect);
+		for ( AspectElement element : buffer) {
+			if ( element instanceof OpaqueElement)
+				cxwtr.writeOpaqueAspectElement(((OpaqueElement) element).toJsonString());
+			else
+				cxwtr.writeAspectElement(element);
+		}
+		cxwtr.endAspectFragment();
+		buffer.clear();
+		AspectStatistics stats = aspectStatistics.get(aspect);
+		stats.fragmentCount++;
+		stats.writeTime += System.nanoTime() - t;
+	}
+
+	long getElementCount(String aspect) {
+		AspectStatistics stats = aspectStatistics.get(aspect);
+		return stats == null ? 0 : stats.elementCount;
+	}
+
+	long getFragmentCount(String aspect) {
+		AspectStatistics stats = aspectStatistics.get(aspect);
+		return stats == null ? 0 : stats.fragmentCount;
+	}
+
+	public void printStatistics(PrintStream out) {
+		out.println("Open input:        " + openTime / 1000000 + " ms");
+		out.println("Read and convert:  " + convertTime / 1000000 + " ms");
+		out.println("Write elements:    " + writeTime / 1000000 + " ms");
+		out.println("Write metadata:    " + metaDataTime / 1000000 + " ms");
+		out.println("Total:             " + (openTime + convertTime + writeTime + metaDataTime) / 1000000 + " ms");
+		long total = 0;
+		for ( Map.Entry<String, AspectStatistics> e : aspectStatistics.entrySet()) {
+			AspectStatistics stats = e.getValue();
+			out.println("  " + e.getKey() + ": " + stats.elementCount + " elements, " + stats.fragmentCount + 
+					" fragments, written in " + stats.writeTime / 1000000 + " ms");
+			total += stats.elementCount;
+		}
+		out.println("  total elements: " + total);
+		MetaDataCollection md = converter.getMetaData();
+		if ( md != null) {
+			for ( MetaDataElement e : md.toCollection()) {
+				if ( e.getIdCounter() != null)
+					out.println("  idCounter " + e.getName() + ": " + e.getIdCounter());
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException, NdexException {
+		if ( args.length < 1 || args.length > 2) {
+			System.out.println("Usage: FileToCXConverter <input file> [<output file>]\n\n" + 
+					"The input file type is determined by its extension (sif, xgmml, xbel, xls, xlsx or owl).\n" +
+					"The CX network is written to stdout if no output file is given or it is \"-\".");
+			return;
+		}
+
+		File input = new File(args[0]);
+		if ( !input.isFile()) {
+			System.err.println("File " + args[0] + " does not exist.");
+			System.exit(1);
+		}
+
+		FileToCXConverter worker = new FileToCXConverter(input);
+		boolean toStdout = args.length == 1 || args[1].equals("-");
+		try (OutputStream out = new BufferedOutputStream(
+				toStdout ? new FileOutputStream(FileDescriptor.out) : new FileOutputStream(args[1]), 1 << 16)) {
+			worker.convert(out);
+		} finally {
+			worker.printStatistics(System.err);
+		}
+	}
+
+}
@@ -0,0 +1,317 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.util.TermStringType;
+import org.ndexbio.common.util.TermUtilities;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.task.Configuration;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Tokenizes a simple SIF file on several threads while the lines are persisted on the calling thread.
+ * 
+ * The file is split into newline aligned chunks. Each chunk is read by a worker, which splits its lines 
+ * and works out the term type of every token (the regular expressions in TermUtilities are the expensive 
+ * part of it). Term strings go through a shared LRU table of the most recently seen terms, so frequent names
+ * are only analyzed once while the memory used by the table does not grow with the file. The parsed lines 
+ * are handed back in blocks through a bounded queue per chunk, and the caller consumes the chunks in file 
+ * order, so the elements are created in the same order as a sequential parse would create them, by a 
+ * single writer.
+ * 
+ * Only the tokenizing and the term type analysis run in parallel. Resolving the terms to base terms and
+ * nodes (getBaseTermId, getNodeIdByName) and creating the edges stay on the writer thread, because the
+ * persistence service and its lookup tables are not thread safe.
+ * 
+ * Configuration properties:
+ *   SIF-Parser-Parallelism         number of tokenizer threads. Defaults to the number of processors, 1 disables it.
+ *   SIF-Parser-Parallel-Threshold  minimum file size in bytes to be tokenized in parallel. Default 16MB.
+ *   SIF-Parser-Term-Cache-Size     maximum number of analyzed terms kept for reuse. Default 100000.
+ */
+public class ParallelSifTokenizer {
+
+	private static final Logger logger = Logger.getLogger(ParallelSifTokenizer.class.getName());
+
+	private static final String parallelismProp = "SIF-Parser-Parallelism";
+	private static final String thresholdProp = "SIF-Parser-Parallel-Threshold";
+	private static final String termCacheSizeProp = "SIF-Parser-Term-Cache-Size";
+
+	private static final long minChunkSize = 4L * 1024 * 1024;
+	private static final int linesPerBlock = 1000;
+	// blocks a worker can get ahead of the writer, per chunk.
+	private static final int queuedBlocksPerChunk = 4;
+
+	private static int parallelism = -1;
+	private static long threshold = 16L * 1024 * 1024;
+	private static int termCacheSize = 100000;
+
+	/**
+	 * A token of a SIF line and its term type.
+	 */
+	public static final class Term {
+		private final String name;
+		private final TermStringType type;
+
+		Term(String name, TermStringType type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		public String getName() { return name; }
+		public TermStringType getType() { return type; }
+	}
+
+	/**
+	 * Receives the lines of the file in order, on the thread that called run().
+	 */
+	public interface LineHandler {
+		/**
+		 * @param terms the tokens of the line.
+		 * @param line the raw line. Only provided for lines with exactly 2 tokens, for error reporting; null otherwise.
+		 */
+		void handleLine(Term[] terms, String line) throws NdexException, ExecutionException, IOException;
+	}
+
+	private static final class Block {
+		final List<Term[]> lines = new ArrayList<>(linesPerBlock);
+		final List<String> rawLines = new ArrayList<>(linesPerBlock);
+		boolean last = false;
+		Exception error = null;
+	}
+
+	private final File sifFile;
+	private final boolean tabDelimited;
+	private final int threads;
+	private final long chunkSize;
+	private final Cache<String, Term> terms;
+
+	public ParallelSifTokenizer(File sifFile, boolean tabDelimited, int threads) {
+		this(sifFile, tabDelimited, threads, 
+				Math.max(minChunkSize, sifFile.length() / (threads * 4L) + 1), getTermCacheSize());
+	}
+
+	ParallelSifTokenizer(File sifFile, boolean tabDelimited, int threads, long chunkSize, int maxCachedTerms) {
+		this.sifFile = sifFile;
+		this.tabDelimited = tabDelimited;
+		this.threads = threads;
+		this.chunkSize = chunkSize;
+		this.terms = CacheBuilder.newBuilder()
+				.maximumSize(maxCachedTerms)
+				.concurrencyLevel(threads)
+				.build();
+	}
+
+	/**
+	 * @return the number of threads to tokenize the given file with. 1 means it should be parsed sequentially.
+	 */
+	public static synchronized int getParallelism(File sifFile) {
+		if ( parallelism < 0) {
+			parallelism = Runtime.getRuntime().availableProcessors();
+			try {
+				Configuration config = Configuration.getInstance();
+				String v = config.getProperty(parallelismProp);
+				if ( v != null)
+					parallelism = Integer.parseInt(v.trim());
+				v = config.getProperty(thresholdProp);
+				if ( v != null)
+					threshold = Long.parseLong(v.trim());
+				v = config.getProperty(termCacheSizeProp);
+				if ( v != null)
+					termCacheSize = Integer.parseInt(v.trim());
+			} catch (NdexException | NumberFormatException e) {
+				logger.warning("Failed to read parallel SIF parser settings from configuration, using defaults. " + e.getMessage());
+			}
+		}
+		return sifFile.length() >= threshold ? Math.max(parallelism, 1) : 1;
+	}
+
+	private static synchronized int getTermCacheSize() {
+		return termCacheSize;
+	}
+
+	/**
+	 * @return the number of analyzed terms currently kept for reuse.
+	 */
+	long cachedTermCount() {
+		return terms.size();
+	}
+
+	public void run(LineHandler handler) throws IOException, NdexException, ExecutionException {
+		List<long[]> chunks = splitIntoChunks();
+		List<BlockingQueue<Block>> queues = new ArrayList<>(chunks.size());
+		for ( int i = 0 ; i < chunks.size(); i++)
+			queues.add(new ArrayBlockingQueue<Block>(queuedBlocksPerChunk));
+
+		logger.info("Tokenizing " + sifFile.getName() + " in " + chunks.size() + " chunks on " + threads + " threads.");
+
+		final AtomicInteger threadCounter = new AtomicInteger(0);
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "sif-tokenizer-" + threadCounter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			// chunks are started in file order, so the chunk the writer waits for is always running or done.
+			for ( int i = 0 ; i < chunks.size(); i++)
+				pool.execute(new ChunkTokenizer(chunks.get(i)[0], chunks.get(i)[1], queues.get(i)));
+
+			for ( BlockingQueue<Block> queue : queues) {
+				Block block;
+				do {
+					block = queue.take();
+					if ( block.error != null) {
+						if ( block.error instanceof IOException)
+							throw (IOException) block.error;
+						throw new NdexException("Failed to tokenize " + sifFile.getName() + ": " + block.error.getMessage());
+					}
+					for ( int i = 0 ; i < block.lines.size(); i++)
+						handler.handleLine(block.lines.get(i), block.rawLines.get(i));
+				} while ( !block.last);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new NdexException("Interrupted while parsing " + sifFile.getName());
+		} finally {
+			// stops workers that are still blocked on their queues when the writer failed.
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Split the file into ranges that start at the beginning of a line.
+	 */
+	private List<long[]> splitIntoChunks() throws IOException {
+		long size = sifFile.length();
+		List<long[]> chunks = new ArrayList<>();
+		try (RandomAccessFile f = new RandomAccessFile(sifFile, "r")) {
+			long start = 0;
+			while ( start < size) {
+				long end = start + chunkSize >= size ? size : nextLineStart(f, start + chunkSize, size);
+				chunks.add(new long[] {start, end});
+				start = end;
+			}
+		}
+		if ( chunks.isEmpty())
+			chunks.add(new long[] {0, 0});
+		return chunks;
+	}
+
+	private static long nextLineStart(RandomAccessFile f, long from, long size) throws IOException {
+		byte[] buf = new byte[8192];
+		long pos = from;
+		while ( pos < size) {
+			f.seek(pos);
+			int n = f.read(buf, 0, (int) Math.min(buf.length, size - pos));
+			if ( n <= 0)
+				break;
+			for ( int i = 0 ; i < n; i++) {
+				if ( buf[i] == '\n')
+					return pos + i + 1;
+			}
+			pos += n;
+		}
+		return size;
+	}
+
+	/**
+	 * Two workers can analyze the same new term at the same time; the later one replaces the earlier one
+	 * in the table, which is harmless because both have the same name and type.
+	 */
+	private Term intern(String name) {
+		Term t = terms.getIfPresent(name);
+		if ( t == null) {
+			t = new Term(name, TermUtilities.getTermType(name));
+			terms.put(name, t);
+		}
+		return t;
+	}
+
+	private class ChunkTokenizer implements Runnable {
+		private final long start;
+		private final long end;
+		private final BlockingQueue<Block> queue;
+
+		ChunkTokenizer(long start, long end, BlockingQueue<Block> queue) {
+			this.start = start;
+			this.end = end;
+			this.queue = queue;
+		}
+
+		@Override
+		public void run() {
+			Block block = new Block();
+			try (SifLineReader reader = new SifLineReader(sifFile, start, end)) {
+				while ( reader.next()) {
+					String[] tokens = reader.tokens(tabDelimited);
+					Term[] lineTerms = new Term[tokens.length];
+					for ( int i = 0 ; i < tokens.length; i++)
+						lineTerms[i] = intern(tokens[i]);
+					block.lines.add(lineTerms);
+					block.rawLines.add(tokens.length == 2 ? reader.currentLine() : null);
+					if ( block.lines.size() >= linesPerBlock) {
+						queue.put(block);
+						block = new Block();
+					}
+				}
+			} catch (InterruptedException e) {
+				// the writer gave up.
+				return;
+			} catch (Exception e) {
+				block.error = e;
+			}
+			block.last = true;
+			try {
+				queue.put(block);
+			} catch (InterruptedException e) {
+				// the writer gave up.
+			}
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Logger;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.ndexbio.task.parsingengines.ParallelSifTokenizer.Term;
+
+/**
+ * Converts a simple or an extended binary SIF file to CX. The interpretation of the file is the same 
+ * as in SifParser.
+ */
+public class SifCXConverter extends AbstractCXNetworkConverter {
+
+	private static final String extendedBinarySIFEdgeHeader = "PARTICIPANT_A	INTERACTION_TYPE	PARTICIPANT_B	INTERACTION_DATA_SOURCE	INTERACTION_PUBMED_ID";
+	private static final String extendedBinarySIFAliasHeader = "PARTICIPANT	PARTICIPANT_TYPE	PARTICIPANT_NAME	UNIFICATION_XREF	RELATIONSHIP_XREF";
+	private static final String extendedBinarySIFPropertiesHeader = "NAME	ORGANISM	URI	DATASOURCE";
+
+	private static Logger logger = Logger.getLogger("SifCXConverter");
+
+	private final File sifFile;
+
+	public SifCXConverter(File sifFile, String networkName) {
+		super(networkName);
+		this.sifFile = sifFile;
+	}
+
+	@Override
+	protected NetworkSourceFormat getSourceFormat() {
+		return NetworkSourceFormat.SIF;
+	}
+
+	@Override
+	protected void writeNetwork() throws NdexException, IOException, ExecutionException {
+		try (SifLineReader sifReader = new SifLineReader(sifFile)) {
+			String firstLine = sifReader.peekFirstLine();
+			if ( firstLine != null && firstLine.startsWith(extendedBinarySIFEdgeHeader)) 
+				writeExtendedBinarySIF(sifReader);
+			else {
+				int threads = ParallelSifTokenizer.getParallelism(sifFile);
+				if ( threads > 1)
+					writeSimpleSIFInParallel(sifReader.isTabDelimited(), threads);
+				else
+					writeSimpleSIF(sifReader.isTabDelimited(), sifReader);
+			}
+		}
+	}
+
+	private void writeSimpleSIF(boolean tabDelimited, SifLineReader sifReader) 
+			throws IOException, NdexException, ExecutionException {
+		String[] tokens;
+		while ((tokens = sifReader.readTokens(tabDelimited)) != null) {
+			CancellationToken.checkpoint();
+			if (tokens.length == 1)
+				addNode(tokens[0]); 
+			else if ( tokens.length ==2 ) 
+				throw new NdexException ("Invalid data format found in line: " + sifReader.currentLine());
+			else {
+				Long subjectId = addNode(tokens[0]);
+				for ( int i = 2 ; i < tokens.length; i++ )
+					createEdge(subjectId, addNode(tokens[i]), tokens[1]);
+			}
+		}
+	}
+
+	/*
+	 * Same as writeSimpleSIF, but the lines are tokenized and their terms analyzed on several threads. 
+	 * The elements are still written on this thread, in file order.
+	 */
+	private void writeSimpleSIFInParallel(boolean tabDelimited, int threads) 
+			throws IOException, NdexException, ExecutionException {
+		new ParallelSifTokenizer(sifFile, tabDelimited, threads).run(new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(Term[] terms, String line) throws NdexException, ExecutionException, IOException {
+				CancellationToken.checkpoint();
+				if (terms.length == 1)
+					addNode(terms[0].getName(), terms[0].getType()); 
+				else if ( terms.length ==2 ) 
+					throw new NdexException ("Invalid data format found in line: " + line);
+				else {
+					Long subjectId = addNode(terms[0].getName(), terms[0].getType());
+					for ( int i = 2 ; i < terms.length; i++ )
+						createEdge(subjectId, addNode(terms[i].getName(), terms[i].getType()), terms[1].getName());
+				}
+			}
+		});
+	}
+
+	private void writeExtendedBinarySIF(SifLineReader sifReader) 
+			throws IOException, NdexException, ExecutionException {
+		// skip the header line
+		sifReader.readLine();
+
+		String line;
+		while ((line = sifReader.readLine()) != null) {
+			CancellationToken.checkpoint();
+			if (line.indexOf(extendedBinarySIFAliasHeader) != -1) {
+				writeExtendedBinarySIFAliases(sifReader);
+				return;
+			}
+			String[] tokens = line.split("\t");
+			if (tokens.length > 2) {
+				Long edgeId = createEdge(addNode(tokens[0]), addNode(tokens[2]), tokens[1]);
+
+				if (tokens.length > 4 && tokens[4] != null && tokens[4].length()>0) {
+					List<Long> citationIds = new ArrayList<>();
+					for (String pubMedId : tokens[4].split(";")) {
+						String[] pubmedIdTokens = pubMedId.split(":");
+						if ( pubmedIdTokens.length ==2 ) {
+							if ( pubmedIdTokens[0].equals("Pubmed")) {
+								citationIds.add(getCitationId("", NdexPersistenceService.URICitationType,
+										NdexPersistenceService.pmidPrefix + pubmedIdTokens[1], null, null));
+							} else if ( pubmedIdTokens[0].equals("ISBN")){
+								citationIds.add(getCitationId("", NdexPersistenceService.URICitationType, 
+										pubMedId, null, null));
+							} else {	
+								logger.warning("Unsupported Pubmed id format: " + 
+										pubMedId + " found in file.\n line:\n " + line +"\n Ignore this pubmedId.\n" ); 
+							}
+						} else if (pubmedIdTokens.length == 1 ) {
+							if ( pubmedIdTokens[0].length() > 0 ) 
+								citationIds.add(getCitationId("", NdexPersistenceService.URICitationType,
+										NdexPersistenceService.pmidPrefix + pubmedIdTokens[0], null, null));
+						} else 
+							throw new NdexException("Invalid Pubmed format in line: " + line);
+					}
+					writeEdgeCitations(edgeId, citationIds);
+				}
+			}
+		}
+	}
+
+	private void writeExtendedBinarySIFAliases(SifLineReader sifReader) 
+			throws IOException, NdexException, ExecutionException {
+		String line;
+		while ((line = sifReader.readLine()) != null) {
+			if (line.indexOf(extendedBinarySIFPropertiesHeader) != -1) {
+				writeExtendedBinarySIFProperties(sifReader);
+				return;
+			} 
+			if ( line.isEmpty())
+				continue;
+
+			String[] tokens = line.split("\t");
+			if (tokens.length > 2) {
+				Long participantNodeId = addNode(tokens[0]);
+				List<String> aliasList = new LinkedList<>();
+				aliasList.add(tokens[2]);
+				if (tokens.length > 3) {
+					for (String a : tokens[3].split(";")) 
+						aliasList.add(a);
+					writeNodeAliases(participantNodeId, aliasList);
+					if (tokens.length > 4) {
+						List<String> relatedTerms = new LinkedList<>();
+						for (String r : tokens[4].split(";")) 
+							relatedTerms.add(r);
+						writeNodeRelatedTerms(participantNodeId, relatedTerms);
+					}
+				}
+			}
+		}
+	}
+
+	private void writeExtendedBinarySIFProperties(SifLineReader sifReader) throws IOException, NdexException {
+		// NAME\tORGANISM\tURI\tDATASOURCE
+		String line = sifReader.readLine();
+		if (line == null) 
+			return;
+		String[] values = line.split("\t");
+		if (values.length > 0 && values[0] != null) 
+			writeNetworkAttribute(NdexClasses.Network_P_name, values[0]);
+		if (values.length > 1 && values[1] != null) 
+			writeNetworkAttribute("ORGANISM", values[1]);
+		if (values.length > 2 && values[2] != null) 
+			writeNetworkAttribute("URI", values[2]);
+		if (values.length > 3 && values[3] != null) {
+			String source = values[3];
+			if (source.equals("http://purl.org/pc2/4/pid"))
+				source = "PID";
+			writeNetworkAttribute("Source", source);
+		}
+	}
+}
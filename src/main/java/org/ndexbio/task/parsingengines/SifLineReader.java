@@ -0,0 +1,277 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a SIF file line by line through memory mapped windows of the file.
+ * 
+ * Lines are split into tokens directly on the bytes, without regular expressions or an intermediate
+ * line String; only the tokens themselves are turned into Strings. Delimiters are ASCII, so this
+ * works on UTF-8 content as well.
+ * 
+ * The format can be sniffed from a bounded prefix of the file before the first line is read, so the
+ * parser doesn't need to open the file more than once.
+ */
+public class SifLineReader implements Closeable {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	// size of the mapped window. A line has to fit in one window.
+	private static final long defaultWindowSize = 256L * 1024 * 1024;
+
+	// number of lines and bytes looked at when sniffing the delimiter.
+	private static final int sniffLineLimit = 22;
+	private static final int sniffByteLimit = 1024 * 1024;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	// end offset of the part of the file that is read.
+	private final long fileSize;
+	private final long windowSize;
+
+	private MappedByteBuffer window;
+	// file offset of the start of the window.
+	private long windowStart;
+
+	private byte[] line;
+	private int lineLength;
+	private boolean hasLine;
+
+	private final List<String> tokenBuffer;
+
+	public SifLineReader(File sifFile) throws IOException {
+		this(sifFile, defaultWindowSize);
+	}
+
+	SifLineReader(File sifFile, long windowSize) throws IOException {
+		this(sifFile, 0, -1, windowSize);
+	}
+
+	/**
+	 * Read the lines in the byte range [start, end) of the file. The range should start at the beginning of a line.
+	 * An end of -1 means the end of the file. 
+	 */
+	SifLineReader(File sifFile, long start, long end, long windowSize) throws IOException {
+		this.file = new RandomAccessFile(sifFile, "r");
+		this.channel = file.getChannel();
+		this.fileSize = end < 0 ? channel.size() : Math.min(end, channel.size());
+		this.windowSize = windowSize;
+		this.line = new byte[4096];
+		this.lineLength = 0;
+		this.hasLine = false;
+		this.tokenBuffer = new ArrayList<>();
+		mapWindow(Math.min(start, fileSize));
+	}
+
+	SifLineReader(File sifFile, long start, long end) throws IOException {
+		this(sifFile, start, end, defaultWindowSize);
+	}
+
+	/**
+	 * @return the first line of the file, without consuming it. Null if the file is empty.
+	 */
+	public String peekFirstLine() {
+		int end = findLineEnd(window.duplicate(), 0, (int) Math.min(window.limit(), sniffByteLimit));
+		if ( end < 0 ) {
+			if ( window.limit() == 0)
+				return null;
+			end = (int) Math.min(window.limit(), sniffByteLimit);
+		}
+		byte[] b = new byte[end];
+		MappedByteBuffer w = window;
+		for ( int i = 0 ; i < end; i++)
+			b[i] = w.get(i);
+		return new String(b, UTF8);
+	}
+
+	/**
+	 * Tabs are the field delimiter if any of the first lines of the file contain a tab; otherwise any whitespace is.
+	 */
+	public boolean isTabDelimited() {
+		int limit = (int) Math.min(window.limit(), sniffByteLimit);
+		int lineCount = 1;
+		for ( int i = 0 ; i < limit; i++) {
+			byte b = window.get(i);
+			if ( b == '\t')
+				return true;
+			if ( b == '\n' || (b == '\r' && (i + 1 >= limit || window.get(i+1) != '\n'))) {
+				if ( ++lineCount > sniffLineLimit)
+					return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Move to the next line.
+	 * @return false at the end of the file.
+	 */
+	public boolean next() throws IOException {
+		long pos = windowStart + window.position();
+		if ( pos >= fileSize) {
+			hasLine = false;
+			return false;
+		}
+
+		int start = window.position();
+		int end = findLineEnd(window, start, window.limit());
+		while ( end < 0 && windowStart + window.limit() < fileSize) {
+			// the line crosses the end of the window.
+			if ( start == 0)
+				throw new IOException("Line starting at byte " + pos + " is longer than " + windowSize + " bytes.");
+			mapWindow(pos);
+			start = 0;
+			end = findLineEnd(window, 0, window.limit());
+		}
+		if ( end < 0)
+			end = window.limit();
+
+		lineLength = end - start;
+		if ( lineLength > line.length)
+			line = new byte[Math.max(lineLength, line.length * 2)];
+		window.position(start);
+		window.get(line, 0, lineLength);
+
+		// skip the line terminator.
+		if ( end < window.limit()) {
+			byte b = window.get(end);
+			int next = end + 1;
+			if ( b == '\r' ) {
+				if ( next < window.limit()) {
+					if ( window.get(next) == '\n')
+						next++;
+				} else if ( windowStart + next < fileSize) {
+					mapWindow(windowStart + next);
+					if ( window.limit() > 0 && window.get(0) == '\n')
+						window.position(1);
+					hasLine = true;
+					return true;
+				}
+			}
+			window.position(next);
+		} else {
+			window.position(end);
+		}
+		hasLine = true;
+		return true;
+	}
+
+	/**
+	 * @return the next line, or null at the end of the file. Like BufferedReader.readLine().
+	 */
+	public String readLine() throws IOException {
+		return next() ? currentLine() : null;
+	}
+
+	public String currentLine() {
+		return hasLine ? new String(line, 0, lineLength, UTF8) : null;
+	}
+
+	/**
+	 * Split the current line the same way String.split("\t") or String.split("\\s+") would: a leading
+	 * delimiter gives an empty first token, consecutive tabs give empty tokens, and trailing empty tokens are dropped.
+	 */
+	public String[] tokens(boolean tabDelimited) {
+		List<String> result = tokenBuffer;
+		result.clear();
+		if ( !hasLine)
+			return null;
+
+		int i = 0;
+		int tokenStart = 0;
+		while ( i < lineLength) {
+			byte b = line[i];
+			if ( tabDelimited ? b == '\t' : isWhitespace(b)) {
+				result.add(new String(line, tokenStart, i - tokenStart, UTF8));
+				i++;
+				if ( !tabDelimited) {
+					while ( i < lineLength && isWhitespace(line[i]))
+						i++;
+				}
+				tokenStart = i;
+			} else
+				i++;
+		}
+		result.add(new String(line, tokenStart, lineLength - tokenStart, UTF8));
+
+		// drop trailing empty tokens. A line without any delimiter is returned as is, even when it is empty.
+		int n = result.size();
+		if ( n > 1) {
+			while ( n > 0 && result.get(n-1).length() == 0)
+				n--;
+		}
+		return result.subList(0, n).toArray(new String[n]);
+	}
+
+	/**
+	 * Read the next line and split it.
+	 * @return the tokens of the next line, or null at the end of the file.
+	 */
+	public String[] readTokens(boolean tabDelimited) throws IOException {
+		return next() ? tokens(tabDelimited) : null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		window = null;
+		channel.close();
+		file.close();
+	}
+
+	private void mapWindow(long start) throws IOException {
+		long size = Math.min(windowSize, fileSize - start);
+		window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+		windowStart = start;
+	}
+
+	private static int findLineEnd(java.nio.ByteBuffer buf, int from, int limit) {
+		for ( int i = from ; i < limit ; i++) {
+			byte b = buf.get(i);
+			if ( b == '\n' || b == '\r')
+				return i;
+		}
+		return -1;
+	}
+
+	private static boolean isWhitespace(byte b) {
+		return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+	}
+}
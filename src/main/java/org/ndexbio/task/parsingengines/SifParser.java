@@ -30,10 +30,7 @@
  */
 package org.ndexbio.task.parsingengines;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -57,6 +54,7 @@ import org.ndexbio.model.object.User;
 import org.ndexbio.model.object.network.NetworkSourceFormat;
 import org.ndexbio.model.object.network.NetworkSummary;
 import org.ndexbio.model.tools.ProvenanceHelpers;
+import org.ndexbio.task.parsingengines.ParallelSifTokenizer.Term;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Preconditions;
@@ -145,18 +143,22 @@ public class SifParser implements IParsingEngine {
 	@Override
 	public void parseFile() throws  NdexException {
 
-		try (BufferedReader bufferedReader = 
-				new BufferedReader(new FileReader(this.getSifFile()))){
+		try (SifLineReader sifReader = new SifLineReader(this.getSifFile())){
 
 			this.getMsgBuffer().add("Parsing lines from " + this.getSIFURI());
 
-			boolean extendedBinarySIF = checkForExtendedFormat();
+			// the format and the delimiter are sniffed from the beginning of the file, so it is only read once.
+			boolean extendedBinarySIF = checkForExtendedFormat(sifReader);
 			if (extendedBinarySIF) {
-				this.processExtendedBinarySIF(bufferedReader);
+				this.processExtendedBinarySIF(sifReader);
 //				this.networkService.setFormat("EXTENDED_BINARY_SIF");
 			} else {
-				boolean tabDelimited = scanForTabs();
-				this.processSimpleSIFLines(tabDelimited, bufferedReader);
+				boolean tabDelimited = sifReader.isTabDelimited();
+				int threads = ParallelSifTokenizer.getParallelism(this.getSifFile());
+				if ( threads > 1)
+					this.processSimpleSIFLinesInParallel(tabDelimited, threads);
+				else
+					this.processSimpleSIFLines(tabDelimited, sifReader);
 //				this.networkService.setFormat("BINARY_SIF");
 			}
 
@@ -198,62 +200,26 @@ public class SifParser implements IParsingEngine {
         }
 	}
 
-	private boolean checkForExtendedFormat() throws IOException {
-		try (BufferedReader bufferedReader = 
-				new BufferedReader(new FileReader(this.getSifFile()))){
-			String line = bufferedReader.readLine();
-			// Check the first line for the EBS header
-			if ( line.startsWith(extendedBinarySIFEdgeHeader)) {
-				bufferedReader.close();
-				return true;
-			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-			throw new IOException(e);
-		} 
-		return false;
-	}
-
-	private boolean scanForTabs() throws IOException {
-		try (BufferedReader bufferedReader
-					= new BufferedReader(new FileReader(this.getSifFile()))){
-			String line;
-			int counter = 0;
-			// Check the first 20 lines for tabs
-			while ((line = bufferedReader.readLine()) != null) {
-				if (line.indexOf("\t") != -1)
-					return true;
-				if (counter++ > 20)
-					return false;
-			}
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
-			throw new IOException(e);
-		} 
-
-		return false;
+	private boolean checkForExtendedFormat(SifLineReader sifReader) {
+		String line = sifReader.peekFirstLine();
+		// Check the first line for the EBS header
+		return line != null && line.startsWith(extendedBinarySIFEdgeHeader);
 	}
 
 	private void processSimpleSIFLines(boolean tabDelimited,
-			BufferedReader bufferedReader) throws IOException, ExecutionException, NdexException {
+			SifLineReader sifReader) throws IOException, ExecutionException, NdexException {
 
 		try {
 
-			String line;
-			while ((line = bufferedReader.readLine()) != null) {
-				String[] tokens = null;
-				if (tabDelimited) {
-					tokens = line.split("\t");
-				} else {
-					tokens = line.split("\\s+");
-				}
+			String[] tokens;
+			while ((tokens = sifReader.readTokens(tabDelimited)) != null) {
 
 				if (tokens.length == 1)
 					addNode(tokens[0]); 
 //				if (tokens.length == 3)
 //					addEdge(tokens[0], tokens[1], tokens[2]);  
 				else if ( tokens.length ==2 ) 
-					throw new NdexException ("Invalid data format found in line: " + line);
+					throw new NdexException ("Invalid data format found in line: " + sifReader.currentLine());
 				else {
 				  for ( int i = 2 ; i < tokens.length; i++ )
 					  addEdge ( tokens[0], tokens[1],tokens[i]);
@@ -262,9 +228,29 @@ public class SifParser implements IParsingEngine {
 		} catch (IOException e) {
 			this.getMsgBuffer().add(e.getMessage());
 			throw e;
-		} finally {
-			bufferedReader.close();
-		}
+		} 
+	}
+
+	/*
+	 * Same as processSimpleSIFLines, but the lines are tokenized and their terms analyzed on several 
+	 * threads. Nodes and edges are still created on this thread, in file order.
+	 */
+	private void processSimpleSIFLinesInParallel(boolean tabDelimited, int threads)
+			throws IOException, ExecutionException, NdexException {
+		new ParallelSifTokenizer(this.getSifFile(), tabDelimited, threads).run(
+				new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(Term[] terms, String line) throws NdexException, ExecutionException {
+				if (terms.length == 1)
+					addNode(terms[0].getName(), terms[0].getType()); 
+				else if ( terms.length ==2 ) 
+					throw new NdexException ("Invalid data format found in line: " + line);
+				else {
+				  for ( int i = 2 ; i < terms.length; i++ )
+					  addEdge ( terms[0], terms[1],terms[i]);
+				}
+			}
+		});
 	}
 
 	/*
@@ -276,17 +262,17 @@ public class SifParser implements IParsingEngine {
 	 * each header is encountered. We already know that line 0 is the edge
 	 * header so we start processing edges on the next line.
 	 */
-	private void processExtendedBinarySIF(BufferedReader bufferedReader)
+	private void processExtendedBinarySIF(SifLineReader sifReader)
 			throws IOException, ExecutionException, NdexException {
 		try {
 			// skip the header line
-			bufferedReader.readLine();
+			sifReader.readLine();
 
 			String line;
 			int counter = 0;
-			while ((line = bufferedReader.readLine()) != null) {
+			while ((line = sifReader.readLine()) != null) {
 				if (line.indexOf(extendedBinarySIFAliasHeader) != -1) {
-					processExtendedBinarySIFAliases(bufferedReader);  
+					processExtendedBinarySIFAliases(sifReader);  
 					break;
 				}
 				String[] tokens = null;
@@ -349,24 +335,22 @@ public class SifParser implements IParsingEngine {
 		} catch (IOException e) {
 			this.getMsgBuffer().add(e.getMessage());
 			throw e;
-		} finally {
-			bufferedReader.close();
-		}
+		} 
 	}
 
 
-	private void processExtendedBinarySIFAliases(BufferedReader bufferedReader)
+	private void processExtendedBinarySIFAliases(SifLineReader sifReader)
 			throws IOException, ExecutionException, NdexException {
 
 		// "PARTICIPANT	PARTICIPANT_TYPE	PARTICIPANT_NAME	UNIFICATION_XREF	RELATIONSHIP_XREF";
 		System.out.println("Processing Aliases");
 		String line;
 		int counter = 0;
-		while ((line = bufferedReader.readLine()) != null) {
+		while ((line = sifReader.readLine()) != null) {
 		//	System.out.println("-- " + line);
 			if (line.indexOf(extendedBinarySIFPropertiesHeader) != -1) {
 				System.out.println("found properties header");
-				processExtendedBinarySIFProperties(bufferedReader);
+				processExtendedBinarySIFProperties(sifReader);
 				break;
 			} else if ("".equals(line)) {
 				// skip blank lines.
@@ -417,13 +401,13 @@ public class SifParser implements IParsingEngine {
 	}
 
 	private void processExtendedBinarySIFProperties(
-			BufferedReader bufferedReader) throws IOException, NdexException, ExecutionException {
+			SifLineReader sifReader) throws IOException, NdexException, ExecutionException {
 
 		// NAME\tORGANISM\tURI\tDATASOURCE";
 		// this is currently one line of properties, but perhaps it would be
 		// better to have one property per line.
 		System.out.println("Processing one line of Network Properties");
-		String line = bufferedReader.readLine();
+		String line = sifReader.readLine();
 		if (line != null) {
 			String[] values = line.split("\t");
 			if (values.length > 0 && values[0] != null) {
@@ -458,7 +442,10 @@ public class SifParser implements IParsingEngine {
 	
 
 	private Long addNode(String name) throws ExecutionException, NdexException {
-		TermStringType stype = TermUtilities.getTermType(name);
+		return addNode(name, TermUtilities.getTermType(name));
+	}
+
+	private Long addNode(String name, TermStringType stype) throws ExecutionException, NdexException {
 		if ( stype == TermStringType.NAME) {
 			return persistenceService.getNodeIdByName(name);
 		} 
@@ -476,6 +463,15 @@ public class SifParser implements IParsingEngine {
 				predicateTermId, null,null,null);
 
 	}
+
+	private Long addEdge(Term subject, Term predicate, Term object)
+			throws ExecutionException, NdexException {
+		Long subjectNodeId = addNode(subject.getName(), subject.getType());
+		Long objectNodeId = addNode(object.getName(), object.getType());
+		Long predicateTermId = persistenceService.getBaseTermId(predicate.getName());
+		return persistenceService.getEdge(subjectNodeId, objectNodeId,
+				predicateTermId, null,null,null);
+	}
 	
 /*	
 	private void addSystemDefaultNamespaces() throws NdexException {
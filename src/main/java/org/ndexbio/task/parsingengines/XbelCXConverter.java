@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.validation.Schema;
+
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.ndexbio.task.parsingengines.XbelFileValidator.ValidationState;
+import org.ndexbio.xbel.model.Header;
+import org.ndexbio.xbel.splitter.AnnotationDefinitionGroupSplitter;
+import org.ndexbio.xbel.splitter.HeaderSplitter;
+import org.ndexbio.xbel.splitter.NamespaceGroupSplitter;
+import org.ndexbio.xbel.splitter.StatementGroupSplitter;
+import org.ndexbio.xbel.splitter.XbelSectionDispatcher;
+import org.xml.sax.SAXException;
+
+/**
+ * Converts an XBEL file to CX. The file is validated and read in the same way as in XbelParser, 
+ * with the network elements written through a CXNetworkElementBuilder instead of the persistence service.
+ */
+public class XbelCXConverter extends AbstractCXNetworkConverter {
+
+	private final String xmlFile;
+	private final ValidationState validationState;
+
+	// schema used to validate the document while parsing; null if the file was validated up front.
+	private Schema schema;
+
+	public XbelCXConverter(File xbelFile) throws NdexException {
+		// the name comes from the header of the document.
+		super(null);
+		if ( !xbelFile.exists())
+			throw new NdexException("File not found: " + xbelFile.getAbsolutePath());
+		this.xmlFile = xbelFile.getAbsolutePath();
+		boolean validateInline = XbelParser.isInlineValidationEnabled();
+		XbelFileValidator validator = new XbelFileValidator(this.xmlFile, !validateInline);
+		this.validationState = validator.getValidationState();
+		if ( validateInline && this.validationState.isValid()) {
+			try {
+				this.schema = validator.getSchema();
+			} catch (SAXException e) {
+				throw new NdexException("Failed to load XBEL schema: " + e.getMessage());
+			}
+		}
+	}
+
+	public ValidationState getValidationState() {
+		return validationState;
+	}
+
+	@Override
+	protected NetworkSourceFormat getSourceFormat() {
+		return NetworkSourceFormat.BEL;
+	}
+
+	@Override
+	protected void writeNetwork() throws NdexException, IOException, ExecutionException {
+		if ( !validationState.isValid())
+			throw new NdexException("XBEL file fails XML schema validation - " + validationState.getValidationMessage());
+
+		final CXNetworkElementBuilder builder = new CXNetworkElementBuilder(this);
+		try {
+			JAXBContext context = JAXBContext.newInstance("org.ndexbio.xbel.model");
+			HeaderSplitter headerSplitter = new HeaderSplitter(context, new HeaderSplitter.HeaderListener() {
+				@Override
+				public void headerParsed(Header header) throws NdexException {
+					try {
+						XbelParser.createNetwork(builder, null, header);
+					} catch (NdexException e) {
+						throw e;
+					} catch (Exception e) {
+						throw new NdexException("Failed to create network from XBEL header: " + e.getMessage());
+					}
+				}
+			});
+			XbelParser.readDocument(xmlFile, schema, new XbelSectionDispatcher(headerSplitter, 
+					new NamespaceGroupSplitter(context, builder), 
+					new AnnotationDefinitionGroupSplitter(context, builder),
+					new StatementGroupSplitter(context, builder)));
+			if ( headerSplitter.getHeader() == null)
+				throw new NdexException("No header found in XBEL file " + xmlFile);
+		} catch (JAXBException | SAXException | ParserConfigurationException e) {
+			throw new NdexException("Error occurred when loading " + xmlFile + ". " + e.getMessage());
+		}
+		builder.finish();
+	}
+
+}
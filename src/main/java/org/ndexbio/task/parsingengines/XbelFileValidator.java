@@ -33,6 +33,12 @@ package org.ndexbio.task.parsingengines;
 import java.io.File;
 import java.io.IOException;
 
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
 import com.google.common.base.Strings;
 
 import org.ndexbio.model.exceptions.NdexException;
@@ -51,6 +57,14 @@ public class XbelFileValidator {
 	private final ValidationState validationState;
 
 	public XbelFileValidator(String fileName) throws NdexException {
+		this(fileName, true);
+	}
+
+	/**
+	 * @param validateNow if false, the file is not read here. Only the XSDs are checked, and the caller
+	 *        is expected to validate the document while parsing it, using the schema from getSchema().
+	 */
+	public XbelFileValidator(String fileName, boolean validateNow) throws NdexException {
 		if (Strings.isNullOrEmpty(fileName)) {
 			this.validationState = new ValidationState(false,
 					"Null or empty filename parameter");
@@ -66,8 +80,21 @@ public class XbelFileValidator {
 			return;
 		}
 
-		this.validationState = this.run();
+		if ( validateNow) 
+			this.validationState = this.run();
+		else
+			this.validationState = new ValidationState(true, 
+					"File " + this.xmlFileName + " will be validated while it is parsed");
+
+	}
 
+	/**
+	 * @return the XBEL schema, which can be set on a SAXParserFactory to validate a document in the same pass that parses it.
+	 */
+	public Schema getSchema() throws SAXException {
+		SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+		return factory.newSchema(new Source[] {
+				new StreamSource(new File(XBEL_XSD)), new StreamSource(new File(ANNO_XSD))});
 	}
 
 	public boolean xsdCheck() {
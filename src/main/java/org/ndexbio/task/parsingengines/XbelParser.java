@@ -40,11 +40,13 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
+import javax.xml.validation.Schema;
 
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.Helper;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
 import org.ndexbio.common.models.object.network.RawNamespace;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.NdexPropertyValuePair;
@@ -56,15 +58,20 @@ import org.ndexbio.model.object.SimplePropertyValuePair;
 import org.ndexbio.model.object.network.NetworkSourceFormat;
 import org.ndexbio.model.object.network.NetworkSummary;
 import org.ndexbio.model.tools.ProvenanceHelpers;
+import org.ndexbio.task.Configuration;
 import org.ndexbio.task.parsingengines.XbelFileValidator.ValidationState;
 import org.ndexbio.xbel.splitter.AnnotationDefinitionGroupSplitter;
 import org.ndexbio.xbel.splitter.HeaderSplitter;
 import org.ndexbio.xbel.splitter.NamespaceGroupSplitter;
 import org.ndexbio.xbel.splitter.StatementGroupSplitter;
 import org.ndexbio.xbel.splitter.XBelSplitter;
+import org.ndexbio.xbel.splitter.XbelSectionDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 import org.xml.sax.XMLReader;
 
 import com.google.common.base.Preconditions;
@@ -78,13 +85,16 @@ import com.google.common.base.Strings;
  * The class requires a filename for the XML file used as input
  * The specified file is tested for validity against the XBEL schemas
  * 
+ * The file is read once: all sections of the document are dispatched to their splitters
+ * from a single SAX pass, and by default the schema validation runs in that same pass.
+ * Setting XBEL-Inline-Validation to false in the configuration validates the file in a 
+ * separate pass before parsing instead.
  */
 public class XbelParser implements IParsingEngine
 {
     private final String xmlFile;
     private final ValidationState validationState;
     private JAXBContext context;
-    private XMLReader reader;
     private NamespaceGroupSplitter nsSplitter;
     private AnnotationDefinitionGroupSplitter adSplitter;
     private StatementGroupSplitter sgSplitter;
@@ -94,6 +104,11 @@ public class XbelParser implements IParsingEngine
     private NdexPersistenceService networkService;
     private static final Logger logger = LoggerFactory.getLogger(XbelParser.class);
 
+    private static final String inlineValidationProp = "XBEL-Inline-Validation";
+
+    // schema used to validate the document while parsing; null if the file was validated up front.
+    private Schema schema;
+
     public static final String belPrefix = "bel";
     public static final String elementContactInfo = belPrefix + ":contactInfo";
     public static final String elementCopyright   = belPrefix + ":copyright";
@@ -116,16 +131,35 @@ public class XbelParser implements IParsingEngine
         }
         this.xmlFile = f.getAbsolutePath(); 
         this.setOwnerName(ownerName);
-        this.validationState = new XbelFileValidator(this.xmlFile).getValidationState();
+        boolean validateInline = isInlineValidationEnabled();
+        XbelFileValidator validator = new XbelFileValidator(this.xmlFile, !validateInline);
+        this.validationState = validator.getValidationState();
         logger.info(this.validationState.getValidationMessage());
+        if ( validateInline && this.validationState.isValid()) {
+        	try {
+        		this.schema = validator.getSchema();
+        	} catch (SAXException e) {
+        		throw new NdexException("Failed to load XBEL schema: " + e.getMessage());
+        	}
+        }
         this.context = JAXBContext.newInstance("org.ndexbio.xbel.model");
         this.networkService = new NdexPersistenceService(db);
         this.nsSplitter = new NamespaceGroupSplitter(context, this.networkService);
         this.adSplitter = new AnnotationDefinitionGroupSplitter(context, networkService);
         this.sgSplitter = new StatementGroupSplitter(context, this.networkService);
-        this.headerSplitter = new HeaderSplitter(context);
+        this.headerSplitter = new HeaderSplitter(context, new HeaderSplitter.HeaderListener() {
+			@Override
+			public void headerParsed(Header header) throws NdexException {
+				try {
+					createNetwork(header);
+				} catch (NdexException e) {
+					throw e;
+				} catch (Exception e) {
+					throw new NdexException("Failed to create network from XBEL header: " + e.getMessage());
+				}
+			}
+		});
         
-        this.initReader();
         this.description = description;
 
         try (UserDocDAO userDocDAO = new UserDocDAO(db.getAConnection())) {
@@ -138,10 +172,7 @@ public class XbelParser implements IParsingEngine
     {
         try
         {
-            this.processHeaderAndCreateNetwork();
-            this.processNamespaces();
-            this.processAnnotationDefinitions();
-            this.processStatementGroups();
+            this.parseDocument();
             
 			//add provenance to network
 			NetworkSummary currentNetwork = this.networkService.getCurrentNetwork();
@@ -170,8 +201,10 @@ public class XbelParser implements IParsingEngine
         catch (Exception e)
         {
             e.printStackTrace();
-            // rollback current transaction and close the database connection
-            this.networkService.abortTransaction();
+            // rollback current transaction and close the database connection. The network 
+            // doesn't exist yet if the document failed before the end of its header.
+            if ( this.networkService.getCurrentNetwork() != null)
+            	this.networkService.abortTransaction();
             throw new NdexException ("Error occurred when loading " +
               xmlFile + ". " + e.getMessage());
         }
@@ -182,32 +215,89 @@ public class XbelParser implements IParsingEngine
 
     }
 
-    private void processHeaderAndCreateNetwork() throws Exception
+    /*
+     * Read the whole document in one pass. The network is created by the header splitter as soon 
+     * as the header is read; namespaces, annotation definitions and statement groups are persisted
+     * as they stream by.
+     */
+    private void parseDocument() throws Exception
     {
-        reader.setContentHandler(headerSplitter);
+        logger.info("Parsing XBEL document " + this.getXmlFile());
+        readDocument(this.getXmlFile(), this.schema, 
+        		new XbelSectionDispatcher(headerSplitter, nsSplitter, adSplitter, sgSplitter));
+        if ( headerSplitter.getHeader() == null)
+        	throw new NdexException("No header found in XBEL file " + this.getXmlFile());
+    }
+
+    /*
+     * Feed the SAX events of an XBEL document to the handler, validating the document against the
+     * schema in the same pass if a schema is given. A schema violation stops the read with an 
+     * NdexException; other errors, including those thrown by the handler, are passed on.
+     */
+    static void readDocument(String xmlFile, Schema schema, ContentHandler handler) 
+    		throws NdexException, IOException, SAXException, ParserConfigurationException
+    {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        factory.setNamespaceAware(true);
+        if ( schema != null)
+        	factory.setSchema(schema);
+        XMLReader reader = factory.newSAXParser().getXMLReader();
+        final String[] schemaViolation = new String[1];
+        if ( schema != null)
+        	reader.setErrorHandler(new ErrorHandler() {
+				@Override
+				public void warning(SAXParseException e) {
+					logger.warn("Line " + e.getLineNumber() + ": " + e.getMessage());
+				}
+
+				@Override
+				public void error(SAXParseException e) throws SAXException {
+					schemaViolation[0] = "line " + e.getLineNumber() + ": " + e.getMessage();
+					throw e;
+				}
+
+				@Override
+				public void fatalError(SAXParseException e) throws SAXException {
+					throw e;
+				}
+			});
+        reader.setContentHandler(handler);
         try
         {
-            reader.parse(this.getXmlFile());
+            reader.parse(xmlFile);
         }
         catch (IOException | SAXException e)
         {
             logger.error(e.getMessage());
-            throw new Exception(e);
+            if ( schemaViolation[0] != null)
+            	throw new NdexException("XBEL file fails XML schema validation - " + schemaViolation[0]);
+            throw e;
         }
-        Header header = this.headerSplitter.getHeader();
-        
+    }
+
+    private void createNetwork(Header header) throws Exception
+    {
+        createNetwork(this.networkService, this.getOwnerName(), header);
+    }
+
+    /*
+     * Start a network from the header of an XBEL document: its name, description and version, the
+     * BEL namespace, and the other header fields as network properties.
+     */
+    static void createNetwork(NetworkElementBuilder builder, String ownerName, Header header) throws Exception
+    {
         String networkTitle = header.getName();
-        this.networkService.createNewNetwork(
-        		this.getOwnerName(), 
+        builder.createNewNetwork(
+        		ownerName, 
         		networkTitle,
-        		this.headerSplitter.getHeader().getVersion());
-        this.networkService.setNetworkTitleAndDescription(null, header.getDescription());
-        this.networkService.setNetworkSourceFormat(NetworkSourceFormat.BEL);
+        		header.getVersion());
+        builder.setNetworkTitleAndDescription(null, header.getDescription());
+        builder.setNetworkSourceFormat(NetworkSourceFormat.BEL);
 		try {
 				// create a few default name spaces. 
 				// BEL namespace
 				RawNamespace belNamespace = new RawNamespace(belPrefix,XBelSplitter.belURI);
-				this.networkService.getNamespace(belNamespace);
+				builder.getNamespace(belNamespace);
 				
 		} catch (NdexException ex) {
 				ex.printStackTrace();
@@ -251,63 +341,18 @@ public class XbelParser implements IParsingEngine
         }
 
         
-        this.networkService.setNetworkProperties(propList, null);
+        builder.setNetworkProperties(propList, null);
 
     }
 
-    private void processNamespaces() throws Exception
-    {
-        logger.info("Parsing namespaces from " + this.getXmlFile());
-        reader.setContentHandler(nsSplitter);
-        try
-        {
-            reader.parse(this.getXmlFile());
-        }
-        catch (IOException | SAXException e)
-        {
-            logger.error(e.getMessage());
-            throw new Exception(e);
-        }
-    }
-    
-	private void processAnnotationDefinitions() throws Exception {
-		logger.info("Parsing annotation definitions from " + this.getXmlFile());
-		reader.setContentHandler(adSplitter);
-		try {
-			reader.parse(this.getXmlFile());
-		} catch (IOException | SAXException e) {
-			logger.error(e.getMessage());
-			throw new Exception(e);
-		}
-	}
-
-    private void processStatementGroups() throws Exception
-    {
-        logger.info("Parsing statement groups from " + this.getXmlFile());
-        reader.setContentHandler(sgSplitter);
-        try
-        {
-            reader.parse(this.getXmlFile());
-        }
-        catch (IOException | SAXException e)
-        {
-            logger.error(e.getMessage());
-            throw new Exception(e);
-        }
-    }
-
-    private void initReader()
-    {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        factory.setNamespaceAware(true);
-        try
-        {
-            this.setReader(factory.newSAXParser().getXMLReader());
-        }
-        catch (SAXException | ParserConfigurationException e)
-        {
-            logger.error(e.getMessage());
-        }
+    static boolean isInlineValidationEnabled() {
+    	try {
+    		String v = Configuration.getInstance().getProperty(inlineValidationProp);
+    		return v == null || Boolean.parseBoolean(v.trim());
+    	} catch (NdexException e) {
+    		logger.warn("Failed to read " + inlineValidationProp + " from configuration, validating inline. " + e.getMessage());
+    		return true;
+    	}
     }
 
     public ValidationState getValidationState()
@@ -315,16 +360,6 @@ public class XbelParser implements IParsingEngine
         return this.validationState;
     }
 
-    public XMLReader getReader()
-    {
-        return reader;
-    }
-
-    public void setReader(XMLReader reader)
-    {
-        this.reader = reader;
-    }
-
     public String getXmlFile()
     {
         return xmlFile;
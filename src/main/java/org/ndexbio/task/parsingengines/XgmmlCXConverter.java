@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.NetworkSourceFormat;
+import org.xml.sax.SAXException;
+
+/**
+ * Converts an XGMML file to CX. The file is read by the same SAX handlers as in XgmmlParser, with the 
+ * network elements written through a CXNetworkElementBuilder instead of the persistence service.
+ */
+public class XgmmlCXConverter extends AbstractCXNetworkConverter {
+
+	private final File xgmmlFile;
+	private final String defaultNetworkName;
+
+	public XgmmlCXConverter(File xgmmlFile, String defaultNetworkName) {
+		// the name is written with the other network attributes, the file can override it.
+		super(null);
+		this.xgmmlFile = xgmmlFile;
+		this.defaultNetworkName = defaultNetworkName;
+	}
+
+	@Override
+	protected NetworkSourceFormat getSourceFormat() {
+		return NetworkSourceFormat.XGMML;
+	}
+
+	@Override
+	protected void writeNetwork() throws NdexException, IOException, ExecutionException {
+		CXNetworkElementBuilder builder = new CXNetworkElementBuilder(this);
+		builder.createNewNetwork(null, defaultNetworkName, null);
+		try (FileInputStream xgmmlFileStream = new FileInputStream(xgmmlFile)) {
+			XgmmlParser.readXGMML(xgmmlFileStream, builder);
+		} catch (SAXException e) {
+			throw new NdexException("Error occurred when loading " + xgmmlFile.getName() + ". " + e.getMessage());
+		}
+		builder.finish();
+	}
+
+}
@@ -33,6 +33,7 @@ package org.ndexbio.task.parsingengines;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.List;
 import java.util.UUID;
@@ -44,6 +45,7 @@ import javax.xml.parsers.SAXParserFactory;
 import org.ndexbio.common.access.NdexDatabase;
 import org.ndexbio.common.models.dao.orientdb.Helper;
 import org.ndexbio.common.models.dao.orientdb.UserDocDAO;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.NdexProvenanceEventType;
@@ -112,7 +114,7 @@ public class XgmmlParser implements IParsingEngine {
 			{
         	
 				setNetwork();
-				readXGMML(xgmmlFileStream);
+				readXGMML(xgmmlFileStream, this.networkService);
 
 				// set the source format
 				this.networkService.setNetworkSourceFormat(NetworkSourceFormat.XGMML);
@@ -162,13 +164,13 @@ public class XgmmlParser implements IParsingEngine {
 	}
 	
 	/**
-	 * Actual method to read XGMML documents.
+	 * Actual method to read XGMML documents. The network elements are created through the given builder.
 	 * 
 	 * @throws IOException
 	 * @throws SAXException
 	 * @throws ParserConfigurationException
 	 */
-	private void readXGMML(FileInputStream xgmmlFileStream) throws SAXException, IOException {
+	static void readXGMML(InputStream xgmmlFileStream, NetworkElementBuilder builder) throws SAXException, IOException {
 		final SAXParserFactory spf = SAXParserFactory.newInstance();
 
 		try {
@@ -181,7 +183,7 @@ public class XgmmlParser implements IParsingEngine {
 			// Make the SAX1 Parser act as a SAX2 XMLReader
 			final ParserAdapter pa = new ParserAdapter(sp.getParser());
 		//	RecordingInputStream ris=new RecordingInputStream(xgmmlFileStream);
-			ReadDataManager readDataManager = new ReadDataManager(networkService);
+			ReadDataManager readDataManager = new ReadDataManager(builder);
 			HandlerFactory handlerFactory = new HandlerFactory(readDataManager);
 			XGMMLParser parser = new XGMMLParser(handlerFactory, readDataManager);
 			pa.setContentHandler(parser);
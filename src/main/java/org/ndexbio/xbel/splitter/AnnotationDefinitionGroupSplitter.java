@@ -37,7 +37,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import org.ndexbio.common.models.object.network.RawNamespace;
-import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.model.object.network.Namespace;
 import org.ndexbio.xbel.model.AnnotationDefinitionGroup;
@@ -62,14 +62,14 @@ public class AnnotationDefinitionGroupSplitter extends XBelSplitter {
 	private static final Logger logger = LoggerFactory
 			.getLogger(AnnotationDefinitionGroupSplitter.class);
 
-	private NdexPersistenceService networkService;
+	private NetworkElementBuilder networkService;
 	
 	/*
 	 * Extension of XBelSplitter to parse NamespaceGroup data from an XBEL
 	 * document
 	 */
 	public AnnotationDefinitionGroupSplitter(JAXBContext context,
-			NdexPersistenceService networkService) {
+			NetworkElementBuilder networkService) {
 		super(context, xmlElement);
 		this.networkService = networkService;
 		
@@ -121,20 +121,20 @@ public class AnnotationDefinitionGroupSplitter extends XBelSplitter {
 								  internalAnnotationDefPrefix + internalAnnotationDefinition.getId()));
 			
 				String attDataType = "String";
-				this.networkService.addElementProperty(internalAnnotationNamespace.getId(),
+				this.networkService.addNamespaceProperty(internalAnnotationNamespace.getId(),
 						property_Type, internal_annotation_def, attDataType);
 				
 				if (null != internalAnnotationDefinition.getDescription()){
-					this.networkService.addElementProperty(internalAnnotationNamespace.getId(),desc, 
+					this.networkService.addNamespaceProperty(internalAnnotationNamespace.getId(),desc, 
 										internalAnnotationDefinition.getDescription(), "");
 				}
 				if (null != internalAnnotationDefinition.getPatternAnnotation()){
-					this.networkService.addElementProperty(internalAnnotationNamespace.getId(),
+					this.networkService.addNamespaceProperty(internalAnnotationNamespace.getId(),
 							patternAnnotation, internalAnnotationDefinition.getPatternAnnotation(), attDataType);
 				}
 				if (null != internalAnnotationDefinition.getListAnnotation()){
 					for (String annotation : internalAnnotationDefinition.getListAnnotation().getListValue()){
-						this.networkService.addElementProperty(internalAnnotationNamespace.getId(),
+						this.networkService.addNamespaceProperty(internalAnnotationNamespace.getId(),
 								list_annotation, annotation, attDataType); 
 						// Create a term in the namespace
 						this.networkService.getBaseTermId(internalAnnotationNamespace.getPrefix()+":"+ annotation);
@@ -160,7 +160,7 @@ public class AnnotationDefinitionGroupSplitter extends XBelSplitter {
 				Namespace externalAnnotationNamespace = this.networkService.getNamespace(
 						new RawNamespace(externalAnnotationDefinition.getId(), 
 						externalAnnotationDefinition.getUrl()));
-				this.networkService.addElementProperty(externalAnnotationNamespace.getId(),
+				this.networkService.addNamespaceProperty(externalAnnotationNamespace.getId(),
 						"type", "ExternalAnnotationDefinition", "String");
 
 			} catch (NdexException e) {
@@ -33,21 +33,39 @@ package org.ndexbio.xbel.splitter;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
+import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.xbel.model.Header;
-import org.xml.sax.helpers.NamespaceSupport;
 
 public class HeaderSplitter extends XBelSplitter {
 
+	/*
+	 * Gets called as soon as the header has been unmarshalled, before the rest of the
+	 * document is read.
+	 */
+	public interface HeaderListener {
+		void headerParsed(Header header) throws NdexException;
+	}
+
 	private Header header;
+	private HeaderListener listener;
 	private static final String xmlElement = "header";
 	public HeaderSplitter(JAXBContext context) {
 		super(context,  xmlElement);
 	}
 
+	public HeaderSplitter(JAXBContext context, HeaderListener listener) {
+		super(context,  xmlElement);
+		this.listener = listener;
+		// nothing else in the document can be processed without the header.
+		this.abortOnError = true;
+	}
+
 	@Override
-	protected void process() throws JAXBException {
+	protected void process() throws JAXBException, NdexException {
 		this.header = (Header) unmarshallerHandler
 				.getResult();
+		if ( listener != null)
+			listener.headerParsed(header);
 	}
 	
 	public Header getHeader() { return this.header;}
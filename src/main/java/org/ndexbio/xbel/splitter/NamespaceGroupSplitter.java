@@ -34,7 +34,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import org.ndexbio.common.models.object.network.RawNamespace;
-import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.xbel.model.Namespace;
 import org.ndexbio.xbel.model.NamespaceGroup;
@@ -47,14 +47,14 @@ public class NamespaceGroupSplitter extends XBelSplitter {
 	private static final Logger logger = LoggerFactory
 			.getLogger(NamespaceGroupSplitter.class);
 	
-	private NdexPersistenceService networkService;
+	private NetworkElementBuilder networkService;
 
 	/*
 	 * Extension of XBelSplitter to parse NamespaceGroup data from an XBEL
 	 * document
 	 */
 	public NamespaceGroupSplitter(JAXBContext context,
-			NdexPersistenceService networkService) {
+			NetworkElementBuilder networkService) {
 		super(context,xmlElement);
 		this.networkService = networkService;
 	}
@@ -40,6 +40,7 @@ import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 
 import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
 import org.ndexbio.model.exceptions.NdexException;
 import org.ndexbio.task.parsingengines.XbelParser;
@@ -68,12 +69,12 @@ public class StatementGroupSplitter extends XBelSplitter {
 	private static final Logger logger = LoggerFactory
 			.getLogger(StatementGroupSplitter.class);
 	
-	private NdexPersistenceService networkService;
+	private NetworkElementBuilder networkService;
 	
 	private int counter;
 
 	public StatementGroupSplitter(JAXBContext jaxbContext,
-			NdexPersistenceService networkService) {
+			NetworkElementBuilder networkService) {
 		super(jaxbContext, xmlStatementGroup);
 		this.networkService = networkService;
 		counter=0;
@@ -142,11 +143,11 @@ public class StatementGroupSplitter extends XBelSplitter {
 			
 			//add the name and comment as properties to citation and then clear the context 
 			if ( name != null ) {
-				this.networkService.addElementProperty(citationId, nameAttr, name, "string");
+				this.networkService.addCitationProperty(citationId, nameAttr, name, "string");
 				name = null;
 			}
 			if ( comment !=null ) {
-				this.networkService.addElementProperty(citationId, commentAttr, comment, "string");
+				this.networkService.addCitationProperty(citationId, commentAttr, comment, "string");
 				comment = null;
 			}
 		} else {
@@ -167,11 +168,11 @@ public class StatementGroupSplitter extends XBelSplitter {
 		} else {
 			//add the name and comment as properties to support and then clear the context 
 			if ( name != null ) {
-				this.networkService.addElementProperty(supportId, nameAttr, name, "string");
+				this.networkService.addSupportProperty(supportId, nameAttr, name, "string");
 				name = null;
 			}
 			if ( comment !=null ) {
-				this.networkService.addElementProperty(supportId, commentAttr, comment, "string");
+				this.networkService.addSupportProperty(supportId, commentAttr, comment, "string");
 				comment = null;
 			}
 		}
@@ -301,11 +302,11 @@ public class StatementGroupSplitter extends XBelSplitter {
 		else {
 			//add the name and comment as properties to citation and then clear the context 
 			if ( name != null ) {
-				this.networkService.addElementProperty(citationId, nameAttr, name, "string");
+				this.networkService.addCitationProperty(citationId, nameAttr, name, "string");
 				name = null;
 			}
 			if ( comment !=null ) {
-				this.networkService.addElementProperty(citationId, commentAttr, comment, "string");
+				this.networkService.addCitationProperty(citationId, commentAttr, comment, "string");
 				comment = null;
 			}
 			
@@ -316,11 +317,11 @@ public class StatementGroupSplitter extends XBelSplitter {
 		else {
 			//add the name and comment as properties to citation and then clear the context 
 			if ( name != null ) {
-				this.networkService.addElementProperty(supportId, nameAttr, name, "string");
+				this.networkService.addSupportProperty(supportId, nameAttr, name, "string");
 				name = null;
 			}
 			if ( comment !=null ) {
-				this.networkService.addElementProperty(supportId, commentAttr, comment, "string");
+				this.networkService.addSupportProperty(supportId, commentAttr, comment, "string");
 				comment = null;
 			}
 			
@@ -351,19 +352,19 @@ public class StatementGroupSplitter extends XBelSplitter {
 						predicateId, localSupportId, localCitationId, annotations);
 				
 /*				if( name != null ) {
-					this.networkService.addElementProperty(edgeId, nameAttr,name,"string");
+					this.networkService.addEdgeProperty(edgeId, nameAttr,name,"string");
 				} */
 				if( comment != null ) {
-					this.networkService.addElementProperty(edgeId, commentAttr,comment,"string");
+					this.networkService.addEdgeProperty(edgeId, commentAttr,comment,"string");
 				}
 				return edgeId;
 			} 
 			
 /*			if( name != null ) {
-				this.networkService.addElementProperty(subjectNodeId, nameAttr,name,"string");
+				this.networkService.addNodeProperty(subjectNodeId, nameAttr,name,"string");
 			} */
 			if( comment != null ) {
-				this.networkService.addElementProperty(subjectNodeId, commentAttr,comment,"string");
+				this.networkService.addNodeProperty(subjectNodeId, commentAttr,comment,"string");
 			}
 			//System.out.println("Handling subject-only statement for node: " + subjectNode.getJdexId() );
 			this.networkService.addMetaDataToNode(subjectNodeId, localSupportId, localCitationId, annotations);
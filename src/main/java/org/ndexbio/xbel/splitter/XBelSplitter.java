@@ -59,6 +59,12 @@ public abstract class XBelSplitter extends XMLFilterImpl {
 	protected final JAXBContext context;
 	protected final String xmlElement;
 
+	/**
+	 * When true, an error while processing an element stops the parsing instead of 
+	 * being reported and skipped.
+	 */
+	protected boolean abortOnError = false;
+
 	public final static String belURI = "http://belframework.org/schema/1.0/xbel";
 	/**
 	 * Remembers the depth of the elements as we forward SAX events to a JAXB
@@ -175,6 +181,8 @@ public abstract class XBelSplitter extends XMLFilterImpl {
 
 					 process();
 				} catch (JAXBException | NdexException | ExecutionException je) {
+					if ( abortOnError)
+						throw new SAXException(je);
 					// error was found during the unmarshalling.
 					// you can either abort the processing by throwing a
 					// SAXException,
@@ -66,7 +66,7 @@ import java.util.regex.Pattern;
 
 import org.cxio.aspects.datamodels.ATTRIBUTE_DATA_TYPE;
 import org.ndexbio.common.models.object.network.RawNamespace;
-import org.ndexbio.common.persistence.orientdb.NdexPersistenceService;
+import org.ndexbio.common.persistence.NetworkElementBuilder;
 import org.ndexbio.common.util.TermStringType;
 import org.ndexbio.common.util.TermUtilities;
 import org.ndexbio.model.exceptions.NdexException;
@@ -86,7 +86,7 @@ import org.xml.sax.SAXException;
 
 public class ReadDataManager {
 	
-	private NdexPersistenceService networkService;
+	private NetworkElementBuilder networkService;
 	
 	// table that stores all the prefixes defined in the current network.
 	private Map<String, Namespace> prefixMap;
@@ -166,7 +166,7 @@ public class ReadDataManager {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ReadDataManager.class);
 
-	public ReadDataManager(NdexPersistenceService networkService) {
+	public ReadDataManager(NetworkElementBuilder networkService) {
 
 		this.networkService = networkService;
 	//	this.ris = ris;
@@ -505,7 +505,7 @@ public class ReadDataManager {
 		else if (type!=null && type.equalsIgnoreCase("list"))
 			type = ATTRIBUTE_DATA_TYPE.toCxLabel(ATTRIBUTE_DATA_TYPE.STRING);	
 
-		this.networkService.addElementProperty(elementId, key, value,type);
+		this.networkService.addNodeProperty(elementId, key, value,type);
 	}
 
 	protected Long getCurrentElementId() {
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.cx;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NodeAttributesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.cxio.core.interfaces.AspectElement;
+import org.junit.Test;
+import org.ndexbio.model.cx.CitationElement;
+import org.ndexbio.model.cx.EdgeCitationLinksElement;
+
+public class SyntheticCXNetworkGeneratorTest {
+
+	private static List<AspectElement> generate(SyntheticCXNetworkGenerator generator) throws Exception {
+		final List<AspectElement> elements = new ArrayList<>();
+		generator.convert(new CXNetworkConverter.ElementSink() {
+			@Override
+			public void write(AspectElement element) {
+				elements.add(element);
+			}
+		});
+		return elements;
+	}
+
+	private static Map<String, Integer> countAspects(List<AspectElement> elements) {
+		Map<String, Integer> counts = new HashMap<>();
+		for ( AspectElement e : elements) {
+			Integer cnt = counts.get(e.getAspectName());
+			counts.put(e.getAspectName(), cnt == null ? 1 : cnt + 1);
+		}
+		return counts;
+	}
+
+	@Test
+	public void testElementCounts() throws Exception {
+		SyntheticCXNetworkGenerator generator = new SyntheticCXNetworkGenerator();
+		generator.setNodeCount(500);
+		generator.setEdgeCount(2000);
+		generator.setNodeAttributeCount(3);
+		generator.setEdgeAttributeCount(2);
+		generator.setCitationCount(10);
+		generator.setEdgeCitationDensity(1);
+		generator.setOpaqueAspectCount(2);
+		generator.setOpaqueElementCount(7);
+
+		Map<String, Integer> counts = countAspects(generate(generator));
+		assertEquals(500, counts.get(NodesElement.ASPECT_NAME).intValue());
+		assertEquals(2000, counts.get(EdgesElement.ASPECT_NAME).intValue());
+		assertEquals(1500, counts.get(NodeAttributesElement.ASPECT_NAME).intValue());
+		assertEquals(10, counts.get(CitationElement.ASPECT_NAME).intValue());
+		assertEquals(2000, counts.get(EdgeCitationLinksElement.ASPECT_NAME).intValue());
+		assertEquals(7, counts.get(SyntheticCXNetworkGenerator.getOpaqueAspectName(1)).intValue());
+		assertEquals(2000, generator.getMetaData().getMetaDataElement(EdgesElement.ASPECT_NAME).getElementCount().intValue());
+	}
+
+	@Test
+	public void testDegreeDistribution() throws Exception {
+		SyntheticCXNetworkGenerator generator = new SyntheticCXNetworkGenerator();
+		generator.setNodeCount(1000);
+		generator.setEdgeCount(10000);
+		generator.setDegreeExponent(2.2);
+
+		int[] degrees = new int[1001];
+		for ( AspectElement e : generate(generator)) {
+			if ( e instanceof EdgesElement) {
+				EdgesElement edge = (EdgesElement) e;
+				assertTrue(edge.getSource() >= 1 && edge.getSource() <= 1000);
+				assertTrue(edge.getTarget() >= 1 && edge.getTarget() <= 1000);
+				assertTrue(edge.getSource() != edge.getTarget());
+				degrees[(int) edge.getSource()]++;
+				degrees[(int) edge.getTarget()]++;
+			}
+		}
+		// the first node is a hub, the last ones are not.
+		assertTrue(degrees[1] > 200);
+		assertTrue(degrees[1000] < 20);
+	}
+
+	@Test
+	public void testSameSeedSameNetwork() throws Exception {
+		SyntheticCXNetworkGenerator g1 = new SyntheticCXNetworkGenerator();
+		SyntheticCXNetworkGenerator g2 = new SyntheticCXNetworkGenerator();
+		g1.setSeed(42);
+		g2.setSeed(42);
+		List<AspectElement> l1 = generate(g1);
+		List<AspectElement> l2 = generate(g2);
+		assertEquals(l1.size(), l2.size());
+		for ( int i = 0; i < l1.size(); i++) {
+			if ( l1.get(i) instanceof EdgesElement) {
+				assertEquals(((EdgesElement) l1.get(i)).getSource(), ((EdgesElement) l2.get(i)).getSource());
+				assertEquals(((EdgesElement) l1.get(i)).getTarget(), ((EdgesElement) l2.get(i)).getTarget());
+			}
+		}
+	}
+}
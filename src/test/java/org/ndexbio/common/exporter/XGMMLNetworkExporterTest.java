@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.exporter;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.cxio.core.interfaces.AspectElement;
+import org.junit.Test;
+import org.ndexbio.common.cx.CXNetworkConverter;
+import org.ndexbio.common.models.dao.orientdb.NetworkElementStream;
+import org.ndexbio.model.cx.NamespacesElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.Namespace;
+import org.ndexbio.task.parsingengines.XgmmlCXConverter;
+
+public class XGMMLNetworkExporterTest {
+
+	private static final String xgmmlNS = "http://www.cs.rpi.edu/XGMML";
+	private static final String rdfNS = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+	private static final String dcTermsNS = "http://purl.org/dc/terms/";
+	private static final String cyNS = "http://www.cytoscape.org";
+
+	private static Namespace namespace(String prefix, String uri) {
+		Namespace ns = new Namespace();
+		ns.setPrefix(prefix);
+		ns.setUri(uri);
+		return ns;
+	}
+
+	private static NetworkElementStream.ElementIterator<Namespace> iterator(List<Namespace> namespaces) {
+		final Iterator<Namespace> it = namespaces.iterator();
+		return new NetworkElementStream.ElementIterator<Namespace>() {
+			@Override
+			public boolean hasNext() {
+				return it.hasNext();
+			}
+
+			@Override
+			public Namespace next() {
+				return it.next();
+			}
+		};
+	}
+
+	/*
+	 * A graph with the given namespaces and one edge, written the way the exporter starts its graph element.
+	 */
+	private static File writeGraph(List<Namespace> namespaces) throws IOException, XMLStreamException, NdexException {
+		File f = File.createTempFile("xgmmlexport", ".xgmml");
+		f.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(f)) {
+			XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+			writer.writeStartDocument("UTF-8", "1.0");
+			writer.writeStartElement("graph");
+			writer.writeAttribute("label", "round trip");
+			XGMMLNetworkExporter.writeNamespaces(writer, iterator(namespaces));
+			writer.writeStartElement("node");
+			writer.writeAttribute("id", "1");
+			writer.writeAttribute("label", "A");
+			writer.writeEndElement();
+			writer.writeStartElement("node");
+			writer.writeAttribute("id", "2");
+			writer.writeAttribute("label", "B");
+			writer.writeEndElement();
+			writer.writeStartElement("edge");
+			writer.writeAttribute("id", "3");
+			writer.writeAttribute("label", "A (pp) B");
+			writer.writeAttribute("source", "1");
+			writer.writeAttribute("target", "2");
+			writer.writeEndElement();
+			writer.writeEndElement();
+			writer.writeEndDocument();
+			writer.close();
+		}
+		return f;
+	}
+
+	private static NamespacesElement readNamespaces(File f) throws NdexException, IOException {
+		final List<NamespacesElement> result = new ArrayList<>();
+		new XgmmlCXConverter(f, "round trip").convert(new CXNetworkConverter.ElementSink() {
+			@Override
+			public void write(AspectElement element) {
+				if ( element instanceof NamespacesElement)
+					result.add((NamespacesElement) element);
+			}
+		});
+		assertEquals(1, result.size());
+		return result.get(0);
+	}
+
+	private static int count(String text, String s) {
+		int n = 0;
+		for ( int i = text.indexOf(s); i >= 0; i = text.indexOf(s, i + 1))
+			n++;
+		return n;
+	}
+
+	@Test
+	public void testDefaultNamespaces() throws Exception {
+		File f = writeGraph(new ArrayList<Namespace>());
+		NamespacesElement ns = readNamespaces(f);
+		assertEquals(rdfNS, ns.get("rdf"));
+		assertEquals("http://purl.org/dc/elements/1.1/", ns.get("dc"));
+	}
+
+	@Test
+	public void testRoundTripDeclaresEachPrefixOnce() throws Exception {
+		// what XGMMLParser stores for a Cytoscape file, with dc mapped to another URI.
+		List<Namespace> stored = Arrays.asList(namespace("xmlns", xgmmlNS), namespace("rdf", rdfNS), 
+				namespace("dc", dcTermsNS), namespace("cy", cyNS));
+		File f = writeGraph(stored);
+
+		String text = new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+		assertEquals(1, count(text, "xmlns:rdf="));
+		assertEquals(1, count(text, "xmlns:dc="));
+		assertEquals(1, count(text, "xmlns:cy="));
+		assertEquals(1, count(text, "xmlns="));
+
+		// read it back, and export what was read again.
+		NamespacesElement ns = readNamespaces(f);
+		assertEquals(xgmmlNS, ns.get("xmlns"));
+		assertEquals(rdfNS, ns.get("rdf"));
+		assertEquals(dcTermsNS, ns.get("dc"));
+		assertEquals(cyNS, ns.get("cy"));
+
+		List<Namespace> reread = new ArrayList<>();
+		for ( String prefix : ns.keySet())
+			reread.add(namespace(prefix, ns.get(prefix)));
+		NamespacesElement ns2 = readNamespaces(writeGraph(reread));
+		assertEquals(ns, ns2);
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.ndexbio.common.NdexClasses;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+public class AccountSearchIndexTest {
+
+	private AccountSearchIndex index;
+	private ORID alice = new ORecordId(10, 1);
+	private ORID bob = new ORecordId(10, 2);
+	private ORID malice = new ORecordId(10, 3);
+	private ORID aliceGroup = new ORecordId(11, 1);
+
+	@Before
+	public void setUp() {
+		index = new AccountSearchIndex();
+		index.put(alice, NdexClasses.User, 100, "alice1", "Alice", "Smith");
+		index.put(bob, NdexClasses.User, 200, "bob", "Bob", "Jones");
+		index.put(malice, NdexClasses.User, 300, "mal", "Malice", null);
+		index.put(aliceGroup, NdexClasses.Group, 400, "alicelab", "Alice's Lab");
+	}
+
+	@Test
+	public void testSubstringMatch() {
+		assertEquals(Arrays.asList(malice, alice), index.find(NdexClasses.User, "alice", null, 0, 10));
+		assertEquals(Arrays.asList(aliceGroup), index.find(NdexClasses.Group, "alice", null, 0, 10));
+		assertEquals(Arrays.asList(alice), index.find(NdexClasses.User, "smi", null, 0, 10));
+		assertTrue(index.find(NdexClasses.User, "xyz", null, 0, 10).isEmpty());
+	}
+
+	@Test
+	public void testShortSearchString() {
+		assertEquals(Arrays.asList(bob), index.find(NdexClasses.User, "jo", null, 0, 10));
+		assertEquals(Arrays.asList(malice, bob, alice), index.find(NdexClasses.User, "", null, 0, 10));
+	}
+
+	@Test
+	public void testRestrictAndPaging() {
+		Set<ORID> members = new HashSet<>(Arrays.asList(alice, bob));
+		assertEquals(Arrays.asList(alice), index.find(NdexClasses.User, "alice", members, 0, 10));
+
+		List<ORID> page = index.find(NdexClasses.User, "", null, 1, 1);
+		assertEquals(Arrays.asList(bob), page);
+		assertTrue(index.find(NdexClasses.User, "", null, 5, 1).isEmpty());
+	}
+
+	@Test
+	public void testUpdateAndRemove() {
+		index.put(bob, NdexClasses.User, 200, "bob", "Bobby", "Smithers");
+		assertEquals(Arrays.asList(bob, alice), index.find(NdexClasses.User, "smith", null, 0, 10));
+		assertTrue(index.find(NdexClasses.User, "jones", null, 0, 10).isEmpty());
+
+		index.remove(alice);
+		assertEquals(Arrays.asList(bob), index.find(NdexClasses.User, "smith", null, 0, 10));
+	}
+
+	@Test
+	public void testDeletedAccountsAreDroppedBeforePaging() {
+		final Map<ORID, ODocument> records = new HashMap<>();
+		records.put(malice, new ODocument().field(NdexClasses.account_P_accountName, "mal"));
+		// deleted in the db, but the index hasn't heard about it yet.
+		records.put(bob, new ODocument().field(NdexClasses.ExternalObj_isDeleted, true));
+		records.put(alice, new ODocument().field(NdexClasses.account_P_accountName, "alice1")
+				.field(NdexClasses.ExternalObj_isDeleted, false));
+		AccountSearchIndex.AccountLoader loader = new AccountSearchIndex.AccountLoader() {
+			@Override
+			public ODocument load(ORID rid) {
+				return records.get(rid);
+			}
+		};
+
+		List<ORID> matches = index.find(NdexClasses.User, "", null, 0, 10);
+		assertEquals(Arrays.asList(malice, bob, alice), matches);
+
+		List<ODocument> page = index.loadPage(matches, loader, 1, 1);
+		assertEquals(1, page.size());
+		assertSame(records.get(alice), page.get(0));
+
+		page = index.loadPage(matches, loader, 0, 2);
+		assertEquals(2, page.size());
+		assertSame(records.get(malice), page.get(0));
+		assertSame(records.get(alice), page.get(1));
+
+		assertTrue(index.loadPage(matches, loader, 2, 2).isEmpty());
+	}
+}
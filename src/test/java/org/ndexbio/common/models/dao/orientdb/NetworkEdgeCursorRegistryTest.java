@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.ndexbio.common.models.dao.orientdb.NetworkEdgeCursorRegistry.EdgeCursor;
+
+import com.google.common.cache.Cache;
+
+public class NetworkEdgeCursorRegistryTest {
+
+	private static EdgeCursor cursor(int size) {
+		return new EdgeCursor(new Date(), new short[size], new long[size], size);
+	}
+
+	@Test
+	public void testLargeCursorStaysCached() {
+		Cache<String, EdgeCursor> cache = NetworkEdgeCursorRegistry.newCache(10, 1000);
+		// heavier than a quarter of the budget, which is all a segment gets with the default concurrency level.
+		cache.put("big", cursor(700));
+		assertNotNull(cache.getIfPresent("big"));
+
+		cache.put("small", cursor(200));
+		assertNotNull(cache.getIfPresent("big"));
+		assertNotNull(cache.getIfPresent("small"));
+
+		// over the budget, the least recently used cursor goes.
+		cache.put("another", cursor(300));
+		assertNull(cache.getIfPresent("big"));
+		assertNotNull(cache.getIfPresent("another"));
+	}
+}
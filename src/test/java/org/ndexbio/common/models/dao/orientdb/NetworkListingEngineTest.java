@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.models.dao.orientdb.NetworkListingEngine.NewestNetworks;
+
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+public class NetworkListingEngineTest {
+
+	private static ODocument network(long mTime) {
+		return new ODocument().field(NdexClasses.ExternalObj_mTime, new Date(mTime));
+	}
+
+	private static long time(ODocument doc) {
+		return ((Date)doc.field(NdexClasses.ExternalObj_mTime)).getTime();
+	}
+
+	@Test
+	public void testOnlyTopKAreKept() {
+		List<Long> times = new ArrayList<>();
+		for ( long t = 1; t <= 50; t++)
+			times.add(t * 1000);
+		Collections.shuffle(times, new java.util.Random(7));
+
+		NewestNetworks newest = new NewestNetworks(2, 3);
+		for ( Long t : times) {
+			ODocument doc = network(t);
+			if ( newest.wouldKeep(doc))
+				newest.add(doc);
+			assertTrue(newest.size() <= 5);
+		}
+
+		List<ODocument> page = newest.getPage();
+		assertEquals(3, page.size());
+		assertEquals(48000, time(page.get(0)));
+		assertEquals(47000, time(page.get(1)));
+		assertEquals(46000, time(page.get(2)));
+	}
+
+	@Test
+	public void testOlderNetworksAreNotConsidered() {
+		NewestNetworks newest = new NewestNetworks(0, 2);
+		newest.add(network(5000));
+		newest.add(network(6000));
+		assertFalse(newest.wouldKeep(network(4000)));
+		assertTrue(newest.wouldKeep(network(7000)));
+	}
+
+	@Test
+	public void testSkipPastTheEnd() {
+		NewestNetworks newest = new NewestNetworks(5, Integer.MAX_VALUE);
+		newest.add(network(1000));
+		newest.add(network(2000));
+		assertTrue(newest.getPage().isEmpty());
+	}
+}
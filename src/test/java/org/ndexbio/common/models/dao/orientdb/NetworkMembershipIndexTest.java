@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.ndexbio.common.models.dao.orientdb.NetworkMembershipIndex.AccountMemberships;
+import org.ndexbio.common.models.dao.orientdb.NetworkMembershipIndex.Key;
+import org.ndexbio.model.object.Permissions;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+public class NetworkMembershipIndexTest {
+
+	private static List<Key> list(Iterable<Key> keys) {
+		List<Key> result = new ArrayList<>();
+		for ( Key k : keys)
+			result.add(k);
+		return result;
+	}
+
+	@Test
+	public void testNewestFirst() {
+		Key k1 = new Key(100, new ORecordId(9, 1));
+		Key k2 = new Key(300, new ORecordId(9, 2));
+		Key k3 = new Key(200, new ORecordId(9, 3));
+		AccountMemberships m = new AccountMemberships();
+		m.set(k1, Permissions.READ);
+		m.set(k2, Permissions.READ);
+		m.set(k3, Permissions.READ);
+
+		assertEquals(Arrays.asList(k2, k3, k1), list(m.tail(Permissions.READ, null)));
+		assertEquals(Arrays.asList(k3, k1), list(m.tail(Permissions.READ, k2)));
+		assertTrue(list(m.tail(Permissions.READ, k1)).isEmpty());
+		assertTrue(list(m.tail(Permissions.ADMIN, null)).isEmpty());
+	}
+
+	@Test
+	public void testReplaceAndRemove() {
+		Key k1 = new Key(100, new ORecordId(9, 1));
+		Key k2 = new Key(100, new ORecordId(9, 2));
+		AccountMemberships m = new AccountMemberships();
+		m.set(k1, Permissions.READ);
+		m.set(k2, Permissions.READ);
+		m.set(k1, Permissions.ADMIN);
+
+		assertEquals(Arrays.asList(k2), list(m.tail(Permissions.READ, null)));
+		assertEquals(Arrays.asList(k1), list(m.tail(Permissions.ADMIN, null)));
+
+		m.remove(new ORecordId(9, 1));
+		assertTrue(list(m.tail(Permissions.ADMIN, null)).isEmpty());
+	}
+
+	@Test
+	public void testMergeOfUserAndGroups() {
+		Key n1 = new Key(100, new ORecordId(9, 1));
+		Key n2 = new Key(200, new ORecordId(9, 2));
+		Key n3 = new Key(300, new ORecordId(9, 3));
+		Key n4 = new Key(400, new ORecordId(9, 4));
+		Key n5 = new Key(500, new ORecordId(9, 5));
+
+		AccountMemberships user = new AccountMemberships();
+		user.set(n1, Permissions.READ);
+		user.set(n4, Permissions.READ);
+		user.set(n5, Permissions.ADMIN);
+		AccountMemberships group1 = new AccountMemberships();
+		group1.set(n2, Permissions.READ);
+		group1.set(n4, Permissions.READ);
+		AccountMemberships group2 = new AccountMemberships();
+		group2.set(n3, Permissions.READ);
+		AccountMemberships emptyGroup = new AccountMemberships();
+		List<AccountMemberships> sources = Arrays.asList(user, group1, group2, emptyGroup);
+
+		final Map<ORID, ODocument> records = new HashMap<>();
+		for ( Key k : new Key[] {n1, n2, n4, n5})
+			records.put(k.networkRID, new ODocument());
+		// n3 has been deleted.
+		NetworkMembershipIndex.NetworkLoader loader = new NetworkMembershipIndex.NetworkLoader() {
+			@Override
+			public ODocument load(ORID networkRID) {
+				return records.get(networkRID);
+			}
+		};
+
+		// n4 is reached through the user and a group but is listed once; n3 is skipped and doesn't count.
+		List<ODocument> page = NetworkMembershipIndex.merge(sources, Permissions.READ, null, 0, 10, loader);
+		assertEquals(3, page.size());
+		assertSame(records.get(n4.networkRID), page.get(0));
+		assertSame(records.get(n2.networkRID), page.get(1));
+		assertSame(records.get(n1.networkRID), page.get(2));
+		assertTrue(list(group2.tail(Permissions.READ, null)).isEmpty());
+
+		page = NetworkMembershipIndex.merge(sources, Permissions.READ, null, 1, 1, loader);
+		assertEquals(1, page.size());
+		assertSame(records.get(n2.networkRID), page.get(0));
+
+		// keyset paging: after n4.
+		page = NetworkMembershipIndex.merge(sources, Permissions.READ, n4, 0, 10, loader);
+		assertEquals(2, page.size());
+		assertSame(records.get(n2.networkRID), page.get(0));
+		assertSame(records.get(n1.networkRID), page.get(1));
+
+		page = NetworkMembershipIndex.merge(sources, Permissions.ADMIN, null, 0, 10, loader);
+		assertEquals(1, page.size());
+		assertSame(records.get(n5.networkRID), page.get(0));
+	}
+}
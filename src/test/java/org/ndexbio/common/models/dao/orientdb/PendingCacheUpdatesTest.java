@@ -0,0 +1,140 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.ndexbio.model.object.Permissions;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+public class PendingCacheUpdatesTest {
+
+	@Test
+	public void testRolledBackGrantIsNotCached() {
+		ORID account = new ORecordId(11, 101);
+		String network = UUID.randomUUID().toString();
+		NetworkACLCache.INSTANCE.trackNewAccount(account);
+
+		PendingCacheUpdates pending = new PendingCacheUpdates();
+		pending.setPermission(account, new ODocument(), network, Permissions.ADMIN);
+		// not visible before the commit.
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+
+		pending.rolledBack();
+		assertTrue(pending.isEmpty());
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+
+		// a later commit of the same DAO doesn't bring the rolled back grant back.
+		pending.committed();
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+	}
+
+	@Test
+	public void testCommittedGrantAndRevoke() {
+		ORID account = new ORecordId(11, 102);
+		String network = UUID.randomUUID().toString();
+		NetworkACLCache.INSTANCE.trackNewAccount(account);
+
+		PendingCacheUpdates pending = new PendingCacheUpdates();
+		pending.setPermission(account, new ODocument(), network, Permissions.WRITE);
+		pending.committed();
+		assertTrue(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.WRITE));
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.ADMIN));
+
+		pending.removePermission(account, new ORecordId(12, 1), network);
+		pending.rolledBack();
+		assertTrue(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.WRITE));
+
+		pending.removePermission(account, new ORecordId(12, 1), network);
+		pending.committed();
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+	}
+
+	@Test
+	public void testCloseWithPendingUpdatesInvalidates() {
+		ORID account = new ORecordId(11, 103);
+		NetworkACLCache.INSTANCE.trackNewAccount(account);
+
+		PendingCacheUpdates pending = new PendingCacheUpdates();
+		pending.setPermission(account, new ODocument(), UUID.randomUUID().toString(), Permissions.READ);
+		pending.closed();
+		assertFalse(NetworkACLCache.INSTANCE.isLoaded(account));
+		assertTrue(pending.isEmpty());
+	}
+
+	@Test
+	public void testGroupMembershipAppliedOnCommit() {
+		ORID account = new ORecordId(11, 104);
+		ORID group = new ORecordId(13, 104);
+		String network = UUID.randomUUID().toString();
+		NetworkACLCache.INSTANCE.trackNewAccount(account);
+		NetworkACLCache.INSTANCE.trackNewAccount(group);
+		NetworkACLCache.INSTANCE.setPermission(group, network, Permissions.WRITE);
+
+		PendingCacheUpdates pending = new PendingCacheUpdates();
+		pending.addGroup(account, group);
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+		pending.rolledBack();
+		pending.committed();
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+
+		pending.addGroup(account, group);
+		pending.committed();
+		assertTrue(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.WRITE));
+
+		pending.removeGroup(account, group);
+		pending.rolledBack();
+		assertTrue(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.WRITE));
+
+		pending.removeGroup(account, group);
+		pending.committed();
+		assertFalse(NetworkACLCache.INSTANCE.hasPermission(account, network, Permissions.READ));
+	}
+
+	@Test
+	public void testInvalidateAfterCommit() {
+		ORID account = new ORecordId(11, 105);
+		NetworkACLCache.INSTANCE.trackNewAccount(account);
+
+		PendingCacheUpdates pending = new PendingCacheUpdates();
+		pending.invalidate(account);
+		// the entry stays until the edges are really gone.
+		assertTrue(NetworkACLCache.INSTANCE.isLoaded(account));
+		pending.committed();
+		assertFalse(NetworkACLCache.INSTANCE.isLoaded(account));
+	}
+}
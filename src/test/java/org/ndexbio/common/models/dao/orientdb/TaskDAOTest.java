@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import static org.junit.Assert.*;
+import static org.ndexbio.common.models.dao.orientdb.TaskTestDatabase.addTask;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.model.object.Status;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+
+public class TaskDAOTest {
+
+	private static ODatabaseDocumentTx db;
+
+	private static final long now = System.currentTimeMillis();
+	private static final Date cutoff = new Date(now - TimeUnit.DAYS.toMillis(30));
+	private static final Date old = new Date(now - TimeUnit.DAYS.toMillis(40));
+	private static final Date recent = new Date(now - TimeUnit.DAYS.toMillis(1));
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		db = TaskTestDatabase.create("taskDAOTest");
+	}
+
+	private static long countTasks() {
+		return db.countClass(NdexClasses.Task);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		db.drop();
+	}
+
+	@Before
+	public void setUp() {
+		db.command(new OCommandSQL("delete from " + NdexClasses.Task)).execute();
+	}
+
+	@Test
+	public void testPurgeWithoutCutoff() {
+		// queued tasks have no start time.
+		addTask(Status.QUEUED_FOR_DELETION, false, null, recent);
+		addTask(Status.QUEUED_FOR_DELETION, false, recent, recent);
+		addTask(Status.QUEUED_FOR_DELETION, true, null, old);
+		addTask(Status.QUEUED, false, null, old);
+
+		TaskDAO dao = new TaskDAO(db);
+		assertEquals(2, dao.purgeTasks(Status.QUEUED_FOR_DELETION, false, null, 10));
+		assertEquals(1, dao.purgeTasks(Status.QUEUED_FOR_DELETION, true, null, 10));
+		assertEquals(1, countTasks());
+	}
+
+	@Test
+	public void testPurgeOlderThan() {
+		addTask(Status.COMPLETED, false, old, old);
+		addTask(Status.COMPLETED, false, old, old);
+		addTask(Status.COMPLETED, false, recent, old);
+		// never started, the creation time counts.
+		addTask(Status.COMPLETED, false, null, old);
+		addTask(Status.COMPLETED, false, null, recent);
+		addTask(Status.COMPLETED, true, old, old);
+		addTask(Status.FAILED, false, old, old);
+
+		TaskDAO dao = new TaskDAO(db);
+		assertEquals(3, dao.purgeTasks(Status.COMPLETED, false, cutoff, 10));
+		assertEquals(4, countTasks());
+		assertEquals(0, dao.purgeTasks(Status.COMPLETED, false, cutoff, 10));
+		assertEquals(1, dao.purgeTasks(Status.COMPLETED, true, cutoff, 10));
+	}
+
+	@Test
+	public void testPurgeInBatches() {
+		for ( int i = 0; i < 7; i++)
+			addTask(Status.FAILED, false, old, old);
+		addTask(Status.FAILED, false, recent, recent);
+
+		TaskDAO dao = new TaskDAO(db);
+		assertEquals(7, dao.purgeTasks(Status.FAILED, false, cutoff, 3));
+		assertEquals(1, countTasks());
+	}
+}
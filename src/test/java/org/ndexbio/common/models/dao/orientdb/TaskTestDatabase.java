@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.models.dao.orientdb;
+
+import java.util.Date;
+
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.util.NdexUUIDFactory;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.Status;
+import org.ndexbio.orientdb.NdexSchemaManager;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+/**
+ * In memory database with the NDEx schema, shared by the tests of the task DAO and the task purge job.
+ */
+public class TaskTestDatabase {
+
+	/**
+	 * Create an in memory database and build the schema and its indexes through NdexSchemaManager.
+	 */
+	public static ODatabaseDocumentTx create(String name) throws NdexException {
+		ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + name);
+		db.create();
+		NdexSchemaManager.INSTANCE.init(db);
+		return db;
+	}
+
+	public static ODocument addTask(Status status, boolean isDeleted, Date startTime, Date createdTime) {
+		return new ODocument(NdexClasses.Task).fields(
+				NdexClasses.ExternalObj_ID, NdexUUIDFactory.INSTANCE.createNewNDExUUID().toString(),
+				NdexClasses.Task_P_status, status.toString(),
+				NdexClasses.ExternalObj_isDeleted, isDeleted,
+				NdexClasses.Task_P_startTime, startTime,
+				NdexClasses.ExternalObj_cTime, createdTime).save();
+	}
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.persistence.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+public class ElementDedupMapTest {
+
+	// stands in for the stored elements the persistence service rebuilds the keys from.
+	private static ElementDedupMap.Verifier storedKeys(final Map<Long, String> keys) {
+		return new ElementDedupMap.Verifier() {
+			@Override
+			public String getCanonicalKey(Long elementId) {
+				return keys.get(elementId);
+			}
+		};
+	}
+
+	@Test
+	public void testPutAndGet() {
+		ElementDedupMap m = new ElementDedupMap(4);
+		for (long i = 0; i < 10000; i++)
+			m.put(ElementDedupMap.canonicalKey("pmid", Long.toString(i)), i + 1);
+		assertEquals(10000, m.size());
+		for (long i = 0; i < 10000; i++)
+			assertEquals(Long.valueOf(i + 1), m.get(ElementDedupMap.canonicalKey("pmid", Long.toString(i))));
+		assertNull(m.get(ElementDedupMap.canonicalKey("pmid", "10000")));
+	}
+
+	@Test
+	public void testNullIsNotEmptyString() {
+		assertFalse(ElementDedupMap.canonicalKey(null, "a").equals(ElementDedupMap.canonicalKey("", "a")));
+		assertFalse(ElementDedupMap.canonicalKey("ab", "c").equals(ElementDedupMap.canonicalKey("a", "bc")));
+	}
+
+	@Test
+	public void testHashCollision() throws ExecutionException {
+		Map<Long, String> stored = new HashMap<>();
+		stored.put(1L, "first");
+		stored.put(2L, "second");
+		ElementDedupMap m = new ElementDedupMap();
+		m.put(7L, 11L, "first", 1L);
+		m.put(7L, 11L, "second", 2L);
+		assertEquals(2, m.size());
+
+		assertEquals(Long.valueOf(1), m.get(7L, 11L, "first", storedKeys(stored)));
+		assertEquals(Long.valueOf(2), m.get(7L, 11L, "second", storedKeys(stored)));
+		assertNull(m.get(7L, 11L, "third", storedKeys(stored)));
+	}
+
+	@Test
+	public void testVerifiedHit() throws ExecutionException {
+		Map<Long, String> stored = new HashMap<>();
+		String key = ElementDedupMap.canonicalKey(5L, Arrays.asList(1L, 2L));
+		stored.put(1L, key);
+		ElementDedupMap m = new ElementDedupMap();
+		m.put(key, 1L);
+		assertEquals(Long.valueOf(1), m.get(key, storedKeys(stored)));
+		// same base term, different parameters.
+		assertNull(m.get(ElementDedupMap.canonicalKey(5L, Arrays.asList(2L, 1L)), storedKeys(stored)));
+	}
+}
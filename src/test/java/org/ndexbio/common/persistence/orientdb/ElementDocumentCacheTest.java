@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.persistence.orientdb;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.Test;
+
+import com.google.common.cache.CacheLoader;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+public class ElementDocumentCacheTest {
+
+	private static ElementDocumentCache newCache(final String tag) {
+		return new ElementDocumentCache(new CacheLoader<Long, ODocument>() {
+			@Override
+			public ODocument load(Long key) {
+				return new ODocument().field("tag", tag).field("id", key);
+			}
+		});
+	}
+
+	@Test
+	public void testSizeEstimateGrowsWithContent() {
+		ODocument small = new ODocument().field("name", "a");
+		ODocument large = new ODocument().field("name", "a")
+				.field("represents", "http://identifiers.org/ncbigene/7157")
+				.field("aliases", Arrays.asList("TP53", "P53", "LFS1", "BCC7", "TRP53"));
+		assertTrue(ElementDocumentCache.estimateSize(small) > 0);
+		assertTrue(ElementDocumentCache.estimateSize(large) > ElementDocumentCache.estimateSize(small));
+	}
+
+	@Test
+	public void testSessionsAreIsolated() throws ExecutionException {
+		ElementDocumentCache c1 = newCache("c1");
+		ElementDocumentCache c2 = newCache("c2");
+
+		ODocument doc = new ODocument().field("tag", "put");
+		c1.put(1L, doc);
+		assertSame(doc, c1.get(1L));
+		assertEquals("c2", c2.get(1L).field("tag"));
+
+		c1.release();
+		assertNull(c1.getIfPresent(1L));
+		assertNotNull(c2.getIfPresent(1L));
+		assertEquals("c1", c1.get(1L).field("tag"));
+		c1.release();
+		c2.release();
+	}
+}
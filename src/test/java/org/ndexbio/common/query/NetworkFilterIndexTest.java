@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.query;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.ndexbio.common.query.filter.orientdb.EdgeByEdgePropertyFilterODB;
+import org.ndexbio.common.query.filter.orientdb.EdgeByNodePropertyFilterODB;
+import org.ndexbio.common.query.filter.orientdb.EdgeCollectionQueryODB;
+import org.ndexbio.model.network.query.SpecMatchMode;
+import org.ndexbio.model.object.NdexPropertyValuePair;
+
+import com.google.common.cache.Cache;
+
+public class NetworkFilterIndexTest {
+
+	@Test
+	public void testUnion() {
+		List<long[]> lists = new ArrayList<>();
+		assertEquals(0, NetworkFilterIndex.union(lists).length);
+
+		lists.add(new long[] {1, 5, 9});
+		lists.add(new long[] {2, 5, 10});
+		lists.add(new long[] {});
+		assertArrayEquals(new long[] {1, 2, 5, 9, 10}, NetworkFilterIndex.union(lists));
+	}
+
+	@Test
+	public void testIntersect() {
+		assertArrayEquals(new long[] {5, 9},
+				NetworkFilterIndex.intersect(new long[] {1, 5, 9, 12}, new long[] {2, 5, 9, 10}));
+		assertArrayEquals(new long[] {},
+				NetworkFilterIndex.intersect(new long[] {1, 3}, new long[] {2, 4}));
+		assertArrayEquals(new long[] {},
+				NetworkFilterIndex.intersect(new long[] {}, new long[] {2, 4}));
+	}
+
+	@Test
+	public void testUnionOfSingleList() {
+		long[] l = new long[] {3, 4};
+		assertArrayEquals(l, NetworkFilterIndex.union(Arrays.asList(l)));
+	}
+
+	/**
+	 * Nodes A(1), B(2), C(3, type=gene). Edges in list order: 30 A->B (predicate 100), 
+	 * 10 B->C (predicate 101, score=high), 20 C->A (predicate 100).
+	 */
+	private static NetworkFilterIndex buildTestIndex() {
+		NetworkFilterIndex.Builder builder = new NetworkFilterIndex.Builder();
+		List<NdexPropertyValuePair> none = Collections.emptyList();
+		builder.addNode(1L, "A", null, null, none);
+		builder.addNode(2L, "B", 200L, "complex", none);
+		builder.addNode(3L, "C", null, null, Arrays.asList(new NdexPropertyValuePair("type", "gene")));
+		builder.addEdge(30L, 100L, 1L, 2L, none);
+		builder.addEdge(10L, 101L, 2L, 3L, Arrays.asList(new NdexPropertyValuePair("score", "high")));
+		builder.addEdge(20L, 100L, 3L, 1L, null);
+		return builder.build(new Date());
+	}
+
+	private static EdgeCollectionQueryODB nodeQuery(SpecMatchMode mode, String... names) {
+		EdgeByNodePropertyFilterODB nodeFilter = new EdgeByNodePropertyFilterODB();
+		nodeFilter.setMode(mode);
+		for ( String name : names)
+			nodeFilter.addNodeName(name);
+		EdgeCollectionQueryODB query = new EdgeCollectionQueryODB();
+		query.setNodeFilter(nodeFilter);
+		return query;
+	}
+
+	@Test
+	public void testFindEdgesByEdgeFilter() {
+		NetworkFilterIndex idx = buildTestIndex();
+
+		EdgeByEdgePropertyFilterODB edgeFilter = new EdgeByEdgePropertyFilterODB();
+		edgeFilter.addPredicateId(100L);
+		EdgeCollectionQueryODB query = new EdgeCollectionQueryODB();
+		query.setEdgeFilter(edgeFilter);
+		// in edge list order, the same order a scan would return them in.
+		assertArrayEquals(new long[] {30, 20}, idx.findEdges(query));
+
+		edgeFilter = new EdgeByEdgePropertyFilterODB();
+		edgeFilter.addProperty("Score", "HIGH");
+		query.setEdgeFilter(edgeFilter);
+		assertArrayEquals(new long[] {10}, idx.findEdges(query));
+
+		edgeFilter.addPredicateId(100L);
+		assertArrayEquals(new long[] {30, 10, 20}, idx.findEdges(query));
+	}
+
+	@Test
+	public void testFindEdgesByNodeFilter() {
+		NetworkFilterIndex idx = buildTestIndex();
+
+		assertArrayEquals(new long[] {30}, idx.findEdges(nodeQuery(SpecMatchMode.Source, "a")));
+		assertArrayEquals(new long[] {20}, idx.findEdges(nodeQuery(SpecMatchMode.Target, "A")));
+		assertArrayEquals(new long[] {30, 20}, idx.findEdges(nodeQuery(SpecMatchMode.Either, "a")));
+		assertArrayEquals(new long[] {30}, idx.findEdges(nodeQuery(SpecMatchMode.Both, "a", "b")));
+		assertArrayEquals(new long[] {}, idx.findEdges(nodeQuery(SpecMatchMode.Both, "x")));
+
+		EdgeCollectionQueryODB query = nodeQuery(SpecMatchMode.Target);
+		query.getNodeFilter().addProperty("type", "gene");
+		assertArrayEquals(new long[] {10}, idx.findEdges(query));
+
+		query = nodeQuery(SpecMatchMode.Source);
+		query.getNodeFilter().addRepresentTermID(200L);
+		assertArrayEquals(new long[] {10}, idx.findEdges(query));
+
+		query = nodeQuery(SpecMatchMode.Either);
+		query.getNodeFilter().addFunctionTermName("complex");
+		assertArrayEquals(new long[] {30, 10}, idx.findEdges(query));
+	}
+
+	@Test
+	public void testFindEdgesWithBothFilters() {
+		NetworkFilterIndex idx = buildTestIndex();
+		EdgeCollectionQueryODB query = nodeQuery(SpecMatchMode.Either, "c");
+		EdgeByEdgePropertyFilterODB edgeFilter = new EdgeByEdgePropertyFilterODB();
+		edgeFilter.addPredicateId(100L);
+		query.setEdgeFilter(edgeFilter);
+		assertArrayEquals(new long[] {20}, idx.findEdges(query));
+
+		// no filter matches every edge, like the scan.
+		assertArrayEquals(new long[] {30, 10, 20}, idx.findEdges(new EdgeCollectionQueryODB()));
+	}
+
+	@Test
+	public void testPropertyMatchSameOnIndexAndScan() {
+		List<List<NdexPropertyValuePair>> edgeProps = Arrays.asList(
+				Arrays.asList(new NdexPropertyValuePair("Score", "High")),
+				Arrays.asList(new NdexPropertyValuePair("score", "low")),
+				Collections.<NdexPropertyValuePair>emptyList());
+		NetworkFilterIndex.Builder builder = new NetworkFilterIndex.Builder();
+		builder.addNode(1L, "A", null, null, null);
+		for ( int i = 0; i < edgeProps.size(); i++)
+			builder.addEdge(10L + i, 100L, 1L, 1L, edgeProps.get(i));
+		NetworkFilterIndex idx = builder.build(new Date());
+
+		for ( String name : new String[] {"Score", "score", "SCORE"}) {
+			EdgeByEdgePropertyFilterODB edgeFilter = new EdgeByEdgePropertyFilterODB();
+			edgeFilter.addProperty(name, "HIGH");
+			EdgeCollectionQueryODB query = new EdgeCollectionQueryODB();
+			query.setEdgeFilter(edgeFilter);
+
+			List<Long> scanned = new ArrayList<>();
+			for ( int i = 0; i < edgeProps.size(); i++)
+				if ( NetworkFilterQueryExecutor.propertiesSatisfyFilter(edgeProps.get(i), edgeFilter))
+					scanned.add(10L + i);
+			long[] indexed = idx.findEdges(query);
+			assertEquals(1, scanned.size());
+			assertEquals(scanned.size(), indexed.length);
+			assertEquals(scanned.get(0).longValue(), indexed[0]);
+		}
+	}
+
+	@Test
+	public void testLargeIndexStaysInCache() {
+		Cache<String, NetworkFilterIndex> cache = NetworkFilterIndex.newCache(1000);
+		NetworkFilterIndex.Builder builder = new NetworkFilterIndex.Builder();
+		for ( long i = 0; i < 600; i++)
+			builder.addNode(i, "n" + i, null, null, null);
+		// heavier than a quarter of the budget, which is all a segment gets with the default concurrency level.
+		cache.put("big", builder.build(new Date()));
+		assertNotNull(cache.getIfPresent("big"));
+
+		cache.put("small", buildTestIndex());
+		assertNotNull(cache.getIfPresent("big"));
+		assertNotNull(cache.getIfPresent("small"));
+	}
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.common.util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class CancellationTokenTest {
+
+	@Test
+	public void testCancel() throws TaskCancelledException {
+		CancellationToken token = new CancellationToken("t1", 0, 0);
+		token.check(100);
+		assertFalse(token.isCancelled());
+		token.cancel("user request");
+		assertTrue(token.isCancelled());
+		try {
+			token.check(0);
+			fail("cancelled token should throw");
+		} catch (TaskCancelledException e) {
+			assertTrue(e.getMessage().contains("user request"));
+		}
+	}
+
+	@Test
+	public void testElementBudget() throws TaskCancelledException {
+		CancellationToken token = new CancellationToken("t2", 0, 10);
+		token.check(10);
+		try {
+			token.check(1);
+			fail("element budget should be enforced");
+		} catch (TaskCancelledException e) {
+			assertEquals(11, token.getElementCount());
+		}
+	}
+
+	@Test
+	public void testCheckInterval() throws TaskCancelledException {
+		CancellationToken token = new CancellationToken("t4");
+		token.check(1);
+		token.cancel(null);
+		// the flag is looked at once per interval, not on every element.
+		try {
+			for ( int i = 1; i < 2 * CancellationToken.checkInterval; i++)
+				token.check(1);
+			fail("cancelled token should throw within one interval");
+		} catch (TaskCancelledException e) {
+			assertEquals(CancellationToken.checkInterval, token.getElementCount());
+		}
+	}
+
+	@Test
+	public void testPollDoesNotCount() throws TaskCancelledException {
+		CancellationToken token = new CancellationToken("t6", 0, 10);
+		for ( int i = 0; i < 100; i++)
+			token.check(0);
+		token.check(10);
+		assertEquals(10, token.getElementCount());
+		token.cancel(null);
+		try {
+			token.check(0);
+			fail("a poll should see the cancellation");
+		} catch (TaskCancelledException e) {
+			assertEquals(10, token.getElementCount());
+		}
+	}
+
+	@Test
+	public void testStartResetsBudget() throws TaskCancelledException {
+		CancellationToken token = new CancellationToken("t5");
+		token.check(100);
+		token.start(0, 10);
+		assertEquals(0, token.getElementCount());
+		for ( int i = 0; i < 10; i++)
+			token.check(1);
+		try {
+			token.check(1);
+			fail("element budget should be enforced after start");
+		} catch (TaskCancelledException e) {
+			assertEquals(11, token.getElementCount());
+		}
+	}
+
+	@Test
+	public void testCheckpointWithoutToken() throws TaskCancelledException {
+		CancellationToken.clearCurrent();
+		CancellationToken.checkpoint(1000);
+
+		CancellationToken token = new CancellationToken("t3", 0, 0);
+		CancellationToken.setCurrent(token);
+		try {
+			CancellationToken.checkpoint(5);
+			assertEquals(5, token.getElementCount());
+		} finally {
+			CancellationToken.clearCurrent();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task;
+
+import static org.junit.Assert.*;
+
+import java.util.UUID;
+
+import org.junit.Test;
+import org.ndexbio.common.util.CancellationToken;
+import org.ndexbio.model.object.Task;
+
+public class NdexServerQueueTest {
+
+	@Test
+	public void testCancelWhileQueued() throws InterruptedException {
+		NdexServerQueue queue = NdexServerQueue.INSTANCE;
+		Task task = new Task();
+		task.setExternalId(UUID.randomUUID());
+		String taskId = task.getExternalId().toString();
+
+		assertNull(queue.getUserTaskToken(taskId));
+		queue.addUserTask(task);
+		CancellationToken token = queue.getUserTaskToken(taskId);
+		assertNotNull(token);
+
+		// a cancel request that races with the processor still reaches the processor through the token.
+		token.cancel("test");
+		Task taken = queue.takeNextUserTask();
+		assertSame(task, taken);
+		assertTrue(queue.getUserTaskToken(taskId).isCancelled());
+
+		queue.releaseUserTask(taskId);
+		assertNull(queue.getUserTaskToken(taskId));
+	}
+
+	@Test
+	public void testRemoveQueuedTask() {
+		NdexServerQueue queue = NdexServerQueue.INSTANCE;
+		Task task = new Task();
+		task.setExternalId(UUID.randomUUID());
+		String taskId = task.getExternalId().toString();
+
+		queue.addUserTask(task);
+		assertSame(task, queue.removeUserTask(taskId));
+		assertNull(queue.getUserTaskToken(taskId));
+		assertNull(queue.removeUserTask(taskId));
+	}
+}
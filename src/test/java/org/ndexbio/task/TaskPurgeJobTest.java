@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task;
+
+import static org.junit.Assert.*;
+import static org.ndexbio.common.models.dao.orientdb.TaskTestDatabase.addTask;
+
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.models.dao.orientdb.TaskDAO;
+import org.ndexbio.common.models.dao.orientdb.TaskTestDatabase;
+import org.ndexbio.model.object.Status;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+
+public class TaskPurgeJobTest {
+
+	private static ODatabaseDocumentTx db;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		db = TaskTestDatabase.create("taskPurgeJobTest");
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+		db.drop();
+	}
+
+	private static long count(Status status) {
+		List<ODocument> r = db.query(new OSQLSynchQuery<ODocument>("select count(*) from " + NdexClasses.Task + 
+				" where " + NdexClasses.Task_P_status + " = ?"), status.toString());
+		return ((Number)r.get(0).field("count")).longValue();
+	}
+
+	@Test
+	public void testRetentionPolicies() {
+		long now = System.currentTimeMillis();
+		Date old = new Date(now - TimeUnit.DAYS.toMillis(100));
+		Date recent = new Date(now - TimeUnit.DAYS.toMillis(1));
+
+		addTask(Status.QUEUED_FOR_DELETION, false, recent, recent);
+		addTask(Status.COMPLETED, false, old, old);
+		addTask(Status.COMPLETED, false, recent, recent);
+		addTask(Status.COMPLETED, true, old, old);
+		addTask(Status.FAILED, false, old, old);
+		addTask(Status.FAILED, true, old, old);
+		// active tasks are kept even when their status has a retention and they are deleted.
+		addTask(Status.QUEUED, false, null, old);
+		addTask(Status.QUEUED, true, null, old);
+		addTask(Status.STAGED, true, null, old);
+		addTask(Status.PROCESSING, false, old, old);
+		addTask(Status.PROCESSING, true, old, old);
+
+		Map<Status, Long> retention = new EnumMap<>(Status.class);
+		retention.put(Status.COMPLETED, 30L);
+		retention.put(Status.QUEUED, 0L);
+		retention.put(Status.STAGED, 0L);
+		retention.put(Status.PROCESSING, 0L);
+
+		TaskDAO dao = new TaskDAO(db);
+		// QUEUED_FOR_DELETION, the old COMPLETED and the deleted COMPLETED and FAILED tasks.
+		assertEquals(4, TaskPurgeJob.purge(dao, 2, retention, 30, now));
+		assertEquals(0, count(Status.QUEUED_FOR_DELETION));
+		assertEquals(1, count(Status.COMPLETED));
+		assertEquals(1, count(Status.FAILED));
+		assertEquals(2, count(Status.QUEUED));
+		assertEquals(1, count(Status.STAGED));
+		assertEquals(2, count(Status.PROCESSING));
+
+		// without a policy for deleted tasks nothing else goes.
+		addTask(Status.COMPLETED, true, old, old);
+		assertEquals(0, TaskPurgeJob.purge(dao, 2, retention, -1, now));
+	}
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.backup;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.junit.Test;
+import org.ndexbio.task.backup.BackupManifest.BackupType;
+
+public class BackupManifestTest {
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		File manifestFile = File.createTempFile("backup-manifest", ".json");
+		manifestFile.delete();
+
+		BackupManifest manifest = BackupManifest.load(manifestFile);
+		assertNull(manifest.getLastSuccessfulBackup());
+
+		manifest.addBackup(createEntry(BackupType.FULL, 1000, true));
+		manifest.addBackup(createEntry(BackupType.INCREMENTAL, 2000, true));
+		manifest.addBackup(createEntry(BackupType.INCREMENTAL, 3000, false));
+		manifest.save(manifestFile);
+
+		BackupManifest m2 = BackupManifest.load(manifestFile);
+		assertEquals(3, m2.getBackups().size());
+		assertEquals(2000, m2.getLastSuccessfulBackup().getStartTime().getTime());
+		assertEquals(1000, m2.getLastFullBackup().getStartTime().getTime());
+		assertEquals(BackupType.INCREMENTAL, m2.getBackups().get(2).getType());
+
+		manifestFile.delete();
+	}
+
+	@Test
+	public void testPrune() {
+		BackupManifest manifest = new BackupManifest();
+		assertEquals(0, manifest.pruneBeforeLastFullBackup());
+
+		manifest.addBackup(createEntry(BackupType.FULL, 1000, true));
+		manifest.addBackup(createEntry(BackupType.INCREMENTAL, 2000, true));
+		manifest.addBackup(createEntry(BackupType.FULL, 3000, true));
+		manifest.addBackup(createEntry(BackupType.INCREMENTAL, 4000, true));
+		manifest.addBackup(createEntry(BackupType.FULL, 5000, false));
+		manifest.addBackup(createEntry(BackupType.INCREMENTAL, 6000, true));
+
+		// the failed full backup doesn't count.
+		assertEquals(2, manifest.pruneBeforeLastFullBackup());
+		assertEquals(4, manifest.getBackups().size());
+		assertEquals(3000, manifest.getBackups().get(0).getStartTime().getTime());
+		assertEquals(0, manifest.pruneBeforeLastFullBackup());
+	}
+
+	private static BackupManifest.Entry createEntry(BackupType type, long startTime, boolean successful) {
+		BackupManifest.Entry e = new BackupManifest.Entry();
+		e.setType(type);
+		e.setStartTime(new Date(startTime));
+		e.setSuccessful(successful);
+		return e;
+	}
+}
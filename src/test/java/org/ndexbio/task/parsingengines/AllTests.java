@@ -56,7 +56,7 @@ import org.ndexbio.task.Configuration;
 
 @RunWith(Suite.class)
 @SuiteClasses({
-	ImportExportTest.class
+	ImportExportTest.class, CXConverterComparisonTest.class
 	//BioPAXParserTest.class, SifParserTest.class,
 	//	xbelParserTest.class, XgmmlParserTest.class 
 		})
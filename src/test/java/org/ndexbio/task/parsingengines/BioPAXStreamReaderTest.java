@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+import org.ndexbio.model.exceptions.NdexException;
+
+public class BioPAXStreamReaderTest {
+
+	private static final String base = "http://example.org/test#";
+
+	private static final String owl = 
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+			"  xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+			"  xmlns:bp=\"http://www.biopax.org/release/biopax-level3.owl#\"\n" +
+			"  xml:base=\"" + base + "\">\n" +
+			"<owl:Ontology rdf:about=\"\"><owl:imports rdf:resource=\"http://www.biopax.org/release/biopax-level3.owl#\"/></owl:Ontology>\n" +
+			"<bp:Protein rdf:ID=\"p1\">\n" +
+			"  <bp:displayName rdf:datatype=\"http://www.w3.org/2001/XMLSchema#string\">TP53</bp:displayName>\n" +
+			"  <bp:xref rdf:resource=\"#x1\"/>\n" +
+			"  <bp:entityReference>\n" +
+			"    <bp:ProteinReference>\n" +
+			"      <bp:name>p53</bp:name>\n" +
+			"      <bp:xref><bp:UnificationXref rdf:about=\"http://identifiers.org/uniprot/P04637\"><bp:db>UniProt</bp:db></bp:UnificationXref></bp:xref>\n" +
+			"    </bp:ProteinReference>\n" +
+			"  </bp:entityReference>\n" +
+			"</bp:Protein>\n" +
+			"<bp:PublicationXref rdf:about=\"#x1\"><bp:id>123</bp:id><bp:author>A</bp:author><bp:author>B</bp:author></bp:PublicationXref>\n" +
+			"</rdf:RDF>\n";
+
+	private static File writeFile(String content) throws IOException {
+		File f = File.createTempFile("biopax", ".owl");
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			w.write(content);
+		}
+		return f;
+	}
+
+	@Test
+	public void testElementsInDocumentOrder() throws IOException, NdexException {
+		File f = writeFile(owl);
+		try (BioPAXStreamReader reader = new BioPAXStreamReader(f)) {
+			assertEquals(base, reader.getXmlBase());
+			assertEquals(BioPAXStreamReader.bioPAXLevel3URI, reader.getNamespaces().get("bp"));
+
+			BioPAXStreamReader.Element protein = reader.next();
+			assertEquals("Protein", protein.getType());
+			assertEquals(base + "p1", protein.getRdfId());
+			assertEquals("TP53", protein.getFirstValue("displayName"));
+			BioPAXStreamReader.Property xref = protein.getProperties().get(1);
+			assertTrue(xref.isReference());
+			assertEquals(base + "x1", xref.getValue());
+
+			BioPAXStreamReader.Element reference = reader.next();
+			assertEquals("ProteinReference", reference.getType());
+			assertEquals(reference.getRdfId(), protein.getFirstValue("entityReference"));
+			assertEquals("p53", reference.getFirstValue("name"));
+
+			BioPAXStreamReader.Element uxref = reader.next();
+			assertEquals("UnificationXref", uxref.getType());
+			assertEquals("http://identifiers.org/uniprot/P04637", uxref.getRdfId());
+			assertEquals(uxref.getRdfId(), reference.getFirstValue("xref"));
+
+			BioPAXStreamReader.Element pxref = reader.next();
+			assertEquals("PublicationXref", pxref.getType());
+			assertEquals(base + "x1", pxref.getRdfId());
+			assertEquals(2, pxref.getValues("author").size());
+
+			assertNull(reader.next());
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testGeneratedIdsAreStable() throws IOException, NdexException {
+		File f = writeFile(owl);
+		try (BioPAXStreamReader r1 = new BioPAXStreamReader(f);
+			 BioPAXStreamReader r2 = new BioPAXStreamReader(f)) {
+			BioPAXStreamReader.Element e1;
+			while ( (e1 = r1.next()) != null) {
+				assertEquals(e1.getRdfId(), r2.next().getRdfId());
+			}
+			assertNull(r2.next());
+		} finally {
+			f.delete();
+		}
+	}
+}
@@ -0,0 +1,321 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NodeAttributesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.cxio.core.interfaces.AspectElement;
+import org.junit.Test;
+import org.ndexbio.common.NdexClasses;
+import org.ndexbio.common.cx.CXNetworkConverter;
+import org.ndexbio.common.models.dao.orientdb.NetworkDAO;
+import org.ndexbio.model.cx.CitationElement;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.model.object.network.Citation;
+import org.ndexbio.model.object.network.Edge;
+import org.ndexbio.model.object.network.Network;
+import org.ndexbio.model.object.network.Node;
+import org.ndexbio.xbel.splitter.XBelSplitter;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+
+/**
+ * Loads the same small file with the legacy parser and with the CX converter of its format, and checks 
+ * that both give the same nodes, edges, citations and aliases. Runs in AllTests, which sets up the database.
+ */
+public class CXConverterComparisonTest {
+
+	private static final String sif =
+			"PARTICIPANT_A\tINTERACTION_TYPE\tPARTICIPANT_B\tINTERACTION_DATA_SOURCE\tINTERACTION_PUBMED_ID\n" +
+			"A\tcontrols-state-change-of\tB\tsrc\t123;Pubmed:456\n" +
+			"B\tin-complex-with\tC\tsrc\t456\n" +
+			"C\tin-complex-with\tA\tsrc\t\n" +
+			"\n" +
+			"PARTICIPANT\tPARTICIPANT_TYPE\tPARTICIPANT_NAME\tUNIFICATION_XREF\tRELATIONSHIP_XREF\n" +
+			"A\tProteinReference\tProtein A\tUniProt:P1;HGNC:A1\tRefSeq:NP_1\n" +
+			"B\tProteinReference\tProtein B\tUniProt:P2\n";
+
+	private static final String base = "http://example.org/test#";
+
+	private static final String owl = 
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+			"  xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+			"  xmlns:bp=\"http://www.biopax.org/release/biopax-level3.owl#\"\n" +
+			"  xml:base=\"" + base + "\">\n" +
+			"<owl:Ontology rdf:about=\"\"><owl:imports rdf:resource=\"http://www.biopax.org/release/biopax-level3.owl#\"/></owl:Ontology>\n" +
+			"<bp:Protein rdf:ID=\"p1\">\n" +
+			"  <bp:displayName rdf:datatype=\"http://www.w3.org/2001/XMLSchema#string\">TP53</bp:displayName>\n" +
+			"  <bp:xref rdf:resource=\"#x1\"/>\n" +
+			"</bp:Protein>\n" +
+			"<bp:Protein rdf:ID=\"p2\">\n" +
+			"  <bp:displayName rdf:datatype=\"http://www.w3.org/2001/XMLSchema#string\">MDM2</bp:displayName>\n" +
+			"</bp:Protein>\n" +
+			"<bp:MolecularInteraction rdf:ID=\"i1\">\n" +
+			"  <bp:participant rdf:resource=\"#p1\"/>\n" +
+			"  <bp:participant rdf:resource=\"#p2\"/>\n" +
+			"  <bp:xref rdf:resource=\"#x1\"/>\n" +
+			"</bp:MolecularInteraction>\n" +
+			"<bp:PublicationXref rdf:about=\"#x1\"><bp:id>123</bp:id><bp:db>PubMed</bp:db><bp:author>A</bp:author></bp:PublicationXref>\n" +
+			"</rdf:RDF>\n";
+
+	private static final String xgmml =
+			"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+			"<graph label=\"comparison\" xmlns=\"http://www.cs.rpi.edu/XGMML\" " +
+			"xmlns:dc=\"http://purl.org/dc/elements/1.1/\" xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\">\n" +
+			"<node id=\"1\" label=\"A\"><att name=\"type\" value=\"protein\" type=\"string\"/></node>\n" +
+			"<node id=\"2\" label=\"B\"/>\n" +
+			"<node id=\"3\" label=\"C\"/>\n" +
+			"<edge id=\"4\" label=\"A (pp) B\" source=\"1\" target=\"2\"/>\n" +
+			"<edge id=\"5\" label=\"B (pp) C\" source=\"2\" target=\"3\"/>\n" +
+			"<edge id=\"6\" label=\"C (pd) A\" source=\"3\" target=\"1\"/>\n" +
+			"</graph>\n";
+
+	private static String xbelStatement(String relationship, String subject, String object) {
+		return "<bel:statement bel:relationship='" + relationship + "'>"
+				+ "<bel:subject><bel:term bel:function='proteinAbundance'><bel:parameter bel:ns='HGNC'>" + subject 
+				+ "</bel:parameter></bel:term></bel:subject>"
+				+ "<bel:object><bel:term bel:function='proteinAbundance'><bel:parameter bel:ns='HGNC'>" + object
+				+ "</bel:parameter></bel:term></bel:object>"
+				+ "</bel:statement>";
+	}
+
+	private static String xbelStatementGroup(String name, String pmid, String statements) {
+		return "<bel:statementGroup><bel:name>" + name + "</bel:name>"
+				+ "<bel:annotationGroup><bel:citation bel:type='PubMed'><bel:name>paper " + pmid + "</bel:name>"
+				+ "<bel:reference>" + pmid + "</bel:reference></bel:citation>"
+				+ "<bel:evidence>evidence of " + name + "</bel:evidence></bel:annotationGroup>"
+				+ statements + "</bel:statementGroup>";
+	}
+
+	private static final String xbel =
+			"<?xml version='1.0' encoding='UTF-8'?>"
+			+ "<bel:document xmlns:bel='" + XBelSplitter.belURI + "'>"
+			+ "<bel:header><bel:name>comparison</bel:name><bel:description>test</bel:description>"
+			+ "<bel:version>1.0</bel:version></bel:header>"
+			+ "<bel:namespaceGroup><bel:namespace bel:prefix='HGNC' bel:resourceLocation='http://example.org/hgnc.belns'/>"
+			+ "</bel:namespaceGroup>"
+			+ xbelStatementGroup("g1", "123", xbelStatement("increases", "AKT1", "MTOR") + xbelStatement("decreases", "MTOR", "TP53"))
+			+ xbelStatementGroup("g2", "456", xbelStatement("increases", "AKT1", "TP53"))
+			+ "</bel:document>";
+
+	/*
+	 * The parts of a network that are compared. Nodes are identified by their names, nodes without 
+	 * a name all have the label "".
+	 */
+	private static class Outline {
+		List<String> nodes = new ArrayList<>();
+		List<String> edges = new ArrayList<>();
+		List<String> citations = new ArrayList<>();
+		List<String> aliases = new ArrayList<>();
+
+		void sort() {
+			Collections.sort(nodes);
+			Collections.sort(edges);
+			Collections.sort(citations);
+			Collections.sort(aliases);
+		}
+	}
+
+	private static String label(String name) {
+		return name == null ? "" : name;
+	}
+
+	private static File writeFile(String content, String suffix) throws IOException {
+		File f = File.createTempFile("cxcompare", suffix);
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			w.write(content);
+		}
+		return f;
+	}
+
+	private static File writeWorkbook() throws IOException {
+		Workbook wb = new HSSFWorkbook();
+		Sheet sheet = wb.createSheet("network");
+		setRow(sheet.createRow(0), "source", "relation", "target");
+		setRow(sheet.createRow(1), "A", "pp", "B");
+		setRow(sheet.createRow(2), "B", "pp", "C");
+		setRow(sheet.createRow(3), "D");
+		setRow(sheet.createRow(4), "A", "pd", "C");
+		File f = File.createTempFile("cxcompare", ".xls");
+		f.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(f)) {
+			wb.write(out);
+		}
+		return f;
+	}
+
+	private static void setRow(Row row, String... values) {
+		for ( int i = 0 ; i < values.length; i++)
+			row.createCell(i).setCellValue(values[i]);
+	}
+
+	private static Outline legacyOutline(IParsingEngine parser) throws NdexException {
+		parser.parseFile();
+		UUID networkId = parser.getUUIDOfUploadedNetwork();
+		try (ODatabaseDocumentTx conn = AllTests.db.getAConnection()) {
+			NetworkDAO dao = new NetworkDAO(conn);
+			Network network = dao.getNetworkById(networkId);
+			Outline outline = new Outline();
+			for ( Node node : network.getNodes().values()) {
+				outline.nodes.add(label(node.getName()));
+				if ( node.getAliases() != null && !node.getAliases().isEmpty())
+					outline.aliases.add(label(node.getName()) + "=" + node.getAliases().size());
+			}
+			for ( Edge edge : network.getEdges().values()) {
+				outline.edges.add(label(network.getNodes().get(edge.getSubjectId()).getName()) + "->" + 
+						label(network.getNodes().get(edge.getObjectId()).getName()));
+			}
+			for ( Citation citation : network.getCitations().values()) 
+				outline.citations.add(citation.getIdentifier());
+			outline.sort();
+
+			dao.logicalDeleteNetwork(networkId.toString());
+			dao.deleteNetwork(networkId.toString());
+			dao.commit();
+			return outline;
+		}
+	}
+
+	private static Outline cxOutline(CXNetworkConverter converter) throws NdexException, IOException {
+		final List<AspectElement> elements = new ArrayList<>();
+		converter.convert(new CXNetworkConverter.ElementSink() {
+			@Override
+			public void write(AspectElement element) {
+				elements.add(element);
+			}
+		});
+
+		Map<Long, String> nodeNames = new HashMap<>();
+		for ( AspectElement e : elements) {
+			if ( e instanceof NodesElement)
+				nodeNames.put(((NodesElement) e).getId(), label(((NodesElement) e).getNodeName()));
+		}
+
+		Outline outline = new Outline();
+		outline.nodes.addAll(nodeNames.values());
+		for ( AspectElement e : elements) {
+			if ( e instanceof EdgesElement) {
+				EdgesElement edge = (EdgesElement) e;
+				outline.edges.add(nodeNames.get(edge.getSource()) + "->" + nodeNames.get(edge.getTarget()));
+			} else if ( e instanceof CitationElement) {
+				outline.citations.add(((CitationElement) e).getIdentifier());
+			} else if ( e instanceof NodeAttributesElement && 
+					((NodeAttributesElement) e).getName().equals(NdexClasses.Node_P_alias)) {
+				NodeAttributesElement alias = (NodeAttributesElement) e;
+				outline.aliases.add(nodeNames.get(alias.getPropertyOf().get(0)) + "=" + alias.getValues().size());
+			}
+		}
+		outline.sort();
+		return outline;
+	}
+
+	private static void assertSameNetwork(Outline expected, Outline actual) {
+		assertEquals(expected.nodes, actual.nodes);
+		assertEquals(expected.edges, actual.edges);
+		assertEquals(expected.citations, actual.citations);
+		assertEquals(expected.aliases, actual.aliases);
+	}
+
+	@Test
+	public void testSif() throws Exception {
+		File f = writeFile(sif, ".sif");
+		Outline legacy = legacyOutline(new SifParser(f.getAbsolutePath(), AllTests.testUser, AllTests.db, "comparison", ""));
+		Outline cx = cxOutline(new SifCXConverter(f, "comparison"));
+		assertEquals(3, cx.nodes.size());
+		assertEquals(3, cx.edges.size());
+		assertEquals(2, cx.citations.size());
+		assertSameNetwork(legacy, cx);
+	}
+
+	@Test
+	public void testExcel() throws Exception {
+		File f = writeWorkbook();
+		Outline legacy = legacyOutline(new ExcelParser(f.getAbsolutePath(), AllTests.testUser, AllTests.db));
+		Outline cx = cxOutline(new ExcelCXConverter(f, "comparison"));
+		assertEquals(4, cx.nodes.size());
+		assertEquals(3, cx.edges.size());
+		assertSameNetwork(legacy, cx);
+	}
+
+	@Test
+	public void testBioPAX() throws Exception {
+		File f = writeFile(owl, ".owl");
+		Outline legacy = legacyOutline(new BioPAXParser(f.getAbsolutePath(), AllTests.testUser, AllTests.db, "comparison", ""));
+		Outline cx = cxOutline(new BioPAXCXConverter(f, "comparison"));
+		assertFalse(cx.nodes.isEmpty());
+		assertSameNetwork(legacy, cx);
+	}
+
+	@Test
+	public void testXgmml() throws Exception {
+		File f = writeFile(xgmml, ".xgmml");
+		Outline legacy = legacyOutline(new XgmmlParser(f.getAbsolutePath(), AllTests.testUser, AllTests.db, "comparison", ""));
+		Outline cx = cxOutline(new XgmmlCXConverter(f, "comparison"));
+		assertEquals(3, cx.nodes.size());
+		assertEquals(3, cx.edges.size());
+		assertSameNetwork(legacy, cx);
+	}
+
+	@Test
+	public void testXbel() throws Exception {
+		File f = writeFile(xbel, ".xbel");
+		Outline legacy = legacyOutline(new XbelParser(f.getAbsolutePath(), AllTests.testUser, AllTests.db, ""));
+		Outline cx = cxOutline(new XbelCXConverter(f));
+		// the nodes are function terms without names, so only the counts tell them apart.
+		assertEquals(3, cx.nodes.size());
+		assertEquals(3, cx.edges.size());
+		assertEquals(2, cx.citations.size());
+		assertSameNetwork(legacy, cx);
+	}
+
+}
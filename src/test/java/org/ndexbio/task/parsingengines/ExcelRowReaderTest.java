@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.cxio.core.interfaces.AspectElement;
+import org.junit.Test;
+import org.ndexbio.common.cx.CXNetworkConverter;
+import org.ndexbio.model.exceptions.NdexException;
+
+public class ExcelRowReaderTest {
+
+	/*
+	 * The same small network in both formats:
+	 *   row 0  header
+	 *   row 1  A      pp     B
+	 *   row 2  1      pp     2.5      numeric cells
+	 *   row 3  C      blank           a styled blank cell and a missing cell
+	 *   row 4                         no cells at all
+	 *   row 5  D             E        missing relation
+	 *   row 6  F      pp     G        extra columns are ignored
+	 */
+	private static File writeWorkbook(Workbook wb, String suffix) throws IOException {
+		Sheet sheet = wb.createSheet("network");
+		setRow(sheet.createRow(0), "source", "relation", "target");
+		setRow(sheet.createRow(1), "A", "pp", "B");
+		Row r = sheet.createRow(2);
+		r.createCell(0).setCellValue(1.0);
+		r.createCell(1).setCellValue("pp");
+		r.createCell(2).setCellValue(2.5);
+		r = sheet.createRow(3);
+		r.createCell(0).setCellValue("C");
+		r.createCell(1).setCellType(Cell.CELL_TYPE_BLANK);
+		sheet.createRow(4);
+		r = sheet.createRow(5);
+		r.createCell(0).setCellValue("D");
+		r.createCell(2).setCellValue("E");
+		setRow(sheet.createRow(6), "F", "pp", "G", "ignored");
+		// a second sheet that must not be read.
+		setRow(wb.createSheet("other").createRow(0), "X", "pp", "Y");
+
+		File f = File.createTempFile("excelreader", suffix);
+		f.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(f)) {
+			wb.write(out);
+		}
+		return f;
+	}
+
+	private static void setRow(Row row, String... values) {
+		for ( int i = 0 ; i < values.length; i++)
+			row.createCell(i).setCellValue(values[i]);
+	}
+
+	private static List<String> readRows(File f) throws Exception {
+		final List<String> rows = new ArrayList<>();
+		new ExcelRowReader(f, 3).run(new ExcelRowReader.RowHandler() {
+			@Override
+			public void handleRow(int rowNumber, String[] cells) {
+				rows.add(rowNumber + ":" + cells[0] + "|" + cells[1] + "|" + cells[2]);
+			}
+		});
+		return rows;
+	}
+
+	private static final String[] expectedRows = {
+		"0:source|relation|target",
+		"1:A|pp|B",
+		"2:1|pp|2.5",
+		"3:C||",
+		"5:D||E",
+		"6:F|pp|G"
+	};
+
+	@Test
+	public void testXls() throws Exception {
+		File f = writeWorkbook(new HSSFWorkbook(), ".xls");
+		assertArrayEquals(expectedRows, readRows(f).toArray());
+		f.delete();
+	}
+
+	@Test
+	public void testXlsx() throws Exception {
+		File f = writeWorkbook(new XSSFWorkbook(), ".xlsx");
+		assertArrayEquals(expectedRows, readRows(f).toArray());
+		f.delete();
+	}
+
+	@Test
+	public void testFormatIsDetectedFromContent() throws Exception {
+		// an .xlsx workbook uploaded with an .xls name.
+		File f = writeWorkbook(new XSSFWorkbook(), ".xls");
+		assertArrayEquals(expectedRows, readRows(f).toArray());
+		f.delete();
+	}
+
+	private static List<AspectElement> convert(File f) throws NdexException, IOException {
+		final List<AspectElement> elements = new ArrayList<>();
+		new ExcelCXConverter(f, "excel").convert(new CXNetworkConverter.ElementSink() {
+			@Override
+			public void write(AspectElement element) {
+				elements.add(element);
+			}
+		});
+		return elements;
+	}
+
+	@Test
+	public void testHeaderRowIsSkipped() throws Exception {
+		File xls = writeWorkbook(new HSSFWorkbook(), ".xls");
+		File xlsx = writeWorkbook(new XSSFWorkbook(), ".xlsx");
+		List<String> xlsNodes = new ArrayList<>();
+		List<String> xlsxNodes = new ArrayList<>();
+		int xlsEdges = 0;
+		int xlsxEdges = 0;
+		for ( AspectElement e : convert(xls)) {
+			if ( e instanceof NodesElement)
+				xlsNodes.add(((NodesElement) e).getNodeName());
+			else if ( e instanceof EdgesElement)
+				xlsEdges++;
+		}
+		for ( AspectElement e : convert(xlsx)) {
+			if ( e instanceof NodesElement)
+				xlsxNodes.add(((NodesElement) e).getNodeName());
+			else if ( e instanceof EdgesElement)
+				xlsxEdges++;
+		}
+		xls.delete();
+		xlsx.delete();
+
+		assertFalse(xlsNodes.contains("source"));
+		assertFalse(xlsNodes.contains("target"));
+		assertEquals(3, xlsEdges);
+		assertEquals(xlsNodes, xlsxNodes);
+		assertEquals(xlsEdges, xlsxEdges);
+		assertTrue(xlsNodes.contains("1"));
+		assertTrue(xlsNodes.contains("2.5"));
+		assertTrue(xlsNodes.contains("C"));
+		assertTrue(xlsNodes.contains("D"));
+	}
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.cxio.aspects.datamodels.EdgesElement;
+import org.cxio.aspects.datamodels.NodesElement;
+import org.junit.Test;
+import org.ndexbio.model.exceptions.NdexException;
+
+public class FileToCXConverterTest {
+
+	private static File writeSif(int lines) throws IOException {
+		File f = File.createTempFile("filetocx", ".sif");
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			for ( int i = 0 ; i < lines; i++)
+				w.write("A" + i + "\tpp\tB" + i + "\n");
+		}
+		return f;
+	}
+
+	@Test
+	public void testInterleavedAspectsAreGrouped() throws IOException, NdexException {
+		// every line writes two nodes and an edge, so the nodes and edges are interleaved.
+		File f = writeSif(15000);
+		FileToCXConverter worker = new FileToCXConverter(f);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		worker.convert(out);
+
+		assertEquals(30000, worker.getElementCount(NodesElement.ASPECT_NAME));
+		assertEquals(15000, worker.getElementCount(EdgesElement.ASPECT_NAME));
+		assertEquals(3, worker.getFragmentCount(NodesElement.ASPECT_NAME));
+		assertEquals(2, worker.getFragmentCount(EdgesElement.ASPECT_NAME));
+		assertTrue(out.size() > 0);
+	}
+
+	@Test(expected = NdexException.class)
+	public void testUnsupportedExtension() throws NdexException {
+		FileToCXConverter.getConverter(new File("network.txt"));
+	}
+
+	@Test
+	public void testConverterByExtension() throws NdexException {
+		assertTrue(FileToCXConverter.getConverter(new File("n.sif")) instanceof SifCXConverter);
+		assertTrue(FileToCXConverter.getConverter(new File("n.xgmml")) instanceof XgmmlCXConverter);
+		assertTrue(FileToCXConverter.getConverter(new File("n.XLSX")) instanceof ExcelCXConverter);
+		assertTrue(FileToCXConverter.getConverter(new File("n.owl")) instanceof BioPAXCXConverter);
+	}
+
+}
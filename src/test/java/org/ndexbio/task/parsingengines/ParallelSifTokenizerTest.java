@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.ndexbio.common.util.TermStringType;
+import org.ndexbio.task.parsingengines.ParallelSifTokenizer.Term;
+
+public class ParallelSifTokenizerTest {
+
+	@Test
+	public void testLinesComeBackInOrder() throws Exception {
+		File f = File.createTempFile("parallelsif", ".sif");
+		f.deleteOnExit();
+		StringBuilder expected = new StringBuilder();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			for (int i = 0; i < 5000; i++) {
+				String line = "node" + i + "\tpp\tHGNC:G" + (i % 97) + (i % 10 == 0 ? "\r\n" : "\n");
+				w.write(line);
+				expected.append("node").append(i).append(" pp HGNC:G").append(i % 97).append('\n');
+			}
+			w.write("lonely");
+			expected.append("lonely\n");
+		}
+
+		final List<Term[]> lines = new ArrayList<>();
+		final StringBuilder actual = new StringBuilder();
+		new ParallelSifTokenizer(f, true, 3, 1000, 1000).run(new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(Term[] terms, String line) {
+				lines.add(terms);
+				for (int i = 0; i < terms.length; i++) {
+					if (i > 0)
+						actual.append(' ');
+					actual.append(terms[i].getName());
+				}
+				actual.append('\n');
+			}
+		});
+		f.delete();
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(TermStringType.NAME, lines.get(0)[0].getType());
+		assertEquals(TermStringType.CURIE, lines.get(0)[2].getType());
+		// the same term string is only analyzed once.
+		assertSame(lines.get(0)[1], lines.get(4999)[1]);
+	}
+
+	@Test
+	public void testTwoTokenLineIsReported() throws Exception {
+		File f = File.createTempFile("parallelsif", ".sif");
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			w.write("a pp b\nc pp\n");
+		}
+		final List<String> rawLines = new ArrayList<>();
+		new ParallelSifTokenizer(f, false, 2, 4, 1000).run(new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(Term[] terms, String line) {
+				rawLines.add(line);
+			}
+		});
+		f.delete();
+		assertNull(rawLines.get(0));
+		assertEquals("c pp", rawLines.get(1));
+	}
+
+	@Test
+	public void testTermTableIsBounded() throws Exception {
+		File f = File.createTempFile("parallelsif", ".sif");
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			for (int i = 0; i < 20000; i++)
+				w.write("source" + i + "\tpp\ttarget" + i + "\n");
+		}
+		final int[] count = new int[1];
+		ParallelSifTokenizer tokenizer = new ParallelSifTokenizer(f, true, 2, 50000, 500);
+		tokenizer.run(new ParallelSifTokenizer.LineHandler() {
+			@Override
+			public void handleLine(Term[] terms, String line) {
+				count[0]++;
+			}
+		});
+		f.delete();
+		assertEquals(20000, count[0]);
+		assertTrue(tokenizer.cachedTermCount() <= 500);
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+
+import org.junit.Test;
+
+public class SifLineReaderTest {
+
+	private static File writeFile(String content) throws IOException {
+		File f = File.createTempFile("sifreader", ".sif");
+		f.deleteOnExit();
+		try (Writer w = new OutputStreamWriter(new FileOutputStream(f), "UTF-8")) {
+			w.write(content);
+		}
+		return f;
+	}
+
+	private static void assertSameAsSplit(String content, boolean tabDelimited, long windowSize) throws IOException {
+		File f = writeFile(content);
+		try (SifLineReader reader = new SifLineReader(f, windowSize);
+			 BufferedReader expected = new BufferedReader(new StringReader(content))) {
+			String line;
+			while ((line = expected.readLine()) != null) {
+				String[] tokens = reader.readTokens(tabDelimited);
+				assertArrayEquals(line, tabDelimited ? line.split("\t") : line.split("\\s+"), tokens);
+				assertEquals(line, reader.currentLine());
+			}
+			assertNull(reader.readTokens(tabDelimited));
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testTokensMatchSplit() throws IOException {
+		String content = "a\tpp\tb\r\n\n  x  y z \r\tc\t\td\t\n\u00e9\u00e8 q\r\n\t\t\nlast";
+		for (long window = 16; window < 64; window += 7) {
+			assertSameAsSplit(content, true, window);
+			assertSameAsSplit(content, false, window);
+		}
+		assertSameAsSplit(content, true, 1L << 20);
+	}
+
+	@Test
+	public void testSniffing() throws IOException {
+		File f = writeFile("PARTICIPANT_A\tINTERACTION_TYPE\r\nb c d\n");
+		try (SifLineReader reader = new SifLineReader(f)) {
+			assertEquals("PARTICIPANT_A\tINTERACTION_TYPE", reader.peekFirstLine());
+			assertTrue(reader.isTabDelimited());
+			assertEquals("PARTICIPANT_A\tINTERACTION_TYPE", reader.readLine());
+			assertEquals("b c d", reader.readLine());
+			assertNull(reader.readLine());
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 30; i++)
+			sb.append("a pp b\n");
+		sb.append("a\tpp\tb\n");
+		f = writeFile(sb.toString());
+		try (SifLineReader reader = new SifLineReader(f)) {
+			assertFalse(reader.isTabDelimited());
+		}
+
+		f = writeFile("");
+		try (SifLineReader reader = new SifLineReader(f)) {
+			assertNull(reader.peekFirstLine());
+			assertNull(reader.readLine());
+		}
+	}
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2013, 2016, The Regents of the University of California, The Cytoscape Consortium
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ *    may be used to endorse or promote products derived from this software
+ *    without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package org.ndexbio.task.parsingengines;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.ndexbio.model.exceptions.NdexException;
+import org.ndexbio.xbel.model.Header;
+import org.ndexbio.xbel.model.StatementGroup;
+import org.ndexbio.xbel.splitter.HeaderSplitter;
+import org.ndexbio.xbel.splitter.XBelSplitter;
+import org.ndexbio.xbel.splitter.XbelSectionDispatcher;
+import org.xml.sax.SAXException;
+
+/*
+ * Tests the single pass read of XBEL documents: the dispatch of the sections to the splitters and
+ * the inline schema validation.
+ */
+public class XbelSinglePassTest {
+
+	private static JAXBContext context;
+
+	// a cut down XBEL schema: a header, an optional namespace group, then statement groups.
+	private static final String schemaText = 
+			"<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' xmlns:bel='" + XBelSplitter.belURI + "'"
+			+ " targetNamespace='" + XBelSplitter.belURI + "' elementFormDefault='qualified'>"
+			+ "<xs:complexType name='anyContent'><xs:sequence>"
+			+ "<xs:any namespace='##any' processContents='skip' minOccurs='0' maxOccurs='unbounded'/>"
+			+ "</xs:sequence><xs:anyAttribute processContents='skip'/></xs:complexType>"
+			+ "<xs:element name='document'><xs:complexType><xs:sequence>"
+			+ "<xs:element name='header' type='bel:anyContent'/>"
+			+ "<xs:element name='namespaceGroup' type='bel:anyContent' minOccurs='0'/>"
+			+ "<xs:element name='statementGroup' type='bel:anyContent' minOccurs='0' maxOccurs='unbounded'/>"
+			+ "</xs:sequence></xs:complexType></xs:element></xs:schema>";
+
+	private static String statementGroup(String name) {
+		return "<bel:statementGroup><bel:name>" + name + "</bel:name>"
+				+ "<bel:statement bel:relationship='increases'>"
+				+ "<bel:subject><bel:term bel:function='proteinAbundance'><bel:parameter bel:ns='HGNC'>AKT1</bel:parameter>"
+				+ "</bel:term></bel:subject>"
+				+ "<bel:object><bel:term bel:function='proteinAbundance'><bel:parameter bel:ns='HGNC'>MTOR</bel:parameter>"
+				+ "</bel:term></bel:object>"
+				+ "</bel:statement></bel:statementGroup>";
+	}
+
+	private static String document(String afterHeader) {
+		return "<?xml version='1.0' encoding='UTF-8'?>"
+				+ "<bel:document xmlns:bel='" + XBelSplitter.belURI + "'>"
+				+ "<bel:header><bel:name>Single pass test</bel:name><bel:description>test</bel:description>"
+				+ "<bel:version>1.0</bel:version></bel:header>"
+				+ afterHeader
+				+ statementGroup("g1") + statementGroup("g2") + statementGroup("g3")
+				+ "</bel:document>";
+	}
+
+	private static final String validDocument = document(
+			"<bel:namespaceGroup><bel:namespace bel:prefix='HGNC' bel:resourceLocation='http://example.org/hgnc.belns'/>"
+			+ "</bel:namespaceGroup>");
+
+	// an unknown element between the header and the statement groups.
+	private static final String invalidDocument = document("<bel:unknownGroup/>");
+
+	/*
+	 * Records the name of each statement group it processes; fails on the group with the given name.
+	 */
+	private static class RecordingSplitter extends XBelSplitter {
+		private final List<String> events;
+		private final String failOn;
+
+		RecordingSplitter(List<String> events, String failOn, boolean abortOnError) {
+			super(context, "statementGroup");
+			this.events = events;
+			this.failOn = failOn;
+			this.abortOnError = abortOnError;
+		}
+
+		@Override
+		protected void process() throws JAXBException, NdexException {
+			String name = ((StatementGroup) unmarshallerHandler.getResult()).getName();
+			if ( name.equals(failOn))
+				throw new NdexException("Failed to process statement group " + name);
+			events.add(name);
+		}
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		context = JAXBContext.newInstance("org.ndexbio.xbel.model");
+	}
+
+	private static Schema schema() throws SAXException {
+		return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+				.newSchema(new StreamSource(new StringReader(schemaText)));
+	}
+
+	private static String writeFile(String text) throws IOException {
+		File f = File.createTempFile("xbel-test", ".xbel");
+		f.deleteOnExit();
+		Files.write(f.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		return f.getAbsolutePath();
+	}
+
+	private static XbelSectionDispatcher dispatcher(final List<String> events, String failOn, boolean abortOnError) {
+		HeaderSplitter headerSplitter = new HeaderSplitter(context, new HeaderSplitter.HeaderListener() {
+			@Override
+			public void headerParsed(Header header) {
+				events.add("header:" + header.getName());
+			}
+		});
+		return new XbelSectionDispatcher(headerSplitter, new RecordingSplitter(events, failOn, abortOnError));
+	}
+
+	@Test
+	public void testValidDocument() throws Exception {
+		List<String> events = new ArrayList<>();
+		XbelParser.readDocument(writeFile(validDocument), schema(), dispatcher(events, null, true));
+		// the header is processed before any statement group.
+		assertEquals(Arrays.asList("header:Single pass test", "g1", "g2", "g3"), events);
+	}
+
+	@Test
+	public void testSchemaViolationWithInlineValidation() throws Exception {
+		List<String> events = new ArrayList<>();
+		try {
+			XbelParser.readDocument(writeFile(invalidDocument), schema(), dispatcher(events, null, true));
+			fail("the document doesn't match the schema.");
+		} catch (NdexException e) {
+			assertTrue(e.getMessage().startsWith("XBEL file fails XML schema validation"));
+		}
+		// the read stops at the violation.
+		assertEquals(Arrays.asList("header:Single pass test"), events);
+	}
+
+	@Test
+	public void testSchemaViolationWithoutInlineValidation() throws Exception {
+		// the document is validated up front in this mode, the read itself doesn't check the schema.
+		List<String> events = new ArrayList<>();
+		XbelParser.readDocument(writeFile(invalidDocument), null, dispatcher(events, null, true));
+		assertEquals(Arrays.asList("header:Single pass test", "g1", "g2", "g3"), events);
+	}
+
+	@Test
+	public void testErrorInStatementGroupAborts() throws Exception {
+		List<String> events = new ArrayList<>();
+		try {
+			XbelParser.readDocument(writeFile(validDocument), schema(), dispatcher(events, "g2", true));
+			fail("the second statement group fails.");
+		} catch (SAXException e) {
+			assertTrue(e.getMessage().contains("g2"));
+		}
+		assertEquals(Arrays.asList("header:Single pass test", "g1"), events);
+	}
+
+	@Test
+	public void testErrorInStatementGroupIsSkipped() throws Exception {
+		List<String> events = new ArrayList<>();
+		XbelParser.readDocument(writeFile(validDocument), schema(), dispatcher(events, "g2", false));
+		assertEquals(Arrays.asList("header:Single pass test", "g1", "g3"), events);
+	}
+}